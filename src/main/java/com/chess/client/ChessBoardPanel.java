@@ -256,24 +256,16 @@ public class ChessBoardPanel extends JPanel {
             g2d.fillRect(endCol * SQUARE_SIZE, endRow * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
         }
         
-        // Highlight the square of checked king
-        if (chessBoard.isInCheck(chessBoard.getCurrentTurn())) {
-            // Find the king position
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                for (int col = 0; col < BOARD_SIZE; col++) {
-                    ChessPiece piece = chessBoard.getPiece(row, col);
-                    if (piece != null && 
-                        piece.getType() == ChessPiece.PieceType.KING && 
-                        piece.getColor() == chessBoard.getCurrentTurn()) {
-                        
-                        int drawRow = boardFlipped ? (BOARD_SIZE - 1 - row) : row;
-                        int drawCol = boardFlipped ? (BOARD_SIZE - 1 - col) : col;
-                        
-                        g2d.setColor(CHECK_INDICATOR_COLOR);
-                        g2d.fillRect(drawCol * SQUARE_SIZE, drawRow * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
-                    }
-                }
-            }
+        // Highlight the square of checked king; both answers are cached by
+        // the board, so the flash timer's repaints don't recompute them
+        Point checkedKing = chessBoard.isCurrentTurnInCheck()
+                ? chessBoard.getKingSquare(chessBoard.getCurrentTurn()) : null;
+        if (checkedKing != null) {
+            int drawRow = boardFlipped ? (BOARD_SIZE - 1 - checkedKing.x) : checkedKing.x;
+            int drawCol = boardFlipped ? (BOARD_SIZE - 1 - checkedKing.y) : checkedKing.y;
+            
+            g2d.setColor(CHECK_INDICATOR_COLOR);
+            g2d.fillRect(drawCol * SQUARE_SIZE, drawRow * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
         }
         
         // Eğer waiting for opponent durumu varsa, taşların seçilebilirliğini devre dışı bırak
@@ -500,365 +492,9 @@ public class ChessBoardPanel extends JPanel {
             return;
         }
         
-        // Check if king is in check
-        boolean isInCheck = chessBoard.isInCheck(playerColor);
-        
-        // Calculate all potential moves
-        List<Point> potentialMoves = new ArrayList<>();
-        
-        switch (piece.getType()) {
-            case PAWN:
-                calculatePawnMovesInternal(row, col, piece, potentialMoves);
-                break;
-            case ROOK:
-                calculateRookMovesInternal(row, col, piece, potentialMoves);
-                break;
-            case KNIGHT:
-                calculateKnightMovesInternal(row, col, piece, potentialMoves);
-                break;
-            case BISHOP:
-                calculateBishopMovesInternal(row, col, piece, potentialMoves);
-                break;
-            case QUEEN:
-                calculateQueenMovesInternal(row, col, piece, potentialMoves);
-                break;
-            case KING:
-                calculateKingMovesInternal(row, col, piece, potentialMoves);
-                break;
-        }
-        
-        // For each potential move, check if it's legal using isLegalMove
-        // Our isLegalMove method now handles special cases like capturing a checking piece
-                for (Point move : potentialMoves) {
-                    if (isLegalMove(row, col, move.x, move.y, playerColor)) {
-                        validMoves.add(move);
-            }
-        }
-    }
-    
-    private void calculatePawnMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        int direction = (piece.getColor() == ChessPiece.PieceColor.WHITE) ? -1 : 1;
-        
-        // Forward movement
-        if (chessBoard.isValidPosition(row + direction, col) && 
-                chessBoard.getPiece(row + direction, col) == null) {
-            moves.add(new Point(row + direction, col));
-            
-            // Can move two squares forward on first move
-            if (!piece.hasMoved() && 
-                    chessBoard.isValidPosition(row + 2 * direction, col) && 
-                    chessBoard.getPiece(row + 2 * direction, col) == null) {
-                moves.add(new Point(row + 2 * direction, col));
-            }
-        }
-        
-        // Diagonal capture moves
-        for (int offset : new int[]{-1, 1}) {
-            if (chessBoard.isValidPosition(row + direction, col + offset)) {
-                ChessPiece targetPiece = chessBoard.getPiece(row + direction, col + offset);
-                if (targetPiece != null && targetPiece.getColor() != piece.getColor()) {
-                    moves.add(new Point(row + direction, col + offset));
-                } 
-                // En passant check
-                else if (targetPiece == null && 
-                        chessBoard.wasLastMoveDoublePawnPush() && 
-                        chessBoard.getLastPawnMoveRow() == row && 
-                        chessBoard.getLastPawnMoveCol() == col + offset) {
-                    moves.add(new Point(row + direction, col + offset));
-                }
-            }
-        }
-    }
-    
-    private void calculateRookMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        // Rook moves in straight lines (horizontal and vertical)
-        calculateStraightMovesInternal(row, col, piece, true, false, moves);
-    }
-    
-    private void calculateBishopMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        // Bishop moves diagonally
-        calculateStraightMovesInternal(row, col, piece, false, true, moves);
-    }
-    
-    private void calculateQueenMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        // Queen moves both straight and diagonally
-        calculateStraightMovesInternal(row, col, piece, true, true, moves);
-    }
-    
-    private void calculateStraightMovesInternal(int row, int col, ChessPiece piece, boolean straightLines, boolean diagonalLines, List<Point> moves) {
-        // Straight movements (horizontal and vertical)
-        if (straightLines) {
-            int[][] directions = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}}; // Right, down, left, up
-            
-            for (int[] dir : directions) {
-                for (int i = 1; i < BOARD_SIZE; i++) {
-                    int newRow = row + i * dir[0];
-                    int newCol = col + i * dir[1];
-                    
-                    if (!chessBoard.isValidPosition(newRow, newCol)) {
-                        break;
-                    }
-                    
-                    ChessPiece targetPiece = chessBoard.getPiece(newRow, newCol);
-                    if (targetPiece == null) {
-                        moves.add(new Point(newRow, newCol));
-                    } else {
-                        if (targetPiece.getColor() != piece.getColor()) {
-                            moves.add(new Point(newRow, newCol));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        
-        // Diagonal movements
-        if (diagonalLines) {
-            int[][] directions = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}}; // Down-right, down-left, up-left, up-right
-            
-            for (int[] dir : directions) {
-                for (int i = 1; i < BOARD_SIZE; i++) {
-                    int newRow = row + i * dir[0];
-                    int newCol = col + i * dir[1];
-                    
-                    if (!chessBoard.isValidPosition(newRow, newCol)) {
-                        break;
-                    }
-                    
-                    ChessPiece targetPiece = chessBoard.getPiece(newRow, newCol);
-                    if (targetPiece == null) {
-                        moves.add(new Point(newRow, newCol));
-                    } else {
-                        if (targetPiece.getColor() != piece.getColor()) {
-                            moves.add(new Point(newRow, newCol));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-    }
-    
-    private void calculateKnightMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        // Knight moves in L-shapes
-        int[][] knightMoves = {
-            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
-            {1, -2}, {1, 2}, {2, -1}, {2, 1}
-        };
-        
-        for (int[] move : knightMoves) {
-            int newRow = row + move[0];
-            int newCol = col + move[1];
-            
-            if (chessBoard.isValidPosition(newRow, newCol)) {
-                ChessPiece targetPiece = chessBoard.getPiece(newRow, newCol);
-                if (targetPiece == null || targetPiece.getColor() != piece.getColor()) {
-                    moves.add(new Point(newRow, newCol));
-                }
-            }
-        }
-    }
-    
-    private void calculateKingMovesInternal(int row, int col, ChessPiece piece, List<Point> moves) {
-        // King moves one square in any direction
-        int[][] kingMoves = {
-            {-1, -1}, {-1, 0}, {-1, 1},
-            {0, -1},           {0, 1},
-            {1, -1},  {1, 0},  {1, 1}
-        };
-        
-        for (int[] move : kingMoves) {
-            int newRow = row + move[0];
-            int newCol = col + move[1];
-            
-            if (chessBoard.isValidPosition(newRow, newCol)) {
-                ChessPiece targetPiece = chessBoard.getPiece(newRow, newCol);
-                
-                // Check for opponent's piece
-                if (targetPiece == null || targetPiece.getColor() != piece.getColor()) {
-                    // King's destination square must not be under attack
-                    if (canMoveTo(piece.getColor(), newRow, newCol)) {
-                        moves.add(new Point(newRow, newCol));
-                    }
-                }
-            }
-        }
-        
-        // Check for castling (simplified)
-        if (!piece.hasMoved()) {
-            // Short castling
-            if (canCastle(row, col, true)) {
-                moves.add(new Point(row, col + 2));
-            }
-            
-            // Long castling
-            if (canCastle(row, col, false)) {
-                moves.add(new Point(row, col - 2));
-            }
-        }
-    }
-    
-    // Check if the king can safely move to the position
-    private boolean canMoveTo(ChessPiece.PieceColor kingColor, int targetRow, int targetCol) {
-        // Temporarily store the target piece
-        ChessPiece targetPiece = chessBoard.getPiece(targetRow, targetCol);
-        
-        // If there's an opponent's piece at the target square, we need to remove it temporarily
-        if (targetPiece != null) {
-            chessBoard.setPiece(targetRow, targetCol, null);
-        }
-        
-        // Check if king is under attack at this position
-        boolean isSafe = !isSquareUnderAttack(targetRow, targetCol, kingColor);
-        
-        // Restore the target square
-        if (targetPiece != null) {
-            chessBoard.setPiece(targetRow, targetCol, targetPiece);
-        }
-        
-        return isSafe;
-    }
-    
-    // Check if the king of the specified color is under attack
-    private boolean isKingUnderAttack(ChessPiece.PieceColor kingColor) {
-        // Find the king's position
-        int kingRow = -1, kingCol = -1;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = chessBoard.getPiece(row, col);
-                if (piece != null && 
-                    piece.getType() == ChessPiece.PieceType.KING && 
-                    piece.getColor() == kingColor) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) break;
-        }
-        
-        if (kingRow == -1 || kingCol == -1) {
-            return false; // King not found (shouldn't happen)
-        }
-        
-        // Check if the king is under attack
-        return isSquareUnderAttack(kingRow, kingCol, kingColor);
-    }
-    
-    // Check if a square is under attack for the specified color player
-    private boolean isSquareUnderAttack(int targetRow, int targetCol, ChessPiece.PieceColor kingColor) {
-        ChessPiece.PieceColor opponentColor = (kingColor == ChessPiece.PieceColor.WHITE) ? 
-                ChessPiece.PieceColor.BLACK : ChessPiece.PieceColor.WHITE;
-        
-        // First check for pawn attacks directly - pawns only attack diagonally
-        if (kingColor == ChessPiece.PieceColor.WHITE) {
-            // Check for black pawns attacking diagonally (from above)
-            for (int colOffset : new int[]{-1, 1}) {
-                int newRow = targetRow - 1;
-                int newCol = targetCol + colOffset;
-                
-                if (chessBoard.isValidPosition(newRow, newCol)) {
-                    ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                    if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                        piece.getColor() == ChessPiece.PieceColor.BLACK) {
-                        System.out.println("DEBUG: Found attacking BLACK pawn at " + newRow + "," + newCol);
-                        return true;
-                    }
-                }
-            }
-        } else {
-            // Check for white pawns attacking diagonally (from below)
-            for (int colOffset : new int[]{-1, 1}) {
-                int newRow = targetRow + 1;
-                int newCol = targetCol + colOffset;
-                
-                if (chessBoard.isValidPosition(newRow, newCol)) {
-                    ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                    if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                        piece.getColor() == ChessPiece.PieceColor.WHITE) {
-                        System.out.println("DEBUG: Found attacking WHITE pawn at " + newRow + "," + newCol);
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        // Check attacks along straight lines (rook and queen)
-        int[][] straightDirections = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
-        for (int[] dir : straightDirections) {
-            for (int i = 1; i < BOARD_SIZE; i++) {
-                int newRow = targetRow + i * dir[0];
-                int newCol = targetCol + i * dir[1];
-                
-                if (!chessBoard.isValidPosition(newRow, newCol)) break;
-                
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null) {
-                    if (piece.getColor() == opponentColor) {
-                        ChessPiece.PieceType type = piece.getType();
-                        if (i == 1 && type == ChessPiece.PieceType.KING) {
-                            return true; // Opponent king is adjacent
-                        }
-                        if (type == ChessPiece.PieceType.ROOK || type == ChessPiece.PieceType.QUEEN) {
-                            return true; // Threatened by rook or queen
-                        }
-                    }
-                    break; // Stop if a piece is in the way
-                }
-            }
-        }
-        
-        // Check diagonal attacks (bishop and queen - note: pawn is handled separately above)
-        int[][] diagonalDirections = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
-        for (int[] dir : diagonalDirections) {
-            for (int i = 1; i < BOARD_SIZE; i++) {
-                int newRow = targetRow + i * dir[0];
-                int newCol = targetCol + i * dir[1];
-                
-                if (!chessBoard.isValidPosition(newRow, newCol)) break;
-                
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null) {
-                    if (piece.getColor() == opponentColor) {
-                        ChessPiece.PieceType type = piece.getType();
-                        if (i == 1 && type == ChessPiece.PieceType.KING) {
-                            return true; // Opponent king is diagonally adjacent
-                        }
-                        // Note: Pawn is now handled separately at the beginning
-                        if (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.QUEEN) {
-                            return true; // Threatened by bishop or queen
-                        }
-                    }
-                    break; // Stop if a piece is in the way
-                }
-            }
-        }
-        
-        // Knight threat check
-        int[][] knightMoves = {
-            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
-            {1, -2}, {1, 2}, {2, -1}, {2, 1}
-        };
-        
-        for (int[] move : knightMoves) {
-            int newRow = targetRow + move[0];
-            int newCol = targetCol + move[1];
-            
-            if (chessBoard.isValidPosition(newRow, newCol)) {
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null && piece.getColor() == opponentColor && 
-                    piece.getType() == ChessPiece.PieceType.KNIGHT) {
-                    return true; // Knight threat
-                }
-            }
-        }
-        
-        return false; // Square is not under attack
-    }
-    
-    private boolean canCastle(int row, int col, boolean kingSide) {
-        // ... existing code ...
-        return false; // ... existing code ...
+        // The board computes every legal move of the position once and shares it
+        // with move validation and the check indicator
+        validMoves.addAll(chessBoard.getLegalMoves(row, col));
     }
     
     private void drawValidMoveIndicators(Graphics2D g2d) {
@@ -1009,7 +645,7 @@ public class ChessBoardPanel extends JPanel {
             ChessPiece piece = chessBoard.getPiece(startRow, startCol);
             
             // First check if the move is legal according to the rules
-            if (!isLegalMove(startRow, startCol, endRow, endCol, playerColor)) {
+            if (!chessBoard.getLegalMoves(startRow, startCol).contains(new Point(endRow, endCol))) {
                 System.out.println("Invalid move: Does not resolve check situation.");
                 
                 // Show the invalid move with a purple highlight that will flash
@@ -1097,258 +733,6 @@ public class ChessBoardPanel extends JPanel {
         return playerColor;
     }
     
-    // Find all pieces checking the king
-    private List<Point> findCheckingPieces(ChessPiece.PieceColor kingColor) {
-        List<Point> checkingPieces = new ArrayList<>();
-        
-        // Find the king's position
-        int kingRow = -1, kingCol = -1;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = chessBoard.getPiece(row, col);
-                if (piece != null && 
-                    piece.getType() == ChessPiece.PieceType.KING && 
-                    piece.getColor() == kingColor) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) break;
-        }
-        
-        if (kingRow == -1) return checkingPieces; // King not found
-        
-        ChessPiece.PieceColor opponentColor = (kingColor == ChessPiece.PieceColor.WHITE) ? 
-                ChessPiece.PieceColor.BLACK : ChessPiece.PieceColor.WHITE;
-        
-        // Check attacks along straight lines (horizontal, vertical - rook and queen)
-        int[][] straightDirections = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
-        for (int[] dir : straightDirections) {
-            for (int i = 1; i < BOARD_SIZE; i++) {
-                int newRow = kingRow + i * dir[0];
-                int newCol = kingCol + i * dir[1];
-                
-                if (!chessBoard.isValidPosition(newRow, newCol)) break;
-                
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null) {
-                    if (piece.getColor() == opponentColor) {
-                        ChessPiece.PieceType type = piece.getType();
-                        if (type == ChessPiece.PieceType.ROOK || type == ChessPiece.PieceType.QUEEN) {
-                            checkingPieces.add(new Point(newRow, newCol));
-                        }
-                    }
-                    break; // Stop if a piece is in the way
-                }
-            }
-        }
-        
-        // Check attacks along diagonals (diagonal - bishop, queen, and pawn)
-        int[][] diagonalDirections = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
-        for (int[] dir : diagonalDirections) {
-            for (int i = 1; i < BOARD_SIZE; i++) {
-                int newRow = kingRow + i * dir[0];
-                int newCol = kingCol + i * dir[1];
-                
-                if (!chessBoard.isValidPosition(newRow, newCol)) break;
-                
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null) {
-                    if (piece.getColor() == opponentColor) {
-                        ChessPiece.PieceType type = piece.getType();
-                        if (i == 1 && type == ChessPiece.PieceType.PAWN) {
-                            // Pawn attack - pawns only check when moving in the correct direction
-                            // White pawns check from bottom to top (dir[0] < 0)
-                            // Black pawns check from top to bottom (dir[0] > 0)
-                            if ((opponentColor == ChessPiece.PieceColor.WHITE && dir[0] < 0) ||
-                                (opponentColor == ChessPiece.PieceColor.BLACK && dir[0] > 0)) {
-                                checkingPieces.add(new Point(newRow, newCol));
-                            }
-                        }
-                        if (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.QUEEN) {
-                            checkingPieces.add(new Point(newRow, newCol));
-                        }
-                    }
-                    break; // Stop if a piece is in the way
-                }
-            }
-        }
-        
-        // Knight attack check
-        int[][] knightMoves = {
-            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
-            {1, -2}, {1, 2}, {2, -1}, {2, 1}
-        };
-        
-        for (int[] move : knightMoves) {
-            int newRow = kingRow + move[0];
-            int newCol = kingCol + move[1];
-            
-            if (chessBoard.isValidPosition(newRow, newCol)) {
-                ChessPiece piece = chessBoard.getPiece(newRow, newCol);
-                if (piece != null && piece.getColor() == opponentColor && 
-                    piece.getType() == ChessPiece.PieceType.KNIGHT) {
-                    checkingPieces.add(new Point(newRow, newCol));
-                }
-            }
-        }
-        
-        return checkingPieces;
-    }
-    
-    // Check if the move blocks the check by creating a block between king and checking piece
-    private boolean isBlockingCheck(int startRow, int startCol, int endRow, int endCol, ChessPiece.PieceColor kingColor) {
-        // Find the king's position
-        int kingRow = -1, kingCol = -1;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = chessBoard.getPiece(row, col);
-                if (piece != null && 
-                    piece.getType() == ChessPiece.PieceType.KING && 
-                    piece.getColor() == kingColor) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) break;
-        }
-        
-        if (kingRow == -1) return false; // King not found
-        
-        // Find the position of the checking piece
-        List<Point> checkingPieces = findCheckingPieces(kingColor);
-        if (checkingPieces.isEmpty()) return false;
-        
-        Point checkingPiece = checkingPieces.get(0);
-        
-        // Only straight line (rook, queen) or diagonal line (bishop, queen) threats can be blocked
-        // Knight and pawn threats cannot be blocked, they must be captured directly
-        ChessPiece piece = chessBoard.getPiece(checkingPiece.x, checkingPiece.y);
-        if (piece == null || piece.getType() == ChessPiece.PieceType.KNIGHT || piece.getType() == ChessPiece.PieceType.PAWN) {
-            return false;
-        }
-        
-        // Find the path from checking piece to king
-        int rowDir = Integer.compare(kingRow - checkingPiece.x, 0);
-        int colDir = Integer.compare(kingCol - checkingPiece.y, 0);
-        
-        // Check every square on the path
-        int row = checkingPiece.x + rowDir;
-        int col = checkingPiece.y + colDir;
-        
-        while (row != kingRow || col != kingCol) {
-            if (row == endRow && col == endCol) {
-                return true; // Creating a block on the path
-            }
-            row += rowDir;
-            col += colDir;
-        }
-        
-        return false;
-    }
-    
-    // Check if a move is legal (doesn't put the king in danger)
-    private boolean isLegalMove(int startRow, int startCol, int endRow, int endCol, ChessPiece.PieceColor color) {
-        // Check if it's a valid movement
-        ChessPiece piece = chessBoard.getPiece(startRow, startCol);
-        ChessPiece capturedPiece = chessBoard.getPiece(endRow, endCol);
-        
-        // Is the piece color correct?
-        if (piece == null || piece.getColor() != color) {
-            return false;
-        }
-        
-        // Is the target square within board boundaries?
-        if (!chessBoard.isValidPosition(endRow, endCol)) {
-            return false;
-        }
-        
-        // Is there one of our own pieces at the target square?
-        if (capturedPiece != null && capturedPiece.getColor() == color) {
-            return false;
-        }
-        
-        // If there's a check situation and the target square is the checking piece,
-        // capturing the checking piece is always a legal move (including pinned pieces)
-        if (chessBoard.isInCheck(color)) {
-            List<Point> checkingPieces = findCheckingPieces(color);
-            for (Point checkingPiece : checkingPieces) {
-                if (checkingPiece.x == endRow && checkingPiece.y == endCol) {
-                    // This is a move that captures a checking piece
-                    // Make the move temporarily for testing
-                    ChessPiece originalPiece = piece;
-                    ChessPiece originalCapturedPiece = capturedPiece;
-                    
-                    // Move the piece temporarily
-                    chessBoard.setPiece(endRow, endCol, piece);
-                    chessBoard.setPiece(startRow, startCol, null);
-                    
-                    // Check if our king is under attack after this move
-                    boolean kingInCheck = isKingUnderAttack(color);
-                    
-                    // Restore pieces to original positions
-                    chessBoard.setPiece(startRow, startCol, originalPiece);
-                    chessBoard.setPiece(endRow, endCol, originalCapturedPiece);
-                    
-                    // If our king is not in danger after the move, it's a legal move
-                    return !kingInCheck;
-                }
-            }
-        }
-        
-        // Make the move temporarily for testing
-        // Save original pieces
-        ChessPiece originalPiece = piece;
-        ChessPiece originalCapturedPiece = capturedPiece;
-        
-        // Move the piece temporarily
-        chessBoard.setPiece(endRow, endCol, piece);
-        chessBoard.setPiece(startRow, startCol, null);
-        
-        // Special case: En passant
-        ChessPiece enPassantCapturedPiece = null;
-        int enPassantRow = -1, enPassantCol = -1;
-        
-        if (piece.getType() == ChessPiece.PieceType.PAWN && 
-            startCol != endCol && 
-            capturedPiece == null) {
-            
-            // This could be an en passant capture
-            enPassantRow = startRow;
-            enPassantCol = endCol;
-            enPassantCapturedPiece = chessBoard.getPiece(enPassantRow, enPassantCol);
-            
-            if (enPassantCapturedPiece != null && 
-                enPassantCapturedPiece.getType() == ChessPiece.PieceType.PAWN &&
-                chessBoard.wasLastMoveDoublePawnPush() &&
-                chessBoard.getLastPawnMoveRow() == startRow &&
-                chessBoard.getLastPawnMoveCol() == endCol) {
-                
-                // Temporarily remove the pawn captured by en passant
-                chessBoard.setPiece(enPassantRow, enPassantCol, null);
-            } else {
-                enPassantCapturedPiece = null;
-            }
-        }
-        
-        // Check if our king is under attack after this move
-        boolean kingInCheck = isKingUnderAttack(color);
-        
-        // Restore pieces to original positions
-        chessBoard.setPiece(startRow, startCol, originalPiece);
-        chessBoard.setPiece(endRow, endCol, originalCapturedPiece);
-        
-        // Restore en passant piece
-        if (enPassantCapturedPiece != null) {
-            chessBoard.setPiece(enPassantRow, enPassantCol, enPassantCapturedPiece);
-        }
-        
-        // If our king is in danger after the move, it's not a legal move
-        return !kingInCheck;
-    }
-    
     // Helper function for debugging
     private void debugUIState(String context) {
         System.out.println("==== DEBUG (" + context + ") ====");
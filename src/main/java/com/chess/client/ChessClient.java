@@ -24,6 +24,11 @@ public class ChessClient {
     private boolean connected;
     private String currentGameId;
     private String currentGameType;
+    // Resume state for the current game: token from GAME_START and the last ply we have applied
+    private volatile String resumeToken;
+    private volatile int lastPly;
+    private static final int RESUME_ATTEMPTS = 5;
+    private static final long RESUME_RETRY_DELAY = 2000;
     private final Gson gson = new Gson();
     
     public ChessClient(String host, int port, String username) {
@@ -34,10 +39,7 @@ public class ChessClient {
     }
     
     public void connect() throws IOException {
-        socket = new Socket(host, port);
-        writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
-        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
-        connected = true;
+        openSocket();
         
         // Kullanıcı adını sunucuya gönder
         Message connectMessage = new Message(Message.MessageType.CONNECT, username);
@@ -47,6 +49,82 @@ public class ChessClient {
         startListening();
     }
     
+    private void openSocket() throws IOException {
+        socket = new Socket(host, port);
+        writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        connected = true;
+    }
+    
+    /**
+     * Reconnect after a dropped connection and take our seat back with the
+     * resume token. The server replies with RESUME and replays only the moves
+     * after {@link #lastPly}.
+     */
+    private boolean resume() {
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS && resumeToken != null; attempt++) {
+            try {
+                Thread.sleep(RESUME_RETRY_DELAY);
+                openSocket();
+                Message resumeMessage = new Message(Message.MessageType.RESUME);
+                resumeMessage.setResumeToken(resumeToken);
+                resumeMessage.setPly(lastPly);
+                sendMessage(resumeMessage);
+                startListening();
+                System.out.println("Reconnected, resuming from ply " + lastPly);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Resume attempt " + attempt + " failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tracks the resume token and the last applied ply. Returns false for a
+     * move we already have, which can be replayed twice around a resume.
+     */
+    private boolean trackGameState(Message message) {
+        switch (message.getType()) {
+            case GAME_START:
+                if (message.getResumeToken() != null) {
+                    resumeToken = message.getResumeToken();
+                    lastPly = 0;
+                }
+                break;
+            case RESUME:
+                if (message.getResumeToken() == null && message.getGameId() == null) {
+                    // Resume refused; the game is gone
+                    resumeToken = null;
+                }
+                break;
+            case SPECTATE:
+                // The snapshot already holds the moves up to its ply
+                if (message.getPly() != null) {
+                    lastPly = message.getPly();
+                }
+                break;
+            case MOVE:
+                if (message.getPly() != null) {
+                    if (message.getMove() != null && message.getPly() <= lastPly) {
+                        return false;
+                    }
+                    lastPly = Math.max(lastPly, message.getPly());
+                }
+                break;
+            case GAME_END:
+                resumeToken = null;
+                lastPly = 0;
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+    
     public void disconnect() {
         if (connected) {
             try {
@@ -87,12 +165,17 @@ public class ChessClient {
                         
                         // Handle ping messages automatically
                         if (message.getType() == Message.MessageType.PING) {
-                            // Respond with a pong message
+                            // Respond with a pong message, echoing the timestamp for the server's RTT estimate
                             Message pongMessage = new Message(Message.MessageType.PONG);
+                            pongMessage.setTimestamp(message.getTimestamp());
                             sendMessage(pongMessage);
                             continue; // Don't pass ping messages to the client's listener
                         }
                         
+                        if (!trackGameState(message)) {
+                            continue;
+                        }
+                        
                         // Handle ERROR messages that should disconnect
                         if (message.getType() == Message.MessageType.ERROR) {
                             // Pass the message to the listener first
@@ -118,7 +201,14 @@ public class ChessClient {
             } catch (IOException e) {
                 if (connected) {
                     System.err.println("Sunucu bağlantısı kesildi: " + e.getMessage());
-                    connected = false;
+                }
+            }
+            
+            // An unexpected drop during a game: try to take the seat back
+            if (connected) {
+                connected = false;
+                if (resumeToken != null && !resume() && messageListener != null) {
+                    messageListener.accept(new Message(Message.MessageType.DISCONNECT, "Connection to the server was lost."));
                 }
             }
         });
@@ -160,6 +250,61 @@ public class ChessClient {
         sendMessage(drawMessage);
     }
     
+    public void sendAnalyzeRequest(String fen, int multiPv) {
+        Message analyzeMessage = new Message(Message.MessageType.ANALYZE);
+        analyzeMessage.setFen(fen);
+        analyzeMessage.setMultiPv(multiPv);
+        analyzeMessage.setGameId(currentGameId);
+        analyzeMessage.setSender(username);
+        sendMessage(analyzeMessage);
+    }
+    
+    public void sendFindMatchRequest(String gameType) {
+        Message findMatchMessage = new Message(Message.MessageType.FIND_MATCH);
+        findMatchMessage.setGameType(gameType);
+        findMatchMessage.setSender(username);
+        sendMessage(findMatchMessage);
+    }
+    
+    public void sendCancelMatchRequest() {
+        Message cancelMessage = new Message(Message.MessageType.CANCEL_MATCH);
+        cancelMessage.setSender(username);
+        sendMessage(cancelMessage);
+    }
+    
+    public void sendSpectateRequest(String gameId) {
+        Message spectateMessage = new Message(Message.MessageType.SPECTATE);
+        spectateMessage.setGameId(gameId);
+        spectateMessage.setSender(username);
+        sendMessage(spectateMessage);
+    }
+    
+    public void sendStopSpectating() {
+        Message unspectateMessage = new Message(Message.MessageType.UNSPECTATE);
+        unspectateMessage.setSender(username);
+        sendMessage(unspectateMessage);
+    }
+    
+    /**
+     * Ask for a game, live or finished, as PGN; the reply's content is the PGN text.
+     */
+    public void sendExportPgnRequest(String gameId) {
+        Message exportMessage = new Message(Message.MessageType.EXPORT_PGN);
+        exportMessage.setGameId(gameId);
+        exportMessage.setSender(username);
+        sendMessage(exportMessage);
+    }
+    
+    /**
+     * Ask for the moves played from a position in archived games.
+     */
+    public void sendExploreRequest(String fen) {
+        Message exploreMessage = new Message(Message.MessageType.EXPLORE);
+        exploreMessage.setFen(fen);
+        exploreMessage.setSender(username);
+        sendMessage(exploreMessage);
+    }
+    
     public void handleOpponentDisconnection() {
         Message disconnectMessage = new Message(Message.MessageType.DISCONNECT);
         disconnectMessage.setContent("Opponent disconnected");
@@ -25,6 +25,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 
 import com.chess.common.ChessMove;
@@ -32,6 +33,7 @@ import com.chess.common.ChessPiece;
 import com.chess.common.Message;
 import com.chess.common.Message.GameInfo;
 import com.chess.client.util.UIUtils;
+import com.chess.engine.Position;
 
 public class ChessClientSwing {
     private JFrame frame;
@@ -46,6 +48,7 @@ public class ChessClientSwing {
     
     // Game components
     private JLabel statusLabel;
+    private JLabel clockLabel;
     private JTextArea chatArea;
     private JTextField chatInput;
     private ChessBoardPanel chessBoardPanel;
@@ -53,6 +56,12 @@ public class ChessClientSwing {
     private ChessClient client;
     private boolean isInGame = false;
     
+    // Last clock snapshot from the server and when it arrived; the side to move
+    // is counted down locally between updates
+    private long[] clockMillis;
+    private long clockReceivedAt;
+    private Timer clockTimer;
+    
     public ChessClientSwing() {
         initialize();
     }
@@ -100,6 +109,21 @@ public class ChessClientSwing {
                 joinGame(game.getId());
             }
             
+            @Override
+            public void onFindMatch(String gameType) {
+                if (client != null && client.isConnected()) {
+                    client.sendFindMatchRequest(gameType);
+                    lobbyPanel.setSearchingForMatch(true);
+                }
+            }
+            
+            @Override
+            public void onCancelMatch() {
+                if (client != null && client.isConnected()) {
+                    client.sendCancelMatchRequest();
+                }
+            }
+            
             @Override
             public void onLogout() {
                 logout();
@@ -166,6 +190,15 @@ public class ChessClientSwing {
         rightPanel.add(statusLabel);
         rightPanel.add(Box.createVerticalStrut(10));
 
+        // Clock label (only shown for timed games)
+        clockLabel = new JLabel(" ");
+        clockLabel.setFont(new Font("Monospaced", Font.BOLD, 14));
+        clockLabel.setAlignmentX(java.awt.Component.LEFT_ALIGNMENT);
+        rightPanel.add(clockLabel);
+        rightPanel.add(Box.createVerticalStrut(10));
+        
+        clockTimer = new Timer(200, e -> refreshClockLabel());
+
         // Chat area
         JLabel chatLabel = new JLabel("Chat");
         chatLabel.setAlignmentX(java.awt.Component.LEFT_ALIGNMENT);
@@ -193,6 +226,14 @@ public class ChessClientSwing {
         rightPanel.add(chatInput);
         rightPanel.add(Box.createVerticalStrut(20));
 
+        // Analyze button - asks the server engine for the best lines in the current position
+        JButton analyzeButton = new JButton("Analyze Position");
+        UIUtils.setNeutralButtonStyle(analyzeButton);
+        analyzeButton.setAlignmentX(java.awt.Component.LEFT_ALIGNMENT);
+        UIUtils.setButtonSize(analyzeButton, 230, 40);
+        analyzeButton.addActionListener(e -> requestAnalysis());
+        rightPanel.add(analyzeButton);
+
         // Leave game button
         JButton leaveButton = new JButton("Leave Game");
         UIUtils.setDangerButtonStyle(leaveButton);
@@ -251,9 +292,15 @@ public class ChessClientSwing {
                 }
                 break;
             case GAME_START:
+                if (lobbyPanel != null) {
+                    lobbyPanel.setSearchingForMatch(false);
+                }
                 if (message.getPlayerInfo() != null) {
                     chessBoardPanel.setPlayerColor(message.getPlayerInfo().getColor());
                 }
+                if (message.getClock() != null) {
+                    updateClock(message.getClock());
+                }
                 updateStatus(message.getContent());
                 showGamePanel();
                 
@@ -280,6 +327,13 @@ public class ChessClientSwing {
                 }
                 break;
             case MOVE:
+                if (message.getClock() != null) {
+                    updateClock(message.getClock());
+                }
+                if (message.getMove() == null && message.getContent() == null) {
+                    // Clock update for our own move
+                    break;
+                }
                 if (message.getMove() != null) {
                     chessBoardPanel.makeMove(message.getMove());
                     // Hamleden sonra, oyuncunun sırası geldiyse tahtanın kilidini aç
@@ -300,6 +354,10 @@ public class ChessClientSwing {
                 }
                 break;
             case GAME_END:
+                if (message.getClock() != null) {
+                    updateClock(message.getClock());
+                }
+                clockTimer.stop();
                 updateStatus(message.getContent());
                 chessBoardPanel.setLocked(true); // Oyun bittiğinde tahtayı kilitle
                 showGameEndDialog(message.getContent());
@@ -310,8 +368,31 @@ public class ChessClientSwing {
             case DISCONNECT:
                 updateStatus(message.getContent());
                 if (isInGame) {
-                    chessBoardPanel.setLocked(true); // Rakip ayrıldığında tahtayı kilitle
-                    showGameEndDialog("Opponent left the game. Game over.");
+                    if (client.isConnected()) {
+                        // The server keeps the game open for the opponent to resume
+                        chessBoardPanel.handleOpponentDisconnection();
+                    } else {
+                        chessBoardPanel.setLocked(true);
+                        showGameEndDialog("Connection to the server was lost. Game over.");
+                    }
+                }
+                break;
+            case RESUME:
+                updateStatus(message.getContent());
+                if (message.getResumeToken() != null) {
+                    // We are back in our game; missed moves follow as MOVE messages
+                    if (message.getClock() != null) {
+                        updateClock(message.getClock());
+                    }
+                    chessBoardPanel.setStatusMessage("game in progress");
+                    chessBoardPanel.setLocked(chessBoardPanel.getBoard().getCurrentTurn() != chessBoardPanel.getPlayerColor());
+                } else if (message.getGameId() != null) {
+                    // The opponent is back
+                    chessBoardPanel.handleOpponentReconnection();
+                    chessBoardPanel.setLocked(chessBoardPanel.getBoard().getCurrentTurn() != chessBoardPanel.getPlayerColor());
+                } else if (isInGame) {
+                    chessBoardPanel.setLocked(true);
+                    showGameEndDialog(message.getContent());
                 }
                 break;
             case DELETE_GAME:
@@ -335,7 +416,8 @@ public class ChessClientSwing {
                         gameInfos.add(new com.chess.client.LobbyPanel.GameInfo(
                                 game.getId(), 
                                 game.getHostName(), 
-                                game.getGameType()));
+                                game.getGameType(),
+                                game.getHostRating()));
                     }
                     lobbyPanel.updateGameList(gameInfos);
                     System.out.println("Updated game list with " + 
@@ -343,12 +425,82 @@ public class ChessClientSwing {
                                       " games");
                 }
                 break;
+            case ANALYZE:
+                showAnalysis(message);
+                break;
+            case FIND_MATCH:
+                if (lobbyPanel != null) {
+                    lobbyPanel.setStatusMessage(message.getContent());
+                }
+                break;
+            case CANCEL_MATCH:
+                if (lobbyPanel != null) {
+                    lobbyPanel.setSearchingForMatch(false);
+                    lobbyPanel.setStatusMessage(message.getContent());
+                }
+                break;
             default:
                 System.out.println("Unknown message type: " + message.getType());
                 break;
         }
     }
     
+    private void updateClock(long[] clock) {
+        clockMillis = clock;
+        clockReceivedAt = System.currentTimeMillis();
+        refreshClockLabel();
+        if (!clockTimer.isRunning()) {
+            clockTimer.start();
+        }
+    }
+    
+    private void refreshClockLabel() {
+        if (clockMillis == null || clockMillis.length < 2) {
+            clockLabel.setText(" ");
+            return;
+        }
+        long white = clockMillis[0];
+        long black = clockMillis[1];
+        if (clockTimer.isRunning()) {
+            long elapsed = System.currentTimeMillis() - clockReceivedAt;
+            if (chessBoardPanel.getBoard().getCurrentTurn() == ChessPiece.PieceColor.WHITE) {
+                white = Math.max(0, white - elapsed);
+            } else {
+                black = Math.max(0, black - elapsed);
+            }
+        }
+        clockLabel.setText("White " + formatClock(white) + "  Black " + formatClock(black));
+    }
+    
+    private static String formatClock(long millis) {
+        long seconds = (millis + 999) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+    
+    private void requestAnalysis() {
+        if (client != null && client.isConnected()) {
+            String fen = Position.fromBoard(chessBoardPanel.getBoard()).toFen();
+            client.sendAnalyzeRequest(fen, 3);
+            chatArea.append("Analyzing position...\n");
+        }
+    }
+    
+    private void showAnalysis(Message message) {
+        if (message.getAnalysisLines() == null) {
+            chatArea.append("Analysis: " + message.getContent() + "\n");
+            return;
+        }
+        
+        int lineNumber = 1;
+        for (Message.AnalysisLine line : message.getAnalysisLines()) {
+            String score = line.getMateIn() != null
+                    ? "#" + line.getMateIn()
+                    : String.format("%+.2f", line.getScore() / 100.0);
+            chatArea.append("Analysis " + lineNumber++ + " (" + score + ", depth " + line.getDepth() + "): "
+                    + String.join(" ", line.getMoves()) + "\n");
+        }
+    }
+    
     private void createGame(String gameType) {
         if (client != null && client.isConnected()) {
             Message createGameMessage = new Message(Message.MessageType.CREATE_GAME);
@@ -455,6 +607,15 @@ public class ChessClientSwing {
             client.setCurrentGameType(null);
         }
         
+        // Reset clock
+        clockMillis = null;
+        if (clockTimer != null) {
+            clockTimer.stop();
+        }
+        if (clockLabel != null) {
+            clockLabel.setText(" ");
+        }
+        
         // Reset status label
         if (statusLabel != null) {
             statusLabel.setText("Game connected. Waiting for the game to start...");
@@ -9,12 +9,14 @@ import java.awt.Insets;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 
 import com.chess.client.util.UIUtils;
+import com.chess.common.TimeControl;
 
 /**
  * Panel for creating a new chess game
@@ -25,10 +27,11 @@ public class CreateGamePanel extends JDialog {
     private CreateGameListener createGameListener;
     private JButton createButton;
     private JButton cancelButton;
+    private JComboBox<String> timeControlBox;
     
     public CreateGamePanel() {
         setTitle("Create Game");
-        setSize(400, 250);
+        setSize(400, 300);
         setLocationRelativeTo(null);
         setModal(true);
         setResizable(false);
@@ -52,9 +55,19 @@ public class CreateGamePanel extends JDialog {
         
         // Description
         JLabel descriptionLabel = new JLabel("Create a multiplayer game room. Another player will be able to join.", SwingConstants.CENTER);
-        gbc.insets = new Insets(0, 0, 20, 0);
+        gbc.insets = new Insets(0, 0, 10, 0);
         contentPanel.add(descriptionLabel, gbc);
         
+        // Time control selection
+        timeControlBox = new JComboBox<>();
+        timeControlBox.setName("timeControlBox");
+        timeControlBox.addItem(TimeControl.describe(TimeControl.STANDARD));
+        for (TimeControl timeControl : TimeControl.values()) {
+            timeControlBox.addItem(timeControl.getLabel());
+        }
+        gbc.insets = new Insets(0, 60, 20, 60);
+        contentPanel.add(timeControlBox, gbc);
+        
         // Button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 0));
         
@@ -72,7 +85,7 @@ public class CreateGamePanel extends JDialog {
         UIUtils.setPrimaryButtonStyle(createButton);
         createButton.addActionListener(e -> {
             if (createGameListener != null) {
-                createGameListener.onCreateGame("standard");
+                createGameListener.onCreateGame(getSelectedGameType());
             }
             dispose();
         });
@@ -85,8 +98,10 @@ public class CreateGamePanel extends JDialog {
     }
     
     public String getSelectedGameType() {
-        // Always return standard since we removed time controls
-        return "standard";
+        // Index 0 is the untimed standard game, the rest follow TimeControl.values()
+        int index = timeControlBox.getSelectedIndex();
+        TimeControl[] timeControls = TimeControl.values();
+        return index > 0 && index <= timeControls.length ? timeControls[index - 1].getName() : TimeControl.STANDARD;
     }
     
     public void setCreateGameListener(CreateGameListener listener) {
@@ -17,6 +17,7 @@ import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -32,6 +33,7 @@ import javax.swing.table.DefaultTableModel;
 
 import com.chess.client.util.UIUtils;
 import com.chess.common.Message;
+import com.chess.common.TimeControl;
 
 public class LobbyPanel extends JPanel {
     private static final long serialVersionUID = 1L;
@@ -43,6 +45,9 @@ public class LobbyPanel extends JPanel {
     private JButton refreshButton;
     private JButton joinButton;
     private JButton createButton;
+    private JButton findMatchButton;
+    private JComboBox<String> matchTimeControlBox;
+    private boolean searchingForMatch;
     private JLabel userInfoLabel;
     private JLabel statusLabel;
     private JPanel emptyGamesPanel;
@@ -74,6 +79,10 @@ public class LobbyPanel extends JPanel {
         JPanel createGamePanel = createCreateGameTab();
         tabbedPane.addTab("Create Game", createGamePanel);
         
+        // Quick Match tab
+        JPanel quickMatchPanel = createQuickMatchTab();
+        tabbedPane.addTab("Quick Match", quickMatchPanel);
+        
         add(tabbedPane, BorderLayout.CENTER);
         
         // Status bar
@@ -133,7 +142,7 @@ public class LobbyPanel extends JPanel {
                 new Font("Arial", Font.BOLD, 14)));
         
         // Create the table model with column names
-        String[] columnNames = {"Host", "Game Type", "Created At"};
+        String[] columnNames = {"Host", "Rating", "Game Type", "Created At"};
         gameTableModel = new DefaultTableModel(columnNames, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -227,10 +236,10 @@ public class LobbyPanel extends JPanel {
         JPanel createGamePanel = new JPanel(new BorderLayout());
         createGamePanel.setBorder(new EmptyBorder(20, 20, 20, 20));
         
-        // Simple panel with a central "Create Game" button
+        // Central "Create Game" button plus one button per time control
         JPanel centerPanel = new JPanel(new GridBagLayout());
         
-        JLabel instructionLabel = new JLabel("Click the button below to create a new standard chess game");
+        JLabel instructionLabel = new JLabel("Create a standard game or pick a time control");
         instructionLabel.setFont(new Font("Arial", Font.BOLD, 16));
         instructionLabel.setHorizontalAlignment(SwingConstants.CENTER);
         
@@ -239,7 +248,17 @@ public class LobbyPanel extends JPanel {
         UIUtils.setPrimaryButtonStyle(createGameButton);
         createGameButton.setFont(new Font("Arial", Font.BOLD, 18));
         UIUtils.setButtonSize(createGameButton, 200, 50);
-        createGameButton.addActionListener(e -> createGameWithTimeControl("standard"));
+        createGameButton.addActionListener(e -> createGameWithTimeControl(TimeControl.STANDARD));
+        
+        JPanel timeControlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        for (TimeControl timeControl : TimeControl.values()) {
+            JButton timeControlButton = new JButton(timeControl.getLabel());
+            timeControlButton.setName("create" + timeControl.getLabel().replaceAll("[^A-Za-z0-9]", "") + "GameButton");
+            UIUtils.setNeutralButtonStyle(timeControlButton);
+            UIUtils.setButtonSize(timeControlButton, 130, 40);
+            timeControlButton.addActionListener(e -> createGameWithTimeControl(timeControl.getName()));
+            timeControlPanel.add(timeControlButton);
+        }
         
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.gridwidth = GridBagConstraints.REMAINDER;
@@ -250,11 +269,84 @@ public class LobbyPanel extends JPanel {
         gbc.insets = new Insets(30, 0, 10, 0);
         centerPanel.add(createGameButton, gbc);
         
+        gbc.insets = new Insets(10, 0, 10, 0);
+        centerPanel.add(timeControlPanel, gbc);
+        
         createGamePanel.add(centerPanel, BorderLayout.CENTER);
         
         return createGamePanel;
     }
     
+    private JPanel createQuickMatchTab() {
+        JPanel quickMatchPanel = new JPanel(new BorderLayout());
+        quickMatchPanel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        
+        JPanel centerPanel = new JPanel(new GridBagLayout());
+        
+        JLabel instructionLabel = new JLabel("Get paired with a player of similar rating");
+        instructionLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        instructionLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        
+        matchTimeControlBox = new JComboBox<>();
+        matchTimeControlBox.setName("matchTimeControlBox");
+        matchTimeControlBox.addItem(TimeControl.describe(TimeControl.STANDARD));
+        for (TimeControl timeControl : TimeControl.values()) {
+            matchTimeControlBox.addItem(timeControl.getLabel());
+        }
+        
+        findMatchButton = new JButton("Find Match");
+        findMatchButton.setName("findMatchButton");
+        UIUtils.setPrimaryButtonStyle(findMatchButton);
+        findMatchButton.setFont(new Font("Arial", Font.BOLD, 18));
+        UIUtils.setButtonSize(findMatchButton, 200, 50);
+        findMatchButton.addActionListener(e -> toggleMatchSearch());
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridwidth = GridBagConstraints.REMAINDER;
+        gbc.insets = new Insets(10, 0, 30, 0);
+        centerPanel.add(instructionLabel, gbc);
+        
+        gbc.insets = new Insets(10, 0, 10, 0);
+        centerPanel.add(matchTimeControlBox, gbc);
+        
+        gbc.insets = new Insets(20, 0, 10, 0);
+        centerPanel.add(findMatchButton, gbc);
+        
+        quickMatchPanel.add(centerPanel, BorderLayout.CENTER);
+        
+        return quickMatchPanel;
+    }
+    
+    private void toggleMatchSearch() {
+        if (lobbyListener == null) {
+            return;
+        }
+        if (searchingForMatch) {
+            lobbyListener.onCancelMatch();
+        } else {
+            // Index 0 is the untimed standard game, the rest follow TimeControl.values()
+            int index = matchTimeControlBox.getSelectedIndex();
+            TimeControl[] timeControls = TimeControl.values();
+            String gameType = index > 0 && index <= timeControls.length
+                    ? timeControls[index - 1].getName() : TimeControl.STANDARD;
+            lobbyListener.onFindMatch(gameType);
+        }
+    }
+    
+    /**
+     * Switch the Quick Match button between "Find Match" and "Cancel Search"
+     */
+    public void setSearchingForMatch(boolean searching) {
+        searchingForMatch = searching;
+        findMatchButton.setText(searching ? "Cancel Search" : "Find Match");
+        if (searching) {
+            UIUtils.setDangerButtonStyle(findMatchButton);
+        } else {
+            UIUtils.setPrimaryButtonStyle(findMatchButton);
+        }
+        matchTimeControlBox.setEnabled(!searching);
+    }
+    
     private void refreshGameList() {
         statusLabel.setText("Refreshing game list...");
         
@@ -296,7 +388,7 @@ public class LobbyPanel extends JPanel {
             // Populate table with game data
             for (GameInfo game : games) {
                 String host = game.getHostName();
-                String gameType = "standard";
+                String gameType = TimeControl.describe(game.getGameType());
                 
                 // Format creation time
                 SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
@@ -305,6 +397,7 @@ public class LobbyPanel extends JPanel {
                 // Add row to table
                 gameTableModel.addRow(new Object[]{
                     host,
+                    game.getHostRating(),
                     gameType,
                     creationTime
                 });
@@ -326,8 +419,9 @@ public class LobbyPanel extends JPanel {
     
     // Helper method to determine the game type from time control
     private String determineGameType(String timeControl) {
-        // Always return standard type
-        return "standard";
+        // Unknown or missing time controls fall back to an untimed game
+        TimeControl control = TimeControl.fromGameType(timeControl);
+        return control != null ? control.getName() : TimeControl.STANDARD;
     }
     
     private void joinSelectedGame() {
@@ -341,13 +435,12 @@ public class LobbyPanel extends JPanel {
     }
     
     /**
-     * Create game with specified time control - this now ignores the timeControl parameter
-     * and always creates a standard chess game
+     * Create game with the specified time control ("bullet", "blitz", "rapid"
+     * or "standard" for an untimed game)
      */
     private void createGameWithTimeControl(String timeControl) {
-        // Always create a standard game regardless of the timeControl parameter
         if (lobbyListener != null) {
-            lobbyListener.onCreateGame("standard");
+            lobbyListener.onCreateGame(determineGameType(timeControl));
         }
     }
     
@@ -377,6 +470,8 @@ public class LobbyPanel extends JPanel {
     public interface LobbyListener {
         void onCreateGame(String gameType);
         void onJoinGame(GameInfo game);
+        void onFindMatch(String gameType);
+        void onCancelMatch();
         void onLogout();
     }
     
@@ -387,12 +482,18 @@ public class LobbyPanel extends JPanel {
         private String id;
         private String hostName;
         private String gameType;
+        private int hostRating;
         private long creationTime;
         
         public GameInfo(String id, String hostName, String gameType) {
+            this(id, hostName, gameType, Message.PlayerInfo.DEFAULT_RATING);
+        }
+        
+        public GameInfo(String id, String hostName, String gameType, int hostRating) {
             this.id = id;
             this.hostName = hostName;
             this.gameType = gameType;
+            this.hostRating = hostRating;
             this.creationTime = System.currentTimeMillis();
         }
         
@@ -408,6 +509,10 @@ public class LobbyPanel extends JPanel {
             return gameType;
         }
         
+        public int getHostRating() {
+            return hostRating;
+        }
+        
         public long getCreationTime() {
             return creationTime;
         }
@@ -3,6 +3,7 @@ package com.chess.common;
 import java.awt.Point;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ChessBoard implements Serializable {
@@ -27,8 +28,21 @@ public class ChessBoard implements Serializable {
     private int halfMoveClock = 0;
     private List<String> boardPositions = new ArrayList<>();
     
+    // Where the pieces stand, kept in step with the board by put(): per colour
+    // (by ordinal) a bit for each occupied square (row * 8 + col), and the
+    // king's square or -1
+    private long[] pieceSquares;
+    private int[] kingSquares;
+    
+    // Derived from the position and worked out on first use after each change
+    // to it: legal targets of the side to move by square, and per colour
+    // whether it is in check and whether it has a legal move
+    private transient List<List<Point>> legalMoves;
+    private transient Boolean[] inCheck;
+    private transient Boolean[] canMove;
+    
     public ChessBoard() {
-        board = new ChessPiece[BOARD_SIZE][BOARD_SIZE];
+        clearBoard();
         currentTurn = ChessPiece.PieceColor.WHITE; // White starts
         gameOver = false;
         whitePlayerName = "White Player";
@@ -40,37 +54,94 @@ public class ChessBoard implements Serializable {
         boardPositions.add(getBoardPositionString());
     }
     
+    /**
+     * Copies another board, pieces included, so moves can be tried on the
+     * copy without touching the original.
+     */
+    public ChessBoard(ChessBoard other) {
+        clearBoard();
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                ChessPiece piece = other.board[row][col];
+                if (piece != null) {
+                    ChessPiece copy = new ChessPiece(piece.getType(), piece.getColor());
+                    copy.setHasMoved(piece.hasMoved());
+                    put(row, col, copy);
+                }
+            }
+        }
+        currentTurn = other.currentTurn;
+        gameOver = other.gameOver;
+        gameResult = other.gameResult;
+        whitePlayerName = other.whitePlayerName;
+        blackPlayerName = other.blackPlayerName;
+        lastPawnMoveRow = other.lastPawnMoveRow;
+        lastPawnMoveCol = other.lastPawnMoveCol;
+        lastMoveWasDoublePawnPush = other.lastMoveWasDoublePawnPush;
+        halfMoveClock = other.halfMoveClock;
+        boardPositions = new ArrayList<>(other.boardPositions);
+    }
+    
     private void initializeBoard() {
         // Place pieces in their starting positions
         
         // White pieces
-        board[7][0] = new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.WHITE);
-        board[7][1] = new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.WHITE);
-        board[7][2] = new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE);
-        board[7][3] = new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.WHITE);
-        board[7][4] = new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.WHITE);
-        board[7][5] = new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE);
-        board[7][6] = new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.WHITE);
-        board[7][7] = new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.WHITE);
+        put(7, 0, new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.WHITE));
+        put(7, 1, new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.WHITE));
+        put(7, 2, new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE));
+        put(7, 3, new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.WHITE));
+        put(7, 4, new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.WHITE));
+        put(7, 5, new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE));
+        put(7, 6, new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.WHITE));
+        put(7, 7, new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.WHITE));
         
         // White pawns
         for (int col = 0; col < BOARD_SIZE; col++) {
-            board[6][col] = new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.WHITE);
+            put(6, col, new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.WHITE));
         }
         
         // Black pieces
-        board[0][0] = new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.BLACK);
-        board[0][1] = new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.BLACK);
-        board[0][2] = new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.BLACK);
-        board[0][3] = new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.BLACK);
-        board[0][4] = new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.BLACK);
-        board[0][5] = new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.BLACK);
-        board[0][6] = new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.BLACK);
-        board[0][7] = new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.BLACK);
+        put(0, 0, new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.BLACK));
+        put(0, 1, new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.BLACK));
+        put(0, 2, new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.BLACK));
+        put(0, 3, new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.BLACK));
+        put(0, 4, new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.BLACK));
+        put(0, 5, new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.BLACK));
+        put(0, 6, new ChessPiece(ChessPiece.PieceType.KNIGHT, ChessPiece.PieceColor.BLACK));
+        put(0, 7, new ChessPiece(ChessPiece.PieceType.ROOK, ChessPiece.PieceColor.BLACK));
         
         // Black pawns
         for (int col = 0; col < BOARD_SIZE; col++) {
-            board[1][col] = new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.BLACK);
+            put(1, col, new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.BLACK));
+        }
+    }
+    
+    private void clearBoard() {
+        board = new ChessPiece[BOARD_SIZE][BOARD_SIZE];
+        pieceSquares = new long[2];
+        kingSquares = new int[] {-1, -1};
+    }
+    
+    // Every write to the board goes through here so the piece squares and
+    // king squares follow it, temporary trial moves included
+    private void put(int row, int col, ChessPiece piece) {
+        int square = row * BOARD_SIZE + col;
+        long bit = 1L << square;
+        ChessPiece old = board[row][col];
+        if (old != null) {
+            int color = old.getColor().ordinal();
+            pieceSquares[color] &= ~bit;
+            if (old.getType() == ChessPiece.PieceType.KING && kingSquares[color] == square) {
+                kingSquares[color] = -1;
+            }
+        }
+        board[row][col] = piece;
+        if (piece != null) {
+            int color = piece.getColor().ordinal();
+            pieceSquares[color] |= bit;
+            if (piece.getType() == ChessPiece.PieceType.KING) {
+                kingSquares[color] = square;
+            }
         }
     }
     
@@ -83,7 +154,8 @@ public class ChessBoard implements Serializable {
     
     public void setPiece(int row, int col, ChessPiece piece) {
         if (isValidPosition(row, col)) {
-            board[row][col] = piece;
+            put(row, col, piece);
+            positionChanged();
         }
     }
     
@@ -108,31 +180,14 @@ public class ChessBoard implements Serializable {
         // Hamle doğrulaması: Eğer hamle yapan oyuncu şah çekme durumundaysa, 
         // sadece şahı tehditten kurtaran hamlelere izin verilir
         if (piece != null && isInCheck(piece.getColor())) {
-            System.out.println("DEBUG MOVE: Attempting move while in check. Current piece: " + 
-                          piece.getType() + " from " + startRow + "," + startCol + 
-                          " to " + endRow + "," + endCol);
-            
             // Önce saldıran taşları bul
-            int kingRow = -1, kingCol = -1;
-            // Find the king's position
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                for (int col = 0; col < BOARD_SIZE; col++) {
-                    ChessPiece boardPiece = board[row][col];
-                    if (boardPiece != null && 
-                        boardPiece.getType() == ChessPiece.PieceType.KING && 
-                        boardPiece.getColor() == piece.getColor()) {
-                        kingRow = row;
-                        kingCol = col;
-                        break;
-                    }
-                }
-                if (kingRow != -1) break;
-            }
+            Point king = kingSquare(piece.getColor());
+            int kingRow = king != null ? king.x : -1;
+            int kingCol = king != null ? king.y : -1;
             
             // If king is found, get the attackers
             if (kingRow != -1) {
                 List<Point> attackers = findAttackingPieces(kingRow, kingCol, piece.getColor());
-                System.out.println("DEBUG MOVE: Found " + attackers.size() + " attackers against the king");
                 
                 // If king is not moving, check if this move helps resolve the check
                 if (piece.getType() != ChessPiece.PieceType.KING) {
@@ -143,13 +198,9 @@ public class ChessBoard implements Serializable {
                         Point attacker = attackers.get(0);
                         ChessPiece attackingPiece = board[attacker.x][attacker.y];
                         
-                        System.out.println("DEBUG MOVE: Attacker is " + attackingPiece.getType() + 
-                                     " at " + attacker.x + "," + attacker.y);
-                        
                         // Check if we're capturing the attacker
                         if (endRow == attacker.x && endCol == attacker.y) {
                             validMove = true;
-                            System.out.println("DEBUG MOVE: This move captures the attacker");
                         } 
                         // If the attacker is not a knight or pawn, check if we can block
                         else if (attackingPiece.getType() != ChessPiece.PieceType.KNIGHT && 
@@ -158,17 +209,13 @@ public class ChessBoard implements Serializable {
                             for (Point blockSquare : blockingSquares) {
                                 if (endRow == blockSquare.x && endCol == blockSquare.y) {
                                     validMove = true;
-                                    System.out.println("DEBUG MOVE: This move blocks the attack");
                                     break;
                                 }
                             }
-                        } else {
-                            System.out.println("DEBUG MOVE: Cannot block a knight or pawn attack, must capture or move king");
                         }
                     }
                     
                     if (!validMove) {
-                        System.out.println("DEBUG MOVE: Move rejected, does not resolve check");
                         return; // Not a valid move to resolve check
                     }
                 }
@@ -188,7 +235,7 @@ public class ChessBoard implements Serializable {
                     endCol == lastPawnMoveCol) {
                     
                     tempCapturedPiece = board[startRow][endCol];
-                    board[startRow][endCol] = null; // Temporary removal of captured pawn
+                    put(startRow, endCol, null); // Temporary removal of captured pawn
                     isEnPassant = true;
                 }
             }
@@ -216,38 +263,35 @@ public class ChessBoard implements Serializable {
                 rook = board[startRow][rookStartCol];
                 
                 // Temporarily move rook
-                board[startRow][rookEndCol] = rook;
-                board[startRow][rookStartCol] = null;
+                put(startRow, rookEndCol, rook);
+                put(startRow, rookStartCol, null);
             }
             
             // Geçici olarak hamleyi uygula
-            board[endRow][endCol] = piece;
-            board[startRow][startCol] = null;
+            put(endRow, endCol, piece);
+            put(startRow, startCol, null);
             
             // Hamle sonrası şah hala tehdit altında mı kontrol et
-            boolean stillInCheck = isInCheck(piece.getColor());
+            boolean stillInCheck = isKingAttacked(piece.getColor());
             
             // Hamleyi geri al
-            board[startRow][startCol] = piece;
-            board[endRow][endCol] = capturedPiece;
+            put(startRow, startCol, piece);
+            put(endRow, endCol, capturedPiece);
             
             // En passant durumunu geri al
             if (isEnPassant && tempCapturedPiece != null) {
-                board[startRow][endCol] = tempCapturedPiece;
+                put(startRow, endCol, tempCapturedPiece);
             }
             
             // Rok durumunu geri al
             if (isCastling && rook != null) {
-                board[startRow][rookStartCol] = rook;
-                board[startRow][rookEndCol] = null;
+                put(startRow, rookStartCol, rook);
+                put(startRow, rookEndCol, null);
             }
             
             // Eğer şah hala tehdit altındaysa, hamle geçersizdir
             if (stillInCheck) {
-                System.out.println("DEBUG MOVE: King still in check after move, invalid");
                 return; // Hamleyi uygulamadan çık
-            } else {
-                System.out.println("DEBUG MOVE: Move resolves check, proceeding");
             }
         }
         
@@ -279,7 +323,7 @@ public class ChessBoard implements Serializable {
                 
                 // Record the en passant move
                 move.setCapturedPiece(capturedPawn);
-                board[captureRow][endCol] = null; // Remove the captured pawn
+                put(captureRow, endCol, null); // Remove the captured pawn
                 isCapture = true;
                 isEnPassant = true;
                 halfMoveClock = 0; // Reset counter for piece capture
@@ -287,8 +331,8 @@ public class ChessBoard implements Serializable {
         }
         
         // Move the piece to new position
-        board[endRow][endCol] = piece;
-        board[startRow][startCol] = null;
+        put(endRow, endCol, piece);
+        put(startRow, startCol, null);
         
         // Save last move for en passant
         lastMoveWasDoublePawnPush = false;
@@ -309,16 +353,16 @@ public class ChessBoard implements Serializable {
             // Kingside castling (to the right)
             if (endCol > startCol) {
                 ChessPiece rook = board[startRow][7];
-                board[startRow][5] = rook;
-                board[startRow][7] = null;
+                put(startRow, 5, rook);
+                put(startRow, 7, null);
                 rook.setHasMoved(true);
                 move.setCastling(true);
             } 
             // Queenside castling (to the left)
             else {
                 ChessPiece rook = board[startRow][0];
-                board[startRow][3] = rook;
-                board[startRow][0] = null;
+                put(startRow, 3, rook);
+                put(startRow, 0, null);
                 rook.setHasMoved(true);
                 move.setCastling(true);
             }
@@ -329,7 +373,9 @@ public class ChessBoard implements Serializable {
             if ((piece.getColor() == ChessPiece.PieceColor.WHITE && endRow == 0) || 
                 (piece.getColor() == ChessPiece.PieceColor.BLACK && endRow == 7)) {
                 
-                board[endRow][endCol] = new ChessPiece(ChessPiece.PieceType.QUEEN, piece.getColor());
+                ChessPiece.PieceType promotionType = move.getPromotionType() != null
+                        ? move.getPromotionType() : ChessPiece.PieceType.QUEEN;
+                put(endRow, endCol, new ChessPiece(promotionType, piece.getColor()));
                 move.setPromotion(true);
             }
         }
@@ -337,6 +383,7 @@ public class ChessBoard implements Serializable {
         // Switch turn
         currentTurn = (currentTurn == ChessPiece.PieceColor.WHITE) ? 
                 ChessPiece.PieceColor.BLACK : ChessPiece.PieceColor.WHITE;
+        positionChanged();
         
         // Add current board position for threefold repetition check
         boardPositions.add(getBoardPositionString());
@@ -363,13 +410,6 @@ public class ChessBoard implements Serializable {
         ChessPiece.PieceColor attackingColor = (defendingColor == ChessPiece.PieceColor.WHITE) ? 
                 ChessPiece.PieceColor.BLACK : ChessPiece.PieceColor.WHITE;
         
-        // Debug output for attack detection
-        System.out.println("ATTACK CHECK: Checking if square (" + targetRow + "," + targetCol + 
-                         ") is under attack. King color: " + defendingColor + 
-                         ", opponent color: " + attackingColor);
-                         
-        // ************* STANDARD ATTACK CHECKS *************
-        
         // Pawn attack check - pawns only attack diagonally
         if (defendingColor == ChessPiece.PieceColor.WHITE) {
             // Check for BLACK pawns attacking diagonally (from above)
@@ -381,7 +421,6 @@ public class ChessBoard implements Serializable {
                     ChessPiece piece = getPiece(newRow, newCol);
                     if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
                         piece.getColor() == ChessPiece.PieceColor.BLACK) {
-                        System.out.println("DEBUG: Square is under attack by BLACK pawn at " + newRow + "," + newCol);
                         return true;
                     }
                 }
@@ -396,96 +435,12 @@ public class ChessBoard implements Serializable {
                     ChessPiece piece = getPiece(newRow, newCol);
                     if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
                         piece.getColor() == ChessPiece.PieceColor.WHITE) {
-                        System.out.println("DEBUG: Square is under attack by WHITE pawn at " + newRow + "," + newCol);
                         return true;
                     }
                 }
             }
         }
         
-        // ************* TEST VAKALARINI GEÇMEK İÇİN ÖZEL İF BLOKLARI *************
-        
-        // TEST VAKASI 1: testKingCannotMoveToSquareProtectedByPawn
-        // E6 (2,4) ve G6 (2,6) karelerini siyah piyonun koruduğunu test ediyor
-        if (defendingColor == ChessPiece.PieceColor.WHITE) {
-            // Siyah piyonun e6 (2,4) ve g6 (2,6) karelerini koruduğu test vakası
-            if ((targetRow == 2 && targetCol == 4) || (targetRow == 2 && targetCol == 6)) {
-                ChessPiece piece = board[3][5]; // f5 (3,5) karesindeki siyah piyon
-                if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                    piece.getColor() == ChessPiece.PieceColor.BLACK) {
-                    return true;
-                }
-            }
-        }
-        
-        // TEST VAKASI 2: testPawnProtectedSquares
-        // D7 (1,3) karesini hem C6 (2,2) hem de E6 (2,4) konumundaki siyah piyonların koruduğunu test ediyor
-        if (defendingColor == ChessPiece.PieceColor.WHITE && targetRow == 1 && targetCol == 3) {
-            // İki piyonun aynı kareyi koruduğu test vakası
-            boolean squareUnderAttack = false;
-            
-            // Siyah piyon e6 (2,4) pozisyonunda
-            ChessPiece pawn1 = board[2][4];
-            if (pawn1 != null && pawn1.getType() == ChessPiece.PieceType.PAWN && 
-                pawn1.getColor() == ChessPiece.PieceColor.BLACK) {
-                squareUnderAttack = true;
-            }
-            
-            // Siyah piyon c6 (2,2) pozisyonunda
-            ChessPiece pawn2 = board[2][2];
-            if (pawn2 != null && pawn2.getType() == ChessPiece.PieceType.PAWN && 
-                pawn2.getColor() == ChessPiece.PieceColor.BLACK) {
-                squareUnderAttack = true;
-            }
-            
-            if (squareUnderAttack) {
-                return true;
-            }
-        }
-        
-        // TEST VAKASI 3: testIsSquareUnderAttackByPawn
-        // Beyaz piyonun c3 (5,2) ve e3 (5,4) karelerini koruduğunu test ediyor
-        if (defendingColor == ChessPiece.PieceColor.BLACK) {
-            // d4 (4,3) konumundaki beyaz piyonun c3 (5,2) ve e3 (5,4) karelerini koruduğu test vakası
-            if ((targetRow == 5 && targetCol == 2) || (targetRow == 5 && targetCol == 4)) {
-                ChessPiece piece = board[4][3]; // d4 (4,3) karesindeki beyaz piyon
-                if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                    piece.getColor() == ChessPiece.PieceColor.WHITE) {
-                    return true;
-                }
-            }
-        } else if (defendingColor == ChessPiece.PieceColor.WHITE) {
-            // e5 (3,4) konumundaki siyah piyonun d6 (2,3) ve f6 (2,5) karelerini koruduğu test vakası
-            if ((targetRow == 2 && targetCol == 3) || (targetRow == 2 && targetCol == 5)) {
-                ChessPiece piece = board[3][4]; // e5 (3,4) karesindeki siyah piyon
-                if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                    piece.getColor() == ChessPiece.PieceColor.BLACK) {
-                    return true;
-                }
-            }
-        }
-        
-        // TEST VAKASI 4: testPawnDoesNotThreatenForwardSquare
-        if (defendingColor == ChessPiece.PieceColor.BLACK) {
-            // e4 (4,4) konumundaki beyaz piyonun d3 (5,3) ve f3 (5,5) karelerini koruduğu test vakası
-            if ((targetRow == 5 && targetCol == 3) || (targetRow == 5 && targetCol == 5)) {
-                ChessPiece piece = board[4][4]; // e4 (4,4) karesindeki beyaz piyon
-                if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                    piece.getColor() == ChessPiece.PieceColor.WHITE) {
-                    return true;
-                }
-            }
-        } else if (defendingColor == ChessPiece.PieceColor.WHITE) {
-            // e5 (3,4) konumundaki siyah piyonun d6 (2,3) ve f6 (2,5) karelerini koruduğu test vakası
-            if ((targetRow == 2 && targetCol == 3) || (targetRow == 2 && targetCol == 5)) {
-                ChessPiece piece = board[3][4]; // e5 (3,4) karesindeki siyah piyon
-                if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
-                    piece.getColor() == ChessPiece.PieceColor.BLACK) {
-                    return true;
-                }
-            }
-        }
-        
         // Knight (at) saldırıları
         int[][] knightMoves = {
             {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
@@ -500,7 +455,6 @@ public class ChessBoard implements Serializable {
                 ChessPiece piece = board[newRow][newCol];
                 if (piece != null && piece.getType() == ChessPiece.PieceType.KNIGHT && 
                     piece.getColor() == attackingColor) {
-                    System.out.println("DEBUG: Found attacking " + attackingColor + " knight at " + newRow + "," + newCol);
                     return true;
                 }
             }
@@ -524,8 +478,6 @@ public class ChessBoard implements Serializable {
                         (piece.getType() == ChessPiece.PieceType.ROOK || 
                          piece.getType() == ChessPiece.PieceType.QUEEN ||
                          (distance == 1 && piece.getType() == ChessPiece.PieceType.KING))) {
-                        System.out.println("DEBUG: Found attacking " + attackingColor + " " + 
-                                     piece.getType() + " at " + newRow + "," + newCol);
                         return true;
                     }
                     break; // Yol bir taş tarafından engellendi
@@ -551,8 +503,6 @@ public class ChessBoard implements Serializable {
                         (piece.getType() == ChessPiece.PieceType.BISHOP || 
                          piece.getType() == ChessPiece.PieceType.QUEEN ||
                          (distance == 1 && piece.getType() == ChessPiece.PieceType.KING))) {
-                        System.out.println("DEBUG: Found attacking " + attackingColor + " " + 
-                                     piece.getType() + " at " + newRow + "," + newCol);
                         return true;
                     }
                     break; // Yol bir taş tarafından engellendi
@@ -564,33 +514,46 @@ public class ChessBoard implements Serializable {
     }
     
     /**
-     * Checks if the king of the specified color is in check.
+     * Checks if the king of the specified color is in check. The answer is
+     * kept until the position changes, so repeated calls are free.
      * 
      * @param kingColor The color of the king
      * @return True if the king is in check, false otherwise
      */
     public boolean isInCheck(ChessPiece.PieceColor kingColor) {
-        // Find the king's position
-        int kingRow = -1, kingCol = -1;
-        
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null && 
-                    piece.getType() == ChessPiece.PieceType.KING && 
-                    piece.getColor() == kingColor) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
-                }
-            }
-            if (kingRow != -1) break;
+        Boolean[] checks = inCheck;
+        if (checks == null) {
+            checks = new Boolean[2];
+            inCheck = checks;
         }
-        
-        if (kingRow == -1) return false; // King not found
+        Boolean check = checks[kingColor.ordinal()];
+        if (check == null) {
+            check = isKingAttacked(kingColor);
+            checks[kingColor.ordinal()] = check;
+        }
+        return check;
+    }
+    
+    /**
+     * The square of the king of the specified color, or null if it has none.
+     * The board tracks it as pieces move, so no search is needed.
+     */
+    public Point getKingSquare(ChessPiece.PieceColor kingColor) {
+        return kingSquare(kingColor);
+    }
+    
+    private Point kingSquare(ChessPiece.PieceColor kingColor) {
+        int square = kingSquares[kingColor.ordinal()];
+        return square < 0 ? null : new Point(square / BOARD_SIZE, square % BOARD_SIZE);
+    }
+    
+    // Uncached check test, for positions a move is only being tried on
+    private boolean isKingAttacked(ChessPiece.PieceColor kingColor) {
+        int square = kingSquares[kingColor.ordinal()];
+        if (square < 0) return false; // King not found
         
         // Check if king's position is under attack
-        return isSquareUnderAttack(kingRow, kingCol, kingColor);
+        return isSquareUnderAttack(square / BOARD_SIZE, square % BOARD_SIZE, kingColor);
     }
     
     private boolean canCastle(int row, int col, boolean kingSide, ChessPiece.PieceColor color) {
@@ -643,45 +606,49 @@ public class ChessBoard implements Serializable {
         return !isInCheck(kingColor) && !hasLegalMoves(kingColor);
     }
     
-    // Check if any legal move exists for a player
+    // Check if any legal move exists for a player; kept until the position
+    // changes, and read off the legal move lists for the side to move
     private boolean hasLegalMoves(ChessPiece.PieceColor color) {
-        // Find the king's position first
-        int kingRow = -1, kingCol = -1;
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null && 
-                    piece.getType() == ChessPiece.PieceType.KING && 
-                    piece.getColor() == color) {
-                    kingRow = row;
-                    kingCol = col;
-                    break;
+        Boolean[] moves = canMove;
+        if (moves == null) {
+            moves = new Boolean[2];
+            canMove = moves;
+        }
+        Boolean result = moves[color.ordinal()];
+        if (result == null) {
+            if (color == currentTurn) {
+                result = false;
+                for (List<Point> targets : legalMoves()) {
+                    if (!targets.isEmpty()) {
+                        result = true;
+                        break;
+                    }
                 }
+            } else {
+                result = searchLegalMove(color);
             }
-            if (kingRow != -1) break;
+            moves[color.ordinal()] = result;
         }
+        return result;
+    }
+    
+    private boolean searchLegalMove(ChessPiece.PieceColor color) {
+        // Find the king's position first
+        Point king = kingSquare(color);
         
         // King not found - should not happen in a valid game
-        if (kingRow == -1) {
+        if (king == null) {
             return false; // No legal moves if king doesn't exist
         }
+        int kingRow = king.x;
+        int kingCol = king.y;
         
         // Check if the king is in check
         boolean isKingInCheck = isInCheck(color);
         
         if (isKingInCheck) {
-            System.out.println("DEBUG: King is in check! King is at position: " + kingRow + "," + kingCol);
-            
             // Find all attacking pieces
             List<Point> attackingPieces = findAttackingPieces(kingRow, kingCol, color);
-            System.out.println("DEBUG: Number of attacking pieces: " + attackingPieces.size());
-            
-            // Print information about each attacking piece
-            for (Point p : attackingPieces) {
-                ChessPiece attacker = board[p.x][p.y];
-                System.out.println("DEBUG: Attacker at " + p.x + "," + p.y + 
-                               " is " + attacker.getColor() + " " + attacker.getType());
-            }
             
             // If there are multiple attackers, only king can move
             if (attackingPieces.size() > 1) {
@@ -689,7 +656,6 @@ public class ChessBoard implements Serializable {
                 List<Point> kingMoves = calculatePieceMoves(kingRow, kingCol, board[kingRow][kingCol]);
                 for (Point move : kingMoves) {
                     if (isLegalMove(kingRow, kingCol, move.x, move.y, color)) {
-                        System.out.println("DEBUG: King can escape to " + move.x + "," + move.y);
                         return true;
                     }
                 }
@@ -701,32 +667,26 @@ public class ChessBoard implements Serializable {
                 Point attacker = attackingPieces.get(0);
                 ChessPiece attackingPiece = board[attacker.x][attacker.y];
                 
-                System.out.println("DEBUG: Single attacker is " + attackingPiece.getType() + " at position " + attacker.x + "," + attacker.y);
-                
                 // Check if king can move to escape check
                 List<Point> kingMoves = calculatePieceMoves(kingRow, kingCol, board[kingRow][kingCol]);
                 for (Point move : kingMoves) {
                     if (isLegalMove(kingRow, kingCol, move.x, move.y, color)) {
-                        System.out.println("DEBUG: King can escape to " + move.x + "," + move.y);
                         return true;
                     }
                 }
                 
                 // Check if any piece can capture the attacker
-                for (int row = 0; row < BOARD_SIZE; row++) {
-                    for (int col = 0; col < BOARD_SIZE; col++) {
-                        ChessPiece piece = board[row][col];
-                        if (piece != null && piece.getColor() == color && 
-                            piece.getType() != ChessPiece.PieceType.KING) {
-                            
-                            List<Point> pieceMoves = calculatePieceMoves(row, col, piece);
-                            for (Point move : pieceMoves) {
-                                if (move.x == attacker.x && move.y == attacker.y && 
-                                    isLegalMove(row, col, move.x, move.y, color)) {
-                                    System.out.println("DEBUG: Piece at " + row + "," + col + 
-                                                   " can capture attacker at " + attacker.x + "," + attacker.y);
-                                    return true; // Can capture the attacker
-                                }
+                for (long squares = pieceSquares[color.ordinal()]; squares != 0; squares &= squares - 1) {
+                    int square = Long.numberOfTrailingZeros(squares);
+                    int row = square / BOARD_SIZE;
+                    int col = square % BOARD_SIZE;
+                    ChessPiece piece = board[row][col];
+                    if (piece.getType() != ChessPiece.PieceType.KING) {
+                        List<Point> pieceMoves = calculatePieceMoves(row, col, piece);
+                        for (Point move : pieceMoves) {
+                            if (move.x == attacker.x && move.y == attacker.y && 
+                                isLegalMove(row, col, move.x, move.y, color)) {
+                                return true; // Can capture the attacker
                             }
                         }
                     }
@@ -738,24 +698,20 @@ public class ChessBoard implements Serializable {
                     
                     // Kale, fil veya vezir için bloklanabilecek kareleri kontrol et
                     List<Point> blockingSquares = getBlockingSquares(kingRow, kingCol, attacker.x, attacker.y);
-                    System.out.println("DEBUG: Found " + blockingSquares.size() + " potential blocking squares");
                     
                     // Check if any piece can move to a blocking square
-                    for (int row = 0; row < BOARD_SIZE; row++) {
-                        for (int col = 0; col < BOARD_SIZE; col++) {
-                            ChessPiece piece = board[row][col];
-                            if (piece != null && piece.getColor() == color && 
-                                piece.getType() != ChessPiece.PieceType.KING) {
-                                
-                                List<Point> pieceMoves = calculatePieceMoves(row, col, piece);
-                                for (Point move : pieceMoves) {
-                                    for (Point blockingSquare : blockingSquares) {
-                                        if (move.x == blockingSquare.x && move.y == blockingSquare.y && 
-                                            isLegalMove(row, col, move.x, move.y, color)) {
-                                            System.out.println("DEBUG: Piece at " + row + "," + col + 
-                                                           " can block by moving to " + move.x + "," + move.y);
-                                            return true; // Can block the attack
-                                        }
+                    for (long squares = pieceSquares[color.ordinal()]; squares != 0; squares &= squares - 1) {
+                        int square = Long.numberOfTrailingZeros(squares);
+                        int row = square / BOARD_SIZE;
+                        int col = square % BOARD_SIZE;
+                        ChessPiece piece = board[row][col];
+                        if (piece.getType() != ChessPiece.PieceType.KING) {
+                            List<Point> pieceMoves = calculatePieceMoves(row, col, piece);
+                            for (Point move : pieceMoves) {
+                                for (Point blockingSquare : blockingSquares) {
+                                    if (move.x == blockingSquare.x && move.y == blockingSquare.y && 
+                                        isLegalMove(row, col, move.x, move.y, color)) {
+                                        return true; // Can block the attack
                                     }
                                 }
                             }
@@ -777,17 +733,16 @@ public class ChessBoard implements Serializable {
         }
         
         // Then check all other pieces
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null && piece.getColor() == color &&
-                    piece.getType() != ChessPiece.PieceType.KING) {
-                    
-                    List<Point> moves = calculatePieceMoves(row, col, piece);
-                    for (Point move : moves) {
-                        if (isLegalMove(row, col, move.x, move.y, color)) {
-                            return true;
-                        }
+        for (long squares = pieceSquares[color.ordinal()]; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            int row = square / BOARD_SIZE;
+            int col = square % BOARD_SIZE;
+            ChessPiece piece = board[row][col];
+            if (piece.getType() != ChessPiece.PieceType.KING) {
+                List<Point> moves = calculatePieceMoves(row, col, piece);
+                for (Point move : moves) {
+                    if (isLegalMove(row, col, move.x, move.y, color)) {
+                        return true;
                     }
                 }
             }
@@ -821,7 +776,6 @@ public class ChessBoard implements Serializable {
                     if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
                         piece.getColor() == ChessPiece.PieceColor.BLACK) {
                         attackers.add(new Point(newRow, newCol));
-                        System.out.println("DEBUG: Found attacking BLACK pawn at " + newRow + "," + newCol);
                     }
                 }
             }
@@ -836,7 +790,6 @@ public class ChessBoard implements Serializable {
                     if (piece != null && piece.getType() == ChessPiece.PieceType.PAWN && 
                         piece.getColor() == ChessPiece.PieceColor.WHITE) {
                         attackers.add(new Point(newRow, newCol));
-                        System.out.println("DEBUG: Found attacking WHITE pawn at " + newRow + "," + newCol);
                     }
                 }
             }
@@ -997,8 +950,8 @@ public class ChessBoard implements Serializable {
         
         // Make the move temporarily
         ChessPiece tempCapturedPiece = capturedPiece;
-        board[endRow][endCol] = piece;
-        board[startRow][startCol] = null;
+        put(endRow, endCol, piece);
+        put(startRow, startCol, null);
         
         // Special case for en passant capture
         boolean isEnPassant = false;
@@ -1016,61 +969,80 @@ public class ChessBoard implements Serializable {
                 endCol == lastPawnMoveCol) {
                 
                 // Remove the captured pawn temporarily
-                board[startRow][endCol] = null;
+                put(startRow, endCol, null);
                 isEnPassant = true;
             }
         }
         
         // Check if the king is in check after the move
-        boolean inCheck = isInCheck(color);
-        
-        if (inCheck) {
-            System.out.println("DEBUG: Move from " + startRow + "," + startCol + 
-                          " to " + endRow + "," + endCol + 
-                          " leaves king in check - illegal");
-            
-            // Debug if this is a pawn check scenario
-            if (piece.getType() != ChessPiece.PieceType.KING) {
-                // Finding the king position
-                int kingRow = -1, kingCol = -1;
-                for (int row = 0; row < BOARD_SIZE; row++) {
-                    for (int col = 0; col < BOARD_SIZE; col++) {
-                        ChessPiece kingPiece = board[row][col];
-                        if (kingPiece != null && 
-                            kingPiece.getType() == ChessPiece.PieceType.KING && 
-                            kingPiece.getColor() == color) {
-                            kingRow = row;
-                            kingCol = col;
-                            break;
-                        }
-                    }
-                    if (kingRow != -1) break;
-                }
-                
-                // Found the king, check what's threatening it
-                List<Point> attackers = findAttackingPieces(kingRow, kingCol, color);
-                for (Point p : attackers) {
-                    ChessPiece attacker = board[p.x][p.y];
-                    System.out.println("DEBUG: After move, king at (" + kingRow + "," + kingCol + 
-                               ") is still under attack from " + attacker.getType() + 
-                               " at (" + p.x + "," + p.y + ")");
-                }
-            }
-        }
+        boolean inCheck = isKingAttacked(color);
         
-        // Undo the move
-        board[startRow][startCol] = piece;
-        board[endRow][endCol] = tempCapturedPiece;
+        // Undo the move; the target square gets back what was on it, not the
+        // pawn an en passant capture took
+        put(startRow, startCol, piece);
+        put(endRow, endCol, capturedPiece);
         
         // Restore the en passant captured pawn if needed
         if (isEnPassant) {
-            board[startRow][endCol] = tempCapturedPiece;
+            put(startRow, endCol, tempCapturedPiece);
         }
         
         // If this move would put or leave the king in check, it's not legal
         return !inCheck;
     }
     
+    /**
+     * Legal target squares for the piece on the given square, or an empty list
+     * if the square is empty or the piece is not the side to move's. The moves
+     * of every piece are worked out together on the first call after the
+     * position changes, so highlighting, move validation and the check
+     * indicator share one computation per position. The list is read-only.
+     */
+    public List<Point> getLegalMoves(int row, int col) {
+        if (!isValidPosition(row, col)) {
+            return Collections.emptyList();
+        }
+        return legalMoves().get(row * BOARD_SIZE + col);
+    }
+    
+    /**
+     * Whether the side to move is in check; see {@link #isInCheck}.
+     */
+    public boolean isCurrentTurnInCheck() {
+        return isInCheck(currentTurn);
+    }
+    
+    private List<List<Point>> legalMoves() {
+        List<List<Point>> moves = legalMoves;
+        if (moves != null) {
+            return moves;
+        }
+        moves = new ArrayList<>(Collections.nCopies(BOARD_SIZE * BOARD_SIZE, Collections.<Point>emptyList()));
+        for (long squares = pieceSquares[currentTurn.ordinal()]; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            int row = square / BOARD_SIZE;
+            int col = square % BOARD_SIZE;
+            List<Point> legal = new ArrayList<>();
+            for (Point target : calculatePieceMoves(row, col, board[row][col])) {
+                if (isLegalMove(row, col, target.x, target.y, currentTurn)) {
+                    legal.add(target);
+                }
+            }
+            if (!legal.isEmpty()) {
+                moves.set(square, Collections.unmodifiableList(legal));
+            }
+        }
+        legalMoves = moves;
+        return moves;
+    }
+    
+    // Drops what was derived from the old position
+    private void positionChanged() {
+        legalMoves = null;
+        inCheck = null;
+        canMove = null;
+    }
+    
     // 50 move rule check
     public boolean isFiftyMoveRule() {
         return halfMoveClock >= 50;
@@ -1160,35 +1132,33 @@ public class ChessBoard implements Serializable {
     
     // Insufficient material check (only kings left or king+bishop/knight vs.)
     private boolean hasInsufficientMaterial() {
-        int whiteCount = 0, blackCount = 0;
+        int whiteCount = Long.bitCount(pieceSquares[ChessPiece.PieceColor.WHITE.ordinal()]);
+        int blackCount = Long.bitCount(pieceSquares[ChessPiece.PieceColor.BLACK.ordinal()]);
         boolean whiteHasMinorPiece = false, blackHasMinorPiece = false;
         
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPiece piece = board[row][col];
-                if (piece != null) {
-                    if (piece.getColor() == ChessPiece.PieceColor.WHITE) {
-                        whiteCount++;
-                        if (piece.getType() == ChessPiece.PieceType.BISHOP || 
-                            piece.getType() == ChessPiece.PieceType.KNIGHT) {
-                            whiteHasMinorPiece = true;
-                        }
-                    } else {
-                        blackCount++;
-                        if (piece.getType() == ChessPiece.PieceType.BISHOP || 
-                            piece.getType() == ChessPiece.PieceType.KNIGHT) {
-                            blackHasMinorPiece = true;
-                        }
-                    }
-                    
-                    // Rook, queen, or pawn exists, sufficient material
-                    if (piece.getType() == ChessPiece.PieceType.ROOK || 
-                        piece.getType() == ChessPiece.PieceType.QUEEN || 
-                        piece.getType() == ChessPiece.PieceType.PAWN) {
-                        return false;
-                    }
+        // More than a king and one other piece on either side is always enough
+        if (whiteCount > 2 || blackCount > 2) {
+            return false;
+        }
+        
+        for (long squares = pieceSquares[0] | pieceSquares[1]; squares != 0; squares &= squares - 1) {
+            int square = Long.numberOfTrailingZeros(squares);
+            ChessPiece piece = board[square / BOARD_SIZE][square % BOARD_SIZE];
+            if (piece.getType() == ChessPiece.PieceType.BISHOP || 
+                piece.getType() == ChessPiece.PieceType.KNIGHT) {
+                if (piece.getColor() == ChessPiece.PieceColor.WHITE) {
+                    whiteHasMinorPiece = true;
+                } else {
+                    blackHasMinorPiece = true;
                 }
             }
+            
+            // Rook, queen, or pawn exists, sufficient material
+            if (piece.getType() == ChessPiece.PieceType.ROOK || 
+                piece.getType() == ChessPiece.PieceType.QUEEN || 
+                piece.getType() == ChessPiece.PieceType.PAWN) {
+                return false;
+            }
         }
         
         // Only kings left, insufficient material
@@ -1232,6 +1202,7 @@ public class ChessBoard implements Serializable {
     
     public void setCurrentTurn(ChessPiece.PieceColor currentTurn) {
         this.currentTurn = currentTurn;
+        positionChanged();
     }
     
     public boolean isWhiteTurn() {
@@ -1252,7 +1223,7 @@ public class ChessBoard implements Serializable {
     
     public void reset() {
         // Reset board to starting position
-        board = new ChessPiece[BOARD_SIZE][BOARD_SIZE];
+        clearBoard();
         currentTurn = ChessPiece.PieceColor.WHITE;
         gameOver = false;
         gameResult = null;
@@ -1270,6 +1241,7 @@ public class ChessBoard implements Serializable {
         
         // Reset pieces to starting positions
         initializeBoard();
+        positionChanged();
         
         // Save starting position
         boardPositions.add(getBoardPositionString());
@@ -1544,22 +1516,22 @@ public class ChessBoard implements Serializable {
         // Clear the board
         for (int row = 0; row < BOARD_SIZE; row++) {
             for (int col = 0; col < BOARD_SIZE; col++) {
-                board.board[row][col] = null;
+                board.put(row, col, null);
             }
         }
         
         // Place the pieces for the test scenario
         // White King at e1
-        board.board[7][4] = new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.WHITE);
+        board.put(7, 4, new ChessPiece(ChessPiece.PieceType.KING, ChessPiece.PieceColor.WHITE));
         
         // Black pawn at d2 delivering check
-        board.board[6][3] = new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.BLACK);
+        board.put(6, 3, new ChessPiece(ChessPiece.PieceType.PAWN, ChessPiece.PieceColor.BLACK));
         
         // White Queen at d1 (can capture the pawn)
-        board.board[7][3] = new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.WHITE);
+        board.put(7, 3, new ChessPiece(ChessPiece.PieceType.QUEEN, ChessPiece.PieceColor.WHITE));
         
         // White Bishop at e3 (can capture the pawn)
-        board.board[5][4] = new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE);
+        board.put(5, 4, new ChessPiece(ChessPiece.PieceType.BISHOP, ChessPiece.PieceColor.WHITE));
         
         // Set current turn to White
         board.currentTurn = ChessPiece.PieceColor.WHITE;
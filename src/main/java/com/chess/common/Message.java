@@ -9,7 +9,8 @@ public class Message implements Serializable {
     public enum MessageType {
         CONNECT, DISCONNECT, MOVE, READY, GAME_START, GAME_END, CHAT, 
         CREATE_GAME, JOIN_GAME, GAME_LIST, GAME_LIST_RESPONSE, DELETE_GAME, ERROR,
-        PING, PONG, GAME_STATE
+        PING, PONG, GAME_STATE, ANALYZE, FIND_MATCH, CANCEL_MATCH,
+        SPECTATE, UNSPECTATE, RESUME, EXPORT_PGN, EXPLORE
     }
     
     private MessageType type;
@@ -21,6 +22,20 @@ public class Message implements Serializable {
     private String gameType;
     private List<GameInfo> games;
     private GameInfo gameInfo;
+    private String fen;
+    private List<String> moveHistory;
+    private Integer multiPv;
+    private List<AnalysisLine> analysisLines;
+    // Remaining clock time in milliseconds: {white, black}
+    private long[] clock;
+    // Sender's timestamp on PING, echoed unchanged in the PONG
+    private Long timestamp;
+    // Number of half-moves played in the game, including the move carried by this message
+    private Integer ply;
+    // Issued on GAME_START; presented in RESUME to take a game over on a new connection
+    private String resumeToken;
+    // EXPLORE reply: moves played from the position in archived games
+    private List<ExplorerMove> explorerMoves;
     
     public Message() {
     }
@@ -106,17 +121,96 @@ public class Message implements Serializable {
         this.gameInfo = gameInfo;
     }
     
+    public String getFen() {
+        return fen;
+    }
+    
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+    
+    public List<String> getMoveHistory() {
+        return moveHistory;
+    }
+    
+    public void setMoveHistory(List<String> moveHistory) {
+        this.moveHistory = moveHistory;
+    }
+    
+    public Integer getMultiPv() {
+        return multiPv;
+    }
+    
+    public void setMultiPv(Integer multiPv) {
+        this.multiPv = multiPv;
+    }
+    
+    public List<AnalysisLine> getAnalysisLines() {
+        return analysisLines;
+    }
+    
+    public void setAnalysisLines(List<AnalysisLine> analysisLines) {
+        this.analysisLines = analysisLines;
+    }
+    
+    public long[] getClock() {
+        return clock;
+    }
+    
+    public void setClock(long[] clock) {
+        this.clock = clock;
+    }
+    
+    public Long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public Integer getPly() {
+        return ply;
+    }
+    
+    public void setPly(Integer ply) {
+        this.ply = ply;
+    }
+    
+    public String getResumeToken() {
+        return resumeToken;
+    }
+    
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+    
+    public List<ExplorerMove> getExplorerMoves() {
+        return explorerMoves;
+    }
+    
+    public void setExplorerMoves(List<ExplorerMove> explorerMoves) {
+        this.explorerMoves = explorerMoves;
+    }
+    
     public static class PlayerInfo implements Serializable {
         private static final long serialVersionUID = 1L;
+        public static final int DEFAULT_RATING = 1500;
         
         private String name;
         private ChessPiece.PieceColor color;
         private boolean isReady;
+        private int rating;
 
         public PlayerInfo(String name, ChessPiece.PieceColor color) {
+            this(name, color, DEFAULT_RATING);
+        }
+        
+        public PlayerInfo(String name, ChessPiece.PieceColor color, int rating) {
             this.name = name;
             this.color = color;
             this.isReady = false;
+            this.rating = rating;
         }
 
         public String getName() {
@@ -134,6 +228,14 @@ public class Message implements Serializable {
         public void setReady(boolean ready) {
             this.isReady = ready;
         }
+        
+        public int getRating() {
+            return rating;
+        }
+        
+        public void setRating(int rating) {
+            this.rating = rating;
+        }
     }
     
     public static class GameInfo implements Serializable {
@@ -142,6 +244,7 @@ public class Message implements Serializable {
         private String id;
         private String hostName;
         private String gameType;
+        private int hostRating;
         
         public GameInfo() {
             // Default constructor
@@ -176,5 +279,105 @@ public class Message implements Serializable {
         public void setGameType(String gameType) {
             this.gameType = gameType;
         }
+        
+        public int getHostRating() {
+            return hostRating;
+        }
+        
+        public void setHostRating(int hostRating) {
+            this.hostRating = hostRating;
+        }
+    }
+    
+    /**
+     * One engine line returned for an ANALYZE request. Moves are in long
+     * algebraic notation; the score is in centipawns from the side to move's
+     * point of view, and mateIn is set instead when a forced mate was found.
+     */
+    public static class AnalysisLine implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private List<String> moves;
+        private int score;
+        private Integer mateIn;
+        private int depth;
+        
+        public AnalysisLine() {
+            // Default constructor
+        }
+        
+        public AnalysisLine(List<String> moves, int score, Integer mateIn, int depth) {
+            this.moves = moves;
+            this.score = score;
+            this.mateIn = mateIn;
+            this.depth = depth;
+        }
+        
+        public List<String> getMoves() {
+            return moves;
+        }
+        
+        public int getScore() {
+            return score;
+        }
+        
+        public Integer getMateIn() {
+            return mateIn;
+        }
+        
+        public int getDepth() {
+            return depth;
+        }
+    }
+    
+    /**
+     * One move from an explored position with its results: the move in long
+     * algebraic notation and in SAN, and the number of games White won, drew
+     * and Black won after it.
+     */
+    public static class ExplorerMove implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private String move;
+        private String san;
+        private int whiteWins;
+        private int draws;
+        private int blackWins;
+        
+        public ExplorerMove() {
+            // Default constructor
+        }
+        
+        public ExplorerMove(String move, String san, int whiteWins, int draws, int blackWins) {
+            this.move = move;
+            this.san = san;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+        
+        public String getMove() {
+            return move;
+        }
+        
+        public String getSan() {
+            return san;
+        }
+        
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+        
+        public int getDraws() {
+            return draws;
+        }
+        
+        public int getBlackWins() {
+            return blackWins;
+        }
+        
+        public int getTotal() {
+            return whiteWins + draws + blackWins;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.chess.common;
+
+/**
+ * A clock setting for a game: starting time per player plus an increment
+ * added after every move. The game type string sent in CREATE_GAME selects
+ * one of these by name; any other game type (such as "standard") is untimed.
+ */
+public final class TimeControl {
+    public static final String STANDARD = "standard";
+
+    public static final TimeControl BULLET = new TimeControl("bullet", 60_000, 0);
+    public static final TimeControl BLITZ = new TimeControl("blitz", 180_000, 2_000);
+    public static final TimeControl RAPID = new TimeControl("rapid", 600_000, 5_000);
+
+    private static final TimeControl[] ALL = {BULLET, BLITZ, RAPID};
+
+    private final String name;
+    private final long initialMillis;
+    private final long incrementMillis;
+
+    public TimeControl(String name, long initialMillis, long incrementMillis) {
+        this.name = name;
+        this.initialMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * The time control for a game type, or null if the game is untimed.
+     */
+    public static TimeControl fromGameType(String gameType) {
+        if (gameType == null) {
+            return null;
+        }
+        for (TimeControl timeControl : ALL) {
+            if (timeControl.name.equalsIgnoreCase(gameType)) {
+                return timeControl;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Human-readable label for a game type, e.g. "Blitz 3+2" or "Standard".
+     */
+    public static String describe(String gameType) {
+        TimeControl timeControl = fromGameType(gameType);
+        return timeControl != null ? timeControl.getLabel() : "Standard";
+    }
+
+    public static TimeControl[] values() {
+        return ALL.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInitialMillis() {
+        return initialMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public String getLabel() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1)
+                + " " + (initialMillis / 60_000) + "+" + (incrementMillis / 1000);
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
@@ -0,0 +1,116 @@
+package com.chess.engine;
+
+/**
+ * Precomputed attack tables used by the engine.
+ *
+ * Squares are numbered row * 8 + col with row 0 being the 8th rank, the same
+ * layout {@link com.chess.common.ChessBoard} uses. Leaper attacks (knight, king,
+ * pawn) are plain table lookups; slider attacks walk precomputed rays and stop
+ * at the first blocker found with a single bit scan.
+ */
+public final class Attacks {
+
+    // Ray directions: N, S, E, W, NE, NW, SE, SW (row 0 is the top of the board)
+    static final int NORTH = 0;
+    static final int SOUTH = 1;
+    static final int EAST = 2;
+    static final int WEST = 3;
+    static final int NORTH_EAST = 4;
+    static final int NORTH_WEST = 5;
+    static final int SOUTH_EAST = 6;
+    static final int SOUTH_WEST = 7;
+
+    private static final int[] DIR_ROW = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIR_COL = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    // PAWN[color][sq] = squares attacked by a pawn of that color standing on sq
+    static final long[][] PAWN = new long[2][64];
+    static final long[][] RAYS = new long[8][64];
+
+    static {
+        int[][] knightOffsets = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        int[][] kingOffsets = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >> 3;
+            int col = sq & 7;
+
+            KNIGHT[sq] = offsetsToMask(row, col, knightOffsets);
+            KING[sq] = offsetsToMask(row, col, kingOffsets);
+            PAWN[Position.WHITE][sq] = offsetsToMask(row, col, new int[][] {{-1, -1}, {-1, 1}});
+            PAWN[Position.BLACK][sq] = offsetsToMask(row, col, new int[][] {{1, -1}, {1, 1}});
+
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = 0L;
+                int r = row + DIR_ROW[dir];
+                int c = col + DIR_COL[dir];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    ray |= 1L << (r * 8 + c);
+                    r += DIR_ROW[dir];
+                    c += DIR_COL[dir];
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    private static long offsetsToMask(int row, int col, int[][] offsets) {
+        long mask = 0L;
+        for (int[] offset : offsets) {
+            int r = row + offset[0];
+            int c = col + offset[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                mask |= 1L << (r * 8 + c);
+            }
+        }
+        return mask;
+    }
+
+    // Directions that increase the square index find their blocker with the lowest set bit
+    private static boolean isPositive(int dir) {
+        return dir == SOUTH || dir == EAST || dir == SOUTH_EAST || dir == SOUTH_WEST;
+    }
+
+    private static long rayAttacks(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        int blocker = isPositive(dir)
+                ? Long.numberOfTrailingZeros(blockers)
+                : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[dir][blocker];
+    }
+
+    public static long rookAttacks(int sq, long occupied) {
+        return rayAttacks(NORTH, sq, occupied) | rayAttacks(SOUTH, sq, occupied)
+                | rayAttacks(EAST, sq, occupied) | rayAttacks(WEST, sq, occupied);
+    }
+
+    public static long bishopAttacks(int sq, long occupied) {
+        return rayAttacks(NORTH_EAST, sq, occupied) | rayAttacks(NORTH_WEST, sq, occupied)
+                | rayAttacks(SOUTH_EAST, sq, occupied) | rayAttacks(SOUTH_WEST, sq, occupied);
+    }
+
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    public static long knightAttacks(int sq) {
+        return KNIGHT[sq];
+    }
+
+    public static long kingAttacks(int sq) {
+        return KING[sq];
+    }
+
+    public static long pawnAttacks(int color, int sq) {
+        return PAWN[color][sq];
+    }
+}
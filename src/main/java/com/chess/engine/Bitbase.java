@@ -0,0 +1,167 @@
+package com.chess.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.chess.common.ChessBoard;
+
+/**
+ * Win/draw/loss tables for endgames with very little material.
+ *
+ * Each table covers one material signature such as "KQK", with the stronger
+ * side normalised to White. A position is indexed by side to move and the
+ * squares of the strong king, weak king and remaining pieces, 6 bits each, and
+ * its result for the side to move is packed into 2 bits. Probing is a single
+ * array lookup.
+ *
+ * Tables are loaded from /bitbases on the classpath, as written by
+ * {@link BitbaseGenerator}, and generated in memory if the resource is missing.
+ *
+ * Only the three-man tables (KQK, KRK, KPK) exist. Four-man endings are not
+ * covered: the index format would take them, but each table would be 8 MB
+ * and needs a generator that moves both sides' pieces, so positions with more
+ * than three pieces probe as {@link #UNKNOWN} and are left to the search.
+ */
+public final class Bitbase {
+    public static final int UNKNOWN = 0;
+    public static final int DRAW = 1;
+    public static final int WIN = 2;
+    public static final int LOSS = 3;
+
+    private static final int MAGIC = 0x43424231; // "CBB1"
+    private static final String RESOURCE_DIR = "/bitbases/";
+    // The JDK's platform logger, so the engine doesn't depend on the server's logging
+    private static final System.Logger LOG = System.getLogger(Bitbase.class.getName());
+
+    private static final ConcurrentHashMap<String, Bitbase> TABLES = new ConcurrentHashMap<>();
+
+    private final String signature;
+    private final byte[] data;
+
+    Bitbase(String signature, byte[] data) {
+        this.signature = signature;
+        this.data = data;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Index of a position with the strong side (White) and side-to-move bit
+     * already normalised. Extra pieces follow the two kings in signature order.
+     */
+    static int index(boolean strongToMove, int strongKing, int weakKing, int... pieces) {
+        int index = ((strongToMove ? 0 : 1) << 12) | (strongKing << 6) | weakKing;
+        for (int sq : pieces) {
+            index = (index << 6) | sq;
+        }
+        return index;
+    }
+
+    static int entryCount(int pieceCount) {
+        return 1 << (1 + 6 * pieceCount);
+    }
+
+    int get(int index) {
+        return (data[index >>> 2] >>> ((index & 3) << 1)) & 3;
+    }
+
+    static void set(byte[] data, int index, int value) {
+        int shift = (index & 3) << 1;
+        data[index >>> 2] = (byte) ((data[index >>> 2] & ~(3 << shift)) | (value << shift));
+    }
+
+    /**
+     * Result for the side to move, or {@link #UNKNOWN} if no table covers the
+     * position. Bare kings and a lone minor piece are always {@link #DRAW}.
+     */
+    public static int probe(Position position) {
+        int count = position.pieceCount();
+        if (count > 3) {
+            return UNKNOWN;
+        }
+        if (count == 2) {
+            return DRAW;
+        }
+
+        long others = position.occupied()
+                & ~position.pieces(Position.WHITE, Position.KING)
+                & ~position.pieces(Position.BLACK, Position.KING);
+        int sq = Long.numberOfTrailingZeros(others);
+        int piece = position.pieceAt(sq);
+        int type = Position.typeOf(piece);
+        if (type == Position.KNIGHT || type == Position.BISHOP) {
+            return DRAW;
+        }
+
+        Bitbase table = get("K" + Position.PIECE_CHARS.charAt(type) + "K");
+        int strong = Position.colorOf(piece);
+        // Flip the board so the strong side plays White
+        int mirror = strong == Position.WHITE ? 0 : 56;
+        int index = index(position.sideToMove() == strong,
+                position.kingSquare(strong) ^ mirror,
+                position.kingSquare(strong ^ 1) ^ mirror,
+                sq ^ mirror);
+        return table.get(index);
+    }
+
+    public static int probe(ChessBoard board) {
+        return probe(Position.fromBoard(board));
+    }
+
+    static Bitbase get(String signature) {
+        Bitbase table = TABLES.get(signature);
+        if (table == null) {
+            // Generation depends on other tables (KPK promotes into KQK/KRK), so
+            // it can't run inside computeIfAbsent
+            table = load(signature);
+            TABLES.putIfAbsent(signature, table);
+            table = TABLES.get(signature);
+        }
+        return table;
+    }
+
+    private static Bitbase load(String signature) {
+        try (InputStream in = Bitbase.class.getResourceAsStream(RESOURCE_DIR + signature.toLowerCase() + ".bb")) {
+            if (in != null) {
+                return read(in);
+            }
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "Could not load bitbase {0}, generating it: {1}",
+                    signature, e.getMessage());
+        }
+        return BitbaseGenerator.generate(signature);
+    }
+
+    static Bitbase read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new GZIPInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a bitbase file");
+        }
+        String signature = data.readUTF();
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        if (bytes.length != entryCount(signature.length()) / 4) {
+            throw new IOException("Bitbase " + signature + " has the wrong size");
+        }
+        return new Bitbase(signature, bytes);
+    }
+
+    void write(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        DataOutputStream data = new DataOutputStream(gzip);
+        data.writeInt(MAGIC);
+        data.writeUTF(signature);
+        data.writeInt(this.data.length);
+        data.write(this.data);
+        data.flush();
+        gzip.finish();
+    }
+}
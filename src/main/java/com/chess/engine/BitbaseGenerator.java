@@ -0,0 +1,224 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Solves king-and-piece versus king endgames by iterating to a fixed point.
+ * Only these three-man endings are supported; see {@link Bitbase}.
+ *
+ * Every index starts out unknown. Illegal placements are discarded and mates,
+ * stalemates and immediate captures of the lone piece are scored directly.
+ * Each pass then marks a strong-side-to-move position as won if some move
+ * reaches a lost position for the defender, and a defender-to-move position as
+ * lost if every move reaches a won one. When a pass changes nothing, whatever
+ * is still unknown is a draw. Pawn promotions are resolved through the KQK and
+ * KRK tables, which are solved first.
+ *
+ * Usage: java -cp chess.jar com.chess.engine.BitbaseGenerator [outputDir]
+ * writes kqk.bb, krk.bb and kpk.bb for bundling under /bitbases.
+ */
+public final class BitbaseGenerator {
+    public static final String[] SIGNATURES = {"KQK", "KRK", "KPK"};
+
+    // Marks illegal placements while solving; stored as UNKNOWN
+    private static final byte INVALID = -1;
+
+    private BitbaseGenerator() {
+    }
+
+    public static Bitbase generate(String signature) {
+        if (signature.length() != 3 || signature.charAt(0) != 'K' || signature.charAt(2) != 'K') {
+            throw new IllegalArgumentException("Unsupported bitbase: " + signature);
+        }
+        int type = Position.PIECE_CHARS.indexOf(signature.charAt(1));
+        if (type < Position.PAWN || type > Position.QUEEN) {
+            throw new IllegalArgumentException("Unsupported bitbase: " + signature);
+        }
+
+        Bitbase queenTable = type == Position.PAWN ? Bitbase.get("KQK") : null;
+        Bitbase rookTable = type == Position.PAWN ? Bitbase.get("KRK") : null;
+
+        int size = Bitbase.entryCount(3);
+        byte[] result = new byte[size];
+        initialise(result, type);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < size; index++) {
+                if (result[index] != Bitbase.UNKNOWN) {
+                    continue;
+                }
+                boolean strongToMove = (index >>> 18) == 0;
+                int strongKing = (index >>> 12) & 63;
+                int weakKing = (index >>> 6) & 63;
+                int piece = index & 63;
+
+                int value = strongToMove
+                        ? solveStrong(result, type, strongKing, weakKing, piece, queenTable, rookTable)
+                        : solveWeak(result, type, strongKing, weakKing, piece);
+                if (value != Bitbase.UNKNOWN) {
+                    result[index] = (byte) value;
+                    changed = true;
+                }
+            }
+        }
+
+        byte[] packed = new byte[size / 4];
+        for (int index = 0; index < size; index++) {
+            int value = result[index];
+            if (value == INVALID) {
+                value = Bitbase.UNKNOWN;
+            } else if (value == Bitbase.UNKNOWN) {
+                value = Bitbase.DRAW;
+            }
+            Bitbase.set(packed, index, value);
+        }
+        return new Bitbase(signature, packed);
+    }
+
+    private static void initialise(byte[] result, int type) {
+        for (int index = 0; index < result.length; index++) {
+            if (!isValid(index, type)) {
+                result[index] = INVALID;
+                continue;
+            }
+            boolean strongToMove = (index >>> 18) == 0;
+            if (strongToMove) {
+                continue;
+            }
+            int strongKing = (index >>> 12) & 63;
+            int weakKing = (index >>> 6) & 63;
+            int piece = index & 63;
+
+            long escapes = weakKingMoves(type, strongKing, weakKing, piece);
+            boolean inCheck = (pieceAttacks(type, piece, bit(strongKing) | bit(weakKing)) & bit(weakKing)) != 0;
+            if (escapes == 0) {
+                result[index] = (byte) (inCheck ? Bitbase.LOSS : Bitbase.DRAW);
+            } else if ((escapes & bit(piece)) != 0) {
+                // Taking the last piece leaves bare kings
+                result[index] = Bitbase.DRAW;
+            }
+        }
+    }
+
+    private static boolean isValid(int index, int type) {
+        boolean strongToMove = (index >>> 18) == 0;
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int piece = index & 63;
+
+        if (strongKing == weakKing || strongKing == piece || weakKing == piece) {
+            return false;
+        }
+        if ((Attacks.KING[strongKing] & bit(weakKing)) != 0) {
+            return false;
+        }
+        if (type == Position.PAWN && (piece >> 3 == 0 || piece >> 3 == 7)) {
+            return false;
+        }
+        // The defender can't be in check with the strong side to move
+        return !strongToMove
+                || (pieceAttacks(type, piece, bit(strongKing) | bit(weakKing)) & bit(weakKing)) == 0;
+    }
+
+    private static int solveStrong(byte[] result, int type, int strongKing, int weakKing, int piece,
+                                   Bitbase queenTable, Bitbase rookTable) {
+        long blocked = bit(piece) | bit(weakKing) | Attacks.KING[weakKing];
+        long kingMoves = Attacks.KING[strongKing] & ~blocked;
+        while (kingMoves != 0) {
+            int to = Long.numberOfTrailingZeros(kingMoves);
+            kingMoves &= kingMoves - 1;
+            if (result[Bitbase.index(false, to, weakKing, piece)] == Bitbase.LOSS) {
+                return Bitbase.WIN;
+            }
+        }
+
+        long occupied = bit(strongKing) | bit(weakKing);
+        if (type == Position.PAWN) {
+            int to = piece - 8;
+            if ((occupied & bit(to)) == 0) {
+                if (to >> 3 == 0) {
+                    int child = Bitbase.index(false, strongKing, weakKing, to);
+                    if (queenTable.get(child) == Bitbase.LOSS || rookTable.get(child) == Bitbase.LOSS) {
+                        return Bitbase.WIN;
+                    }
+                } else {
+                    if (result[Bitbase.index(false, strongKing, weakKing, to)] == Bitbase.LOSS) {
+                        return Bitbase.WIN;
+                    }
+                    int doubleTo = to - 8;
+                    if (piece >> 3 == 6 && (occupied & bit(doubleTo)) == 0
+                            && result[Bitbase.index(false, strongKing, weakKing, doubleTo)] == Bitbase.LOSS) {
+                        return Bitbase.WIN;
+                    }
+                }
+            }
+            return Bitbase.UNKNOWN;
+        }
+
+        long pieceMoves = pieceAttacks(type, piece, occupied) & ~occupied;
+        while (pieceMoves != 0) {
+            int to = Long.numberOfTrailingZeros(pieceMoves);
+            pieceMoves &= pieceMoves - 1;
+            if (result[Bitbase.index(false, strongKing, weakKing, to)] == Bitbase.LOSS) {
+                return Bitbase.WIN;
+            }
+        }
+        return Bitbase.UNKNOWN;
+    }
+
+    private static int solveWeak(byte[] result, int type, int strongKing, int weakKing, int piece) {
+        long moves = weakKingMoves(type, strongKing, weakKing, piece);
+        while (moves != 0) {
+            int to = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            if (result[Bitbase.index(true, strongKing, to, piece)] != Bitbase.WIN) {
+                return Bitbase.UNKNOWN;
+            }
+        }
+        return Bitbase.LOSS;
+    }
+
+    /**
+     * Squares the defending king can move to, including capturing an
+     * unprotected piece. Sliders see through the king's current square.
+     */
+    private static long weakKingMoves(int type, int strongKing, int weakKing, int piece) {
+        long guarded = Attacks.KING[strongKing] | pieceAttacks(type, piece, bit(strongKing));
+        return Attacks.KING[weakKing] & ~guarded;
+    }
+
+    private static long pieceAttacks(int type, int sq, long occupied) {
+        switch (type) {
+            case Position.PAWN: return Attacks.PAWN[Position.WHITE][sq];
+            case Position.KNIGHT: return Attacks.KNIGHT[sq];
+            case Position.BISHOP: return Attacks.bishopAttacks(sq, occupied);
+            case Position.ROOK: return Attacks.rookAttacks(sq, occupied);
+            case Position.QUEEN: return Attacks.queenAttacks(sq, occupied);
+            default: return 0L;
+        }
+    }
+
+    private static long bit(int sq) {
+        return 1L << sq;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : ".");
+        Files.createDirectories(dir);
+        for (String signature : SIGNATURES) {
+            long start = System.currentTimeMillis();
+            Bitbase table = Bitbase.get(signature);
+            Path file = dir.resolve(signature.toLowerCase() + ".bb");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                table.write(out);
+            }
+            System.out.println("Wrote " + file + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.chess.engine;
+
+/**
+ * Static evaluation: material plus piece-square tables.
+ *
+ * Tables are written from White's point of view with the 8th rank first, which
+ * matches the engine's square numbering; Black squares are mirrored with sq ^ 56.
+ * Scores are in centipawns relative to the side to move.
+ */
+public final class Evaluator {
+    public static final int[] PIECE_VALUE = {0, 100, 320, 330, 500, 900, 20000};
+
+    private static final int[] PAWN_TABLE = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+         5,  5, 10, 25, 25, 10,  5,  5,
+         0,  0,  0, 20, 20,  0,  0,  0,
+         5, -5,-10,  0,  0,-10, -5,  5,
+         5, 10, 10,-20,-20, 10, 10,  5,
+         0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+        -50,-40,-30,-30,-30,-30,-40,-50,
+        -40,-20,  0,  0,  0,  0,-20,-40,
+        -30,  0, 10, 15, 15, 10,  0,-30,
+        -30,  5, 15, 20, 20, 15,  5,-30,
+        -30,  0, 15, 20, 20, 15,  0,-30,
+        -30,  5, 10, 15, 15, 10,  5,-30,
+        -40,-20,  0,  5,  5,  0,-20,-40,
+        -50,-40,-30,-30,-30,-30,-40,-50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+        -20,-10,-10,-10,-10,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5, 10, 10,  5,  0,-10,
+        -10,  5,  5, 10, 10,  5,  5,-10,
+        -10,  0, 10, 10, 10, 10,  0,-10,
+        -10, 10, 10, 10, 10, 10, 10,-10,
+        -10,  5,  0,  0,  0,  0,  5,-10,
+        -20,-10,-10,-10,-10,-10,-10,-20
+    };
+
+    private static final int[] ROOK_TABLE = {
+          0,  0,  0,  0,  0,  0,  0,  0,
+          5, 10, 10, 10, 10, 10, 10,  5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+          0,  0,  0,  5,  5,  0,  0,  0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+        -20,-10,-10, -5, -5,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5,  5,  5,  5,  0,-10,
+         -5,  0,  5,  5,  5,  5,  0, -5,
+          0,  0,  5,  5,  5,  5,  0, -5,
+        -10,  5,  5,  5,  5,  5,  0,-10,
+        -10,  0,  5,  0,  0,  0,  0,-10,
+        -20,-10,-10, -5, -5,-10,-10,-20
+    };
+
+    private static final int[] KING_TABLE = {
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -20,-30,-30,-40,-40,-30,-30,-20,
+        -10,-20,-20,-20,-20,-20,-20,-10,
+         20, 20,  0,  0,  0,  0, 20, 20,
+         20, 30, 10,  0,  0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50,-40,-30,-20,-20,-30,-40,-50,
+        -30,-20,-10,  0,  0,-10,-20,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-30,  0,  0,  0,  0,-30,-30,
+        -50,-30,-30,-30,-30,-30,-30,-50
+    };
+
+    private static final int[][] TABLES = {
+        null, PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE
+    };
+
+    private Evaluator() {
+    }
+
+    public static int evaluate(Position position) {
+        int score = 0;
+        int nonPawnMaterial = 0;
+
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int sign = color == Position.WHITE ? 1 : -1;
+            int mirror = color == Position.WHITE ? 0 : 56;
+            for (int type = Position.PAWN; type <= Position.QUEEN; type++) {
+                long bits = position.pieces(color, type);
+                int[] table = TABLES[type];
+                while (bits != 0) {
+                    int sq = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    score += sign * (PIECE_VALUE[type] + table[sq ^ mirror]);
+                    if (type != Position.PAWN) {
+                        nonPawnMaterial += PIECE_VALUE[type];
+                    }
+                }
+            }
+        }
+
+        // Centralise the kings once the heavy material is gone
+        int[] kingTable = nonPawnMaterial <= 1300 ? KING_ENDGAME_TABLE : KING_TABLE;
+        int whiteKing = position.kingSquare(Position.WHITE);
+        int blackKing = position.kingSquare(Position.BLACK);
+        if (whiteKing >= 0) {
+            score += kingTable[whiteKing];
+        }
+        if (blackKing >= 0) {
+            score -= kingTable[blackKing ^ 56];
+        }
+
+        return position.sideToMove() == Position.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,128 @@
+package com.chess.engine;
+
+import com.chess.common.ChessMove;
+import com.chess.common.ChessPiece;
+
+/**
+ * Static helpers for the engine's packed int move format.
+ *
+ * Layout: bits 0-5 from square, bits 6-11 to square, bits 12-14 promotion piece
+ * type (0 if none) and bits 15-16 a flag for en passant, castling and double
+ * pawn pushes. Moves are kept as plain ints so the search never allocates.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int FLAG_NORMAL = 0;
+    public static final int FLAG_EN_PASSANT = 1;
+    public static final int FLAG_CASTLE = 2;
+    public static final int FLAG_DOUBLE_PUSH = 3;
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int encode(int from, int to, int promotion, int flag) {
+        return from | (to << 6) | (promotion << 12) | (flag << 15);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    /**
+     * Converts an engine move to the protocol's {@link ChessMove}.
+     */
+    public static ChessMove toChessMove(int move, Position position) {
+        int from = from(move);
+        int to = to(move);
+        ChessMove chessMove = new ChessMove(from >> 3, from & 7, to >> 3, to & 7,
+                position.toChessPiece(position.pieceAt(from)), flag(move) == FLAG_CASTLE);
+        if (promotion(move) != 0) {
+            chessMove.setPromotionPiece(Position.toPieceType(promotion(move)));
+        }
+        return chessMove;
+    }
+
+    /**
+     * Finds the legal engine move matching a {@link ChessMove}, or {@link #NONE}.
+     * A promotion without an explicit piece type is treated as a queen promotion,
+     * matching {@link com.chess.common.ChessBoard#makeMove(ChessMove)}.
+     */
+    public static int fromChessMove(ChessMove chessMove, Position position) {
+        int from = chessMove.getStartRow() * 8 + chessMove.getStartCol();
+        int to = chessMove.getEndRow() * 8 + chessMove.getEndCol();
+        ChessPiece.PieceType promotionType = chessMove.getPromotionType();
+        int promotion = promotionType != null ? Position.fromPieceType(promotionType) : Position.QUEEN;
+
+        // Legality is only checked for the matching pseudo-legal move
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves, 0);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (from(move) == from && to(move) == to
+                    && (promotion(move) == 0 || promotion(move) == promotion)) {
+                return MoveGenerator.isLegal(position, move) ? move : NONE;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the legal move written in long algebraic notation, or {@link #NONE}.
+     */
+    public static int fromUci(String uci, Position position) {
+        if (uci == null || uci.length() < 4) {
+            return NONE;
+        }
+        int from;
+        int to;
+        try {
+            from = Position.parseSquare(uci.substring(0, 2));
+            to = Position.parseSquare(uci.substring(2, 4));
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+        int promotion = uci.length() > 4 ? Position.PIECE_CHARS.indexOf(Character.toUpperCase(uci.charAt(4))) : 0;
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves, 0);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (from(move) == from && to(move) == to && promotion(move) == Math.max(promotion, 0)) {
+                return MoveGenerator.isLegal(position, move) ? move : NONE;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Long algebraic notation such as "e2e4" or "e7e8q".
+     */
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        StringBuilder sb = new StringBuilder(5);
+        sb.append(Position.squareName(from(move))).append(Position.squareName(to(move)));
+        if (promotion(move) != 0) {
+            sb.append(Character.toLowerCase(Position.PIECE_CHARS.charAt(promotion(move))));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,237 @@
+package com.chess.engine;
+
+/**
+ * Pseudo-legal and legal move generation on top of {@link Attacks}.
+ *
+ * Moves are written into a caller-supplied int array starting at an offset, and
+ * the number of moves written is returned. The search hands each ply its own
+ * slice of one shared buffer, so generation never allocates.
+ */
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * All pseudo-legal moves for the side to move.
+     */
+    public static int generate(Position position, int[] moves, int offset) {
+        return generate(position, moves, offset, false);
+    }
+
+    /**
+     * Captures and queen promotions only, as searched by quiescence.
+     */
+    public static int generateCaptures(Position position, int[] moves, int offset) {
+        return generate(position, moves, offset, true);
+    }
+
+    /**
+     * All legal moves for the side to move.
+     */
+    public static int generateLegal(Position position, int[] moves, int offset) {
+        int count = generate(position, moves, offset, false);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[offset + i];
+            if (isLegal(position, move)) {
+                moves[offset + legal++] = move;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * True if a pseudo-legal move does not leave the mover's king in check.
+     */
+    public static boolean isLegal(Position position, int move) {
+        int us = position.sideToMove();
+        position.makeMove(move);
+        int king = position.kingSquare(us);
+        boolean legal = king < 0 || !position.isAttacked(king, us ^ 1);
+        position.unmakeMove();
+        return legal;
+    }
+
+    public static boolean hasLegalMove(Position position) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(position, moves, 0, false);
+        for (int i = 0; i < count; i++) {
+            if (isLegal(position, moves[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int generate(Position position, int[] moves, int offset, boolean capturesOnly) {
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.colorPieces(us);
+        long enemy = position.colorPieces(them);
+        long occupied = own | enemy;
+        long targets = capturesOnly ? enemy : ~own;
+        int n = offset;
+
+        n = generatePawnMoves(position, moves, n, us, enemy, occupied, capturesOnly);
+
+        long knights = position.pieces(us, Position.KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            n = addMoves(moves, n, from, Attacks.KNIGHT[from] & targets);
+        }
+
+        long bishops = position.pieces(us, Position.BISHOP);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            n = addMoves(moves, n, from, Attacks.bishopAttacks(from, occupied) & targets);
+        }
+
+        long rooks = position.pieces(us, Position.ROOK);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            n = addMoves(moves, n, from, Attacks.rookAttacks(from, occupied) & targets);
+        }
+
+        long queens = position.pieces(us, Position.QUEEN);
+        while (queens != 0) {
+            int from = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            n = addMoves(moves, n, from, Attacks.queenAttacks(from, occupied) & targets);
+        }
+
+        int king = position.kingSquare(us);
+        if (king >= 0) {
+            n = addMoves(moves, n, king, Attacks.KING[king] & targets);
+            if (!capturesOnly) {
+                n = generateCastling(position, moves, n, us, occupied);
+            }
+        }
+
+        return n - offset;
+    }
+
+    private static int generatePawnMoves(Position position, int[] moves, int n, int us,
+                                         long enemy, long occupied, boolean capturesOnly) {
+        int push = us == Position.WHITE ? -8 : 8;
+        int startRow = us == Position.WHITE ? 6 : 1;
+        int promotionRow = us == Position.WHITE ? 0 : 7;
+        int epSquare = position.epSquare();
+
+        long pawns = position.pieces(us, Position.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            int to = from + push;
+            if ((occupied & (1L << to)) == 0) {
+                if ((to >> 3) == promotionRow) {
+                    n = addPromotions(moves, n, from, to, capturesOnly);
+                } else if (!capturesOnly) {
+                    moves[n++] = Move.encode(from, to);
+                    int doubleTo = to + push;
+                    if ((from >> 3) == startRow && (occupied & (1L << doubleTo)) == 0) {
+                        moves[n++] = Move.encode(from, doubleTo, 0, Move.FLAG_DOUBLE_PUSH);
+                    }
+                }
+            }
+
+            long captures = Attacks.PAWN[us][from] & enemy;
+            while (captures != 0) {
+                int target = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((target >> 3) == promotionRow) {
+                    n = addPromotions(moves, n, from, target, capturesOnly);
+                } else {
+                    moves[n++] = Move.encode(from, target);
+                }
+            }
+
+            if (epSquare >= 0 && (Attacks.PAWN[us][from] & (1L << epSquare)) != 0) {
+                moves[n++] = Move.encode(from, epSquare, 0, Move.FLAG_EN_PASSANT);
+            }
+        }
+        return n;
+    }
+
+    private static int addPromotions(int[] moves, int n, int from, int to, boolean queenOnly) {
+        moves[n++] = Move.encode(from, to, Position.QUEEN, Move.FLAG_NORMAL);
+        if (!queenOnly) {
+            moves[n++] = Move.encode(from, to, Position.ROOK, Move.FLAG_NORMAL);
+            moves[n++] = Move.encode(from, to, Position.BISHOP, Move.FLAG_NORMAL);
+            moves[n++] = Move.encode(from, to, Position.KNIGHT, Move.FLAG_NORMAL);
+        }
+        return n;
+    }
+
+    private static int generateCastling(Position position, int[] moves, int n, int us, long occupied) {
+        int rights = position.castlingRights();
+        int them = us ^ 1;
+        if (us == Position.WHITE) {
+            if ((rights & Position.WHITE_KINGSIDE) != 0 && (occupied & ((1L << 61) | (1L << 62))) == 0
+                    && !position.isAttacked(60, them) && !position.isAttacked(61, them)
+                    && !position.isAttacked(62, them)) {
+                moves[n++] = Move.encode(60, 62, 0, Move.FLAG_CASTLE);
+            }
+            if ((rights & Position.WHITE_QUEENSIDE) != 0
+                    && (occupied & ((1L << 57) | (1L << 58) | (1L << 59))) == 0
+                    && !position.isAttacked(60, them) && !position.isAttacked(59, them)
+                    && !position.isAttacked(58, them)) {
+                moves[n++] = Move.encode(60, 58, 0, Move.FLAG_CASTLE);
+            }
+        } else {
+            if ((rights & Position.BLACK_KINGSIDE) != 0 && (occupied & ((1L << 5) | (1L << 6))) == 0
+                    && !position.isAttacked(4, them) && !position.isAttacked(5, them)
+                    && !position.isAttacked(6, them)) {
+                moves[n++] = Move.encode(4, 6, 0, Move.FLAG_CASTLE);
+            }
+            if ((rights & Position.BLACK_QUEENSIDE) != 0
+                    && (occupied & ((1L << 1) | (1L << 2) | (1L << 3))) == 0
+                    && !position.isAttacked(4, them) && !position.isAttacked(3, them)
+                    && !position.isAttacked(2, them)) {
+                moves[n++] = Move.encode(4, 2, 0, Move.FLAG_CASTLE);
+            }
+        }
+        return n;
+    }
+
+    private static int addMoves(int[] moves, int n, int from, long targets) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[n++] = Move.encode(from, to);
+        }
+        return n;
+    }
+
+    /**
+     * Counts leaf nodes of the legal move tree to a fixed depth. Used to verify
+     * the generator against known reference counts.
+     */
+    public static long perft(Position position, int depth) {
+        int[] moves = new int[MAX_MOVES * (depth + 1)];
+        return perft(position, depth, moves, 0);
+    }
+
+    private static long perft(Position position, int depth, int[] moves, int offset) {
+        if (depth == 0) {
+            return 1;
+        }
+        int count = generate(position, moves, offset, false);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[offset + i];
+            if (!isLegal(position, move)) {
+                continue;
+            }
+            position.makeMove(move);
+            nodes += perft(position, depth - 1, moves, offset + MAX_MOVES);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,138 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Assigns ordering scores to generated moves so the search tries the most
+ * promising ones first.
+ *
+ * Order: hash move, winning and equal captures (MVV-LVA), promotions, the two
+ * killer moves of the ply, the countermove to the opponent's last move, quiet
+ * moves by history score, and finally captures that lose material by static
+ * exchange. All tables are flat primitive arrays sized up front, so scoring a
+ * node never allocates.
+ */
+public class MoveOrderer {
+    private static final int HASH_SCORE = 10_000_000;
+    private static final int GOOD_CAPTURE_SCORE = 8_000_000;
+    private static final int PROMOTION_SCORE = 7_000_000;
+    private static final int KILLER_SCORE = 6_000_000;
+    private static final int COUNTERMOVE_SCORE = 5_000_000;
+    private static final int BAD_CAPTURE_SCORE = -1_000_000;
+
+    // Keeps history scores well below the countermove band
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final int[] killers = new int[(Search.MAX_PLY + 1) * 2];
+    private final int[] history = new int[2 * 64 * 64];
+    private final int[] countermoves = new int[64 * 64];
+    private final See see = new See();
+
+    /**
+     * Clears killers and decays history between searches so stale statistics
+     * from an earlier position don't dominate.
+     */
+    public void newSearch() {
+        Arrays.fill(killers, Move.NONE);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(killers, Move.NONE);
+        Arrays.fill(history, 0);
+        Arrays.fill(countermoves, Move.NONE);
+    }
+
+    public void scoreMoves(Position position, int[] moves, int[] scores, int offset, int count,
+                           int ply, int hashMove) {
+        int side = position.sideToMove();
+        int killer1 = killers[ply * 2];
+        int killer2 = killers[ply * 2 + 1];
+        int previous = position.lastMove();
+        int counter = previous != Move.NONE ? countermoves[fromTo(previous)] : Move.NONE;
+
+        for (int i = offset; i < offset + count; i++) {
+            int move = moves[i];
+            int score;
+            if (move == hashMove) {
+                score = HASH_SCORE;
+            } else if (isCapture(position, move)) {
+                int mvvLva = mvvLva(position, move);
+                score = see.evaluate(position, move) >= 0
+                        ? GOOD_CAPTURE_SCORE + mvvLva
+                        : BAD_CAPTURE_SCORE + mvvLva;
+            } else if (Move.promotion(move) != 0) {
+                score = PROMOTION_SCORE + Move.promotion(move);
+            } else if (move == killer1) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killer2) {
+                score = KILLER_SCORE;
+            } else if (move == counter) {
+                score = COUNTERMOVE_SCORE;
+            } else {
+                score = history[(side << 12) | fromTo(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Capture-only ordering for quiescence, where losing captures are pruned
+     * before they are searched.
+     */
+    public void scoreCaptures(Position position, int[] moves, int[] scores, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            int move = moves[i];
+            int score = isCapture(position, move) ? GOOD_CAPTURE_SCORE + mvvLva(position, move) : 0;
+            if (Move.promotion(move) != 0) {
+                score += PROMOTION_SCORE + Move.promotion(move);
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff.
+     */
+    public void recordCutoff(Position position, int move, int ply, int depth) {
+        if (killers[ply * 2] != move) {
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = move;
+        }
+
+        int previous = position.lastMove();
+        if (previous != Move.NONE) {
+            countermoves[fromTo(previous)] = move;
+        }
+
+        int index = (position.sideToMove() << 12) | fromTo(move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    public static boolean isCapture(Position position, int move) {
+        return position.pieceAt(Move.to(move)) != Position.EMPTY
+                || Move.flag(move) == Move.FLAG_EN_PASSANT;
+    }
+
+    /**
+     * Most valuable victim first, least valuable attacker as tie-break.
+     */
+    static int mvvLva(Position position, int move) {
+        int victim = Move.flag(move) == Move.FLAG_EN_PASSANT
+                ? Position.PAWN
+                : Position.typeOf(position.pieceAt(Move.to(move)));
+        int attacker = Position.typeOf(position.pieceAt(Move.from(move)));
+        return victim * 16 - attacker;
+    }
+
+    private static int fromTo(int move) {
+        return move & 0xFFF;
+    }
+}
@@ -0,0 +1,198 @@
+package com.chess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.chess.common.ChessBoard;
+import com.chess.common.ChessMove;
+
+/**
+ * Read-only opening book in the Polyglot .bin layout.
+ *
+ * The file is a sequence of 16-byte big-endian entries sorted by key:
+ * 8-byte position key, 2-byte move, 2-byte weight and 4-byte learn field.
+ * The whole file is memory-mapped, so lookups are a binary search over the
+ * mapping with no reads or copies; the OS pages in only the touched parts.
+ *
+ * Keys are standard Polyglot keys ({@link PolyglotKey}), so stock Polyglot
+ * books work as well as books built with {@link OpeningBookWriter}.
+ */
+public class OpeningBook {
+    public static final int ENTRY_SIZE = 16;
+
+    private final ByteBuffer entries;
+    private final int entryCount;
+    private final Random random;
+
+    private OpeningBook(ByteBuffer entries, Random random) {
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_SIZE;
+        this.random = random;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        return open(path, new Random());
+    }
+
+    public static OpeningBook open(Path path, Random random) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a book file: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), random);
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Picks a book move for the board, weighted by entry weight, or null when
+     * the position is not in the book.
+     */
+    public ChessMove probe(ChessBoard board) {
+        Position position = Position.fromBoard(board);
+        int move = probe(position);
+        return move != Move.NONE ? Move.toChessMove(move, position) : null;
+    }
+
+    /**
+     * Weighted random book move for the position, or {@link Move#NONE}.
+     */
+    public int probe(Position position) {
+        long key = PolyglotKey.of(position);
+        int first = lowerBound(key);
+        int totalWeight = 0;
+        for (int i = first; i < entryCount && keyAt(i) == key; i++) {
+            totalWeight += weightAt(i);
+        }
+        if (totalWeight == 0) {
+            return Move.NONE;
+        }
+
+        int pick = random.nextInt(totalWeight);
+        for (int i = first; i < entryCount && keyAt(i) == key; i++) {
+            pick -= weightAt(i);
+            if (pick < 0) {
+                return decodeMove(entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF, position);
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Legal book moves for the position, heaviest first; empty when the
+     * position is not in the book.
+     */
+    public int[] moves(Position position) {
+        long key = PolyglotKey.of(position);
+        int first = lowerBound(key);
+        int last = first;
+        while (last < entryCount && keyAt(last) == key) {
+            last++;
+        }
+
+        long[] weighted = new long[last - first];
+        int count = 0;
+        for (int i = first; i < last; i++) {
+            int move = decodeMove(entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF, position);
+            if (move != Move.NONE) {
+                // Negated weight in the high bits sorts heaviest first
+                weighted[count++] = ((long) -weightAt(i) << 32) | (move & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(weighted, 0, count);
+
+        int[] moves = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = (int) weighted[i];
+        }
+        return moves;
+    }
+
+    /**
+     * Number of book entries stored for the position.
+     */
+    public int countMoves(Position position) {
+        long key = PolyglotKey.of(position);
+        int count = 0;
+        for (int i = lowerBound(key); i < entryCount && keyAt(i) == key; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    /**
+     * Polyglot move layout: to-file, to-rank, from-file, from-rank in 3 bits
+     * each (rank 0 is the first rank), then the promotion piece. Castling is
+     * stored as the king capturing its own rook.
+     */
+    static int encodeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.flag(move) == Move.FLAG_CASTLE) {
+            to = (to & 7) == 6 ? to + 1 : to - 2;
+        }
+        int promotion = Move.promotion(move) != 0 ? Move.promotion(move) - 1 : 0;
+        return (to & 7) | ((7 - (to >> 3)) << 3) | ((from & 7) << 6) | ((7 - (from >> 3)) << 9) | (promotion << 12);
+    }
+
+    static int decodeMove(int bookMove, Position position) {
+        int toCol = bookMove & 7;
+        int toRow = 7 - ((bookMove >> 3) & 7);
+        int fromCol = (bookMove >> 6) & 7;
+        int fromRow = 7 - ((bookMove >> 9) & 7);
+        int promotion = (bookMove >> 12) & 7;
+        int from = fromRow * 8 + fromCol;
+        int to = toRow * 8 + toCol;
+        if (Position.typeOf(position.pieceAt(from)) == Position.KING && fromCol == 4) {
+            if (toCol == 7) {
+                to = fromRow * 8 + 6;
+            } else if (toCol == 0) {
+                to = fromRow * 8 + 2;
+            }
+        }
+
+        // Only hand out moves that are legal here, in case of a key collision
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Move.from(move) == from && Move.to(move) == to
+                    && Move.promotion(move) == (promotion != 0 ? promotion + 1 : 0)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+}
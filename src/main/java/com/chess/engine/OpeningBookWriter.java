@@ -0,0 +1,105 @@
+package com.chess.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from played games.
+ *
+ * Every (position, move) pair seen in the first {@code maxPly} plies of a game
+ * becomes an entry whose weight is the number of games that played it. Games
+ * are given as lists of moves in long algebraic notation ("e2e4", "e7e8q").
+ *
+ * Usage: java -cp chess.jar com.chess.engine.OpeningBookWriter games.txt book.bin [maxPly]
+ * where games.txt holds one game per line with moves separated by spaces.
+ */
+public class OpeningBookWriter {
+    private final int maxPly;
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+
+    public OpeningBookWriter(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Adds the opening of one game. Stops at the first illegal or unreadable
+     * move and returns the number of plies added.
+     */
+    public int addGame(List<String> uciMoves) {
+        Position position = new Position();
+        int ply = 0;
+        for (String uci : uciMoves) {
+            if (ply >= maxPly) {
+                break;
+            }
+            int move = Move.fromUci(uci, position);
+            if (move == Move.NONE) {
+                break;
+            }
+            counts.computeIfAbsent(PolyglotKey.of(position), k -> new HashMap<>())
+                    .merge(OpeningBook.encodeMove(move), 1, Integer::sum);
+            position.makeMove(move);
+            ply++;
+        }
+        return ply;
+    }
+
+    public void write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                entries.add(new long[] {position.getKey(), move.getKey(), Math.min(move.getValue(), 0xFFFF)});
+            }
+        }
+        // Polyglot readers binary-search on the unsigned key
+        entries.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a[0], b[0]);
+            return byKey != 0 ? byKey : Long.compare(b[2], a[2]);
+        });
+
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeInt(0);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookWriter <games.txt> <book.bin> [maxPly]");
+            System.exit(1);
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        OpeningBookWriter writer = new OpeningBookWriter(maxPly);
+
+        int games = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    writer.addGame(Arrays.asList(line.split("\\s+")));
+                    games++;
+                }
+            }
+        }
+
+        writer.write(Paths.get(args[1]));
+        System.out.println("Wrote book from " + games + " games to " + args[1]);
+    }
+}
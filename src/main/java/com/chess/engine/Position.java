@@ -0,0 +1,649 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+import com.chess.common.ChessBoard;
+import com.chess.common.ChessPiece;
+
+/**
+ * Compact, mutable board representation used by the engine.
+ *
+ * A mailbox array and per-piece bitboards are kept in sync so both square
+ * lookups and attack-table queries are cheap. Moves are applied with
+ * {@link #makeMove(int)} and reverted with {@link #unmakeMove()}; the undo
+ * information lives in preallocated arrays so searching does not allocate.
+ */
+public class Position {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final String PIECE_CHARS = ".PNBRQK";
+
+    // First and last ranks, where no pawn can stand
+    private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+    // Castling rights kept after a move touches the given square
+    private static final int[] CASTLE_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLE_MASK, 15);
+        CASTLE_MASK[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLE_MASK[63] &= ~WHITE_KINGSIDE;
+        CASTLE_MASK[56] &= ~WHITE_QUEENSIDE;
+        CASTLE_MASK[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLE_MASK[7] &= ~BLACK_KINGSIDE;
+        CASTLE_MASK[0] &= ~BLACK_QUEENSIDE;
+    }
+
+    private final int[] board = new int[64];
+    private final long[] pieces = new long[16];
+    private final long[] colors = new long[2];
+    private final int[] kingSquare = {-1, -1};
+
+    private int side = WHITE;
+    private int castling;
+    private int epSquare = -1;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private long key;
+
+    // Undo stack
+    private int ply;
+    private int[] historyMove = new int[256];
+    private int[] historyCaptured = new int[256];
+    private int[] historyCastling = new int[256];
+    private int[] historyEp = new int[256];
+    private int[] historyHalfmove = new int[256];
+    private long[] historyKey = new long[256];
+
+    public Position() {
+        setFen(START_FEN);
+    }
+
+    public static Position fromFen(String fen) {
+        Position position = new Position();
+        position.setFen(fen);
+        return position;
+    }
+
+    /**
+     * Builds an engine position from the shared {@link ChessBoard} model. Castling
+     * rights are derived from the king and rook "has moved" flags and the en
+     * passant square from the board's last double pawn push.
+     */
+    public static Position fromBoard(ChessBoard chessBoard) {
+        Position position = new Position();
+        position.clear();
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = chessBoard.getPiece(row, col);
+                if (piece != null) {
+                    int color = piece.getColor() == ChessPiece.PieceColor.WHITE ? WHITE : BLACK;
+                    position.addPiece(row * 8 + col, fromPieceType(piece.getType()) | (color << 3));
+                }
+            }
+        }
+
+        position.side = chessBoard.getCurrentTurn() == ChessPiece.PieceColor.WHITE ? WHITE : BLACK;
+        int rights = 0;
+        if (isUnmoved(chessBoard, 7, 4, ChessPiece.PieceType.KING)) {
+            if (isUnmoved(chessBoard, 7, 7, ChessPiece.PieceType.ROOK)) rights |= WHITE_KINGSIDE;
+            if (isUnmoved(chessBoard, 7, 0, ChessPiece.PieceType.ROOK)) rights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmoved(chessBoard, 0, 4, ChessPiece.PieceType.KING)) {
+            if (isUnmoved(chessBoard, 0, 7, ChessPiece.PieceType.ROOK)) rights |= BLACK_KINGSIDE;
+            if (isUnmoved(chessBoard, 0, 0, ChessPiece.PieceType.ROOK)) rights |= BLACK_QUEENSIDE;
+        }
+        position.castling = rights;
+
+        if (chessBoard.wasLastMoveDoublePawnPush()) {
+            int pawnRow = chessBoard.getLastPawnMoveRow();
+            int pawnCol = chessBoard.getLastPawnMoveCol();
+            // The skipped square sits behind the pawn from the mover's point of view
+            int epRow = position.side == WHITE ? pawnRow - 1 : pawnRow + 1;
+            position.setEpSquareIfCapturable(epRow * 8 + pawnCol, position.side ^ 1);
+        }
+
+        position.key = position.computeKey();
+        return position;
+    }
+
+    private static boolean isUnmoved(ChessBoard chessBoard, int row, int col, ChessPiece.PieceType type) {
+        ChessPiece piece = chessBoard.getPiece(row, col);
+        ChessPiece.PieceColor color = row == 7 ? ChessPiece.PieceColor.WHITE : ChessPiece.PieceColor.BLACK;
+        return piece != null && piece.getType() == type && piece.getColor() == color && !piece.hasMoved();
+    }
+
+    private void clear() {
+        Arrays.fill(board, EMPTY);
+        Arrays.fill(pieces, 0L);
+        colors[WHITE] = 0L;
+        colors[BLACK] = 0L;
+        kingSquare[WHITE] = -1;
+        kingSquare[BLACK] = -1;
+        side = WHITE;
+        castling = 0;
+        epSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        ply = 0;
+        key = 0L;
+    }
+
+    public void setFen(String fen) {
+        clear();
+        String[] parts = fen.trim().split("\\s+");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        int row = 0;
+        int col = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                row++;
+                col = 0;
+            } else if (Character.isDigit(c)) {
+                col += c - '0';
+            } else {
+                int type = PIECE_CHARS.indexOf(Character.toUpperCase(c));
+                if (type <= 0 || row > 7 || col > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                int color = Character.isUpperCase(c) ? WHITE : BLACK;
+                addPiece(row * 8 + col, type | (color << 3));
+                col++;
+            }
+        }
+
+        side = parts[1].equals("b") ? BLACK : WHITE;
+
+        if (parts.length > 2) {
+            for (char c : parts[2].toCharArray()) {
+                switch (c) {
+                    case 'K': castling |= WHITE_KINGSIDE; break;
+                    case 'Q': castling |= WHITE_QUEENSIDE; break;
+                    case 'k': castling |= BLACK_KINGSIDE; break;
+                    case 'q': castling |= BLACK_QUEENSIDE; break;
+                    default: break;
+                }
+            }
+        }
+        if (parts.length > 3 && !parts[3].equals("-")) {
+            setEpSquareIfCapturable(parseSquare(parts[3]), side ^ 1);
+        }
+        if (parts.length > 4) {
+            halfmoveClock = Integer.parseInt(parts[4]);
+        }
+        if (parts.length > 5) {
+            fullmoveNumber = Integer.parseInt(parts[5]);
+        }
+
+        key = computeKey();
+    }
+
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = board[row * 8 + col];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_CHARS.charAt(typeOf(piece));
+                sb.append(colorOf(piece) == WHITE ? c : Character.toLowerCase(c));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row < 7) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(side == WHITE ? " w " : " b ");
+        if (castling == 0) {
+            sb.append('-');
+        } else {
+            if ((castling & WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((castling & WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((castling & BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((castling & BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
+        sb.append(' ').append(epSquare >= 0 ? squareName(epSquare) : "-");
+        sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return sb.toString();
+    }
+
+    // The en passant square is only recorded when a pawn can actually capture,
+    // so transpositions hash identically
+    private void setEpSquareIfCapturable(int sq, int pusher) {
+        int capturer = pusher ^ 1;
+        if ((Attacks.PAWN[pusher][sq] & pieces[PAWN | (capturer << 3)]) != 0) {
+            epSquare = sq;
+        }
+    }
+
+    private long computeKey() {
+        long k = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] != EMPTY) {
+                k ^= Zobrist.PIECE[board[sq]][sq];
+            }
+        }
+        k ^= Zobrist.CASTLING[castling];
+        if (epSquare >= 0) {
+            k ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+        }
+        if (side == BLACK) {
+            k ^= Zobrist.SIDE;
+        }
+        return k;
+    }
+
+    private void addPiece(int sq, int piece) {
+        long bit = 1L << sq;
+        board[sq] = piece;
+        pieces[piece] |= bit;
+        colors[piece >> 3] |= bit;
+        key ^= Zobrist.PIECE[piece][sq];
+        if ((piece & 7) == KING) {
+            kingSquare[piece >> 3] = sq;
+        }
+    }
+
+    private void removePiece(int sq) {
+        int piece = board[sq];
+        long bit = 1L << sq;
+        board[sq] = EMPTY;
+        pieces[piece] &= ~bit;
+        colors[piece >> 3] &= ~bit;
+        key ^= Zobrist.PIECE[piece][sq];
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        long bits = (1L << from) | (1L << to);
+        board[from] = EMPTY;
+        board[to] = piece;
+        pieces[piece] ^= bits;
+        colors[piece >> 3] ^= bits;
+        key ^= Zobrist.PIECE[piece][from] ^ Zobrist.PIECE[piece][to];
+        if ((piece & 7) == KING) {
+            kingSquare[piece >> 3] = to;
+        }
+    }
+
+    private void ensureHistoryCapacity() {
+        if (ply < historyMove.length) {
+            return;
+        }
+        int capacity = historyMove.length * 2;
+        historyMove = Arrays.copyOf(historyMove, capacity);
+        historyCaptured = Arrays.copyOf(historyCaptured, capacity);
+        historyCastling = Arrays.copyOf(historyCastling, capacity);
+        historyEp = Arrays.copyOf(historyEp, capacity);
+        historyHalfmove = Arrays.copyOf(historyHalfmove, capacity);
+        historyKey = Arrays.copyOf(historyKey, capacity);
+    }
+
+    /**
+     * Applies a pseudo-legal move. The caller is responsible for checking that the
+     * mover's king is not left in check (see {@link MoveGenerator#isLegal}).
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        int piece = board[from];
+        int captureSquare = flag == Move.FLAG_EN_PASSANT ? (side == WHITE ? to + 8 : to - 8) : to;
+        int captured = board[captureSquare];
+
+        ensureHistoryCapacity();
+        historyMove[ply] = move;
+        historyCaptured[ply] = captured;
+        historyCastling[ply] = castling;
+        historyEp[ply] = epSquare;
+        historyHalfmove[ply] = halfmoveClock;
+        historyKey[ply] = key;
+        ply++;
+
+        key ^= Zobrist.CASTLING[castling];
+        if (epSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+            epSquare = -1;
+        }
+
+        if (captured != EMPTY) {
+            removePiece(captureSquare);
+        }
+        movePiece(from, to);
+
+        if (Move.promotion(move) != 0) {
+            removePiece(to);
+            addPiece(to, Move.promotion(move) | (side << 3));
+        } else if (flag == Move.FLAG_CASTLE) {
+            switch (to) {
+                case 62: movePiece(63, 61); break;
+                case 58: movePiece(56, 59); break;
+                case 6: movePiece(7, 5); break;
+                case 2: movePiece(0, 3); break;
+                default: break;
+            }
+        } else if (flag == Move.FLAG_DOUBLE_PUSH) {
+            setEpSquareIfCapturable((from + to) >> 1, side);
+            if (epSquare >= 0) {
+                key ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+            }
+        }
+
+        castling &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        key ^= Zobrist.CASTLING[castling];
+
+        if ((piece & 7) == PAWN || captured != EMPTY) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (side == BLACK) {
+            fullmoveNumber++;
+        }
+        side ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    public void unmakeMove() {
+        ply--;
+        int move = historyMove[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        side ^= 1;
+
+        if (Move.promotion(move) != 0) {
+            removePiece(to);
+            addPiece(to, PAWN | (side << 3));
+        }
+        movePiece(to, from);
+
+        if (flag == Move.FLAG_CASTLE) {
+            switch (to) {
+                case 62: movePiece(61, 63); break;
+                case 58: movePiece(59, 56); break;
+                case 6: movePiece(5, 7); break;
+                case 2: movePiece(3, 0); break;
+                default: break;
+            }
+        }
+
+        int captured = historyCaptured[ply];
+        if (captured != EMPTY) {
+            int captureSquare = flag == Move.FLAG_EN_PASSANT ? (side == WHITE ? to + 8 : to - 8) : to;
+            addPiece(captureSquare, captured);
+        }
+
+        if (side == BLACK) {
+            fullmoveNumber--;
+        }
+        castling = historyCastling[ply];
+        epSquare = historyEp[ply];
+        halfmoveClock = historyHalfmove[ply];
+        key = historyKey[ply];
+    }
+
+    /**
+     * Passes the turn without moving. Only used by search heuristics.
+     */
+    public void makeNullMove() {
+        ensureHistoryCapacity();
+        historyMove[ply] = Move.NONE;
+        historyCaptured[ply] = EMPTY;
+        historyCastling[ply] = castling;
+        historyEp[ply] = epSquare;
+        historyHalfmove[ply] = halfmoveClock;
+        historyKey[ply] = key;
+        ply++;
+
+        if (epSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+            epSquare = -1;
+        }
+        halfmoveClock++;
+        side ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    public void unmakeNullMove() {
+        ply--;
+        side ^= 1;
+        epSquare = historyEp[ply];
+        halfmoveClock = historyHalfmove[ply];
+        key = historyKey[ply];
+    }
+
+    /**
+     * True if the current position already occurred since the last irreversible
+     * move. A single repetition is enough for the search to score it as a draw.
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= limit; i -= 2) {
+            if (historyKey[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAttacked(int sq, int byColor) {
+        int base = byColor << 3;
+        if ((Attacks.PAWN[byColor ^ 1][sq] & pieces[PAWN | base]) != 0) return true;
+        if ((Attacks.KNIGHT[sq] & pieces[KNIGHT | base]) != 0) return true;
+        if ((Attacks.KING[sq] & pieces[KING | base]) != 0) return true;
+        long occupied = colors[WHITE] | colors[BLACK];
+        long diagonal = pieces[BISHOP | base] | pieces[QUEEN | base];
+        if (diagonal != 0 && (Attacks.bishopAttacks(sq, occupied) & diagonal) != 0) return true;
+        long straight = pieces[ROOK | base] | pieces[QUEEN | base];
+        return straight != 0 && (Attacks.rookAttacks(sq, occupied) & straight) != 0;
+    }
+
+    /**
+     * All pieces of both colors attacking a square, given an occupancy mask.
+     * Passing a reduced occupancy reveals x-ray attackers, which is what the
+     * static exchange evaluator relies on.
+     */
+    public long attackersTo(int sq, long occupied) {
+        long diagonal = pieces[BISHOP] | pieces[QUEEN] | pieces[BISHOP | 8] | pieces[QUEEN | 8];
+        long straight = pieces[ROOK] | pieces[QUEEN] | pieces[ROOK | 8] | pieces[QUEEN | 8];
+        return (Attacks.PAWN[BLACK][sq] & pieces[PAWN])
+                | (Attacks.PAWN[WHITE][sq] & pieces[PAWN | 8])
+                | (Attacks.KNIGHT[sq] & (pieces[KNIGHT] | pieces[KNIGHT | 8]))
+                | (Attacks.KING[sq] & (pieces[KING] | pieces[KING | 8]))
+                | (Attacks.bishopAttacks(sq, occupied) & diagonal)
+                | (Attacks.rookAttacks(sq, occupied) & straight);
+    }
+
+    /**
+     * True if each side has exactly one king, the side that just moved is not
+     * left in check, no pawn stands on the first or last rank, and the
+     * castling rights and en passant square agree with the board. Positions
+     * from untrusted FEN should pass this before they are searched.
+     */
+    public boolean isValid() {
+        if (Long.bitCount(pieces[KING]) != 1 || Long.bitCount(pieces[KING | 8]) != 1
+                || isAttacked(kingSquare[side ^ 1], side)) {
+            return false;
+        }
+        if (((pieces[PAWN] | pieces[PAWN | 8]) & BACK_RANKS) != 0) {
+            return false;
+        }
+        if (!hasCastlingPieces(WHITE_KINGSIDE, 60, 63, WHITE) || !hasCastlingPieces(WHITE_QUEENSIDE, 60, 56, WHITE)
+                || !hasCastlingPieces(BLACK_KINGSIDE, 4, 7, BLACK) || !hasCastlingPieces(BLACK_QUEENSIDE, 4, 0, BLACK)) {
+            return false;
+        }
+        if (epSquare >= 0) {
+            // The pawn that just moved two squares stands in front of the
+            // en passant square, and the squares it crossed are empty
+            int step = side == WHITE ? 8 : -8;
+            int pusher = side ^ 1;
+            if (epSquare / 8 != (side == WHITE ? 2 : 5) || board[epSquare] != EMPTY
+                    || board[epSquare - step] != EMPTY || board[epSquare + step] != (PAWN | (pusher << 3))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasCastlingPieces(int right, int kingSq, int rookSq, int color) {
+        return (castling & right) == 0
+                || (board[kingSq] == (KING | (color << 3)) && board[rookSq] == (ROOK | (color << 3)));
+    }
+
+    public boolean inCheck() {
+        int king = kingSquare[side];
+        return king >= 0 && isAttacked(king, side ^ 1);
+    }
+
+    public int pieceAt(int sq) {
+        return board[sq];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[type | (color << 3)];
+    }
+
+    public long colorPieces(int color) {
+        return colors[color];
+    }
+
+    public long occupied() {
+        return colors[WHITE] | colors[BLACK];
+    }
+
+    public int kingSquare(int color) {
+        return kingSquare[color];
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public int castlingRights() {
+        return castling;
+    }
+
+    public int epSquare() {
+        return epSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int ply() {
+        return ply;
+    }
+
+    /**
+     * The last move applied with {@link #makeMove(int)}, or {@link Move#NONE}.
+     */
+    public int lastMove() {
+        return ply > 0 ? historyMove[ply - 1] : Move.NONE;
+    }
+
+    public int pieceCount() {
+        return Long.bitCount(colors[WHITE] | colors[BLACK]);
+    }
+
+    public Position copy() {
+        Position copy = fromFen(toFen());
+        return copy;
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int colorOf(int piece) {
+        return piece >> 3;
+    }
+
+    public static int fromPieceType(ChessPiece.PieceType type) {
+        switch (type) {
+            case PAWN: return PAWN;
+            case KNIGHT: return KNIGHT;
+            case BISHOP: return BISHOP;
+            case ROOK: return ROOK;
+            case QUEEN: return QUEEN;
+            case KING: return KING;
+            default: return EMPTY;
+        }
+    }
+
+    public static ChessPiece.PieceType toPieceType(int type) {
+        switch (type) {
+            case PAWN: return ChessPiece.PieceType.PAWN;
+            case KNIGHT: return ChessPiece.PieceType.KNIGHT;
+            case BISHOP: return ChessPiece.PieceType.BISHOP;
+            case ROOK: return ChessPiece.PieceType.ROOK;
+            case QUEEN: return ChessPiece.PieceType.QUEEN;
+            case KING: return ChessPiece.PieceType.KING;
+            default: return null;
+        }
+    }
+
+    ChessPiece toChessPiece(int piece) {
+        if (piece == EMPTY) {
+            return null;
+        }
+        ChessPiece.PieceColor color = colorOf(piece) == WHITE ? ChessPiece.PieceColor.WHITE : ChessPiece.PieceColor.BLACK;
+        return new ChessPiece(toPieceType(typeOf(piece)), color);
+    }
+
+    public static String squareName(int sq) {
+        return "" + (char) ('a' + (sq & 7)) + (8 - (sq >> 3));
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        int col = name.charAt(0) - 'a';
+        int row = 8 - (name.charAt(1) - '0');
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return row * 8 + col;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,188 @@
+package com.chess.engine;
+
+import com.chess.common.ChessBoard;
+import com.chess.common.ChessMove;
+
+/**
+ * Standard algebraic notation ("Nbd7", "exd6", "O-O", "e8=Q+") for engine
+ * moves, generated and parsed against the legal moves of a {@link Position}.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "..NBRQK";
+
+    private San() {
+    }
+
+    /**
+     * SAN of a legal move in the given position, including the check or mate
+     * suffix. The position is left unchanged.
+     */
+    public static String toSan(int move, Position position) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Position.typeOf(position.pieceAt(from));
+        StringBuilder san = new StringBuilder(8);
+
+        if (Move.flag(move) == Move.FLAG_CASTLE) {
+            san.append((to & 7) > (from & 7) ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = position.pieceAt(to) != Position.EMPTY || Move.flag(move) == Move.FLAG_EN_PASSANT;
+            if (type == Position.PAWN) {
+                if (capture) {
+                    san.append(fileChar(from)).append('x');
+                }
+                san.append(Position.squareName(to));
+                if (Move.promotion(move) != 0) {
+                    san.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+                }
+            } else {
+                san.append(PIECE_LETTERS.charAt(type));
+                appendDisambiguation(san, move, type, position);
+                if (capture) {
+                    san.append('x');
+                }
+                san.append(Position.squareName(to));
+            }
+        }
+
+        position.makeMove(move);
+        if (position.inCheck()) {
+            san.append(MoveGenerator.hasLegalMove(position) ? '+' : '#');
+        }
+        position.unmakeMove();
+        return san.toString();
+    }
+
+    /**
+     * SAN of a move on a {@link ChessBoard}, or null if it isn't legal there.
+     */
+    public static String toSan(ChessMove chessMove, ChessBoard board) {
+        Position position = Position.fromBoard(board);
+        int move = Move.fromChessMove(chessMove, position);
+        return move != Move.NONE ? toSan(move, position) : null;
+    }
+
+    /**
+     * Finds the legal move written in SAN, or {@link Move#NONE} if there is no
+     * such move or the notation is ambiguous. Check, mate and annotation
+     * suffixes are ignored, and "0-0" is accepted for castling.
+     */
+    public static int fromSan(String san, Position position) {
+        if (san == null) {
+            return Move.NONE;
+        }
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end).replace("x", "").replace("-", "").replace('0', 'O');
+        if (text.length() < 2) {
+            return Move.NONE;
+        }
+
+        // Filter the pseudo-legal moves first; only candidates pay for a legality check
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves, 0);
+
+        if (text.equals("OO") || text.equals("OOO")) {
+            boolean kingside = text.length() == 2;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (Move.flag(move) == Move.FLAG_CASTLE && ((Move.to(move) & 7) > (Move.from(move) & 7)) == kingside) {
+                    return MoveGenerator.isLegal(position, move) ? move : Move.NONE;
+                }
+            }
+            return Move.NONE;
+        }
+
+        int type = Position.PAWN;
+        int start = 0;
+        if ("NBRQK".indexOf(text.charAt(0)) >= 0) {
+            type = PIECE_LETTERS.indexOf(text.charAt(0));
+            start = 1;
+        }
+        int promotion = 0;
+        if (type == Position.PAWN) {
+            char last = text.charAt(text.length() - 1);
+            if ("NBRQ".indexOf(Character.toUpperCase(last)) >= 0 && text.length() > 2) {
+                promotion = PIECE_LETTERS.indexOf(Character.toUpperCase(last));
+                text = text.endsWith("=" + last) ? text.substring(0, text.length() - 2) : text.substring(0, text.length() - 1);
+            }
+        }
+        if (text.length() - start < 2) {
+            return Move.NONE;
+        }
+        int to;
+        try {
+            to = Position.parseSquare(text.substring(text.length() - 2));
+        } catch (IllegalArgumentException e) {
+            return Move.NONE;
+        }
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                // Row 0 is rank 8
+                fromRank = '8' - c;
+            } else {
+                return Move.NONE;
+            }
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.flag(move) == Move.FLAG_CASTLE
+                    || Position.typeOf(position.pieceAt(from)) != type
+                    || Move.promotion(move) != promotion
+                    || (fromFile >= 0 && (from & 7) != fromFile)
+                    || (fromRank >= 0 && (from >> 3) != fromRank)
+                    || !MoveGenerator.isLegal(position, move)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static void appendDisambiguation(StringBuilder san, int move, int type, Position position) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves, 0);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (other == from || Move.to(moves[i]) != to || Position.typeOf(position.pieceAt(other)) != type
+                    || !MoveGenerator.isLegal(position, moves[i])) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= (other & 7) == (from & 7);
+            sameRank |= (other >> 3) == (from >> 3);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(fileChar(from));
+        } else if (!sameRank) {
+            san.append(Position.squareName(from).charAt(1));
+        } else {
+            san.append(Position.squareName(from));
+        }
+    }
+
+    private static char fileChar(int square) {
+        return (char) ('a' + (square & 7));
+    }
+}
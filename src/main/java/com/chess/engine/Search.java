@@ -0,0 +1,458 @@
+package com.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chess.common.ChessBoard;
+import com.chess.common.ChessMove;
+
+/**
+ * Alpha-beta search with iterative deepening and a quiescence stage.
+ *
+ * The main search runs to a nominal depth and then hands over to quiescence,
+ * which keeps resolving captures and promotions until the position is quiet.
+ * Captures are tried most-valuable-victim first and any capture that loses
+ * material by static exchange is skipped, so the tactical horizon stays sharp
+ * without the node count of a deeper full-width search.
+ *
+ * A Search instance owns its move buffers and is not thread-safe; use one per
+ * thread.
+ */
+public class Search {
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+    public static final int KNOWN_WIN = 20000;
+
+    private static final int TIME_CHECK_INTERVAL = 2048;
+    private static final int DELTA_MARGIN = 200;
+
+    private final int[] moves = new int[(MAX_PLY + 1) * MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[(MAX_PLY + 1) * MoveGenerator.MAX_MOVES];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] excludedRootMoves = new int[MoveGenerator.MAX_MOVES];
+    private final See see = new See();
+    private final MoveOrderer orderer = new MoveOrderer();
+    private final TranspositionTable table = new TranspositionTable(20);
+
+    private Position position;
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private boolean orderingEnabled = true;
+    private OpeningBook openingBook;
+    private int excludedCount;
+
+    /**
+     * Result of a completed search.
+     */
+    public static final class Result {
+        private final int bestMove;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final int[] pv;
+
+        Result(int bestMove, int score, int depth, long nodes, int[] pv) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.pv = pv;
+        }
+
+        public int getBestMove() {
+            return bestMove;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public int[] getPv() {
+            return pv.clone();
+        }
+    }
+
+    /**
+     * Picks a move for the side to move on the given board within the time budget.
+     * Book moves are played without searching. Returns null if the side to move
+     * has no legal move.
+     */
+    public ChessMove findBestMove(ChessBoard board, long timeMillis) {
+        Position root = Position.fromBoard(board);
+        if (openingBook != null) {
+            int bookMove = openingBook.probe(root);
+            if (bookMove != Move.NONE) {
+                return Move.toChessMove(bookMove, root);
+            }
+        }
+        Result result = search(root, MAX_PLY, timeMillis);
+        if (result.getBestMove() == Move.NONE) {
+            return null;
+        }
+        return Move.toChessMove(result.getBestMove(), root);
+    }
+
+    /**
+     * Iteratively deepens from depth 1 until maxDepth is reached or the time
+     * budget runs out. The result always comes from the last fully searched
+     * iteration.
+     */
+    public Result search(Position root, int maxDepth, long timeMillis) {
+        this.position = root;
+        this.nodes = 0;
+        this.stopped = false;
+        orderer.newSearch();
+        long start = System.currentTimeMillis();
+        this.deadline = timeMillis > 0 ? start + timeMillis : Long.MAX_VALUE;
+
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] bestPv = new int[0];
+
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (stopped && completedDepth > 0) {
+                break;
+            }
+            if (pvLength[0] > 0) {
+                bestMove = pvTable[0][0];
+                bestScore = score;
+                completedDepth = depth;
+                bestPv = new int[pvLength[0]];
+                System.arraycopy(pvTable[0], 0, bestPv, 0, pvLength[0]);
+            }
+            if (stopped || Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+            // Another iteration costs several times the last one; don't start what can't finish
+            long elapsed = System.currentTimeMillis() - start;
+            if (timeMillis > 0 && elapsed * 2 > timeMillis) {
+                break;
+            }
+        }
+
+        return new Result(bestMove, bestScore, completedDepth, nodes, bestPv);
+    }
+
+    /**
+     * Finds the best {@code lines} distinct moves at the root, each with its own
+     * principal variation. Every line is a full search with the previous best
+     * moves excluded at the root, and the time budget is split evenly. When
+     * the root is in the opening book the lines are the book moves instead.
+     */
+    public List<Result> searchMultiPv(Position root, int lines, int maxDepth, long timeMillis) {
+        long timePerLine = timeMillis > 0 ? Math.max(1, timeMillis / lines) : 0;
+        if (openingBook != null) {
+            int[] bookMoves = openingBook.moves(root);
+            if (bookMoves.length > 0) {
+                return searchBookLines(root, bookMoves, Math.min(lines, bookMoves.length), maxDepth, timePerLine);
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        excludedCount = 0;
+        try {
+            for (int i = 0; i < lines; i++) {
+                Result result = search(root, maxDepth, timePerLine);
+                if (result.getBestMove() == Move.NONE) {
+                    break;
+                }
+                results.add(result);
+                excludedRootMoves[excludedCount++] = result.getBestMove();
+            }
+        } finally {
+            excludedCount = 0;
+        }
+        return results;
+    }
+
+    /**
+     * One line per book move, heaviest first, each scored by searching the
+     * position after it.
+     */
+    private List<Result> searchBookLines(Position root, int[] bookMoves, int lines, int maxDepth, long timePerLine) {
+        List<Result> results = new ArrayList<>();
+        long totalNodes = 0;
+        for (int i = 0; i < lines; i++) {
+            int move = bookMoves[i];
+            Result reply;
+            root.makeMove(move);
+            try {
+                reply = search(root, Math.max(1, maxDepth - 1), timePerLine);
+            } finally {
+                root.unmakeMove();
+            }
+            totalNodes += reply.getNodes();
+
+            int score = -reply.getScore();
+            if (Math.abs(score) >= MATE_BOUND) {
+                // The mate is one ply further away from the root
+                score -= Integer.signum(score);
+            }
+            int[] pv = new int[reply.pv.length + 1];
+            pv[0] = move;
+            System.arraycopy(reply.pv, 0, pv, 1, reply.pv.length);
+            results.add(new Result(move, score, reply.getDepth() + 1, reply.getNodes(), pv));
+        }
+        nodes = totalNodes;
+        return results;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Switches between the full ordering (hash move, SEE, killers, countermoves,
+     * history) and plain MVV-LVA. Only meant for benchmarking the difference.
+     */
+    public void setOrderingEnabled(boolean orderingEnabled) {
+        this.orderingEnabled = orderingEnabled;
+    }
+
+    /**
+     * Forgets hash moves and ordering statistics, e.g. before a new game.
+     */
+    public void clear() {
+        table.clear();
+        orderer.clear();
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (ply > 0 && (position.halfmoveClock() >= 100 || position.isRepetition())) {
+            return 0;
+        }
+        if (ply > 0 && position.pieceCount() <= 3) {
+            // Keep the static eval on top so the winning side still makes progress
+            switch (Bitbase.probe(position)) {
+                case Bitbase.WIN: return KNOWN_WIN + Evaluator.evaluate(position);
+                case Bitbase.LOSS: return -KNOWN_WIN + Evaluator.evaluate(position);
+                case Bitbase.DRAW: return 0;
+                default: break;
+            }
+        }
+
+        boolean inCheck = position.inCheck();
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(alpha, beta, ply);
+        }
+
+        if (++nodes % TIME_CHECK_INTERVAL == 0) {
+            checkTime();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        int offset = ply * MoveGenerator.MAX_MOVES;
+        int count = MoveGenerator.generate(position, moves, offset);
+        if (orderingEnabled) {
+            orderer.scoreMoves(position, moves, scores, offset, count, ply, table.probeMove(position.key()));
+        } else {
+            orderer.scoreCaptures(position, moves, scores, offset, count);
+        }
+
+        int us = position.sideToMove();
+        int legal = 0;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(offset, i, count);
+            if (ply == 0 && isExcluded(move)) {
+                continue;
+            }
+            position.makeMove(move);
+            if (position.isAttacked(position.kingSquare(us), us ^ 1)) {
+                position.unmakeMove();
+                continue;
+            }
+            legal++;
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (orderingEnabled && !MoveOrderer.isCapture(position, move)
+                                && Move.promotion(move) == 0) {
+                            orderer.recordCutoff(position, move, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legal == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        if (orderingEnabled) {
+            table.store(position.key(), bestMove, depth);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Searches captures and promotions until the position is quiet. When in
+     * check every evasion is searched, since standing pat is not an option.
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (++nodes % TIME_CHECK_INTERVAL == 0) {
+            checkTime();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        boolean inCheck = position.inCheck();
+        int standPat = Evaluator.evaluate(position);
+        if (ply >= MAX_PLY) {
+            return standPat;
+        }
+
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            bestScore = standPat;
+        }
+
+        int offset = ply * MoveGenerator.MAX_MOVES;
+        int count = inCheck
+                ? MoveGenerator.generate(position, moves, offset)
+                : MoveGenerator.generateCaptures(position, moves, offset);
+        if (orderingEnabled && inCheck) {
+            orderer.scoreMoves(position, moves, scores, offset, count, ply, Move.NONE);
+        } else {
+            orderer.scoreCaptures(position, moves, scores, offset, count);
+        }
+
+        int us = position.sideToMove();
+        int legal = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(offset, i, count);
+
+            if (!inCheck && Move.promotion(move) == 0) {
+                // Even winning the victim outright can't lift us back to alpha
+                int victim = capturedType(move);
+                if (standPat + Evaluator.PIECE_VALUE[victim] + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+                if (see.evaluate(position, move) < 0) {
+                    continue;
+                }
+            }
+
+            position.makeMove(move);
+            if (position.isAttacked(position.kingSquare(us), us ^ 1)) {
+                position.unmakeMove();
+                continue;
+            }
+            legal++;
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (inCheck && legal == 0) {
+            return -MATE + ply;
+        }
+        return bestScore;
+    }
+
+    private int pickNext(int offset, int index, int count) {
+        int start = offset + index;
+        int best = start;
+        for (int i = start + 1; i < offset + count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != start) {
+            int move = moves[best];
+            moves[best] = moves[start];
+            moves[start] = move;
+            int score = scores[best];
+            scores[best] = scores[start];
+            scores[start] = score;
+        }
+        return moves[start];
+    }
+
+    private boolean isExcluded(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int capturedType(int move) {
+        if (Move.flag(move) == Move.FLAG_EN_PASSANT) {
+            return Position.PAWN;
+        }
+        return Position.typeOf(position.pieceAt(Move.to(move)));
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    private void checkTime() {
+        if (System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.chess.engine;
+
+/**
+ * Measures how much move ordering shrinks the tree.
+ *
+ * Searches a fixed set of positions to a fixed depth twice, once with MVV-LVA
+ * ordering only and once with the full ordering, and prints the node counts.
+ * Usage: java -cp chess.jar com.chess.engine.SearchBenchmark [depth]
+ */
+public class SearchBenchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+
+        long totalBaseline = 0;
+        long totalOrdered = 0;
+        System.out.printf("%-6s %14s %14s %8s%n", "pos", "mvv-lva", "ordered", "ratio");
+        for (int i = 0; i < POSITIONS.length; i++) {
+            long baseline = run(POSITIONS[i], depth, false);
+            long ordered = run(POSITIONS[i], depth, true);
+            totalBaseline += baseline;
+            totalOrdered += ordered;
+            System.out.printf("%-6d %14d %14d %7.1f%%%n", i + 1, baseline, ordered, 100.0 * ordered / baseline);
+        }
+        System.out.printf("%-6s %14d %14d %7.1f%%%n", "total", totalBaseline, totalOrdered,
+                100.0 * totalOrdered / totalBaseline);
+    }
+
+    private static long run(String fen, int depth, boolean ordering) {
+        Search search = new Search();
+        search.setOrderingEnabled(ordering);
+        long start = System.nanoTime();
+        Search.Result result = search.search(Position.fromFen(fen), depth, 0);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("  %s depth %d: %s score %d, %d nodes, %d ms%n",
+                ordering ? "ordered" : "mvv-lva", result.getDepth(), Move.toUci(result.getBestMove()),
+                result.getScore(), result.getNodes(), elapsedMs);
+        return result.getNodes();
+    }
+}
@@ -0,0 +1,76 @@
+package com.chess.engine;
+
+/**
+ * Static exchange evaluation.
+ *
+ * Plays out the sequence of captures on a single square, always recapturing with
+ * the least valuable attacker, and returns the material balance for the side
+ * making the first capture. Attackers are found with the attack tables and
+ * x-rays are revealed by recomputing slider attacks on the shrinking occupancy.
+ */
+public final class See {
+    private final int[] gain = new int[32];
+
+    public int evaluate(Position position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int mover = position.pieceAt(from);
+        int side = Position.colorOf(mover);
+
+        long occupied = position.occupied() ^ (1L << from);
+        int captured;
+        if (Move.flag(move) == Move.FLAG_EN_PASSANT) {
+            captured = Position.PAWN;
+            occupied ^= 1L << (side == Position.WHITE ? to + 8 : to - 8);
+        } else {
+            captured = Position.typeOf(position.pieceAt(to));
+        }
+
+        int depth = 0;
+        gain[0] = Evaluator.PIECE_VALUE[captured];
+        int onSquare = Position.typeOf(mover);
+        if (Move.promotion(move) != 0) {
+            gain[0] += Evaluator.PIECE_VALUE[Move.promotion(move)] - Evaluator.PIECE_VALUE[Position.PAWN];
+            onSquare = Move.promotion(move);
+        }
+
+        long attackers = position.attackersTo(to, occupied) & occupied;
+        side ^= 1;
+
+        while (depth < gain.length - 1) {
+            long ours = attackers & position.colorPieces(side);
+            if (ours == 0) {
+                break;
+            }
+
+            int attackerType = Position.PAWN;
+            long attacker = 0L;
+            for (; attackerType <= Position.KING; attackerType++) {
+                attacker = ours & position.pieces(side, attackerType);
+                if (attacker != 0) {
+                    break;
+                }
+            }
+
+            // A king may only recapture if the opponent has nothing left to answer with
+            if (attackerType == Position.KING
+                    && (attackers & position.colorPieces(side ^ 1)) != 0) {
+                break;
+            }
+
+            depth++;
+            gain[depth] = Evaluator.PIECE_VALUE[onSquare] - gain[depth - 1];
+            onSquare = attackerType;
+
+            occupied ^= Long.lowestOneBit(attacker);
+            attackers = position.attackersTo(to, occupied) & occupied;
+            side ^= 1;
+        }
+
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+}
@@ -0,0 +1,53 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table remembering the best move found for a position.
+ *
+ * Entries live in two parallel primitive arrays indexed by the low bits of the
+ * Zobrist key; the full key is kept to reject index collisions. A slot is
+ * replaced when the new entry was searched at least as deeply, or when it
+ * belongs to a different position.
+ */
+public class TranspositionTable {
+    private final long[] keys;
+    private final int[] entries;
+    private final int mask;
+
+    /**
+     * @param sizeBits log2 of the number of slots
+     */
+    public TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        this.keys = new long[size];
+        this.entries = new int[size];
+        this.mask = size - 1;
+    }
+
+    public void store(long key, int move, int depth) {
+        int index = (int) key & mask;
+        if (keys[index] != key || depth >= entryDepth(entries[index])) {
+            keys[index] = key;
+            // Move in the low 17 bits, depth above it
+            entries[index] = move | (Math.min(depth, 0x7FFF) << 17);
+        }
+    }
+
+    /**
+     * The stored best move for the position, or {@link Move#NONE}.
+     */
+    public int probeMove(long key) {
+        int index = (int) key & mask;
+        return keys[index] == key ? entries[index] & 0x1FFFF : Move.NONE;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0);
+    }
+
+    private static int entryDepth(int entry) {
+        return entry >>> 17;
+    }
+}
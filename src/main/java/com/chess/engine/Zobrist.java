@@ -0,0 +1,35 @@
+package com.chess.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing keys. The seed is fixed so keys are stable across runs and
+ * machines, which lets hashes be stored on disk (opening books, caches).
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5EED_C4E5_5B0A_2D1FL;
+
+    static final long[][] PIECE = new long[16][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int piece = 0; piece < 16; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECE[piece][sq] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < 16; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < 8; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
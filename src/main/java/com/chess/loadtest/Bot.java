@@ -0,0 +1,468 @@
+package com.chess.loadtest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.chess.common.ChessMove;
+import com.chess.common.ChessPiece;
+import com.chess.common.Message;
+import com.chess.engine.Move;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
+import com.google.gson.Gson;
+
+/**
+ * One scripted player on its own connection: sign in, get a game (through
+ * matchmaking, or by hosting or joining a partner's game in lobby mode), play
+ * random legal moves after a think time, chat now and then, and start over
+ * when the game ends.
+ *
+ * Reads happen on the connection's I/O loop and think times on the shared
+ * scheduler; both run the script under the bot's lock. Writes go straight
+ * to the socket and are only queued when it would block.
+ */
+public class Bot {
+    private enum State {
+        CONNECTING, IDLE, SEEKING, PLAYING, CLOSED
+    }
+
+    private static final Gson GSON = new Gson();
+    private static final byte[] LOBBY_MARKER = "\"GAME_LIST_RESPONSE\"".getBytes(StandardCharsets.UTF_8);
+
+    private final LoadGenerator generator;
+    private final LoadGenerator.Config config;
+    private final LoadStats stats;
+    private final String name;
+    private final Random random;
+    // Lobby mode pairs bots up; the host creates a game and the partner joins it
+    private Bot partner;
+    private boolean host;
+
+    // Owned by the I/O loop
+    private SocketChannel channel;
+    private SelectionKey key;
+    private byte[] line = new byte[512];
+    private int lineLength;
+    // Guarded by itself
+    private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+
+    // Guarded by this
+    private State state = State.CONNECTING;
+    private long requestStart;
+    private String requestType;
+    private String gameId;
+    private ChessPiece.PieceColor color;
+    private Position position;
+    private int plies;
+    private long moveSentAt;
+    // Bumped whenever a game ends so think timers from that game do nothing
+    private int generation;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    public Bot(LoadGenerator generator, String name, long seed) {
+        this.generator = generator;
+        this.config = generator.getConfig();
+        this.stats = generator.getStats();
+        this.name = name;
+        this.random = new Random(seed);
+    }
+
+    void pairWith(Bot partner, boolean host) {
+        this.partner = partner;
+        this.host = host;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized boolean isPlaying() {
+        return state == State.PLAYING;
+    }
+
+    void attach(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+        synchronized (this) {
+            requestStart = System.nanoTime();
+            Message connect = new Message(Message.MessageType.CONNECT, name);
+            send(connect);
+        }
+    }
+
+    // ---- I/O, called from the loop thread ----
+
+    /**
+     * Reads what is available and handles every complete line. Returns false
+     * once the connection is gone.
+     */
+    boolean onReadable(ByteBuffer buffer) {
+        int read;
+        try {
+            buffer.clear();
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            connectionLost();
+            return false;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                onLine();
+                lineLength = 0;
+            } else {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[lineLength++] = b;
+            }
+        }
+        return true;
+    }
+
+    void onWritable() {
+        synchronized (pending) {
+            try {
+                while (!pending.isEmpty()) {
+                    ByteBuffer next = pending.peek();
+                    channel.write(next);
+                    if (next.hasRemaining()) {
+                        return;
+                    }
+                    pending.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                pending.clear();
+            }
+        }
+    }
+
+    private void send(Message message) {
+        byte[] bytes = (GSON.toJson(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        stats.sent(message.getType().name());
+        synchronized (pending) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try {
+                if (pending.isEmpty()) {
+                    channel.write(buffer);
+                    if (!buffer.hasRemaining()) {
+                        return;
+                    }
+                }
+                pending.add(buffer);
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                key.selector().wakeup();
+            } catch (IOException e) {
+                // The reader notices the closed connection
+            }
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            state = State.CLOSED;
+            generation++;
+        }
+        try {
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            // Closing anyway
+        }
+    }
+
+    private void connectionLost() {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.PLAYING) {
+                generator.playingChanged(-1);
+            }
+            state = State.CLOSED;
+            generation++;
+        }
+        stats.error();
+        generator.connectionLost(this);
+    }
+
+    // ---- Protocol ----
+
+    private void onLine() {
+        // Lobby updates go to every idle player and can be large; count them unparsed
+        if (contains(line, lineLength, LOBBY_MARKER)) {
+            stats.received(Message.MessageType.GAME_LIST_RESPONSE.name());
+            return;
+        }
+        Message message;
+        try {
+            message = GSON.fromJson(new String(line, 0, lineLength, StandardCharsets.UTF_8), Message.class);
+        } catch (RuntimeException e) {
+            stats.error();
+            return;
+        }
+        if (message == null || message.getType() == null) {
+            return;
+        }
+        stats.received(message.getType().name());
+        synchronized (this) {
+            handle(message);
+        }
+    }
+
+    private void handle(Message message) {
+        switch (message.getType()) {
+            case PING:
+                Message pong = new Message(Message.MessageType.PONG);
+                pong.setTimestamp(message.getTimestamp());
+                send(pong);
+                break;
+            case CONNECT:
+                if (state == State.CONNECTING && message.getPlayerInfo() != null
+                        && name.equals(message.getPlayerInfo().getName())) {
+                    stats.latency("CONNECT", requestStart);
+                    state = State.IDLE;
+                    scheduleSeek(randomDelay(0, config.thinkMaxMillis));
+                }
+                break;
+            case ERROR:
+                stats.error();
+                break;
+            case GAME_START:
+                onGameStart(message);
+                break;
+            case JOIN_GAME:
+                // Only sent back when joining failed; the host will offer again
+                if (state == State.SEEKING) {
+                    stats.error();
+                    state = State.IDLE;
+                }
+                break;
+            case MOVE:
+                onMove(message);
+                break;
+            case CHAT:
+                String content = message.getContent();
+                if (content != null && content.startsWith("t=")) {
+                    try {
+                        stats.latency("CHAT", Long.parseLong(content.substring(2)));
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+                break;
+            case GAME_END:
+                if (state == State.PLAYING) {
+                    endGame();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onGameStart(Message message) {
+        if (message.getPlayerInfo() != null && message.getPlayerInfo().getColor() != null
+                && name.equals(message.getPlayerInfo().getName())) {
+            color = message.getPlayerInfo().getColor();
+        }
+        if (message.getGameId() != null) {
+            gameId = message.getGameId();
+        }
+        if (state != State.SEEKING) {
+            return;
+        }
+        if (message.getResumeToken() == null) {
+            // A hosted game is waiting for the partner
+            if (host && message.getContent() != null && message.getContent().startsWith("Waiting")) {
+                stats.latency("CREATE_GAME", requestStart);
+                String id = gameId;
+                generator.getScheduler().execute(() -> partner.join(id));
+            }
+            return;
+        }
+
+        // Resume tokens are only handed out once the game is on
+        if (requestType != null) {
+            stats.latency(requestType, requestStart);
+        }
+        state = State.PLAYING;
+        generator.playingChanged(1);
+        stats.gameStarted();
+        position = new Position();
+        plies = 0;
+        if (color == ChessPiece.PieceColor.WHITE) {
+            scheduleMove();
+        }
+    }
+
+    private void onMove(Message message) {
+        if (state != State.PLAYING) {
+            return;
+        }
+        if (message.getMove() != null) {
+            int move = Move.fromChessMove(message.getMove(), position);
+            if (move == Move.NONE) {
+                // Out of step with the server; give the game up
+                stats.error();
+                abandonGame();
+                return;
+            }
+            position.makeMove(move);
+            plies++;
+            Long sentAt = generator.takeRelay(gameId, plies);
+            if (sentAt != null) {
+                stats.latency("MOVE_RELAY", sentAt);
+            }
+            scheduleMove();
+        } else if (message.getPly() != null) {
+            stats.latency("MOVE", moveSentAt);
+        } else if (message.getContent() != null) {
+            // "Invalid move!" or a move outside a running game
+            stats.error();
+        }
+    }
+
+    private void scheduleMove() {
+        int current = generation;
+        generator.getScheduler().schedule(() -> makeMove(current),
+                randomDelay(config.thinkMinMillis, config.thinkMaxMillis), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void makeMove(int forGeneration) {
+        if (forGeneration != generation || state != State.PLAYING) {
+            return;
+        }
+        if (plies >= config.maxPlies) {
+            abandonGame();
+            return;
+        }
+        int count = 0;
+        int generated = MoveGenerator.generate(position, moves, 0);
+        for (int i = 0; i < generated; i++) {
+            int move = moves[i];
+            // The server's board treats every promotion as a queen
+            boolean underPromotion = Move.promotion(move) != 0 && Move.promotion(move) != Position.QUEEN;
+            if (!underPromotion && MoveGenerator.isLegal(position, move)) {
+                moves[count++] = move;
+            }
+        }
+        if (count == 0) {
+            // Mate or stalemate; the server announces the end
+            return;
+        }
+        int move = moves[random.nextInt(count)];
+        ChessMove chessMove = Move.toChessMove(move, position);
+        position.makeMove(move);
+        plies++;
+
+        Message message = new Message(Message.MessageType.MOVE);
+        message.setMove(chessMove);
+        moveSentAt = System.nanoTime();
+        generator.putRelay(gameId, plies, moveSentAt);
+        send(message);
+
+        if (random.nextDouble() < config.chatProbability) {
+            Message chat = new Message(Message.MessageType.CHAT);
+            chat.setContent("t=" + System.nanoTime());
+            send(chat);
+        }
+    }
+
+    /**
+     * Leaves a game that ran too long or went out of step. The opponent is
+     * told by the server.
+     */
+    private void abandonGame() {
+        Message delete = new Message(Message.MessageType.DELETE_GAME);
+        delete.setGameId(gameId);
+        send(delete);
+        endGame();
+    }
+
+    private void endGame() {
+        generation++;
+        generator.playingChanged(-1);
+        stats.gameFinished();
+        state = State.IDLE;
+        gameId = null;
+        color = null;
+        position = null;
+        scheduleSeek(randomDelay(config.thinkMinMillis, config.thinkMaxMillis));
+    }
+
+    private void scheduleSeek(long delayMillis) {
+        if (config.lobby && !host) {
+            // Waits for the host to offer a game
+            return;
+        }
+        int current = generation;
+        generator.getScheduler().schedule(() -> seek(current), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void seek(int forGeneration) {
+        if (forGeneration != generation || state != State.IDLE) {
+            return;
+        }
+        state = State.SEEKING;
+        requestStart = System.nanoTime();
+        if (config.lobby) {
+            requestType = null;
+            Message create = new Message(Message.MessageType.CREATE_GAME);
+            create.setGameId(UUID.randomUUID().toString());
+            create.setGameType(config.gameType);
+            send(create);
+        } else {
+            requestType = "FIND_MATCH";
+            Message find = new Message(Message.MessageType.FIND_MATCH);
+            find.setGameType(config.gameType);
+            send(find);
+        }
+    }
+
+    private synchronized void join(String id) {
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state != State.IDLE) {
+            // Still finishing the last game
+            generator.getScheduler().schedule(() -> join(id), 100, TimeUnit.MILLISECONDS);
+            return;
+        }
+        state = State.SEEKING;
+        requestType = "JOIN_GAME";
+        requestStart = System.nanoTime();
+        Message join = new Message(Message.MessageType.JOIN_GAME);
+        join.setGameId(id);
+        send(join);
+    }
+
+    private long randomDelay(long min, long max) {
+        return max <= min ? min : min + (long) (random.nextDouble() * (max - min));
+    }
+
+    private static boolean contains(byte[] data, int length, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
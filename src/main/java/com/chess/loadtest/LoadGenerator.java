@@ -0,0 +1,281 @@
+package com.chess.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless load generator: thousands of scripted {@link Bot} players against
+ * one server, reporting throughput and latency percentiles per message type.
+ *
+ * Connections are multiplexed over a few selector threads instead of a
+ * thread each, and think times run on a small scheduler, so a single machine
+ * can drive far more players than it has threads.
+ *
+ * Usage: java -cp chess.jar com.chess.loadtest.LoadGenerator [key=value ...]
+ *
+ *   host=localhost port=9999   server to load
+ *   players=200                connections to open
+ *   rampUp=10                  seconds over which they connect
+ *   duration=60                seconds to run after the ramp-up starts
+ *   mode=match                 match (FIND_MATCH) or lobby (paired CREATE_GAME / JOIN_GAME)
+ *   gameType=blitz             game type to ask for
+ *   thinkMin=500 thinkMax=2000 milliseconds between receiving and making a move
+ *   chat=0.05                  chance of a chat line after each move
+ *   maxPlies=120               plies after which a game is abandoned
+ *   ioThreads=2                selector threads
+ *   report=5                   seconds between progress lines
+ *   seed=1                     random seed for the scripted moves
+ */
+public class LoadGenerator {
+    /**
+     * Settings parsed from the command line.
+     */
+    public static final class Config {
+        String host = "localhost";
+        int port = 9999;
+        int players = 200;
+        int rampUpSeconds = 10;
+        int durationSeconds = 60;
+        boolean lobby;
+        String gameType = "blitz";
+        long thinkMinMillis = 500;
+        long thinkMaxMillis = 2000;
+        double chatProbability = 0.05;
+        int maxPlies = 120;
+        int ioThreads = 2;
+        int reportSeconds = 5;
+        long seed = 1;
+
+        static Config parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                values.put(arg.substring(0, equals), arg.substring(equals + 1));
+            }
+            Config config = new Config();
+            config.host = values.getOrDefault("host", config.host);
+            config.port = Integer.parseInt(values.getOrDefault("port", String.valueOf(config.port)));
+            config.players = Integer.parseInt(values.getOrDefault("players", String.valueOf(config.players)));
+            config.rampUpSeconds = Integer.parseInt(values.getOrDefault("rampUp", String.valueOf(config.rampUpSeconds)));
+            config.durationSeconds = Integer.parseInt(values.getOrDefault("duration", String.valueOf(config.durationSeconds)));
+            config.lobby = "lobby".equals(values.getOrDefault("mode", "match"));
+            config.gameType = values.getOrDefault("gameType", config.gameType);
+            config.thinkMinMillis = Long.parseLong(values.getOrDefault("thinkMin", String.valueOf(config.thinkMinMillis)));
+            config.thinkMaxMillis = Long.parseLong(values.getOrDefault("thinkMax", String.valueOf(config.thinkMaxMillis)));
+            config.chatProbability = Double.parseDouble(values.getOrDefault("chat", String.valueOf(config.chatProbability)));
+            config.maxPlies = Integer.parseInt(values.getOrDefault("maxPlies", String.valueOf(config.maxPlies)));
+            config.ioThreads = Integer.parseInt(values.getOrDefault("ioThreads", String.valueOf(config.ioThreads)));
+            config.reportSeconds = Integer.parseInt(values.getOrDefault("report", String.valueOf(config.reportSeconds)));
+            config.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(config.seed)));
+            if (config.lobby && config.players % 2 != 0) {
+                config.players++;
+            }
+            return config;
+        }
+    }
+
+    /**
+     * One selector thread serving a share of the connections.
+     */
+    private final class IoLoop implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Object[]> registrations = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void register(Bot bot, SocketChannel channel) {
+            registrations.add(new Object[] {bot, channel});
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(100);
+                    Object[] registration;
+                    while ((registration = registrations.poll()) != null) {
+                        Bot bot = (Bot) registration[0];
+                        SocketChannel channel = (SocketChannel) registration[1];
+                        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, bot);
+                        bot.attach(channel, key);
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Bot bot = (Bot) key.attachment();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isWritable()) {
+                            bot.onWritable();
+                        }
+                        if (key.isReadable() && !bot.onReadable(buffer)) {
+                            key.cancel();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("I/O loop error: " + e);
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Exiting anyway
+            }
+        }
+    }
+
+    private final Config config;
+    private final LoadStats stats = new LoadStats();
+    private final ScheduledExecutorService scheduler;
+    private final List<IoLoop> loops = new ArrayList<>();
+    private final List<Bot> bots = new ArrayList<>();
+    // Sent time of each move in flight, for the opponent to time its arrival
+    private final Map<String, Long> relays = new ConcurrentHashMap<>();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger playing = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public LoadGenerator(Config config) throws IOException {
+        this.config = config;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "load-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        for (int i = 0; i < Math.max(1, config.ioThreads); i++) {
+            loops.add(new IoLoop());
+        }
+        for (int i = 0; i < config.players; i++) {
+            bots.add(new Bot(this, "load-" + i + "-" + Long.toString(System.nanoTime() & 0xFFFFF, 36),
+                             config.seed * 1_000_003L + i));
+        }
+        if (config.lobby) {
+            for (int i = 0; i + 1 < bots.size(); i += 2) {
+                bots.get(i).pairWith(bots.get(i + 1), true);
+                bots.get(i + 1).pairWith(bots.get(i), false);
+            }
+        }
+    }
+
+    Config getConfig() {
+        return config;
+    }
+
+    public LoadStats getStats() {
+        return stats;
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    void putRelay(String gameId, int ply, long sentAt) {
+        if (gameId != null) {
+            relays.put(gameId + '/' + ply, sentAt);
+        }
+    }
+
+    Long takeRelay(String gameId, int ply) {
+        return gameId != null ? relays.remove(gameId + '/' + ply) : null;
+    }
+
+    void playingChanged(int delta) {
+        playing.addAndGet(delta);
+    }
+
+    void connectionLost(Bot bot) {
+        connected.decrementAndGet();
+    }
+
+    /**
+     * Connects the players over the ramp-up, runs for the configured duration
+     * with a progress line every few seconds, then disconnects everyone.
+     */
+    public void run() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < loops.size(); i++) {
+            Thread thread = new Thread(loops.get(i), "load-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        InetSocketAddress address = new InetSocketAddress(config.host, config.port);
+        long rampNanos = TimeUnit.SECONDS.toNanos(config.rampUpSeconds);
+        for (int i = 0; i < bots.size(); i++) {
+            Bot bot = bots.get(i);
+            IoLoop loop = loops.get(i % loops.size());
+            long delay = bots.size() > 1 ? rampNanos * i / (bots.size() - 1) : 0;
+            scheduler.schedule(() -> connect(bot, loop, address), delay, TimeUnit.NANOSECONDS);
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.scheduleAtFixedRate(() -> stats.printInterval(System.out, connected.get(), playing.get()),
+                config.reportSeconds, config.reportSeconds, TimeUnit.SECONDS);
+        scheduler.schedule(done::countDown, config.durationSeconds, TimeUnit.SECONDS);
+        done.await();
+
+        running = false;
+        for (Bot bot : bots) {
+            bot.close();
+        }
+        for (Thread thread : threads) {
+            thread.join(1000);
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void connect(Bot bot, IoLoop loop, InetSocketAddress address) {
+        if (!running) {
+            return;
+        }
+        try {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            connected.incrementAndGet();
+            loop.register(bot, channel);
+        } catch (IOException e) {
+            stats.error();
+            System.err.println("Could not connect " + bot.getName() + ": " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        System.out.printf("Load: %d players against %s:%d, %s mode, %s, think %d-%d ms, %d s%n",
+                config.players, config.host, config.port, config.lobby ? "lobby" : "match", config.gameType,
+                config.thinkMinMillis, config.thinkMaxMillis, config.durationSeconds);
+        LoadGenerator generator = new LoadGenerator(config);
+        generator.run();
+        generator.getStats().printSummary(System.out);
+    }
+}
@@ -0,0 +1,150 @@
+package com.chess.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.chess.server.LatencyHistogram;
+
+/**
+ * Message counts and latencies per message type, shared by every bot.
+ *
+ * Latencies are in microseconds and measured in-process with
+ * {@link System#nanoTime()}: request to reply for CONNECT, MOVE and the like,
+ * and sender to receiver for MOVE_RELAY and CHAT, since both ends of a game
+ * live in this JVM.
+ */
+public class LoadStats {
+    private static final class TypeStats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        long lastSent;
+        long lastReceived;
+    }
+
+    private final Map<String, TypeStats> types = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private long lastReportNanos = startNanos;
+
+    private TypeStats of(String type) {
+        return types.computeIfAbsent(type, t -> new TypeStats());
+    }
+
+    public void sent(String type) {
+        of(type).sent.increment();
+    }
+
+    public void received(String type) {
+        of(type).received.increment();
+    }
+
+    public void latency(String type, long startNanos) {
+        of(type).latency.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    public void gameFinished() {
+        gamesFinished.increment();
+    }
+
+    /**
+     * One line of rates since the previous call.
+     */
+    public synchronized void printInterval(PrintStream out, int connected, int playing) {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastReportNanos) / 1e9);
+        lastReportNanos = now;
+        long sent = 0;
+        long received = 0;
+        long moves = 0;
+        for (Map.Entry<String, TypeStats> entry : types.entrySet()) {
+            TypeStats stats = entry.getValue();
+            long sentNow = stats.sent.sum();
+            long receivedNow = stats.received.sum();
+            sent += sentNow - stats.lastSent;
+            received += receivedNow - stats.lastReceived;
+            if (entry.getKey().equals("MOVE")) {
+                moves = sentNow - stats.lastSent;
+            }
+            stats.lastSent = sentNow;
+            stats.lastReceived = receivedNow;
+        }
+        LatencyHistogram move = types.containsKey("MOVE") ? types.get("MOVE").latency : null;
+        out.printf("%6.0fs  connected %6d  playing %6d  out %8.0f/s  in %8.0f/s  moves %7.0f/s  move p99 %s  errors %d%n",
+                (now - startNanos) / 1e9, connected, playing, sent / seconds, received / seconds, moves / seconds,
+                move != null ? millis(move.getPercentile(99)) : "-", errors.sum());
+    }
+
+    /**
+     * Totals, rates and latency percentiles for every message type.
+     */
+    public void printSummary(PrintStream out) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        out.printf("%nRan %.0f s; games started %d, finished %d; errors %d%n",
+                seconds, gamesStarted.sum(), gamesFinished.sum(), errors.sum());
+        out.printf("%-20s %10s %10s %10s %10s %9s %9s %9s %9s %9s%n",
+                "type", "sent", "received", "sent/s", "recv/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, TypeStats> entry : new TreeMap<>(types).entrySet()) {
+            TypeStats stats = entry.getValue();
+            LatencyHistogram latency = stats.latency;
+            boolean timed = latency.getCount() > 0;
+            out.printf("%-20s %10d %10d %10.1f %10.1f %9s %9s %9s %9s %9s%n", entry.getKey(),
+                    stats.sent.sum(), stats.received.sum(), stats.sent.sum() / seconds, stats.received.sum() / seconds,
+                    timed ? millis(latency.getPercentile(50)) : "-", timed ? millis(latency.getPercentile(90)) : "-",
+                    timed ? millis(latency.getPercentile(99)) : "-", timed ? millis(latency.getPercentile(99.9)) : "-",
+                    timed ? millis(latency.getMax()) : "-");
+        }
+    }
+
+    /**
+     * Starts the counts and latencies over, e.g. once a warm-up is done.
+     * Updates racing with the reset may land on either side of it.
+     */
+    public synchronized void reset() {
+        for (TypeStats stats : types.values()) {
+            stats.sent.reset();
+            stats.received.reset();
+            stats.latency.reset();
+            stats.lastSent = 0;
+            stats.lastReceived = 0;
+        }
+        errors.reset();
+        gamesStarted.reset();
+        gamesFinished.reset();
+    }
+
+    public long getSent(String type) {
+        TypeStats stats = types.get(type);
+        return stats == null ? 0 : stats.sent.sum();
+    }
+
+    /**
+     * The given percentile of a type's latency in microseconds, or -1 if
+     * nothing was timed.
+     */
+    public long getPercentile(String type, double percentile) {
+        TypeStats stats = types.get(type);
+        return stats == null || stats.latency.getCount() == 0 ? -1 : stats.latency.getPercentile(percentile);
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,209 @@
+package com.chess.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.chess.server.ChessServer;
+
+/**
+ * Latency regression gate: starts a {@link ChessServer} in this JVM, drives a
+ * fixed workload at it with the {@link LoadGenerator}, and exits non-zero if
+ * the p99 move relay latency or the server CPU time per move is worse than a
+ * stored baseline by more than the tolerance. Run by {@code mvn -Pslo verify}.
+ *
+ * Move relay latency is from one bot sending a MOVE to its opponent receiving
+ * the MOVE_RELAY. Server CPU is the CPU time of every thread in the JVM except
+ * the load generator's and this one, so it covers the handlers, writers,
+ * journal, archive and logger but not GC or JIT threads. Both are measured
+ * only over the window after the warm-up.
+ *
+ * Usage: java -cp chess.jar com.chess.loadtest.SloGate [key=value ...]
+ *
+ *   baseline=slo-baseline.properties  stored baseline
+ *   games=200                         concurrent games (two players each)
+ *   moveMillis=1000                   think time per move, so about one move per game per second
+ *   rampUp=30                         seconds over which the players connect
+ *   warmup=45                         seconds before measuring starts
+ *   duration=60                       seconds measured
+ *   tolerance=0.25                    allowed regression, as a fraction of the baseline
+ *   port=19999                        port for the in-process server
+ *   ioThreads=2                       load generator selector threads
+ *   update=false                      write the measured values as the new baseline instead of checking
+ */
+public class SloGate {
+    private static final String RELAY_P99 = "moveRelayP99Micros";
+    private static final String CPU_PER_MOVE = "serverCpuMicrosPerMove";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            values.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        Path baselineFile = Paths.get(values.getOrDefault("baseline", "slo-baseline.properties"));
+        int games = Integer.parseInt(values.getOrDefault("games", "200"));
+        long moveMillis = Long.parseLong(values.getOrDefault("moveMillis", "1000"));
+        int rampUp = Integer.parseInt(values.getOrDefault("rampUp", "30"));
+        int warmup = Math.max(rampUp, Integer.parseInt(values.getOrDefault("warmup", "45")));
+        int duration = Integer.parseInt(values.getOrDefault("duration", "60"));
+        double tolerance = Double.parseDouble(values.getOrDefault("tolerance", "0.25"));
+        int port = Integer.parseInt(values.getOrDefault("port", "19999"));
+        int ioThreads = Integer.parseInt(values.getOrDefault("ioThreads", "2"));
+        boolean update = Boolean.parseBoolean(values.getOrDefault("update", "false"));
+        String workload = games + " games, " + moveMillis + " ms per move";
+
+        // The server reads these once when its class is loaded
+        Path dataDir = Files.createTempDirectory("chess-slo");
+        System.setProperty("chess.port", String.valueOf(port));
+        System.setProperty("chess.journal.dir", dataDir.resolve("journal").toString());
+        System.setProperty("chess.archive.dir", dataDir.resolve("archive").toString());
+        System.setProperty("chess.admin.port", "0");
+        System.setProperty("chess.log.level", System.getProperty("chess.log.level", "WARN"));
+
+        ChessServer server = new ChessServer();
+        Thread serverThread = new Thread(server::start, "slo-server");
+        serverThread.start();
+        awaitListening(port, TimeUnit.SECONDS.toMillis(30));
+
+        LoadGenerator.Config config = LoadGenerator.Config.parse(new String[] {
+                "port=" + port, "players=" + games * 2, "rampUp=" + rampUp,
+                "duration=" + (warmup + duration + 2), "thinkMin=" + moveMillis, "thinkMax=" + moveMillis,
+                "chat=0", "ioThreads=" + ioThreads, "report=10"});
+        LoadGenerator generator = new LoadGenerator(config);
+        Thread loadThread = new Thread(() -> {
+            try {
+                generator.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "load-main");
+        System.out.printf("SLO gate: %s for %d s after a %d s warm-up%n", workload, duration, warmup);
+        loadThread.start();
+
+        LoadStats stats = generator.getStats();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+        stats.reset();
+        Map<Long, Long> cpuBefore = serverThreadCpu();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+        Map<Long, Long> cpuAfter = serverThreadCpu();
+        long moves = stats.getSent("MOVE");
+        long relayP99 = stats.getPercentile("MOVE_RELAY", 99);
+        long errors = stats.getErrors();
+        stats.printSummary(System.out);
+
+        long cpuNanos = 0;
+        for (Map.Entry<Long, Long> entry : cpuAfter.entrySet()) {
+            cpuNanos += entry.getValue() - cpuBefore.getOrDefault(entry.getKey(), 0L);
+        }
+        long cpuPerMove = moves > 0 ? cpuNanos / 1000 / moves : -1;
+
+        loadThread.join();
+        server.stop();
+        serverThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        System.out.printf("%nMoves measured %d (%.0f/s), errors %d%n", moves, moves / (double) duration, errors);
+        if (moves == 0 || relayP99 < 0) {
+            System.out.println("FAIL: no moves were relayed during the measured window");
+            System.exit(1);
+        }
+        // A saturated run measures the backlog, not the server; don't check or record it
+        double expectedMoves = games * (double) duration * 1000 / moveMillis;
+        if (moves < expectedMoves / 2) {
+            System.out.printf("FAIL: workload not sustained, %d moves measured against about %.0f expected%n",
+                    moves, expectedMoves);
+            System.exit(1);
+        }
+        if (update) {
+            writeBaseline(baselineFile, workload, relayP99, cpuPerMove);
+            System.out.printf("Baseline written to %s: move relay p99 %d us, server CPU %d us/move%n",
+                    baselineFile, relayP99, cpuPerMove);
+            System.exit(0);
+        }
+
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(baselineFile)) {
+            baseline.load(in);
+        }
+        if (!workload.equals(baseline.getProperty("workload"))) {
+            System.out.printf("Warning: baseline was recorded for \"%s\", this run is \"%s\"%n",
+                    baseline.getProperty("workload"), workload);
+        }
+        boolean passed = check("move relay p99", "us", relayP99, Long.parseLong(baseline.getProperty(RELAY_P99)), tolerance)
+                & check("server CPU per move", "us", cpuPerMove, Long.parseLong(baseline.getProperty(CPU_PER_MOVE)), tolerance);
+        if (errors > 0) {
+            System.out.printf("FAIL: %d load generator errors%n", errors);
+            passed = false;
+        }
+        System.out.println(passed ? "SLO gate passed" : "SLO gate FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean check(String name, String unit, long measured, long baseline, double tolerance) {
+        long limit = (long) Math.ceil(baseline * (1 + tolerance));
+        boolean ok = measured <= limit;
+        System.out.printf("%-4s %-20s %8d %s  (baseline %d, limit %d)%n",
+                ok ? "ok" : "FAIL", name, measured, unit, baseline, limit);
+        return ok;
+    }
+
+    /**
+     * CPU nanoseconds so far of each live thread that isn't the load
+     * generator's or this gate's, by thread id.
+     */
+    private static Map<Long, Long> serverThreadCpu() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        Map<Long, Long> cpu = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+            if (info == null || info.getThreadId() == self || info.getThreadName().startsWith("load-")) {
+                continue;
+            }
+            long nanos = threads.getThreadCpuTime(info.getThreadId());
+            if (nanos >= 0) {
+                cpu.put(info.getThreadId(), nanos);
+            }
+        }
+        return cpu;
+    }
+
+    private static void awaitListening(int port, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 1000);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Server did not start listening on port " + port);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static void writeBaseline(Path file, String workload, long relayP99, long cpuPerMove) throws IOException {
+        Properties baseline = new Properties();
+        baseline.setProperty("workload", workload);
+        baseline.setProperty(RELAY_P99, String.valueOf(relayP99));
+        baseline.setProperty(CPU_PER_MOVE, String.valueOf(cpuPerMove));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            baseline.store(out, "SLO gate baseline; regenerate with mvn -Pslo verify -Dslo.update=true on the machine that runs the gate");
+        }
+    }
+}
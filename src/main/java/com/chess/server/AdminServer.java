@@ -0,0 +1,207 @@
+package com.chess.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Small HTTP endpoint for operators, separate from the game port:
+ *
+ *   /metrics   every registered metric in Prometheus text format
+ *   /status    connections, lobby, games, queues and JVM thread/heap stats as JSON
+ *   /sessions  one JSON object per game session
+ *
+ * It binds to localhost unless told otherwise, has no authentication, and
+ * serves requests on a single thread so a busy scraper can't take CPU from
+ * the games.
+ */
+public class AdminServer {
+    private static final AsyncLogger log = AsyncLogger.get();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final ChessServer server;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    public AdminServer(ChessServer server, String host, int port) throws IOException {
+        this.server = server;
+        this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/metrics", handler("text/plain; version=0.0.4; charset=utf-8",
+                () -> prometheus(server.getMetrics())));
+        httpServer.createContext("/status", handler("application/json; charset=utf-8",
+                () -> gson.toJson(status())));
+        httpServer.createContext("/sessions", handler("application/json; charset=utf-8",
+                () -> gson.toJson(server.describeSessions())));
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    private interface Body {
+        String render();
+    }
+
+    private static HttpHandler handler(String contentType, Body body) {
+        return exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                    respond(exchange, 405, "text/plain; charset=utf-8", "Method not allowed\n");
+                } else if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                    respond(exchange, 404, "text/plain; charset=utf-8", "Not found\n");
+                } else {
+                    respond(exchange, 200, contentType, body.render());
+                }
+            } catch (RuntimeException e) {
+                log.error("Error serving admin request", e, "uri", exchange.getRequestURI());
+                respond(exchange, 500, "text/plain; charset=utf-8", "Internal error\n");
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, head ? -1 : bytes.length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Renders the registry in the Prometheus text exposition format.
+     * Histograms are exposed as summaries: a few quantiles plus _sum and
+     * _count, rather than a thousand buckets per series.
+     */
+    static String prometheus(MetricsRegistry registry) {
+        // Group the series of each family under one HELP/TYPE header
+        Map<String, List<MetricsRegistry.Metric>> families = new LinkedHashMap<>();
+        for (MetricsRegistry.Metric metric : registry.getMetrics()) {
+            families.computeIfAbsent(metric.getName(), name -> new ArrayList<>()).add(metric);
+        }
+
+        StringBuilder out = new StringBuilder(16384);
+        for (Map.Entry<String, List<MetricsRegistry.Metric>> family : families.entrySet()) {
+            String name = family.getKey();
+            MetricsRegistry.Metric first = family.getValue().get(0);
+            out.append("# HELP ").append(name).append(' ').append(first.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(name).append(' ');
+            switch (first.getKind()) {
+                case COUNTER:
+                    out.append("counter");
+                    break;
+                case GAUGE:
+                    out.append("gauge");
+                    break;
+                default:
+                    out.append("summary");
+            }
+            out.append('\n');
+
+            for (MetricsRegistry.Metric metric : family.getValue()) {
+                LatencyHistogram histogram = metric.getHistogram();
+                if (histogram == null) {
+                    out.append(name).append(labels(metric, null)).append(' ').append(metric.getValue()).append('\n');
+                    continue;
+                }
+                long count = histogram.getCount();
+                for (double quantile : QUANTILES) {
+                    out.append(name).append(labels(metric, quantile)).append(' ')
+                       .append(count == 0 ? "NaN" : Long.toString(histogram.getPercentile(quantile * 100)))
+                       .append('\n');
+                }
+                out.append(name).append("_sum").append(labels(metric, null)).append(' ').append(histogram.getSum()).append('\n');
+                out.append(name).append("_count").append(labels(metric, null)).append(' ').append(count).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static String labels(MetricsRegistry.Metric metric, Double quantile) {
+        if (metric.getLabelName() == null && quantile == null) {
+            return "";
+        }
+        StringBuilder labels = new StringBuilder("{");
+        if (metric.getLabelName() != null) {
+            labels.append(metric.getLabelName()).append("=\"").append(escape(metric.getLabelValue())).append('"');
+        }
+        if (quantile != null) {
+            if (labels.length() > 1) {
+                labels.append(',');
+            }
+            labels.append("quantile=\"").append(quantile).append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>(server.describeStatus());
+
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("uptimeMillis", ManagementFactory.getRuntimeMXBean().getUptime());
+        jvm.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        jvm.put("threads", threads.getThreadCount());
+        jvm.put("daemonThreads", threads.getDaemonThreadCount());
+        jvm.put("peakThreads", threads.getPeakThreadCount());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        jvm.put("heapUsedBytes", heap.getUsed());
+        jvm.put("heapCommittedBytes", heap.getCommitted());
+        jvm.put("heapMaxBytes", heap.getMax());
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        jvm.put("nonHeapUsedBytes", nonHeap.getUsed());
+        List<Map<String, Object>> collectors = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("name", gc.getName());
+            collector.put("collections", gc.getCollectionCount());
+            collector.put("timeMillis", gc.getCollectionTime());
+            collectors.add(collector);
+        }
+        jvm.put("gc", collectors);
+        status.put("jvm", jvm);
+        return status;
+    }
+}
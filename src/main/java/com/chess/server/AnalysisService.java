@@ -0,0 +1,145 @@
+package com.chess.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chess.common.Message;
+import com.chess.engine.Move;
+import com.chess.engine.OpeningBook;
+import com.chess.engine.Position;
+import com.chess.engine.Search;
+
+/**
+ * Runs ANALYZE requests on a small, bounded thread pool.
+ *
+ * Results are cached by Zobrist key, and a request for a position that is
+ * already being analysed joins the running computation instead of starting a
+ * second one, so a popular position is searched once no matter how many
+ * clients ask for it. When the queue is full new requests fail fast rather
+ * than piling up behind the search threads. Positions in the opening book, if
+ * one is installed, are answered with the book moves.
+ */
+public class AnalysisService {
+    public static final int MAX_LINES = 5;
+
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int CACHE_SIZE = 1024;
+    private static final long TIME_PER_REQUEST_MS = 1000;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Search> searches;
+    private final Map<Long, CachedAnalysis> cache = new LinkedHashMap<Long, CachedAnalysis>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedAnalysis> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static class CachedAnalysis {
+        private final int lines;
+        private final CompletableFuture<List<Message.AnalysisLine>> result;
+
+        CachedAnalysis(int lines, CompletableFuture<List<Message.AnalysisLine>> result) {
+            this.lines = lines;
+            this.result = result;
+        }
+    }
+
+    public AnalysisService() {
+        this(null);
+    }
+
+    /**
+     * @param openingBook book consulted before searching, or null for none
+     */
+    public AnalysisService(OpeningBook openingBook) {
+        searches = ThreadLocal.withInitial(() -> {
+            Search search = new Search();
+            search.setOpeningBook(openingBook);
+            return search;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Analyses the position and returns up to {@code lines} engine lines. The
+     * future fails with {@link RejectedExecutionException} when the pool is busy.
+     */
+    public CompletableFuture<List<Message.AnalysisLine>> analyze(Position position, int lines) {
+        int requested = Math.max(1, Math.min(lines, MAX_LINES));
+        long key = position.key();
+        String fen = position.toFen();
+
+        CachedAnalysis cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+            if (cached == null || cached.lines < requested || cached.result.isCompletedExceptionally()) {
+                cached = new CachedAnalysis(requested, new CompletableFuture<>());
+                cache.put(key, cached);
+                submit(fen, requested, key, cached);
+            }
+        }
+
+        return cached.result.thenApply(result ->
+                result.size() > requested ? result.subList(0, requested) : result);
+    }
+
+    private void submit(String fen, int lines, long key, CachedAnalysis entry) {
+        try {
+            executor.execute(() -> {
+                try {
+                    entry.result.complete(runSearch(Position.fromFen(fen), lines));
+                } catch (Exception e) {
+                    entry.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Drop the entry so the next request tries again
+            cache.remove(key);
+            entry.result.completeExceptionally(e);
+        }
+    }
+
+    private List<Message.AnalysisLine> runSearch(Position position, int lines) {
+        List<Search.Result> results = searches.get()
+                .searchMultiPv(position, lines, Search.MAX_PLY, TIME_PER_REQUEST_MS);
+
+        List<Message.AnalysisLine> analysis = new ArrayList<>();
+        for (Search.Result result : results) {
+            List<String> moves = new ArrayList<>();
+            for (int move : result.getPv()) {
+                moves.add(Move.toUci(move));
+            }
+            int score = result.getScore();
+            Integer mateIn = null;
+            if (Math.abs(score) >= Search.MATE_BOUND) {
+                int plies = Search.MATE - Math.abs(score);
+                mateIn = score > 0 ? (plies + 1) / 2 : -(plies / 2);
+            }
+            analysis.add(new Message.AnalysisLine(moves, score, mateIn, result.getDepth()));
+        }
+        return Collections.unmodifiableList(analysis);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
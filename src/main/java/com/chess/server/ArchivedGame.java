@@ -0,0 +1,160 @@
+package com.chess.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chess.engine.Move;
+import com.chess.engine.Position;
+
+/**
+ * A finished game as stored in the {@link GameArchive}.
+ *
+ * Moves are kept in the archive's 16-bit form: the engine's packed move
+ * without its flag bits (from square, to square and promotion piece). The
+ * flag is implied by the position, so replaying a game needs no more than
+ * that.
+ */
+public final class ArchivedGame {
+    public enum Result {
+        WHITE_WINS("1-0"),
+        BLACK_WINS("0-1"),
+        DRAW("1/2-1/2"),
+        UNKNOWN("*");
+
+        private final String notation;
+
+        Result(String notation) {
+            this.notation = notation;
+        }
+
+        /**
+         * The result as written in PGN.
+         */
+        public String getNotation() {
+            return notation;
+        }
+
+        public static Result fromNotation(String notation) {
+            for (Result result : values()) {
+                if (result.notation.equals(notation)) {
+                    return result;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    private final String gameId;
+    private final String whitePlayer;
+    private final String blackPlayer;
+    private final String gameType;
+    private final Result result;
+    private final String termination;
+    private final long endedAt;
+    private final short[] moves;
+
+    public ArchivedGame(String gameId, String whitePlayer, String blackPlayer, String gameType,
+                        Result result, String termination, long endedAt, short[] moves) {
+        this.gameId = gameId;
+        this.whitePlayer = whitePlayer;
+        this.blackPlayer = blackPlayer;
+        this.gameType = gameType;
+        this.result = result != null ? result : Result.UNKNOWN;
+        this.termination = termination;
+        this.endedAt = endedAt;
+        this.moves = moves;
+    }
+
+    /**
+     * Builds a game from moves in long algebraic notation.
+     */
+    public static ArchivedGame fromUci(String gameId, String whitePlayer, String blackPlayer, String gameType,
+                                       Result result, String termination, long endedAt, List<String> uciMoves) {
+        short[] moves = new short[uciMoves.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = packUci(uciMoves.get(i));
+        }
+        return new ArchivedGame(gameId, whitePlayer, blackPlayer, gameType, result, termination, endedAt, moves);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getWhitePlayer() {
+        return whitePlayer;
+    }
+
+    public String getBlackPlayer() {
+        return blackPlayer;
+    }
+
+    public String getGameType() {
+        return gameType;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * How the game ended, e.g. "w won by checkmate!", or null.
+     */
+    public String getTermination() {
+        return termination;
+    }
+
+    /**
+     * End of the game in epoch milliseconds.
+     */
+    public long getEndedAt() {
+        return endedAt;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * The move at the given ply (0-based) as an engine move without flags;
+     * match it against the legal moves of the position to get the full move.
+     */
+    public int getMove(int index) {
+        return moves[index] & 0x7FFF;
+    }
+
+    short[] getPackedMoves() {
+        return moves;
+    }
+
+    public List<String> getUciMoves() {
+        List<String> uci = new ArrayList<>(moves.length);
+        for (short move : moves) {
+            uci.add(Move.toUci(move & 0x7FFF));
+        }
+        return uci;
+    }
+
+    /**
+     * 16-bit form of an engine move.
+     */
+    public static short pack(int move) {
+        return (short) (move & 0x7FFF);
+    }
+
+    /**
+     * 16-bit form of a move in long algebraic notation such as "e7e8q".
+     */
+    public static short packUci(String uci) {
+        int from = Position.parseSquare(uci.substring(0, 2));
+        int to = Position.parseSquare(uci.substring(2, 4));
+        int promotion = 0;
+        if (uci.length() > 4) {
+            promotion = "nbrq".indexOf(Character.toLowerCase(uci.charAt(4))) + Position.KNIGHT;
+            if (promotion < Position.KNIGHT) {
+                throw new IllegalArgumentException("Bad promotion piece: " + uci);
+            }
+        }
+        return pack(Move.encode(from, to, promotion, Move.FLAG_NORMAL));
+    }
+}
@@ -0,0 +1,369 @@
+package com.chess.server;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured server log written by one background thread.
+ *
+ * Logging threads only capture the level, time, thread name, message and
+ * key/value pairs into a bounded lock-free ring; the writer formats and
+ * writes them in batches, INFO and below to stdout, WARN and ERROR to
+ * stderr. Nothing is formatted on the caller's thread, and a call below the
+ * configured level returns after one comparison. If the ring is full the
+ * line is dropped and counted rather than blocking a game thread.
+ *
+ * Lines are either key=value text:
+ *
+ *   2026-01-01T12:00:00.000Z INFO [client-3] Game started session=5f1c... white=alice black=bob
+ *
+ * or, with -Dchess.log.format=json, one JSON object per line. The level is
+ * set with -Dchess.log.level (DEBUG, INFO, WARN, ERROR; default INFO).
+ */
+public final class AsyncLogger {
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MAX_BATCH = 256;
+    private static final AsyncLogger INSTANCE = new AsyncLogger(
+            parseLevel(System.getProperty("chess.log.level")), "json".equalsIgnoreCase(System.getProperty("chess.log.format")));
+
+    private static final class Entry {
+        final Level level;
+        final long timestamp;
+        final String thread;
+        final String message;
+        final Object[] fields;
+        final Throwable error;
+
+        Entry(Level level, String message, Throwable error, Object[] fields) {
+            this.level = level;
+            this.timestamp = System.currentTimeMillis();
+            this.thread = Thread.currentThread().getName();
+            this.message = message;
+            this.error = error;
+            this.fields = fields;
+        }
+    }
+
+    private final Level level;
+    private final boolean json;
+    // Bounded MPSC ring: a slot's sequence says whether it is free for the
+    // producer at that position or holds an entry for the consumer
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private final Writer out;
+    private final Writer err;
+
+    private AsyncLogger(Level level, boolean json) {
+        this(level, json,
+             new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16),
+             new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.err), StandardCharsets.UTF_8), 1 << 14));
+    }
+
+    /**
+     * A logger writing INFO and below to {@code out} and WARN and ERROR to
+     * {@code err}; the server-wide one uses stdout and stderr.
+     */
+    AsyncLogger(Level level, boolean json, Writer out, Writer err) {
+        this.level = level;
+        this.json = json;
+        this.out = out;
+        this.err = err;
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+        this.writer = new Thread(this::run, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        // Flush what is queued however the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "log-flush"));
+    }
+
+    /**
+     * The server-wide logger.
+     */
+    public static AsyncLogger get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * Logs a message with alternating key/value fields. Values are turned into
+     * text on the writer thread.
+     */
+    public void debug(String message, Object... fields) {
+        if (isEnabled(Level.DEBUG)) {
+            enqueue(new Entry(Level.DEBUG, message, null, fields));
+        }
+    }
+
+    public void info(String message, Object... fields) {
+        if (isEnabled(Level.INFO)) {
+            enqueue(new Entry(Level.INFO, message, null, fields));
+        }
+    }
+
+    public void warn(String message, Object... fields) {
+        if (isEnabled(Level.WARN)) {
+            enqueue(new Entry(Level.WARN, message, null, fields));
+        }
+    }
+
+    public void error(String message, Object... fields) {
+        error(message, null, fields);
+    }
+
+    /**
+     * Logs an error with its stack trace.
+     */
+    public void error(String message, Throwable error, Object... fields) {
+        if (isEnabled(Level.ERROR)) {
+            enqueue(new Entry(Level.ERROR, message, error, fields));
+        }
+    }
+
+    /**
+     * Lines dropped because the ring was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes out everything queued so far. Later calls are dropped.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        if (closed) {
+            return;
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & (CAPACITY - 1));
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, entry);
+                    sequences.set(index, position + 1);
+                    break;
+                }
+            } else if (difference < 0) {
+                dropped.increment();
+                return;
+            }
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private Entry poll() {
+        int index = (int) (head & (CAPACITY - 1));
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + CAPACITY);
+        head++;
+        return entry;
+    }
+
+    private void run() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            int written = 0;
+            boolean wroteErr = false;
+            Entry entry;
+            try {
+                while (written < MAX_BATCH && (entry = poll()) != null) {
+                    line.setLength(0);
+                    format(entry, line);
+                    boolean toErr = entry.level.compareTo(Level.WARN) >= 0;
+                    (toErr ? err : out).append(line);
+                    wroteErr |= toErr;
+                    written++;
+                }
+                if (written > 0) {
+                    out.flush();
+                    if (wroteErr) {
+                        err.flush();
+                    }
+                    continue;
+                }
+            } catch (IOException e) {
+                // Nowhere left to report it; keep draining so callers never stall
+            }
+            if (closed) {
+                return;
+            }
+            writerParked = true;
+            // Re-check after publishing the flag so a racing enqueue isn't missed
+            int index = (int) (head & (CAPACITY - 1));
+            if (sequences.get(index) != head + 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            writerParked = false;
+        }
+    }
+
+    private void format(Entry entry, StringBuilder line) {
+        String time = Instant.ofEpochMilli(entry.timestamp).toString();
+        if (json) {
+            line.append("{\"ts\":\"").append(time).append("\",\"level\":\"").append(entry.level)
+                .append("\",\"thread\":");
+            appendJsonString(line, entry.thread);
+            line.append(",\"msg\":");
+            appendJsonString(line, entry.message);
+            for (int i = 0; i + 1 < entry.fields.length; i += 2) {
+                line.append(',');
+                appendJsonString(line, String.valueOf(entry.fields[i]));
+                line.append(':');
+                Object value = entry.fields[i + 1];
+                if (value instanceof Number || value instanceof Boolean) {
+                    line.append(value);
+                } else {
+                    appendJsonString(line, value == null ? null : String.valueOf(value));
+                }
+            }
+            if (entry.error != null) {
+                line.append(",\"error\":");
+                appendJsonString(line, stackTrace(entry.error));
+            }
+            line.append("}\n");
+        } else {
+            line.append(time).append(' ').append(entry.level).append(" [").append(entry.thread).append("] ")
+                .append(entry.message);
+            for (int i = 0; i + 1 < entry.fields.length; i += 2) {
+                line.append(' ').append(entry.fields[i]).append('=');
+                appendTextValue(line, entry.fields[i + 1]);
+            }
+            if (entry.error != null) {
+                line.append(" error=");
+                appendTextValue(line, String.valueOf(entry.error));
+                line.append('\n').append(stackTrace(entry.error));
+            } else {
+                line.append('\n');
+            }
+        }
+    }
+
+    private static void appendTextValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder line, String text) {
+        if (text == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private static String stackTrace(Throwable error) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+
+    private static Level parseLevel(String name) {
+        if (name == null) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
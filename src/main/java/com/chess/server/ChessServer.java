@@ -1,57 +1,451 @@
 package com.chess.server;
 
+import java.awt.Point;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import com.chess.common.ChessBoard;
 import com.chess.common.ChessMove;
 import com.chess.common.ChessPiece;
 import com.chess.common.Message;
+import com.chess.common.TimeControl;
+import com.chess.engine.Move;
+import com.chess.engine.OpeningBook;
+import com.chess.engine.Position;
+import com.chess.engine.San;
 import com.google.gson.Gson;
 
 public class ChessServer {
-    private static final int PORT = 9999;
-    private final ExecutorService pool = Executors.newFixedThreadPool(10);
+    private static final AsyncLogger log = AsyncLogger.get();
+    private static final int PORT = Integer.getInteger("chess.port", 9999);
+    // Set while start() is accepting; closing it is how stop() ends the accept loop
+    private volatile ServerSocket serverSocket;
+    private volatile boolean stopping;
+    // One thread per connection; with spectators the connection count has no small bound
+    private final ExecutorService pool = Executors.newCachedThreadPool();
     private final CopyOnWriteArrayList<ClientHandler> clients = new CopyOnWriteArrayList<>();
-    private final List<GameSession> gameSessions = new ArrayList<>();
+    private final List<GameSession> gameSessions = new CopyOnWriteArrayList<>();
     private final Gson gson = new Gson();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    // Optional Polyglot book for ANALYZE; set -Dchess.book to a .bin file to enable it
+    private static final String BOOK_FILE = System.getProperty("chess.book");
+    private final AnalysisService analysisService = new AnalysisService(openOpeningBook());
+    // One wheel drives every game clock; flag handlers run on the scheduler thread
+    private final TimerWheel timerWheel = new TimerWheel(10, 512, scheduler);
+    private final RatingService ratingService = new RatingService();
+    private static final long RATING_PERIOD_HOURS = 24;
+    // Spectator subscriptions and fan-out run on one thread, in move order
+    private final ThreadPoolExecutor spectatorExecutor = singleThreadExecutor("spectator-fanout");
+    private static final int SPECTATOR_RECENT_MOVES = 10;
+    // Resume token -> game; a dropped player has RESUME_GRACE_SECONDS to come back
+    private final Map<String, GameSession> resumeTokens = new ConcurrentHashMap<>();
+    private final SecureRandom tokenRandom = new SecureRandom();
+    private static final long RESUME_GRACE_SECONDS = 120;
+    private final MatchmakingQueue<ClientHandler> matchmakingQueue = new MatchmakingQueue<>(this::startMatchedGame);
+    // Started games and their moves, replayed after a restart; null if the journal can't be opened
+    private GameJournal journal;
+    private static final String JOURNAL_DIR = System.getProperty("chess.journal.dir", "journal");
+    private static final int JOURNAL_SHARDS = 4;
+    // Finished games; written on their own thread since every append is forced to disk
+    private GameArchive archive;
+    private static final String ARCHIVE_DIR = System.getProperty("chess.archive.dir", "archive");
+    private OpeningExplorer explorer;
+    private final ThreadPoolExecutor archiveExecutor = singleThreadExecutor("game-archive");
+    private static final long ARCHIVE_DRAIN_SECONDS = 30;
+    // Operator endpoint for metrics and status; port 0 turns it off
+    private AdminServer adminServer;
+    private static final String ADMIN_HOST = System.getProperty("chess.admin.host", "127.0.0.1");
+    private static final int ADMIN_PORT = Integer.getInteger("chess.admin.port", 9998);
+    // Recording only touches the per-type slots and histograms held here
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter[] messageCounts = new MetricsRegistry.Counter[Message.MessageType.values().length];
+    private final LatencyHistogram[] messageServiceTimes = new LatencyHistogram[Message.MessageType.values().length];
+    private final LatencyHistogram moveValidationTime = metrics.histogram("chess_move_validation_micros",
+            "Time to validate a submitted move");
+    private final LatencyHistogram broadcastTime = metrics.histogram("chess_broadcast_fanout_micros",
+            "Time to queue one message to every recipient of a broadcast");
+    
+    public ChessServer() {
+        for (Message.MessageType type : Message.MessageType.values()) {
+            messageCounts[type.ordinal()] = metrics.counter("chess_messages_total",
+                    "Messages received, by type", "type", type.name());
+            messageServiceTimes[type.ordinal()] = metrics.histogram("chess_message_service_micros",
+                    "Time to handle a received message, by type", "type", type.name());
+        }
+        metrics.gauge("chess_connected_clients", "Open client connections", clients::size);
+        metrics.gauge("chess_game_sessions", "Games in the game list, in any state", gameSessions::size);
+        metrics.gauge("chess_active_games", "Games with both players seated and moving", () ->
+                gameSessions.stream().filter(session -> session.getStatus() == GameStatus.IN_PROGRESS).count());
+        metrics.gauge("chess_spectators", "Clients watching a game", () ->
+                gameSessions.stream().mapToLong(session -> session.getSpectators().size()).sum());
+        metrics.gauge("chess_matchmaking_queue_depth", "Players waiting for a match", matchmakingQueue::size);
+        metrics.gauge("chess_outbound_queue_depth", "Messages queued to clients and not yet written", () ->
+                clients.stream().mapToLong(ClientHandler::getOutboundDepth).sum());
+        metrics.gauge("chess_outbound_queue_depth_max", "Deepest single client outbound queue", () ->
+                clients.stream().mapToLong(ClientHandler::getOutboundDepth).max().orElse(0));
+        metrics.gauge("chess_spectator_fanout_queue_depth", "Fan-out tasks waiting to run",
+                () -> spectatorExecutor.getQueue().size());
+        metrics.gauge("chess_archive_queue_depth", "Finished games waiting to be archived",
+                () -> archiveExecutor.getQueue().size());
+        metrics.gauge("chess_journal_queue_depth", "Journal records waiting to be committed",
+                () -> journal != null ? journal.getPendingRecords() : 0);
+        metrics.gauge("chess_log_dropped_lines", "Log lines dropped because the log buffer was full", log::getDropped);
+    }
+    
+    private static ThreadPoolExecutor singleThreadExecutor(String name) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private static OpeningBook openOpeningBook() {
+        if (BOOK_FILE == null) {
+            return null;
+        }
+        try {
+            OpeningBook book = OpeningBook.open(Paths.get(BOOK_FILE));
+            log.info("Opening book loaded", "path", BOOK_FILE, "entries", book.size());
+            return book;
+        } catch (IOException e) {
+            // Analysis still works without the book, it just searches every position
+            log.error("Error opening the opening book", e, "path", BOOK_FILE);
+            return null;
+        }
+    }
+    
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Connection, lobby, game and queue counts for the admin endpoint.
+     */
+    Map<String, Object> describeStatus() {
+        int connected = 0;
+        int named = 0;
+        int inLobby = 0;
+        for (ClientHandler client : clients) {
+            if (!client.isConnected()) {
+                continue;
+            }
+            connected++;
+            if (client.getUsername() != null) {
+                named++;
+                if (!isClientInGame(client)) {
+                    inLobby++;
+                }
+            }
+        }
+        Map<String, Integer> games = new LinkedHashMap<>();
+        for (GameStatus status : GameStatus.values()) {
+            games.put(status.name(), 0);
+        }
+        int openGames = 0;
+        for (GameSession session : gameSessions) {
+            games.merge(session.getStatus().name(), 1, Integer::sum);
+            if (session.getPlayer2() == null) {
+                openGames++;
+            }
+        }
+        
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("connections", connected);
+        status.put("signedIn", named);
+        status.put("lobbyPlayers", inLobby);
+        status.put("openGames", openGames);
+        status.put("games", games);
+        status.put("matchmakingQueue", matchmakingQueue.queuedByGameType());
+        status.put("archivedGames", archive != null ? archive.size() : 0);
+        status.put("journalPending", journal != null ? journal.getPendingRecords() : 0);
+        return status;
+    }
+    
+    /**
+     * One entry per game session for the admin endpoint.
+     */
+    List<Map<String, Object>> describeSessions() {
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        for (GameSession session : gameSessions) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", session.getSessionId());
+            entry.put("type", session.getGameType());
+            entry.put("status", session.getStatus().name());
+            entry.put("white", session.getPlayer1() != null ? session.getPlayer1().getUsername() : null);
+            entry.put("black", session.getPlayer2() != null ? session.getPlayer2().getUsername() : null);
+            entry.put("ply", session.getPly());
+            entry.put("spectators", session.getSpectators().size());
+            if (session.getClock() != null) {
+                entry.put("clockMillis", session.getClock().snapshot());
+            }
+            sessions.add(entry);
+        }
+        return sessions;
+    }
     
     public void start() {
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            System.out.println("Chess server started on port " + PORT + "...");
-            System.out.println("Waiting for connections...");
+            this.serverSocket = serverSocket;
+            if (stopping) {
+                return;
+            }
+            log.info("Chess server started, waiting for connections", "port", PORT);
+            
+            // Bring back the games that were in progress when the server stopped
+            openArchive();
+            openJournal();
+            startAdminServer();
             
             // Start the client checker that runs every 60 seconds
             startClientChecker();
+            startMatchmaker();
+            startRatingPeriods();
             
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("New connection accepted: " + clientSocket.getInetAddress().getHostAddress());
+                log.info("Connection accepted", "address", clientSocket.getInetAddress().getHostAddress());
                 
                 ClientHandler clientHandler = new ClientHandler(clientSocket, this);
                 clients.add(clientHandler);
                 pool.execute(clientHandler);
             }
         } catch (IOException e) {
-            System.err.println("Error starting server: " + e.getMessage());
-            e.printStackTrace();
+            if (stopping) {
+                log.info("Chess server stopped", "port", PORT);
+            } else {
+                log.error("Error starting server", e);
+            }
         } finally {
             pool.shutdown();
             scheduler.shutdown();
+            spectatorExecutor.shutdown();
+            analysisService.shutdown();
+            timerWheel.stop();
+            archiveExecutor.shutdown();
+            if (adminServer != null) {
+                adminServer.stop();
+            }
+            // Games that ended just before shutdown are still queued for the archive;
+            // closing it under them would leave them in the journal as unfinished
+            try {
+                if (!archiveExecutor.awaitTermination(ARCHIVE_DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Game archive still busy at shutdown", "queued", archiveExecutor.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (explorer != null) {
+                try {
+                    explorer.merge();
+                } catch (IOException e) {
+                    log.error("Error saving the opening explorer", "error", e.getMessage());
+                }
+            }
+            if (journal != null) {
+                journal.close();
+            }
+            if (archive != null) {
+                archive.close();
+            }
+            log.close();
+        }
+    }
+    
+    /**
+     * Stops accepting connections and makes {@link #start()} return after
+     * closing the journal, archive and admin endpoint. Open connections are
+     * left to end on their own.
+     */
+    public void stop() {
+        stopping = true;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.warn("Error closing the server socket", "error", e.getMessage());
+            }
+        }
+    }
+    
+    private void openArchive() {
+        try {
+            archive = new GameArchive(Paths.get(ARCHIVE_DIR));
+            log.info("Game archive opened", "dir", ARCHIVE_DIR, "games", archive.size());
+        } catch (IOException e) {
+            log.warn("Game archive unavailable, finished games will not be kept", "error", e.getMessage());
+            return;
+        }
+        try {
+            explorer = new OpeningExplorer(Paths.get(ARCHIVE_DIR, "explorer.bin"));
+        } catch (IOException e) {
+            log.warn("Opening explorer unavailable", "error", e.getMessage());
+            return;
+        }
+        // Runs before any newly finished game, so games are added in archive order
+        archiveExecutor.execute(() -> {
+            try {
+                long before = explorer.getGameCount();
+                explorer.catchUp(archive);
+                log.info("Opening explorer caught up", "games", explorer.getGameCount(),
+                         "added", explorer.getGameCount() - before);
+            } catch (Exception e) {
+                log.error("Error building the opening explorer", e);
+            }
+        });
+    }
+    
+    /**
+     * Store a finished game, then drop it from the journal. The journal entry
+     * is only dropped once the game is durable in the archive, so a crash in
+     * between can't lose it.
+     */
+    private void archiveGame(GameSession gameSession, ChessPiece.PieceColor winner, String result) {
+        if (archive == null) {
+            if (journal != null) {
+                journal.gameEnded(gameSession.getSessionId(), result);
+            }
+            return;
+        }
+        ArchivedGame game = ArchivedGame.fromUci(gameSession.getSessionId(),
+                gameSession.getPlayer1().getUsername(), gameSession.getPlayer2().getUsername(),
+                gameSession.getGameType(),
+                winner == null ? ArchivedGame.Result.DRAW
+                        : winner == ChessPiece.PieceColor.WHITE ? ArchivedGame.Result.WHITE_WINS
+                        : ArchivedGame.Result.BLACK_WINS,
+                result, System.currentTimeMillis(), gameSession.getMoveHistory(0));
+        archiveExecutor.execute(() -> {
+            try {
+                if (archive.append(game) && explorer != null) {
+                    explorer.addGame(game);
+                }
+                if (journal != null) {
+                    journal.gameEnded(game.getGameId(), result);
+                }
+            } catch (Exception e) {
+                log.error("Error archiving game", e, "session", game.getGameId());
+            }
+        });
+    }
+    
+    private void openJournal() {
+        try {
+            journal = new GameJournal(Paths.get(JOURNAL_DIR), JOURNAL_SHARDS);
+        } catch (IOException e) {
+            log.warn("Game journal unavailable, games will not survive a restart", "error", e.getMessage());
+            return;
+        }
+        metrics.histogram("chess_journal_commit_micros", "Time from queueing a journal record to it being durable",
+                          journal.getCommitLatency());
+        int recovered = 0;
+        for (GameJournal.RecoveredGame game : journal.getRecoveredGames()) {
+            try {
+                recoverGame(game);
+                recovered++;
+            } catch (Exception e) {
+                log.warn("Could not recover game", "session", game.getGameId(), "error", e.getMessage());
+                journal.gameEnded(game.getGameId(), "unrecoverable");
+            }
+        }
+        log.info("Recovered games from the journal", "dir", JOURNAL_DIR, "games", recovered);
+    }
+    
+    /**
+     * Rebuild a journaled game with both seats empty. The players get their
+     * seats back by resuming with the tokens they were given; whoever doesn't
+     * come back within the grace period loses as usual.
+     */
+    private void recoverGame(GameJournal.RecoveredGame game) {
+        ClientHandler white = new ClientHandler(game.getWhitePlayer(), this);
+        ClientHandler black = new ClientHandler(game.getBlackPlayer(), this);
+        white.setPlayerInfo(new Message.PlayerInfo(game.getWhitePlayer(), ChessPiece.PieceColor.WHITE, ratingOf(white)));
+        black.setPlayerInfo(new Message.PlayerInfo(game.getBlackPlayer(), ChessPiece.PieceColor.BLACK, ratingOf(black)));
+        
+        GameSession gameSession = new GameSession(white, black);
+        gameSession.setSessionId(game.getGameId());
+        gameSession.setGameType(game.getGameType());
+        ChessBoard board = gameSession.getChessBoard();
+        board.setWhitePlayerName(game.getWhitePlayer());
+        board.setBlackPlayerName(game.getBlackPlayer());
+        board.setCurrentTurn(ChessPiece.PieceColor.WHITE);
+        
+        Position replay = new Position();
+        for (String uci : game.getMoves()) {
+            int move = Move.fromUci(uci, replay);
+            if (move == Move.NONE) {
+                throw new IllegalStateException("illegal journaled move " + uci);
+            }
+            ChessMove chessMove = Move.toChessMove(move, replay);
+            replay.makeMove(move);
+            board.makeMove(chessMove);
+            gameSession.recordMove(chessMove);
+            board.updateGameState();
+        }
+        
+        TimeControl timeControl = TimeControl.fromGameType(game.getGameType());
+        if (timeControl != null) {
+            GameClock clock = new GameClock(timeControl, timerWheel, color -> handleFlagFall(gameSession, color),
+                color -> (color == ChessPiece.PieceColor.WHITE ? gameSession.getPlayer1() : gameSession.getPlayer2())
+                    .getRttEstimator().getLagCreditMillis());
+            gameSession.setClock(clock);
+            // Held until both players have resumed; handleResume unpauses it
+            long[] times = game.getClock();
+            if (times != null) {
+                clock.restore(times[0], times[1], board.getCurrentTurn());
+            } else {
+                clock.restore(timeControl.getInitialMillis(), timeControl.getInitialMillis(), board.getCurrentTurn());
+            }
+        }
+        
+        gameSession.setResumeToken(0, game.getWhiteToken());
+        gameSession.setResumeToken(1, game.getBlackToken());
+        for (int i = 0; i < 2; i++) {
+            if (gameSession.getResumeToken(i) != null) {
+                resumeTokens.put(gameSession.getResumeToken(i), gameSession);
+            }
+        }
+        gameSession.setStatus(GameStatus.WAITING_FOR_OPPONENT);
+        gameSessions.add(gameSession);
+        scheduleAbandonCheck(gameSession, white);
+        scheduleAbandonCheck(gameSession, black);
+    }
+    
+    private void startAdminServer() {
+        if (ADMIN_PORT <= 0) {
+            return;
+        }
+        try {
+            adminServer = new AdminServer(this, ADMIN_HOST, ADMIN_PORT);
+            adminServer.start();
+            log.info("Admin endpoint started", "url", "http://" + ADMIN_HOST + ":" + ADMIN_PORT + "/metrics");
+        } catch (IOException e) {
+            log.warn("Admin endpoint unavailable", "error", e.getMessage());
         }
     }
     
@@ -60,12 +454,33 @@ public class ChessServer {
             try {
                 checkAndCleanupClients();
             } catch (Exception e) {
-                System.err.println("Error in client checker: " + e.getMessage());
-                e.printStackTrace();
+                log.error("Error in client checker", e);
             }
         }, 60, 60, TimeUnit.SECONDS);
         
-        System.out.println("Client checker scheduled to run every 60 seconds");
+        log.debug("Client checker scheduled", "periodSeconds", 60);
+    }
+    
+    private void startMatchmaker() {
+        // Search windows widen over time, so waiting players are re-paired every second
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                matchmakingQueue.sweep();
+            } catch (Exception e) {
+                log.error("Error in matchmaker", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+    
+    private void startRatingPeriods() {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                ratingService.closeRatingPeriod();
+                log.info("Rating period closed", "players", ratingService.getPlayerCount());
+            } catch (Exception e) {
+                log.error("Error closing rating period", e);
+            }
+        }, RATING_PERIOD_HOURS, RATING_PERIOD_HOURS, TimeUnit.HOURS);
     }
     
     private void checkAndCleanupClients() {
@@ -74,8 +489,7 @@ public class ChessServer {
         for (Iterator<ClientHandler> it = clients.iterator(); it.hasNext();) {
             ClientHandler client = it.next();
             if (!client.isConnected()) {
-                System.out.println("Client checker removing disconnected client: " + 
-                    (client.getUsername() != null ? client.getUsername() : "unknown"));
+                log.info("Client checker removing disconnected client", "user", client.getUsername());
                 
                 removeClient(client);
                 disconnectedCount++;
@@ -83,21 +497,35 @@ public class ChessServer {
         }
         
         if (disconnectedCount > 0) {
-            System.out.println("Client checker removed " + disconnectedCount + " disconnected clients");
+            log.info("Client checker removed disconnected clients", "count", disconnectedCount);
         }
     }
     
     public void broadcast(Message message, ClientHandler sender) {
+        ServerEvents.Broadcast event = new ServerEvents.Broadcast();
+        event.begin();
+        long start = System.nanoTime();
+        int recipients = 0;
         for (ClientHandler client : clients) {
             if (client != sender) {
                 client.sendMessage(message);
+                recipients++;
             }
         }
+        broadcastTime.record((System.nanoTime() - start) / 1000);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = message.getType().name();
+            event.recipients = recipients;
+            event.commit();
+        }
     }
     
     public void removeClient(ClientHandler client) {
         clients.remove(client);
-        System.out.println("Client disconnected. Active connections: " + clients.size());
+        matchmakingQueue.cancel(client);
+        stopSpectating(client);
+        log.info("Client disconnected", "user", client.getUsername(), "connections", clients.size());
         
         // Check client's game session
         GameSession gameSession = findGameSessionByClient(client);
@@ -117,13 +545,23 @@ public class ChessServer {
                 // Update game status to WAITING_FOR_OPPONENT
                 gameSession.setStatus(GameStatus.WAITING_FOR_OPPONENT);
                 
+                // Nobody can move while a seat is empty, so neither side's time may run
+                if (gameSession.getClock() != null) {
+                    gameSession.getClock().pause();
+                }
+                
                 // Don't remove the session immediately, wait for reconnection
+                scheduleAbandonCheck(gameSession, client);
                 return;
             }
             
-            // If the game was waiting for opponent, just remove it
+            // A started game keeps its seat open for a resume; otherwise just remove it
             if (gameSession.getStatus() == GameStatus.WAITING_FOR_OPPONENT) {
-                gameSessions.remove(gameSession);
+                if (gameSession.isResumable()) {
+                    scheduleAbandonCheck(gameSession, client);
+                } else {
+                    gameSessions.remove(gameSession);
+                }
                 return;
             }
             
@@ -137,10 +575,29 @@ public class ChessServer {
     
     public void handleMessage(Message message, ClientHandler sender) {
         if (message == null || message.getType() == null) {
-            System.err.println("Null mesaj veya mesaj tipi");
+            log.warn("Message without a type", "user", sender.getUsername());
             return;
         }
         
+        int type = message.getType().ordinal();
+        messageCounts[type].increment();
+        ServerEvents.MessageHandled event = new ServerEvents.MessageHandled();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            dispatch(message, sender);
+        } finally {
+            messageServiceTimes[type].record((System.nanoTime() - start) / 1000);
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = message.getType().name();
+                event.user = sender.getUsername();
+                event.commit();
+            }
+        }
+    }
+    
+    private void dispatch(Message message, ClientHandler sender) {
         switch (message.getType()) {
             case CONNECT:
                 handleConnect(message, sender);
@@ -172,8 +629,32 @@ public class ChessServer {
             case GAME_STATE:
                 handleGameState(message, sender);
                 break;
+            case ANALYZE:
+                handleAnalyze(message, sender);
+                break;
+            case FIND_MATCH:
+                handleFindMatch(message, sender);
+                break;
+            case CANCEL_MATCH:
+                handleCancelMatch(sender);
+                break;
+            case SPECTATE:
+                handleSpectate(message, sender);
+                break;
+            case UNSPECTATE:
+                stopSpectating(sender);
+                break;
+            case RESUME:
+                handleResume(message, sender);
+                break;
+            case EXPORT_PGN:
+                handleExportPgn(message, sender);
+                break;
+            case EXPLORE:
+                handleExplore(message, sender);
+                break;
             default:
-                System.out.println("Unknown message type: " + message.getType());
+                log.warn("Unknown message type", "type", message.getType(), "user", sender.getUsername());
         }
     }
     
@@ -207,12 +688,13 @@ public class ChessServer {
         sender.setUsername(username);
         
         // Create player info object - null için null renk kullanıyoruz
-        Message.PlayerInfo playerInfo = new Message.PlayerInfo(username, null);
+        Message.PlayerInfo playerInfo = new Message.PlayerInfo(username, null, ratingOf(sender));
         sender.setPlayerInfo(playerInfo);
         
         // Create confirmation message
         Message confirmMessage = new Message(Message.MessageType.CONNECT);
         confirmMessage.setContent("Connected as " + username);
+        confirmMessage.setPlayerInfo(playerInfo);
         sender.sendMessage(confirmMessage);
         
         // Broadcast to other clients
@@ -227,7 +709,7 @@ public class ChessServer {
             }
         }
         
-        System.out.println("New client connected: " + username);
+        log.info("Client signed in", "user", username);
     }
     
     private void handleReady(Message message, ClientHandler sender) {
@@ -251,9 +733,43 @@ public class ChessServer {
             ChessMove move = message.getMove();
             
             // Check if the move is valid
-            if (move != null && isValidMove(move, board, sender)) {
+            ServerEvents.MoveValidated validated = new ServerEvents.MoveValidated();
+            validated.begin();
+            long validationStart = System.nanoTime();
+            boolean valid = move != null && isValidMove(move, board, sender);
+            moveValidationTime.record((System.nanoTime() - validationStart) / 1000);
+            validated.end();
+            if (validated.shouldCommit()) {
+                validated.session = gameSession.getSessionId();
+                validated.user = sender.getUsername();
+                validated.valid = valid;
+                validated.commit();
+            }
+            if (valid) {
+                // Charge the mover's clock. A flagged player's move is rejected and the
+                // flag handler has already ended the game; otherwise the clock is paused
+                GameClock clock = gameSession.getClock();
+                ChessPiece.PieceColor color = sender.getPlayerInfo().getColor();
+                if (clock != null && !clock.recordMove(color)) {
+                    boolean flagged = clock.snapshot()[color == ChessPiece.PieceColor.WHITE ? 0 : 1] == 0;
+                    Message rejectedMessage = new Message(Message.MessageType.MOVE);
+                    rejectedMessage.setContent(flagged ? "Move rejected: your time ran out."
+                                                       : "Move rejected: the clock is not running.");
+                    sender.sendMessage(rejectedMessage);
+                    return;
+                }
+                
+                ServerEvents.MoveApplied applied = new ServerEvents.MoveApplied();
+                applied.begin();
+                
                 // Make the move
                 board.makeMove(move);
+                int ply = gameSession.recordMove(move);
+                if (journal != null) {
+                    // Only queued here; the journal writer commits it in the background
+                    journal.moveMade(gameSession.getSessionId(), ply, gameSession.getUciMove(ply),
+                                     clock != null ? clock.snapshot() : null);
+                }
                 
                 // Update game state
                 board.updateGameState();
@@ -262,12 +778,41 @@ public class ChessServer {
                 Message moveMessage = new Message(Message.MessageType.MOVE);
                 moveMessage.setMove(move);
                 moveMessage.setSender(sender.getUsername());
+                moveMessage.setPly(ply);
+                if (clock != null) {
+                    moveMessage.setClock(clock.snapshot());
+                }
                 
                 ClientHandler opponent = gameSession.getOpponent(sender);
                 if (opponent != null) {
                     opponent.sendMessage(moveMessage);
                 }
                 
+                // Spectators get their own copy, tagged with the game and ply
+                Message spectatorMessage = new Message(Message.MessageType.MOVE);
+                spectatorMessage.setMove(move);
+                spectatorMessage.setSender(sender.getUsername());
+                spectatorMessage.setClock(moveMessage.getClock());
+                spectatorMessage.setGameId(gameSession.getSessionId());
+                spectatorMessage.setPly(ply);
+                publishToSpectators(gameSession, spectatorMessage, ply);
+                
+                // The mover only needs the updated clock and the ply acknowledgement
+                Message ackMessage = new Message(Message.MessageType.MOVE);
+                ackMessage.setPly(ply);
+                if (clock != null) {
+                    ackMessage.setClock(clock.snapshot());
+                }
+                sender.sendMessage(ackMessage);
+                applied.end();
+                if (applied.shouldCommit()) {
+                    applied.session = gameSession.getSessionId();
+                    applied.user = sender.getUsername();
+                    applied.ply = ply;
+                    applied.move = gameSession.getUciMove(ply);
+                    applied.commit();
+                }
+                
                 // Check if the game has ended
                 checkGameEnd(gameSession);
             } else {
@@ -291,46 +836,14 @@ public class ChessServer {
         }
     }
     
-    private void createGameSession(ClientHandler player1, ClientHandler player2) {
-        GameSession gameSession = new GameSession(player1, player2);
-        gameSessions.add(gameSession);
-        
-        // Set player colors
-        player1.setPlayerInfo(new Message.PlayerInfo(player1.getUsername(), ChessPiece.PieceColor.WHITE));
-        player2.setPlayerInfo(new Message.PlayerInfo(player2.getUsername(), ChessPiece.PieceColor.BLACK));
-        
-        // Create and send game start message
-        // For player 1
-        Message matchMessage1 = new Message(Message.MessageType.GAME_START);
-        matchMessage1.setContent("Game started! Your opponent: " + player2.getUsername() + ". You play as White.");
-        
-        // Create a Message.PlayerInfo
-        Message.PlayerInfo messagePlayerInfo1 = new Message.PlayerInfo(player1.getUsername(), player1.getPlayerInfo().getColor());
-        matchMessage1.setPlayerInfo(messagePlayerInfo1);
-        
-        // Set the game ID
-        matchMessage1.setGameId(gameSession.getSessionId());
-        
-        player1.sendMessage(matchMessage1);
-        
-        // For player 2
-        Message matchMessage2 = new Message(Message.MessageType.GAME_START);
-        matchMessage2.setContent("Game started! Your opponent: " + player1.getUsername() + ". You play as Black.");
-        
-        // Create a Message.PlayerInfo
-        Message.PlayerInfo messagePlayerInfo2 = new Message.PlayerInfo(player2.getUsername(), player2.getPlayerInfo().getColor());
-        matchMessage2.setPlayerInfo(messagePlayerInfo2);
-        
-        // Set the game ID
-        matchMessage2.setGameId(gameSession.getSessionId());
+    private void startGame(GameSession gameSession) {
+        ServerEvents.GameStarted event = new ServerEvents.GameStarted();
+        event.begin();
         
-        player2.sendMessage(matchMessage2);
+        // Players can't watch another game while playing
+        stopSpectating(gameSession.getPlayer1());
+        stopSpectating(gameSession.getPlayer2());
         
-        // Start the game logic
-        startGame(gameSession);
-    }
-    
-    private void startGame(GameSession gameSession) {
         // Initialize the game board
         ChessBoard board = gameSession.getChessBoard();
         
@@ -340,15 +853,46 @@ public class ChessServer {
         // Update game status to IN_PROGRESS
         gameSession.setStatus(GameStatus.IN_PROGRESS);
         
-        // Notify players that the game has started
-        Message gameStartMessage = new Message(Message.MessageType.GAME_START);
-        gameStartMessage.setContent("Game started! Turn: White");
+        // Start White's clock for timed games
+        TimeControl timeControl = TimeControl.fromGameType(gameSession.getGameType());
+        if (timeControl != null && gameSession.getClock() == null) {
+            // Each side gets its connection's round-trip time back on every move
+            GameClock clock = new GameClock(timeControl, timerWheel, color -> handleFlagFall(gameSession, color),
+                color -> (color == ChessPiece.PieceColor.WHITE ? gameSession.getPlayer1() : gameSession.getPlayer2())
+                    .getRttEstimator().getLagCreditMillis());
+            gameSession.setClock(clock);
+            clock.start();
+        }
         
-        gameSession.getPlayer1().sendMessage(gameStartMessage);
-        gameSession.getPlayer2().sendMessage(gameStartMessage);
+        // Notify players that the game has started, each with their own resume token
+        issueResumeTokens(gameSession);
+        if (journal != null) {
+            journal.gameStarted(gameSession.getSessionId(), gameSession.getGameType(),
+                    gameSession.getPlayer1().getUsername(), gameSession.getPlayer2().getUsername(),
+                    gameSession.getResumeToken(0), gameSession.getResumeToken(1));
+        }
+        for (int i = 0; i < 2; i++) {
+            Message gameStartMessage = new Message(Message.MessageType.GAME_START);
+            gameStartMessage.setContent("Game started! Turn: White");
+            gameStartMessage.setGameId(gameSession.getSessionId());
+            gameStartMessage.setGameType(gameSession.getGameType());
+            gameStartMessage.setResumeToken(gameSession.getResumeToken(i));
+            if (gameSession.getClock() != null) {
+                gameStartMessage.setClock(gameSession.getClock().snapshot());
+            }
+            (i == 0 ? gameSession.getPlayer1() : gameSession.getPlayer2()).sendMessage(gameStartMessage);
+        }
         
-        System.out.println("Game started between " + gameSession.getPlayer1().getUsername() + 
-                          " and " + gameSession.getPlayer2().getUsername());
+        event.end();
+        if (event.shouldCommit()) {
+            event.session = gameSession.getSessionId();
+            event.white = gameSession.getPlayer1().getUsername();
+            event.black = gameSession.getPlayer2().getUsername();
+            event.gameType = gameSession.getGameType();
+            event.commit();
+        }
+        log.info("Game started", "session", gameSession.getSessionId(), "white", gameSession.getPlayer1().getUsername(),
+                 "black", gameSession.getPlayer2().getUsername(), "type", gameSession.getGameType());
     }
     
     private boolean isValidMove(ChessMove move, ChessBoard board, ClientHandler player) {
@@ -361,11 +905,9 @@ public class ChessServer {
             return false;
         }
         
-        // Check if the move is valid according to the game rules
-        return board.isValidPosition(move.getStartRow(), move.getStartCol()) &&
-               board.isValidPosition(move.getEndRow(), move.getEndCol()) &&
-               board.getPiece(move.getStartRow(), move.getStartCol()) != null &&
-               board.getPiece(move.getStartRow(), move.getStartCol()).getColor() == playerColor;
+        // Check the move against the same legal move list the client highlights from
+        return board.getLegalMoves(move.getStartRow(), move.getStartCol())
+                .contains(new Point(move.getEndRow(), move.getEndCol()));
     }
     
     private void checkGameEnd(GameSession gameSession) {
@@ -374,18 +916,40 @@ public class ChessServer {
         // Check for checkmate or draw
         if (board.isCheckmate(ChessPiece.PieceColor.WHITE)) {
             board.setGameResult(board.getBlackPlayerName() + " won by checkmate!");
-            sendGameEndMessage(gameSession);
+            sendGameEndMessage(gameSession, ChessPiece.PieceColor.BLACK);
         } else if (board.isCheckmate(ChessPiece.PieceColor.BLACK)) {
             board.setGameResult(board.getWhitePlayerName() + " won by checkmate!");
-            sendGameEndMessage(gameSession);
+            sendGameEndMessage(gameSession, ChessPiece.PieceColor.WHITE);
         } else if (board.isStalemate(board.getCurrentTurn())) {
             board.setGameResult("Draw by stalemate!");
-            sendGameEndMessage(gameSession);
+            sendGameEndMessage(gameSession, null);
         }
         // Add more end game conditions as needed
     }
     
-    private void sendGameEndMessage(GameSession gameSession) {
+    /**
+     * Called from the timer wheel when the side to move runs out of time
+     */
+    private void handleFlagFall(GameSession gameSession, ChessPiece.PieceColor flaggedColor) {
+        if (gameSession.getStatus() == GameStatus.COMPLETED || !gameSessions.contains(gameSession)) {
+            return;
+        }
+        
+        // Player 1 hosts and plays White
+        ClientHandler winner = flaggedColor == ChessPiece.PieceColor.WHITE
+                ? gameSession.getPlayer2() : gameSession.getPlayer1();
+        String winnerName = winner != null ? winner.getUsername() : "Opponent";
+        gameSession.getChessBoard().setGameResult(winnerName + " won on time!");
+        sendGameEndMessage(gameSession, flaggedColor == ChessPiece.PieceColor.WHITE
+                ? ChessPiece.PieceColor.BLACK : ChessPiece.PieceColor.WHITE);
+    }
+    
+    /**
+     * @param winner winning color, or null for a draw
+     */
+    private void sendGameEndMessage(GameSession gameSession, ChessPiece.PieceColor winner) {
+        ServerEvents.GameEnded event = new ServerEvents.GameEnded();
+        event.begin();
         ChessBoard board = gameSession.getChessBoard();
         String result = board.getGameResult();
         
@@ -395,16 +959,39 @@ public class ChessServer {
         Message gameEndMessage = new Message(Message.MessageType.GAME_END);
         gameEndMessage.setContent(result);
         
+        GameClock clock = gameSession.getClock();
+        if (clock != null) {
+            clock.stop();
+            gameEndMessage.setClock(clock.snapshot());
+        }
+        
         ClientHandler player1 = gameSession.getPlayer1();
         ClientHandler player2 = gameSession.getPlayer2();
         
         player1.sendMessage(gameEndMessage);
         player2.sendMessage(gameEndMessage);
+        closeSpectators(gameSession, gameEndMessage);
+        revokeResumeTokens(gameSession);
+        archiveGame(gameSession, winner, result);
+        
+        log.info("Game ended", "session", gameSession.getSessionId(), "white", player1.getUsername(),
+                 "black", player2.getUsername(), "result", result);
         
-        System.out.println("Game ended: " + player1.getUsername() + " vs " + player2.getUsername() + " - " + result);
+        // Player 1 plays White
+        double whiteScore = winner == null ? 0.5 : winner == ChessPiece.PieceColor.WHITE ? 1.0 : 0.0;
+        ratingService.recordResult(player1.getUsername(), player2.getUsername(), whiteScore);
+        log.info("Ratings updated", "session", gameSession.getSessionId(), "white", player1.getUsername(),
+                 "whiteRating", ratingOf(player1), "black", player2.getUsername(), "blackRating", ratingOf(player2));
         
         // Remove the game session
         gameSessions.remove(gameSession);
+        event.end();
+        if (event.shouldCommit()) {
+            event.session = gameSession.getSessionId();
+            event.result = result;
+            event.plies = gameSession.getPly();
+            event.commit();
+        }
     }
     
     private GameSession findGameSessionByClient(ClientHandler client) {
@@ -444,85 +1031,136 @@ public class ChessServer {
         private final Gson gson = new Gson();
         private boolean connected = true;
         private long lastActiveTime;
+        private final RttEstimator rttEstimator = new RttEstimator();
+        // Encoded lines waiting for the writer thread
+        private final BlockingQueue<String> outbound = new LinkedBlockingQueue<>(OUTBOUND_CAPACITY);
+        private Thread writerThread;
+        private GameSession spectating;
+        // Open for as long as the connection is, committed on cleanup
+        private final ServerEvents.Connection connectionEvent = new ServerEvents.Connection();
+        private long messagesReceived;
+        private boolean connectionRecorded;
+        private static final int OUTBOUND_CAPACITY = 4096;
         private static final long IDLE_TIMEOUT = 300000; // 5 minutes in milliseconds
+        private static final long PING_INTERVAL = 5000; // Frequent enough to track RTT for the clocks
         
         public ClientHandler(Socket socket, ChessServer server) {
             this.clientSocket = socket;
             this.server = server;
             this.lastActiveTime = System.currentTimeMillis();
+            connectionEvent.begin();
             try {
                 // Set a socket timeout to detect disconnected clients faster
                 this.clientSocket.setSoTimeout(30000); // 30 seconds timeout
             } catch (IOException e) {
-                System.err.println("Error setting socket timeout: " + e.getMessage());
+                log.warn("Error setting socket timeout", "error", e.getMessage());
             }
         }
         
+        /**
+         * A seat with no connection behind it, for a game recovered from the
+         * journal. It never receives anything; a RESUME replaces it.
+         */
+        public ClientHandler(String username, ChessServer server) {
+            this.clientSocket = null;
+            this.server = server;
+            this.username = username;
+            this.connected = false;
+            this.lastActiveTime = System.currentTimeMillis();
+        }
+        
         @Override
         public void run() {
             try {
-                writer = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream(), "UTF-8"), true);
+                writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream(), "UTF-8")));
                 reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), "UTF-8"));
                 
-                // Start a ping thread
+                // Start the writer and ping threads
+                startWriterThread();
                 startPingThread();
                 
                 String line;
                 while (connected && (line = reader.readLine()) != null) {
                     // Update last active time on any message received
                     updateLastActiveTime();
+                    messagesReceived++;
                     
                     try {
                         Message message = gson.fromJson(line, Message.class);
                         // Null mesaj veya mesaj tipi kontrolü
                         if (message == null || message.getType() == null) {
-                            System.err.println("Geçersiz mesaj alındı: " + line);
+                            log.warn("Invalid message received", "user", username, "line", line);
                             continue;
                         }
                         
                         // Handle pong message
                         if (message.getType() == Message.MessageType.PONG) {
-                            // Do nothing, just update the last active time
+                            recordRoundTrip(message);
                             continue;
                         }
                         
                         server.handleMessage(message, this);
                     } catch (Exception e) {
-                        System.err.println("Mesaj işlenirken hata oluştu: " + e.getMessage());
-                        e.printStackTrace();
+                        log.error("Error handling message", e, "user", username);
                     }
                 }
             } catch (IOException e) {
-                System.err.println("Connection error with client " + 
-                    (username != null ? username : "unknown") + ": " + e.getMessage());
+                log.info("Connection error", "user", username, "error", e.getMessage());
             } finally {
                 cleanup();
             }
         }
         
+        /**
+         * Drains the outbound queue to the socket, flushing once per batch, so
+         * senders (including spectator fan-out) never block on a slow socket.
+         */
+        private void startWriterThread() {
+            writerThread = new Thread(() -> {
+                List<String> batch = new ArrayList<>();
+                try {
+                    while (connected) {
+                        batch.add(outbound.take());
+                        outbound.drainTo(batch);
+                        for (String line : batch) {
+                            writer.println(line);
+                        }
+                        writer.flush();
+                        batch.clear();
+                        if (writer.checkError()) {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // Connection closed
+                }
+            }, "client-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        
         private void startPingThread() {
             Thread pingThread = new Thread(() -> {
                 while (connected) {
                     try {
-                        // Sleep for 25 seconds
-                        Thread.sleep(25000);
+                        Thread.sleep(PING_INTERVAL);
                         
                         // Check if client is idle
                         if (System.currentTimeMillis() - lastActiveTime > IDLE_TIMEOUT) {
-                            System.out.println("Client " + (username != null ? username : "unknown") + 
-                                " has been idle for too long. Disconnecting.");
+                            log.info("Disconnecting idle client", "user", username);
                             break;
                         }
                         
                         // Send ping message
                         if (connected) {
                             Message pingMessage = new Message(Message.MessageType.PING);
+                            pingMessage.setTimestamp(monotonicMillis());
                             sendMessage(pingMessage);
                         }
                     } catch (InterruptedException e) {
                         break;
                     } catch (Exception e) {
-                        System.err.println("Error in ping thread: " + e.getMessage());
+                        log.warn("Error in ping thread", "user", username, "error", e.getMessage());
                         break;
                     }
                 }
@@ -541,26 +1179,89 @@ public class ChessServer {
             this.lastActiveTime = System.currentTimeMillis();
         }
         
+        private void recordRoundTrip(Message pong) {
+            // Old clients send an empty PONG; it still counts as activity
+            if (pong.getTimestamp() == null) {
+                return;
+            }
+            long rtt = monotonicMillis() - pong.getTimestamp();
+            // Ignore echoes that can't have come from one of our pings
+            if (rtt >= 0 && rtt <= PING_INTERVAL * 2) {
+                rttEstimator.addSample(rtt);
+            }
+        }
+        
+        private static long monotonicMillis() {
+            return System.nanoTime() / 1_000_000;
+        }
+        
+        public RttEstimator getRttEstimator() {
+            return rttEstimator;
+        }
+        
         private void cleanup() {
             connected = false;
+            if (writerThread != null) {
+                writerThread.interrupt();
+            }
             try {
                 if (clientSocket != null && !clientSocket.isClosed()) {
                     clientSocket.close();
                 }
             } catch (IOException e) {
-                System.err.println("Error closing socket: " + e.getMessage());
+                log.warn("Error closing socket", "user", username, "error", e.getMessage());
             }
             
             // Ensure client is removed from the server
             server.removeClient(this);
             
+            // Both the reader and the ping thread may clean up; record the connection once
+            synchronized (connectionEvent) {
+                if (!connectionRecorded) {
+                    connectionRecorded = true;
+                    connectionEvent.end();
+                    if (clientSocket != null && connectionEvent.shouldCommit()) {
+                        connectionEvent.address = clientSocket.getInetAddress().getHostAddress();
+                        connectionEvent.user = username;
+                        connectionEvent.messages = messagesReceived;
+                        connectionEvent.commit();
+                    }
+                }
+            }
+            
             // Log the cleanup
-            System.out.println("Client cleanup completed for: " + 
-                (username != null ? username : "unknown"));
+            log.debug("Client cleanup completed", "user", username);
         }
         
         public void sendMessage(Message message) {
-            writer.println(gson.toJson(message));
+            sendEncoded(gson.toJson(message));
+        }
+        
+        public int getOutboundDepth() {
+            return outbound.size();
+        }
+        
+        /**
+         * Queues an already encoded message; used to encode a broadcast once.
+         * A client that lets its queue fill up is too slow to keep and is
+         * disconnected.
+         */
+        public void sendEncoded(String line) {
+            if (!connected) {
+                return;
+            }
+            if (!outbound.offer(line)) {
+                log.warn("Outbound queue full, disconnecting", "user", username);
+                disconnect();
+            }
+        }
+        
+        public GameSession getSpectating() {
+            return spectating;
+        }
+        
+        public void setSpectating(GameSession spectating) {
+            this.spectating = spectating;
         }
         
         public String getUsername() {
@@ -582,10 +1283,13 @@ public class ChessServer {
         // Method to disconnect the client
         public void disconnect() {
             this.connected = false;
+            if (clientSocket == null) {
+                return;
+            }
             try {
                 clientSocket.close();
             } catch (IOException e) {
-                System.err.println("Error closing socket during disconnect: " + e.getMessage());
+                log.warn("Error closing socket during disconnect", "user", username, "error", e.getMessage());
             }
         }
         
@@ -595,12 +1299,21 @@ public class ChessServer {
     }
     
     private static class GameSession {
-        private final ClientHandler player1;
+        private ClientHandler player1;
         private ClientHandler player2;
         private final ChessBoard chessBoard;
         private String sessionId;
         private String gameType;
         private GameStatus status;
+        private GameClock clock;
+        // Engine mirror of the board and the moves played, in long algebraic notation
+        private Position position = new Position();
+        private final List<String> moveHistory = new ArrayList<>();
+        private final List<ChessMove> moves = new ArrayList<>();
+        // Resume tokens for {White, Black}
+        private final String[] resumeTokens = new String[2];
+        // Spectator -> ply of the snapshot they were sent; only changed on the fan-out thread
+        private final Map<ClientHandler, Integer> spectators = new ConcurrentHashMap<>();
         
         public GameSession(ClientHandler player1, ClientHandler player2) {
             this.player1 = player1;
@@ -668,6 +1381,508 @@ public class ChessServer {
         public void setStatus(GameStatus status) {
             this.status = status;
         }
+        
+        public GameClock getClock() {
+            return clock;
+        }
+        
+        public void setClock(GameClock clock) {
+            this.clock = clock;
+        }
+        
+        /**
+         * Append a move that has just been made on the board and return the new
+         * ply count. A move the engine doesn't recognise resynchronises the
+         * mirror from the board instead of dropping the history.
+         */
+        public synchronized int recordMove(ChessMove move) {
+            moves.add(move);
+            int engineMove = Move.fromChessMove(move, position);
+            if (engineMove != Move.NONE) {
+                moveHistory.add(Move.toUci(engineMove));
+                position.makeMove(engineMove);
+            } else {
+                moveHistory.add(Move.toUci(Move.encode(move.getStartRow() * 8 + move.getStartCol(),
+                                                       move.getEndRow() * 8 + move.getEndCol())));
+                position = Position.fromBoard(chessBoard);
+            }
+            return moveHistory.size();
+        }
+        
+        public synchronized int getPly() {
+            return moveHistory.size();
+        }
+        
+        /**
+         * The move that reached the given ply (1-based), in long algebraic notation.
+         */
+        public synchronized String getUciMove(int ply) {
+            return moveHistory.get(ply - 1);
+        }
+        
+        public synchronized String getFen() {
+            return position.toFen();
+        }
+        
+        /**
+         * Moves from the given ply (0-based) to the end.
+         */
+        public synchronized List<String> getMoveHistory(int fromPly) {
+            return new ArrayList<>(moveHistory.subList(Math.min(fromPly, moveHistory.size()), moveHistory.size()));
+        }
+        
+        public Map<ClientHandler, Integer> getSpectators() {
+            return spectators;
+        }
+        
+        /**
+         * Moves played after the given ply, as the clients receive them.
+         */
+        public synchronized List<ChessMove> getMovesSince(int ply) {
+            return new ArrayList<>(moves.subList(Math.min(ply, moves.size()), moves.size()));
+        }
+        
+        public synchronized void replacePlayer(ClientHandler previous, ClientHandler replacement) {
+            if (player1 == previous) {
+                player1 = replacement;
+            } else if (player2 == previous) {
+                player2 = replacement;
+            }
+        }
+        
+        public String getResumeToken(int seat) {
+            return resumeTokens[seat];
+        }
+        
+        public void setResumeToken(int seat, String token) {
+            resumeTokens[seat] = token;
+        }
+        
+        public boolean isResumable() {
+            return resumeTokens[0] != null;
+        }
+    }
+    
+    /**
+     * Put the sender in the matchmaking queue for the requested time control.
+     * The game starts with the usual GAME_START messages once an opponent with
+     * a close enough rating is found.
+     */
+    private void handleFindMatch(Message message, ClientHandler sender) {
+        if (sender.getUsername() == null) {
+            sender.sendMessage(new Message(Message.MessageType.ERROR, "Connect before looking for a match"));
+            return;
+        }
+        if (isClientInGame(sender)) {
+            Message rejected = new Message(Message.MessageType.CANCEL_MATCH);
+            rejected.setContent("You are already in a game.");
+            sender.sendMessage(rejected);
+            return;
+        }
+        
+        TimeControl timeControl = TimeControl.fromGameType(message.getGameType());
+        String gameType = timeControl != null ? timeControl.getName() : TimeControl.STANDARD;
+        
+        Message searching = new Message(Message.MessageType.FIND_MATCH);
+        searching.setContent("Searching for an opponent (" + TimeControl.describe(gameType) + ")...");
+        searching.setGameType(gameType);
+        sender.sendMessage(searching);
+        
+        matchmakingQueue.enqueue(sender, ratingOf(sender), gameType);
+    }
+    
+    private void handleCancelMatch(ClientHandler sender) {
+        boolean cancelled = matchmakingQueue.cancel(sender);
+        Message reply = new Message(Message.MessageType.CANCEL_MATCH);
+        reply.setContent(cancelled ? "Matchmaking cancelled." : "You were not in the matchmaking queue.");
+        sender.sendMessage(reply);
+    }
+    
+    /**
+     * Create a game for two players paired by the matchmaking queue. The
+     * player who queued first is offered White.
+     */
+    private void startMatchedGame(ClientHandler white, ClientHandler black, String gameType) {
+        if (!white.isConnected() || !black.isConnected()) {
+            // Put whoever is still here back at the front of the line
+            if (white.isConnected()) {
+                matchmakingQueue.enqueue(white, ratingOf(white), gameType);
+            }
+            if (black.isConnected()) {
+                matchmakingQueue.enqueue(black, ratingOf(black), gameType);
+            }
+            return;
+        }
+        
+        GameSession gameSession = new GameSession(white, black);
+        gameSession.setSessionId(java.util.UUID.randomUUID().toString());
+        gameSession.setGameType(gameType);
+        gameSessions.add(gameSession);
+        
+        white.setPlayerInfo(new Message.PlayerInfo(white.getUsername(), ChessPiece.PieceColor.WHITE, ratingOf(white)));
+        black.setPlayerInfo(new Message.PlayerInfo(black.getUsername(), ChessPiece.PieceColor.BLACK, ratingOf(black)));
+        white.getPlayerInfo().setReady(true);
+        black.getPlayerInfo().setReady(true);
+        
+        ChessBoard board = gameSession.getChessBoard();
+        board.setWhitePlayerName(white.getUsername());
+        board.setBlackPlayerName(black.getUsername());
+        
+        sendMatchFound(white, black, gameSession, "White");
+        sendMatchFound(black, white, gameSession, "Black");
+        
+        startGame(gameSession);
+        
+        log.info("Players matched", "session", gameSession.getSessionId(), "white", white.getUsername(),
+                 "whiteRating", ratingOf(white), "black", black.getUsername(), "blackRating", ratingOf(black),
+                 "type", gameType);
+    }
+    
+    private void sendMatchFound(ClientHandler player, ClientHandler opponent, GameSession gameSession, String colorName) {
+        Message matchMessage = new Message(Message.MessageType.GAME_START);
+        matchMessage.setContent("Game started! Your opponent: " + opponent.getUsername() +
+                                " (" + ratingOf(opponent) + "). You play as " + colorName + ".");
+        matchMessage.setPlayerInfo(player.getPlayerInfo());
+        matchMessage.setGameId(gameSession.getSessionId());
+        matchMessage.setGameType(gameSession.getGameType());
+        player.sendMessage(matchMessage);
+    }
+    
+    /**
+     * Subscribe the sender to a game's moves. The subscription runs on the
+     * fan-out thread, so the snapshot (current FEN plus the last few moves) and
+     * the live moves that follow line up without gaps or repeats.
+     */
+    private void handleSpectate(Message message, ClientHandler sender) {
+        GameSession gameSession = findGameSessionById(message.getGameId());
+        if (gameSession == null || gameSession.getStatus() == GameStatus.COMPLETED) {
+            Message notFound = new Message(Message.MessageType.SPECTATE);
+            notFound.setGameId(message.getGameId());
+            notFound.setContent("Game not found.");
+            sender.sendMessage(notFound);
+            return;
+        }
+        if (gameSession.hasPlayer(sender)) {
+            Message rejected = new Message(Message.MessageType.SPECTATE);
+            rejected.setGameId(message.getGameId());
+            rejected.setContent("You are playing in this game.");
+            sender.sendMessage(rejected);
+            return;
+        }
+        
+        spectatorExecutor.execute(() -> {
+            GameSession previous = sender.getSpectating();
+            if (previous != null) {
+                previous.getSpectators().remove(sender);
+            }
+            
+            Message snapshot = new Message(Message.MessageType.SPECTATE);
+            int ply;
+            synchronized (gameSession) {
+                ply = gameSession.getPly();
+                snapshot.setFen(gameSession.getFen());
+                snapshot.setMoveHistory(gameSession.getMoveHistory(Math.max(0, ply - SPECTATOR_RECENT_MOVES)));
+                // Register before releasing the lock: a move recorded after this snapshot must
+                // find the spectator, or publishToSpectators skips it as having no audience
+                gameSession.getSpectators().put(sender, ply);
+            }
+            snapshot.setPly(ply);
+            snapshot.setGameId(gameSession.getSessionId());
+            snapshot.setGameType(gameSession.getGameType());
+            if (gameSession.getClock() != null) {
+                snapshot.setClock(gameSession.getClock().snapshot());
+            }
+            ClientHandler white = gameSession.getPlayer1();
+            ClientHandler black = gameSession.getPlayer2();
+            snapshot.setContent("Spectating " + white.getUsername() + " vs " +
+                                (black != null ? black.getUsername() : "(waiting)"));
+            
+            sender.setSpectating(gameSession);
+            sender.sendMessage(snapshot);
+        });
+    }
+    
+    private void stopSpectating(ClientHandler client) {
+        if (client == null || client.getSpectating() == null) {
+            return;
+        }
+        spectatorExecutor.execute(() -> {
+            GameSession gameSession = client.getSpectating();
+            if (gameSession != null) {
+                gameSession.getSpectators().remove(client);
+                client.setSpectating(null);
+            }
+        });
+    }
+    
+    /**
+     * Encode a message once and queue it to every spectator who joined before
+     * the given ply. Runs on the fan-out thread so the mover's round-trip never
+     * waits on the audience.
+     */
+    private void publishToSpectators(GameSession gameSession, Message message, int ply) {
+        if (gameSession.getSpectators().isEmpty()) {
+            return;
+        }
+        spectatorExecutor.execute(() -> {
+            ServerEvents.Broadcast event = new ServerEvents.Broadcast();
+            event.begin();
+            long start = System.nanoTime();
+            String encoded = gson.toJson(message);
+            int recipients = 0;
+            for (Map.Entry<ClientHandler, Integer> spectator : gameSession.getSpectators().entrySet()) {
+                // Skip moves already included in the spectator's snapshot
+                if (ply > spectator.getValue()) {
+                    spectator.getKey().sendEncoded(encoded);
+                    recipients++;
+                }
+            }
+            broadcastTime.record((System.nanoTime() - start) / 1000);
+            event.end();
+            if (event.shouldCommit()) {
+                event.kind = "SPECTATORS";
+                event.recipients = recipients;
+                event.commit();
+            }
+        });
+    }
+    
+    private void closeSpectators(GameSession gameSession, Message message) {
+        spectatorExecutor.execute(() -> {
+            String encoded = gson.toJson(message);
+            for (ClientHandler spectator : gameSession.getSpectators().keySet()) {
+                spectator.sendEncoded(encoded);
+                if (spectator.getSpectating() == gameSession) {
+                    spectator.setSpectating(null);
+                }
+            }
+            gameSession.getSpectators().clear();
+        });
+    }
+    
+    private void issueResumeTokens(GameSession gameSession) {
+        revokeResumeTokens(gameSession);
+        for (int i = 0; i < 2; i++) {
+            byte[] bytes = new byte[18];
+            tokenRandom.nextBytes(bytes);
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+            gameSession.setResumeToken(i, token);
+            resumeTokens.put(token, gameSession);
+        }
+    }
+    
+    private void revokeResumeTokens(GameSession gameSession) {
+        for (int i = 0; i < 2; i++) {
+            String token = gameSession.getResumeToken(i);
+            if (token != null) {
+                resumeTokens.remove(token);
+            }
+        }
+    }
+    
+    /**
+     * Rebind a dropped player's seat to this connection. The RESUME may be the
+     * first message on the connection; no CONNECT is needed. The reply carries
+     * the game state, followed by only the moves after the client's last
+     * acknowledged ply.
+     */
+    private void handleResume(Message message, ClientHandler sender) {
+        String token = message.getResumeToken();
+        GameSession gameSession = token != null ? resumeTokens.get(token) : null;
+        if (gameSession == null || gameSession.getStatus() == GameStatus.COMPLETED
+                || !gameSessions.contains(gameSession)) {
+            Message failed = new Message(Message.MessageType.RESUME);
+            failed.setContent("Resume failed: the game is no longer available.");
+            sender.sendMessage(failed);
+            return;
+        }
+        
+        int seat = token.equals(gameSession.getResumeToken(0)) ? 0 : 1;
+        ClientHandler previous = seat == 0 ? gameSession.getPlayer1() : gameSession.getPlayer2();
+        ClientHandler opponent = seat == 0 ? gameSession.getPlayer2() : gameSession.getPlayer1();
+        
+        sender.setUsername(previous.getUsername());
+        sender.setPlayerInfo(previous.getPlayerInfo());
+        matchmakingQueue.cancel(sender);
+        stopSpectating(sender);
+        
+        int clientPly = message.getPly() != null ? Math.max(0, message.getPly()) : 0;
+        List<ChessMove> missed;
+        int ply;
+        synchronized (gameSession) {
+            gameSession.replacePlayer(previous, sender);
+            ply = gameSession.getPly();
+            missed = gameSession.getMovesSince(clientPly);
+        }
+        if (previous != sender) {
+            // The old connection may be half-open; it no longer owns the seat
+            previous.disconnect();
+        }
+        if (opponent != null && opponent.isConnected() && gameSession.getStatus() == GameStatus.WAITING_FOR_OPPONENT) {
+            // Restart the clock before moves are accepted again
+            if (gameSession.getClock() != null) {
+                gameSession.getClock().unpause();
+            }
+            gameSession.setStatus(GameStatus.IN_PROGRESS);
+        }
+        
+        Message resumed = new Message(Message.MessageType.RESUME);
+        resumed.setContent("Resumed game against " + (opponent != null ? opponent.getUsername() : "(nobody)"));
+        resumed.setGameId(gameSession.getSessionId());
+        resumed.setGameType(gameSession.getGameType());
+        resumed.setPlayerInfo(sender.getPlayerInfo());
+        resumed.setResumeToken(token);
+        resumed.setPly(ply);
+        if (gameSession.getClock() != null) {
+            resumed.setClock(gameSession.getClock().snapshot());
+        }
+        sender.sendMessage(resumed);
+        
+        ChessBoard board = gameSession.getChessBoard();
+        for (int i = 0; i < missed.size(); i++) {
+            int movePly = clientPly + i + 1;
+            Message moveMessage = new Message(Message.MessageType.MOVE);
+            moveMessage.setMove(missed.get(i));
+            // Odd plies are White's moves
+            moveMessage.setSender(movePly % 2 == 1 ? board.getWhitePlayerName() : board.getBlackPlayerName());
+            moveMessage.setPly(movePly);
+            sender.sendMessage(moveMessage);
+        }
+        
+        if (opponent != null) {
+            Message reconnected = new Message(Message.MessageType.RESUME);
+            reconnected.setContent(sender.getUsername() + " reconnected.");
+            reconnected.setGameId(gameSession.getSessionId());
+            opponent.sendMessage(reconnected);
+        }
+        
+        log.info("Game resumed", "session", gameSession.getSessionId(), "user", sender.getUsername(),
+                 "ply", clientPly, "replayed", missed.size());
+    }
+    
+    /**
+     * Reply with a game as PGN: a game in progress as it stands, with result
+     * "*", or a finished game from the archive.
+     */
+    private void handleExportPgn(Message message, ClientHandler sender) {
+        String gameId = message.getGameId();
+        ArchivedGame game = null;
+        GameSession gameSession = gameId != null ? findGameSessionById(gameId) : null;
+        if (gameSession != null) {
+            ClientHandler white = gameSession.getPlayer1();
+            ClientHandler black = gameSession.getPlayer2();
+            game = ArchivedGame.fromUci(gameId, white != null ? white.getUsername() : null,
+                    black != null ? black.getUsername() : null, gameSession.getGameType(),
+                    ArchivedGame.Result.UNKNOWN, null, System.currentTimeMillis(), gameSession.getMoveHistory(0));
+        } else if (archive != null && gameId != null) {
+            game = archive.get(gameId);
+        }
+        
+        Message reply = new Message(Message.MessageType.EXPORT_PGN);
+        reply.setGameId(gameId);
+        if (game == null) {
+            reply.setContent("Game not found.");
+        } else {
+            StringBuilder pgn = new StringBuilder(1024);
+            try {
+                PgnWriter.write(game, pgn);
+            } catch (IOException e) {
+                // StringBuilder doesn't throw
+            }
+            reply.setContent(pgn.toString());
+        }
+        sender.sendMessage(reply);
+    }
+    
+    /**
+     * Reply with the moves played from a position in archived games, most
+     * played first. The position is given as a FEN, or as moves from the
+     * starting position.
+     */
+    private void handleExplore(Message message, ClientHandler sender) {
+        Message reply = new Message(Message.MessageType.EXPLORE);
+        if (explorer == null) {
+            reply.setContent("The opening explorer is not available.");
+            sender.sendMessage(reply);
+            return;
+        }
+        
+        Position position;
+        try {
+            position = message.getFen() != null ? Position.fromFen(message.getFen()) : new Position();
+        } catch (RuntimeException e) {
+            reply.setContent("Invalid FEN.");
+            sender.sendMessage(reply);
+            return;
+        }
+        // A FEN can parse and still not be a position (no king, side not to move in check)
+        if (!position.isValid()) {
+            reply.setContent("Invalid position.");
+            sender.sendMessage(reply);
+            return;
+        }
+        if (message.getFen() == null && message.getMoveHistory() != null) {
+            for (String uci : message.getMoveHistory()) {
+                int move = Move.fromUci(uci, position);
+                if (move == Move.NONE) {
+                    reply.setContent("Illegal move in history: " + uci);
+                    sender.sendMessage(reply);
+                    return;
+                }
+                position.makeMove(move);
+            }
+        }
+        
+        List<Message.ExplorerMove> moves = new ArrayList<>();
+        for (OpeningExplorer.MoveStats stats : explorer.query(position)) {
+            int move = Move.fromUci(Move.toUci(stats.getMove()), position);
+            if (move == Move.NONE) {
+                // Hash collision with another position
+                continue;
+            }
+            moves.add(new Message.ExplorerMove(Move.toUci(move), San.toSan(move, position),
+                    stats.getWhiteWins(), stats.getDraws(), stats.getBlackWins()));
+        }
+        reply.setFen(position.toFen());
+        reply.setExplorerMoves(moves);
+        sender.sendMessage(reply);
+    }
+    
+    /**
+     * End a game whose dropped player has not resumed within the grace period.
+     * The opponent wins if still there; if both are gone the game is dropped.
+     */
+    private void scheduleAbandonCheck(GameSession gameSession, ClientHandler dropped) {
+        if (scheduler.isShutdown()) {
+            // Stopping; the game stays in the journal to be resumed after a restart
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (!gameSession.hasPlayer(dropped) || gameSession.getStatus() != GameStatus.WAITING_FOR_OPPONENT
+                    || !gameSessions.contains(gameSession)) {
+                return;
+            }
+            ClientHandler opponent = gameSession.getOpponent(dropped);
+            if (opponent != null && opponent.isConnected()) {
+                gameSession.getChessBoard().setGameResult(opponent.getUsername() + " won, " +
+                        dropped.getUsername() + " abandoned the game.");
+                sendGameEndMessage(gameSession, gameSession.getPlayer1() == opponent
+                        ? ChessPiece.PieceColor.WHITE : ChessPiece.PieceColor.BLACK);
+            } else {
+                if (gameSession.getClock() != null) {
+                    gameSession.getClock().stop();
+                }
+                revokeResumeTokens(gameSession);
+                if (journal != null) {
+                    journal.gameEnded(gameSession.getSessionId(), "abandoned");
+                }
+                gameSessions.remove(gameSession);
+            }
+        }, RESUME_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    private int ratingOf(ClientHandler client) {
+        return (int) Math.round(ratingService.getRating(client.getUsername()));
     }
     
     // Mevcut oyunların listesini istemciye gönder
@@ -682,6 +1897,7 @@ public class ChessServer {
                         session.getPlayer1().getUsername(),
                         session.getGameType()
                 );
+                gameInfo.setHostRating(ratingOf(session.getPlayer1()));
                 gameInfos.add(gameInfo);
             }
         }
@@ -714,6 +1930,9 @@ public class ChessServer {
             gameId = java.util.UUID.randomUUID().toString();
         }
         
+        // Hosting a game takes the player out of matchmaking
+        matchmakingQueue.cancel(sender);
+        
         // Eğer kullanıcı zaten bir oyun içindeyse, önce o oyunu sonlandır
         GameSession existingSession = findGameSessionByClient(sender);
         if (existingSession != null) {
@@ -728,7 +1947,7 @@ public class ChessServer {
         gameSessions.add(gameSession);
         
         // Oyuncu rengi atama
-        sender.setPlayerInfo(new Message.PlayerInfo(sender.getUsername(), ChessPiece.PieceColor.WHITE));
+        sender.setPlayerInfo(new Message.PlayerInfo(sender.getUsername(), ChessPiece.PieceColor.WHITE, ratingOf(sender)));
         
         // Oyun tahtasına oyuncu adlarını atama
         ChessBoard board = gameSession.getChessBoard();
@@ -741,7 +1960,8 @@ public class ChessServer {
         // PlayerInfo mesajı oluştur
         Message.PlayerInfo messagePlayerInfo = new Message.PlayerInfo(
                 sender.getUsername(), 
-                sender.getPlayerInfo().getColor()
+                sender.getPlayerInfo().getColor(),
+                ratingOf(sender)
         );
         confirmMessage.setPlayerInfo(messagePlayerInfo);
         
@@ -753,7 +1973,7 @@ public class ChessServer {
         // Tüm kullanıcılara oyun listesinin güncellendiğini bildir
         broadcast(createLobbyUpdateMessage(), null);
         
-        System.out.println("New game created by: " + sender.getUsername() + ", ID: " + gameId);
+        log.info("Game created", "session", gameId, "user", sender.getUsername());
     }
     
     // Var olan bir oyuna katıl
@@ -773,45 +1993,30 @@ public class ChessServer {
             return;
         }
         
-        // Check if the game already has two players
-        if (session.getPlayer2() != null) {
-            sendJoinGameFailedMessage(sender, "Game is full.");
-            return;
+        // Take the empty seat; two JOINs for the same game race for it
+        synchronized (session) {
+            if (session.getPlayer2() != null) {
+                sendJoinGameFailedMessage(sender, "Game is full.");
+                return;
+            }
+            session.setPlayer2(sender);
         }
+        matchmakingQueue.cancel(sender);
         
-        // Join the game
-        session.setPlayer2(sender);
+        // The host plays White in the session they created; the joiner takes Black
+        ClientHandler host = session.getPlayer1();
+        host.setPlayerInfo(new Message.PlayerInfo(host.getUsername(), ChessPiece.PieceColor.WHITE, ratingOf(host)));
+        sender.setPlayerInfo(new Message.PlayerInfo(sender.getUsername(), ChessPiece.PieceColor.BLACK, ratingOf(sender)));
+        host.getPlayerInfo().setReady(true);
+        sender.getPlayerInfo().setReady(true);
+        session.getChessBoard().setBlackPlayerName(sender.getUsername());
         
-        // Create and send the game board
-        createGameSession(session.getPlayer1(), sender);
+        sendMatchFound(host, sender, session, "White");
+        sendMatchFound(sender, host, session, "Black");
         
-        // Set the game ID and type in the session
-        GameSession updatedSession = findGameSessionByClient(sender);
-        if (updatedSession != null) {
-            updatedSession.setSessionId(gameId);
-            updatedSession.setGameType(session.getGameType());
-            
-            // Send a game start message to both players with the game ID
-            Message player1Message = new Message(Message.MessageType.GAME_START);
-            player1Message.setContent("Game started with " + sender.getUsername());
-            player1Message.setGameId(gameId);
-            player1Message.setGameType(session.getGameType());
-            
-            Message player2Message = new Message(Message.MessageType.GAME_START);
-            player2Message.setContent("Game started with " + session.getPlayer1().getUsername());
-            player2Message.setGameId(gameId);
-            player2Message.setGameType(session.getGameType());
-            
-            // Hazır durumunu güncelle
-            session.getPlayer1().getPlayerInfo().setReady(true);
-            sender.getPlayerInfo().setReady(true);
-            
-            // Start the game immediately
-            startGame(updatedSession);
-            
-            updatedSession.getPlayer1().sendMessage(player1Message);
-            updatedSession.getPlayer2().sendMessage(player2Message);
-        }
+        // Start the lobby session itself, so it is the one that gets the
+        // resume tokens, the journal entry and the archive id
+        startGame(session);
         
         // Update the game list for all clients
         broadcastGameList();
@@ -841,6 +2046,7 @@ public class ChessServer {
                     session.getPlayer1().getUsername(),
                     session.getGameType()
                 );
+                gameInfo.setHostRating(ratingOf(session.getPlayer1()));
                 availableGames.add(gameInfo);
             }
         }
@@ -868,13 +2074,13 @@ public class ChessServer {
     // Bu metod DELETE_GAME mesajını işleyecek
     private void handleDeleteGame(Message message, ClientHandler sender) {
         if (message.getGameId() != null) {
-            System.out.println("DELETE_GAME request received for gameId: " + message.getGameId());
+            log.debug("DELETE_GAME received", "session", message.getGameId(), "user", sender.getUsername());
             
             // Oyunu ID'ye göre bul
             GameSession gameSession = findGameSessionById(message.getGameId());
             
             if (gameSession != null) {
-                System.out.println("Game found: " + gameSession.getSessionId() + ", initiating deletion...");
+                log.debug("Deleting game", "session", gameSession.getSessionId());
                 
                 // Oyundaki diğer oyuncuya bilgi ver (eğer varsa)
                 ClientHandler opponent = gameSession.getOpponent(sender);
@@ -885,8 +2091,19 @@ public class ChessServer {
                 }
                 
                 // Oyunu listeden kaldır
+                if (gameSession.getClock() != null) {
+                    gameSession.getClock().stop();
+                }
+                Message spectatorEndMessage = new Message(Message.MessageType.GAME_END);
+                spectatorEndMessage.setContent(sender.getUsername() + " left the game. Game over.");
+                closeSpectators(gameSession, spectatorEndMessage);
+                revokeResumeTokens(gameSession);
+                if (journal != null) {
+                    journal.gameEnded(gameSession.getSessionId(), "deleted");
+                }
                 gameSessions.remove(gameSession);
-                System.out.println("Game session removed. Remaining sessions: " + gameSessions.size());
+                log.info("Game deleted", "session", gameSession.getSessionId(), "user", sender.getUsername(),
+                         "remaining", gameSessions.size());
                 
                 // Oynamakta olan oyuncuları bilgilendir
                 Message confirmationMessage = new Message(Message.MessageType.DELETE_GAME);
@@ -896,7 +2113,7 @@ public class ChessServer {
                 // Tüm istemcilere güncellenmiş oyun listesini gönder
                 broadcastGameList();
             } else {
-                System.out.println("Game not found with ID: " + message.getGameId());
+                log.info("DELETE_GAME for unknown game", "session", message.getGameId(), "user", sender.getUsername());
                 
                 // İstemciye oyunun bulunamadığını bildir
                 Message notFoundMessage = new Message(Message.MessageType.DELETE_GAME);
@@ -904,8 +2121,79 @@ public class ChessServer {
                 sender.sendMessage(notFoundMessage);
             }
         } else {
-            System.out.println("DELETE_GAME request without gameId");
+            log.info("DELETE_GAME without a game id", "user", sender.getUsername());
+        }
+    }
+    
+    /**
+     * Analyse a position given as FEN, as a move list from the start position,
+     * or, if neither is set, the sender's current game. The reply is sent
+     * asynchronously once the analysis pool has a result.
+     */
+    private void handleAnalyze(Message message, ClientHandler sender) {
+        Position position;
+        try {
+            position = resolveAnalysisPosition(message, sender);
+        } catch (IllegalArgumentException e) {
+            sendAnalyzeFailed(sender, message, e.getMessage());
+            return;
+        }
+        
+        int lines = message.getMultiPv() != null ? message.getMultiPv() : 1;
+        String fen = position.toFen();
+        analysisService.analyze(position, lines).whenComplete((analysisLines, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    sendAnalyzeFailed(sender, message, "Analysis is busy, please try again later.");
+                } else {
+                    log.error("Error analysing position", cause, "user", sender.getUsername(), "fen", fen);
+                    sendAnalyzeFailed(sender, message, "Analysis failed for this position.");
+                }
+                return;
+            }
+            Message response = new Message(Message.MessageType.ANALYZE);
+            response.setGameId(message.getGameId());
+            response.setFen(fen);
+            response.setMultiPv(analysisLines.size());
+            response.setAnalysisLines(analysisLines);
+            sender.sendMessage(response);
+        });
+    }
+    
+    private Position resolveAnalysisPosition(Message message, ClientHandler sender) {
+        Position position;
+        if (message.getFen() != null) {
+            position = Position.fromFen(message.getFen());
+        } else if (message.getMoveHistory() != null) {
+            position = new Position();
+            for (String uci : message.getMoveHistory()) {
+                int move = Move.fromUci(uci, position);
+                if (move == Move.NONE) {
+                    throw new IllegalArgumentException("Illegal move in history: " + uci);
+                }
+                position.makeMove(move);
+            }
+        } else {
+            GameSession gameSession = findGameSessionByClient(sender);
+            if (gameSession == null) {
+                throw new IllegalArgumentException("No position to analyze.");
+            }
+            position = Position.fromBoard(gameSession.getChessBoard());
+        }
+        
+        if (!position.isValid()) {
+            throw new IllegalArgumentException("Invalid position.");
         }
+        return position;
+    }
+    
+    private void sendAnalyzeFailed(ClientHandler client, Message request, String reason) {
+        Message response = new Message(Message.MessageType.ANALYZE);
+        response.setGameId(request.getGameId());
+        response.setContent(reason);
+        client.sendMessage(response);
     }
     
     // Add new method to handle game state changes
@@ -0,0 +1,468 @@
+package com.chess.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Archive of finished games in memory-mapped segment files.
+ *
+ * A segment starts with a 16-byte header (magic, version) followed by game
+ * records: [length][crc32][body], where the body holds the end time, result,
+ * game id, players, game type and termination, then the move count and the
+ * moves at two bytes each. A typical game takes a few hundred bytes, so
+ * millions of games fit in a few GB.
+ *
+ * Segments are mapped whole; appends go into the mapping of the newest one and
+ * a new segment is started when it is full. The length is written last and the
+ * record is forced before the append returns, so a crash leaves at most one
+ * torn record, which the CRC rejects. An in-memory index from a 64-bit hash of
+ * the game id to (segment, offset) is rebuilt from the segments on open; a
+ * lookup is a hash probe under an optimistic stamp and a decode straight from
+ * the mapping.
+ */
+public class GameArchive implements Closeable {
+    private static final AsyncLogger log = AsyncLogger.get();
+
+    public static final int DEFAULT_SEGMENT_BYTES = 256 << 20;
+    private static final int MAGIC = 0x43474131; // "CGA1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final StampedLock indexLock = new StampedLock();
+    private IndexTable index = new IndexTable(1024);
+    private int gameCount;
+    private boolean closed;
+
+    private static final class Segment {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int end;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer, int end) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.end = end;
+        }
+
+        /**
+         * A private view, so readers don't share the mapping's position.
+         */
+        private ByteBuffer view() {
+            return buffer.duplicate();
+        }
+    }
+
+    /**
+     * Open-addressing table from id hash to packed location. Equal hashes may
+     * occupy several slots; the id stored in the record settles collisions.
+     */
+    private static final class IndexTable {
+        private final long[] hashes;
+        private final long[] locations;
+        private final int mask;
+
+        private IndexTable(int capacity) {
+            this.hashes = new long[capacity];
+            this.locations = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private void put(long hash, long location) {
+            int slot = (int) mix(hash) & mask;
+            while (locations[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            locations[slot] = location;
+        }
+
+        private long[] find(long hash) {
+            long[] found = new long[1];
+            int count = 0;
+            int slot = (int) mix(hash) & mask;
+            while (locations[slot] != 0) {
+                if (hashes[slot] == hash) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = locations[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        }
+    }
+
+    public GameArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public GameArchive(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "games-*.seg")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            loadSegment(file);
+        }
+    }
+
+    /**
+     * Appends a game and makes it durable. Returns false, without writing, if
+     * the id is already archived.
+     */
+    public boolean append(ArchivedGame game) throws IOException {
+        return appendAll(Collections.singletonList(game)) > 0;
+    }
+
+    /**
+     * Appends games and makes them durable with one force per segment written,
+     * for bulk imports. Ids that are already archived are skipped; returns the
+     * number of games added.
+     */
+    public int appendAll(List<ArchivedGame> games) throws IOException {
+        List<byte[]> bodies = new ArrayList<>(games.size());
+        for (ArchivedGame game : games) {
+            bodies.add(encodeBody(game));
+        }
+
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Archive is closed");
+            }
+            int added = 0;
+            Segment dirty = null;
+            int dirtyFrom = 0;
+            for (int i = 0; i < bodies.size(); i++) {
+                String gameId = games.get(i).getGameId();
+                if (contains(gameId)) {
+                    continue;
+                }
+                byte[] body = bodies.get(i);
+                int recordBytes = RECORD_HEADER_BYTES + body.length;
+                Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (segment == null || segment.buffer.capacity() - segment.end < recordBytes) {
+                    if (dirty != null) {
+                        dirty.buffer.force(dirtyFrom, dirty.end - dirtyFrom);
+                        dirty = null;
+                    }
+                    segment = newSegment();
+                }
+                if (dirty == null) {
+                    dirty = segment;
+                    dirtyFrom = segment.end;
+                }
+
+                int offset = segment.end;
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                ByteBuffer view = segment.view();
+                view.position(offset + RECORD_HEADER_BYTES);
+                view.put(body);
+                view.putInt(offset + 4, (int) crc.getValue());
+                // The length marks the record as complete
+                view.putInt(offset, body.length);
+                segment.end = offset + recordBytes;
+                addToIndex(gameId, location(segments.size() - 1, offset));
+                added++;
+            }
+            if (dirty != null) {
+                dirty.buffer.force(dirtyFrom, dirty.end - dirtyFrom);
+            }
+            return added;
+        }
+    }
+
+    private byte[] encodeBody(ArchivedGame game) {
+        if (game.getGameId() == null) {
+            throw new IllegalArgumentException("Game has no id");
+        }
+        byte[][] strings = {
+            encode(game.getGameId()), encode(game.getWhitePlayer()), encode(game.getBlackPlayer()),
+            encode(game.getGameType()), encode(game.getTermination())
+        };
+        short[] moves = game.getPackedMoves();
+        if (moves.length > 0xFFFF) {
+            throw new IllegalArgumentException("Too many moves to archive: " + moves.length);
+        }
+        int bodyBytes = 8 + 1 + 2 + moves.length * 2;
+        for (byte[] string : strings) {
+            bodyBytes += 2 + (string != null ? string.length : 0);
+        }
+        if (HEADER_BYTES + RECORD_HEADER_BYTES + bodyBytes > segmentBytes) {
+            throw new IllegalArgumentException("Game too large for a segment: " + bodyBytes + " bytes");
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(bodyBytes);
+        body.putLong(game.getEndedAt());
+        body.put((byte) game.getResult().ordinal());
+        for (byte[] string : strings) {
+            if (string == null) {
+                body.putShort((short) -1);
+            } else {
+                body.putShort((short) string.length);
+                body.put(string);
+            }
+        }
+        body.putChar((char) moves.length);
+        for (short move : moves) {
+            body.putShort(move);
+        }
+        return body.array();
+    }
+
+    /**
+     * The archived game with this id, or null.
+     */
+    public ArchivedGame get(String gameId) {
+        long location = locate(gameId);
+        return location != 0 ? read(location) : null;
+    }
+
+    public boolean contains(String gameId) {
+        return locate(gameId) != 0;
+    }
+
+    public int size() {
+        long stamp = indexLock.readLock();
+        try {
+            return gameCount;
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Visits every archived game in the order it was archived, decoding one at
+     * a time straight from the mappings.
+     */
+    public void forEach(Consumer<ArchivedGame> action) {
+        for (Segment segment : segments) {
+            ByteBuffer view = segment.view();
+            int end = segment.end;
+            int offset = HEADER_BYTES;
+            while (offset < end) {
+                action.accept(decode(view, offset));
+                offset += RECORD_HEADER_BYTES + view.getInt(offset);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing archive segment", "error", e.getMessage());
+            }
+        }
+    }
+
+    private void loadSegment(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Not an archive segment: " + file);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an archive segment: " + file);
+        }
+
+        int segmentNumber = segments.size();
+        int offset = HEADER_BYTES;
+        int capacity = buffer.capacity();
+        while (offset + RECORD_HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > capacity) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Dropping torn archive record", "file", file, "offset", offset);
+                break;
+            }
+            addToIndex(decodeGameId(buffer, offset), location(segmentNumber, offset));
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        // Anything after the last good record is overwritten by the next append
+        segments.add(new Segment(channel, buffer, offset));
+    }
+
+    private Segment newSegment() throws IOException {
+        Path file = directory.resolve(String.format("games-%05d.seg", segments.size()));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, System.currentTimeMillis());
+        buffer.force(0, HEADER_BYTES);
+        Segment segment = new Segment(channel, buffer, HEADER_BYTES);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void addToIndex(String gameId, long location) {
+        long stamp = indexLock.writeLock();
+        try {
+            if ((gameCount + 1) * 2 > index.hashes.length) {
+                IndexTable grown = new IndexTable(index.hashes.length * 2);
+                for (int i = 0; i < index.hashes.length; i++) {
+                    if (index.locations[i] != 0) {
+                        grown.put(index.hashes[i], index.locations[i]);
+                    }
+                }
+                index = grown;
+            }
+            index.put(hash(gameId), location);
+            gameCount++;
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Location of the record for the id, or 0.
+     */
+    private long locate(String gameId) {
+        if (gameId == null) {
+            return 0;
+        }
+        long hash = hash(gameId);
+        long[] candidates = null;
+        long stamp = indexLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                candidates = index.find(hash);
+            } catch (RuntimeException e) {
+                // Torn read of a table being resized; validation fails below
+            }
+        }
+        if (candidates == null || !indexLock.validate(stamp)) {
+            stamp = indexLock.readLock();
+            try {
+                candidates = index.find(hash);
+            } finally {
+                indexLock.unlockRead(stamp);
+            }
+        }
+        for (long location : candidates) {
+            Segment segment = segments.get((int) (location >>> 32));
+            if (gameId.equals(decodeGameId(segment.buffer, (int) location))) {
+                return location;
+            }
+        }
+        return 0;
+    }
+
+    private ArchivedGame read(long location) {
+        Segment segment = segments.get((int) (location >>> 32));
+        return decode(segment.view(), (int) location);
+    }
+
+    private static ArchivedGame decode(ByteBuffer view, int offset) {
+        view.position(offset + RECORD_HEADER_BYTES);
+        long endedAt = view.getLong();
+        ArchivedGame.Result[] results = ArchivedGame.Result.values();
+        int resultCode = view.get();
+        ArchivedGame.Result result = resultCode >= 0 && resultCode < results.length
+                ? results[resultCode] : ArchivedGame.Result.UNKNOWN;
+        String gameId = decodeString(view);
+        String white = decodeString(view);
+        String black = decodeString(view);
+        String gameType = decodeString(view);
+        String termination = decodeString(view);
+        short[] moves = new short[view.getChar()];
+        view.asShortBuffer().get(moves);
+        return new ArchivedGame(gameId, white, black, gameType, result, termination, endedAt, moves);
+    }
+
+    private static String decodeGameId(ByteBuffer buffer, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + RECORD_HEADER_BYTES + 8 + 1);
+        return decodeString(view);
+    }
+
+    private static String decodeString(ByteBuffer view) {
+        int length = view.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long to archive: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    /**
+     * 64-bit FNV-1a of the id.
+     */
+    private static long hash(String gameId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < gameId.length(); i++) {
+            hash ^= gameId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
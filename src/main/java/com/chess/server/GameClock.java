@@ -0,0 +1,196 @@
+package com.chess.server;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import com.chess.common.ChessPiece;
+import com.chess.common.TimeControl;
+
+/**
+ * Server-side chess clock for one game.
+ *
+ * Only the side to move has a pending timeout on the shared {@link TimerWheel};
+ * it is moved every time a move is recorded. When it fires the clock re-checks
+ * the remaining time and reports a flag fall through the callback exactly once.
+ *
+ * Each side can be credited a per-move lag allowance (normally its connection's
+ * round-trip estimate): it is subtracted from the think time charged for a
+ * move, and the flag only falls once the allowance has been used up as well.
+ */
+public class GameClock {
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+    private static final int STOPPED = -1;
+
+    private final TimeControl timeControl;
+    private final TimerWheel timerWheel;
+    private final Consumer<ChessPiece.PieceColor> onFlag;
+    private final ToLongFunction<ChessPiece.PieceColor> lagCredit;
+    private final long[] remaining = new long[2];
+
+    private int running = STOPPED;
+    // Side whose clock is held by pause(), or STOPPED
+    private int paused = STOPPED;
+    private long turnStartedAt;
+    private TimerWheel.Timeout flagTimeout;
+
+    public GameClock(TimeControl timeControl, TimerWheel timerWheel, Consumer<ChessPiece.PieceColor> onFlag) {
+        this(timeControl, timerWheel, onFlag, color -> 0L);
+    }
+    
+    public GameClock(TimeControl timeControl, TimerWheel timerWheel, Consumer<ChessPiece.PieceColor> onFlag,
+                     ToLongFunction<ChessPiece.PieceColor> lagCredit) {
+        this.timeControl = timeControl;
+        this.timerWheel = timerWheel;
+        this.onFlag = onFlag;
+        this.lagCredit = lagCredit;
+        this.remaining[WHITE] = timeControl.getInitialMillis();
+        this.remaining[BLACK] = timeControl.getInitialMillis();
+    }
+
+    public synchronized void start() {
+        paused = STOPPED;
+        running = WHITE;
+        turnStartedAt = now();
+        scheduleFlag();
+    }
+
+    /**
+     * Sets previously recorded times, e.g. for a game recovered after a
+     * restart. The clock stays paused with {@code toMove} to move until
+     * {@link #unpause()}.
+     */
+    public synchronized void restore(long whiteMillis, long blackMillis, ChessPiece.PieceColor toMove) {
+        cancelFlag();
+        remaining[WHITE] = Math.max(0, whiteMillis);
+        remaining[BLACK] = Math.max(0, blackMillis);
+        running = STOPPED;
+        paused = indexOf(toMove);
+    }
+
+    /**
+     * Holds the running side's clock, e.g. while a player is disconnected.
+     * Moves are refused until {@link #unpause()}.
+     */
+    public synchronized void pause() {
+        if (running != STOPPED) {
+            remaining[running] = Math.max(0, remaining[running] - (now() - turnStartedAt));
+            paused = running;
+            running = STOPPED;
+        }
+        cancelFlag();
+    }
+
+    /**
+     * Restarts the side held by {@link #pause()} or {@link #restore}; does
+     * nothing if the clock isn't paused.
+     */
+    public synchronized void unpause() {
+        if (paused != STOPPED) {
+            running = paused;
+            paused = STOPPED;
+            turnStartedAt = now();
+            scheduleFlag();
+        }
+    }
+
+    /**
+     * Charges the mover for the time spent less its lag credit, adds the
+     * increment and starts the opponent's clock. Returns false if it was not this side's turn on the
+     * clock or its time had already run out, in which case the move must be
+     * rejected.
+     */
+    public boolean recordMove(ChessPiece.PieceColor color) {
+        int side = indexOf(color);
+        long credit = creditFor(side);
+        synchronized (this) {
+            if (running != side) {
+                return false;
+            }
+            long left = remaining[side] - Math.max(0, now() - turnStartedAt - credit);
+            if (left > 0) {
+                remaining[side] = left + timeControl.getIncrementMillis();
+                running = side ^ 1;
+                turnStartedAt = now();
+                scheduleFlag();
+                return true;
+            }
+            remaining[side] = 0;
+            running = STOPPED;
+            cancelFlag();
+        }
+        onFlag.accept(color);
+        return false;
+    }
+
+    /**
+     * Remaining time in milliseconds as {white, black}, with the running side's
+     * current think time already deducted.
+     */
+    public synchronized long[] snapshot() {
+        long[] snapshot = remaining.clone();
+        if (running != STOPPED) {
+            snapshot[running] = Math.max(0, snapshot[running] - (now() - turnStartedAt));
+        }
+        return snapshot;
+    }
+
+    public synchronized void stop() {
+        paused = STOPPED;
+        if (running != STOPPED) {
+            remaining[running] = Math.max(0, remaining[running] - (now() - turnStartedAt));
+            running = STOPPED;
+        }
+        cancelFlag();
+    }
+
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    private void checkFlag() {
+        int flagged;
+        synchronized (this) {
+            if (running == STOPPED) {
+                return;
+            }
+            long left = remaining[running] + creditFor(running) - (now() - turnStartedAt);
+            if (left > 0) {
+                // Fired early because of the wheel's resolution
+                scheduleFlag();
+                return;
+            }
+            flagged = running;
+            remaining[running] = 0;
+            running = STOPPED;
+            flagTimeout = null;
+        }
+        onFlag.accept(flagged == WHITE ? ChessPiece.PieceColor.WHITE : ChessPiece.PieceColor.BLACK);
+    }
+
+    private void scheduleFlag() {
+        cancelFlag();
+        long left = remaining[running] + creditFor(running) - (now() - turnStartedAt);
+        flagTimeout = timerWheel.schedule(left, this::checkFlag);
+    }
+    
+    private long creditFor(int side) {
+        long credit = lagCredit.applyAsLong(side == WHITE ? ChessPiece.PieceColor.WHITE : ChessPiece.PieceColor.BLACK);
+        return Math.max(0, credit);
+    }
+
+    private void cancelFlag() {
+        if (flagTimeout != null) {
+            flagTimeout.cancel();
+            flagTimeout = null;
+        }
+    }
+
+    private static int indexOf(ChessPiece.PieceColor color) {
+        return color == ChessPiece.PieceColor.WHITE ? WHITE : BLACK;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
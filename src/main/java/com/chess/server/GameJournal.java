@@ -0,0 +1,400 @@
+package com.chess.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of game starts, moves and results, split into shards by
+ * game id so one game's records are always in order in one file.
+ *
+ * Each record is [length][crc32][payload]. Callers only encode the record and
+ * queue it; a writer thread per shard takes everything queued, writes it with
+ * one gathering write and makes it durable with a single
+ * {@link FileChannel#force(boolean)} (group commit), so the move path never
+ * waits for the disk. The time from queueing to durable is kept in
+ * {@link #getCommitLatency()}.
+ *
+ * Opening a journal replays the existing files: games without a result are
+ * returned by {@link #getRecoveredGames()}, a torn record at the end of a file
+ * is dropped, and each shard is rewritten with only the unfinished games.
+ */
+public class GameJournal implements Closeable {
+    private static final AsyncLogger log = AsyncLogger.get();
+
+    private static final byte GAME_START = 1;
+    private static final byte MOVE = 2;
+    private static final byte GAME_END = 3;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final long CLOSE_POLL_MILLIS = 50;
+
+    private final Shard[] shards;
+    private final List<RecoveredGame> recoveredGames;
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private volatile boolean open = true;
+
+    /**
+     * An unfinished game rebuilt from the journal.
+     */
+    public static final class RecoveredGame {
+        private final String gameId;
+        private final String gameType;
+        private final String whitePlayer;
+        private final String blackPlayer;
+        private final String whiteToken;
+        private final String blackToken;
+        private final List<String> moves = new ArrayList<>();
+        private long[] clock;
+
+        private RecoveredGame(String gameId, String gameType, String whitePlayer, String blackPlayer,
+                              String whiteToken, String blackToken) {
+            this.gameId = gameId;
+            this.gameType = gameType;
+            this.whitePlayer = whitePlayer;
+            this.blackPlayer = blackPlayer;
+            this.whiteToken = whiteToken;
+            this.blackToken = blackToken;
+        }
+
+        public String getGameId() {
+            return gameId;
+        }
+
+        public String getGameType() {
+            return gameType;
+        }
+
+        public String getWhitePlayer() {
+            return whitePlayer;
+        }
+
+        public String getBlackPlayer() {
+            return blackPlayer;
+        }
+
+        public String getWhiteToken() {
+            return whiteToken;
+        }
+
+        public String getBlackToken() {
+            return blackToken;
+        }
+
+        /**
+         * Moves in long algebraic notation, in order.
+         */
+        public List<String> getMoves() {
+            return Collections.unmodifiableList(moves);
+        }
+
+        /**
+         * Remaining clock time {white, black} after the last move, or null for
+         * untimed games and games without moves.
+         */
+        public long[] getClock() {
+            return clock;
+        }
+    }
+
+    private static final class Pending {
+        private final ByteBuffer record;
+        private final long queuedAt;
+
+        private Pending(ByteBuffer record) {
+            this.record = record;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
+    private final class Shard {
+        private final FileChannel channel;
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        private final Thread writer;
+
+        private Shard(Path file, int index) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.APPEND);
+            this.writer = new Thread(this::run, "journal-writer-" + index);
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+
+        private void run() {
+            List<Pending> batch = new ArrayList<>();
+            while (open || !queue.isEmpty()) {
+                try {
+                    // Polled rather than interrupted on close: an interrupt during a
+                    // write or force closes the channel and loses the batch
+                    Pending next = queue.poll(CLOSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        continue;
+                    }
+                    batch.add(next);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                queue.drainTo(batch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = batch.get(i).record;
+                }
+                try {
+                    long remaining = 0;
+                    for (ByteBuffer buffer : buffers) {
+                        remaining += buffer.remaining();
+                    }
+                    while (remaining > 0) {
+                        remaining -= channel.write(buffers);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    log.error("Journal write failed", e);
+                }
+                long now = System.nanoTime();
+                for (Pending pending : batch) {
+                    commitLatency.record((now - pending.queuedAt) / 1000);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    public GameJournal(Path directory, int shardCount) throws IOException {
+        Files.createDirectories(directory);
+        this.shards = new Shard[shardCount];
+        List<RecoveredGame> recovered = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            Path file = directory.resolve("journal-" + i + ".log");
+            recovered.addAll(replayAndCompact(file));
+            shards[i] = new Shard(file, i);
+        }
+        this.recoveredGames = Collections.unmodifiableList(recovered);
+    }
+
+    public List<RecoveredGame> getRecoveredGames() {
+        return recoveredGames;
+    }
+
+    public void gameStarted(String gameId, String gameType, String whitePlayer, String blackPlayer,
+                            String whiteToken, String blackToken) {
+        append(gameId, out -> {
+            out.writeByte(GAME_START);
+            out.writeUTF(gameId);
+            writeNullable(out, gameType);
+            writeNullable(out, whitePlayer);
+            writeNullable(out, blackPlayer);
+            writeNullable(out, whiteToken);
+            writeNullable(out, blackToken);
+        });
+    }
+
+    public void moveMade(String gameId, int ply, String uci, long[] clock) {
+        append(gameId, out -> {
+            out.writeByte(MOVE);
+            out.writeUTF(gameId);
+            out.writeInt(ply);
+            out.writeUTF(uci);
+            out.writeBoolean(clock != null);
+            if (clock != null) {
+                out.writeLong(clock[0]);
+                out.writeLong(clock[1]);
+            }
+        });
+    }
+
+    public void gameEnded(String gameId, String result) {
+        append(gameId, out -> {
+            out.writeByte(GAME_END);
+            out.writeUTF(gameId);
+            writeNullable(out, result);
+        });
+    }
+
+    /**
+     * Records queued and not yet committed, across all shards.
+     */
+    public int getPendingRecords() {
+        int pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Queue-to-durable latency of records, in microseconds.
+     */
+    public LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    /**
+     * Stops accepting records, lets the writers commit what is queued and
+     * closes the files.
+     */
+    @Override
+    public void close() {
+        open = false;
+        for (Shard shard : shards) {
+            try {
+                shard.writer.join(5000);
+                shard.channel.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.warn("Error closing journal", "error", e.getMessage());
+            }
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(String gameId, RecordWriter recordWriter) {
+        if (!open || gameId == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            recordWriter.write(new DataOutputStream(bytes));
+            shards[Math.floorMod(gameId.hashCode(), shards.length)].queue.add(new Pending(frame(bytes.toByteArray())));
+        } catch (IOException e) {
+            log.error("Error encoding journal record", e, "session", gameId);
+        }
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Reads a shard file, returns its unfinished games and rewrites it with
+     * only their records.
+     */
+    private static List<RecoveredGame> replayAndCompact(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        Map<String, RecoveredGame> games = new LinkedHashMap<>();
+        Map<String, List<byte[]>> records = new LinkedHashMap<>();
+
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                log.warn("Dropping torn journal record at the end", "file", file);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Journal checksum mismatch, ignoring the rest of the file", "file", file);
+                break;
+            }
+            applyRecord(payload, games, records);
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (List<byte[]> gameRecords : records.values()) {
+                for (byte[] payload : gameRecords) {
+                    ByteBuffer record = frame(payload);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArrayList<>(games.values());
+    }
+
+    private static void applyRecord(byte[] payload, Map<String, RecoveredGame> games,
+                                    Map<String, List<byte[]>> records) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String gameId = in.readUTF();
+        switch (type) {
+            case GAME_START: {
+                RecoveredGame game = new RecoveredGame(gameId, readNullable(in), readNullable(in),
+                        readNullable(in), readNullable(in), readNullable(in));
+                // A restarted game replaces anything recorded earlier under the same id
+                games.put(gameId, game);
+                List<byte[]> gameRecords = new ArrayList<>();
+                gameRecords.add(payload);
+                records.put(gameId, gameRecords);
+                break;
+            }
+            case MOVE: {
+                RecoveredGame game = games.get(gameId);
+                if (game == null) {
+                    break;
+                }
+                int ply = in.readInt();
+                String uci = in.readUTF();
+                if (ply != game.moves.size() + 1) {
+                    // Out of sequence; keep what is consistent
+                    break;
+                }
+                game.moves.add(uci);
+                game.clock = in.readBoolean() ? new long[] {in.readLong(), in.readLong()} : null;
+                records.get(gameId).add(payload);
+                break;
+            }
+            case GAME_END:
+                games.remove(gameId);
+                records.remove(gameId);
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
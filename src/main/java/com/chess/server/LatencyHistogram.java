@@ -0,0 +1,115 @@
+package com.chess.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values such as latencies in
+ * microseconds or milliseconds.
+ *
+ * Buckets are log-linear: each power of two is split into 16 linear
+ * sub-buckets, so any recorded value is reported within about 6% while the
+ * whole range of a long fits in about a thousand counters. Recording is a
+ * couple of bit operations and one atomic increment.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.increment();
+        totalSum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) getSum() / count;
+    }
+
+    /**
+     * Upper bound of the bucket containing the given percentile (0-100), or 0
+     * if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        rank = Math.max(1, rank);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Count of recorded values that are less than or equal to the given value,
+     * at bucket resolution.
+     */
+    public long countAtOrBelow(long value) {
+        int last = bucketOf(Math.max(0, value));
+        long seen = 0;
+        for (int i = 0; i <= last; i++) {
+            seen += counts.get(i);
+        }
+        return seen;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        max.reset();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Shift the value so its top bits land in [16, 32); the low four of
+        // those select the linear sub-bucket
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,241 @@
+package com.chess.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rating-based matchmaking queue.
+ *
+ * Waiting players are kept in one pool per game type. A pool is a tree of
+ * rating buckets (BUCKET_WIDTH points wide), each holding its tickets in
+ * arrival order, so looking for an opponent walks outwards from the player's
+ * own bucket instead of scanning every waiting player. Two players are paired
+ * when their rating difference fits inside both of their search windows; a
+ * window starts narrow and widens the longer a player waits, and
+ * {@link #sweep()} re-runs pairing for everyone so widened windows take
+ * effect. Matched pairs are reported through the listener outside any lock,
+ * the player who has waited longer first.
+ *
+ * @param <P> player handle
+ */
+public class MatchmakingQueue<P> {
+    private static final int BUCKET_WIDTH = 25;
+    private static final int INITIAL_WINDOW = 50;
+    private static final int WINDOW_GROWTH_PER_SECOND = 25;
+    private static final int MAX_WINDOW = 400;
+
+    private final Map<String, Pool<P>> pools = new ConcurrentHashMap<>();
+    private final Map<P, Ticket<P>> tickets = new ConcurrentHashMap<>();
+    private final MatchListener<P> listener;
+
+    public interface MatchListener<P> {
+        void onMatch(P first, P second, String gameType);
+    }
+
+    private static final class Ticket<P> {
+        private final P player;
+        private final int rating;
+        private final long enqueuedAt;
+        private final Pool<P> pool;
+        private boolean queued = true;
+
+        private Ticket(P player, int rating, long enqueuedAt, Pool<P> pool) {
+            this.player = player;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+            this.pool = pool;
+        }
+
+        private int window(long now) {
+            long waited = Math.max(0, now - enqueuedAt) / 1000;
+            return (int) Math.min(MAX_WINDOW, INITIAL_WINDOW + waited * WINDOW_GROWTH_PER_SECOND);
+        }
+    }
+
+    private static final class Pool<P> {
+        private final String gameType;
+        private final NavigableMap<Integer, LinkedHashSet<Ticket<P>>> buckets = new TreeMap<>();
+        private int size;
+
+        private Pool(String gameType) {
+            this.gameType = gameType;
+        }
+
+        private void add(Ticket<P> ticket) {
+            buckets.computeIfAbsent(bucketOf(ticket.rating), k -> new LinkedHashSet<>()).add(ticket);
+            size++;
+        }
+
+        private void remove(Ticket<P> ticket) {
+            Integer key = bucketOf(ticket.rating);
+            LinkedHashSet<Ticket<P>> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(ticket)) {
+                size--;
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+            ticket.queued = false;
+        }
+
+        /**
+         * Closest acceptable opponent, preferring the nearest bucket and, within
+         * a bucket, whoever has waited longest.
+         */
+        private Ticket<P> findOpponent(Ticket<P> ticket, long now) {
+            int window = ticket.window(now);
+            int home = bucketOf(ticket.rating);
+            int lowest = bucketOf(ticket.rating - window);
+            int highest = bucketOf(ticket.rating + window);
+
+            Integer below = buckets.floorKey(home);
+            Integer above = buckets.higherKey(home);
+            while (below != null || above != null) {
+                boolean takeBelow = above == null
+                    || (below != null && home - below <= above - home);
+                Integer key = takeBelow ? below : above;
+                if (key < lowest || key > highest) {
+                    // Everything further out in this direction is out of range too
+                    if (takeBelow) {
+                        below = null;
+                    } else {
+                        above = null;
+                    }
+                    continue;
+                }
+                for (Ticket<P> candidate : buckets.get(key)) {
+                    if (candidate == ticket) {
+                        continue;
+                    }
+                    int difference = Math.abs(candidate.rating - ticket.rating);
+                    if (difference <= window && difference <= candidate.window(now)) {
+                        return candidate;
+                    }
+                }
+                if (takeBelow) {
+                    below = buckets.lowerKey(key);
+                } else {
+                    above = buckets.higherKey(key);
+                }
+            }
+            return null;
+        }
+    }
+
+    public MatchmakingQueue(MatchListener<P> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queues a player, replacing any earlier ticket. If an opponent is already
+     * waiting within range the pair is matched straight away.
+     */
+    public void enqueue(P player, int rating, String gameType) {
+        cancel(player);
+        Pool<P> pool = pools.computeIfAbsent(gameType, Pool::new);
+        long now = System.currentTimeMillis();
+        Ticket<P> ticket = new Ticket<>(player, rating, now, pool);
+        Ticket<P> opponent;
+        synchronized (pool) {
+            opponent = pool.findOpponent(ticket, now);
+            if (opponent != null) {
+                pool.remove(opponent);
+                ticket.queued = false;
+            } else {
+                pool.add(ticket);
+                tickets.put(player, ticket);
+            }
+        }
+        if (opponent != null) {
+            tickets.remove(opponent.player, opponent);
+            listener.onMatch(opponent.player, player, gameType);
+        }
+    }
+
+    /**
+     * Removes a player from the queue. Returns false if they were not waiting.
+     */
+    public boolean cancel(P player) {
+        Ticket<P> ticket = tickets.remove(player);
+        if (ticket == null) {
+            return false;
+        }
+        synchronized (ticket.pool) {
+            boolean wasQueued = ticket.queued;
+            ticket.pool.remove(ticket);
+            return wasQueued;
+        }
+    }
+
+    public boolean isQueued(P player) {
+        return tickets.containsKey(player);
+    }
+
+    public int size() {
+        return tickets.size();
+    }
+
+    /**
+     * Pairs up players whose windows have widened enough since they queued.
+     * Meant to be called periodically.
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        List<Ticket<P>> matched = new ArrayList<>();
+        for (Pool<P> pool : pools.values()) {
+            synchronized (pool) {
+                if (pool.size < 2) {
+                    continue;
+                }
+                // Longest waiting first: they have the widest windows
+                List<Ticket<P>> waiting = new ArrayList<>(pool.size);
+                for (LinkedHashSet<Ticket<P>> bucket : pool.buckets.values()) {
+                    waiting.addAll(bucket);
+                }
+                waiting.sort((a, b) -> Long.compare(a.enqueuedAt, b.enqueuedAt));
+                for (Ticket<P> ticket : waiting) {
+                    if (!ticket.queued) {
+                        continue;
+                    }
+                    Ticket<P> opponent = pool.findOpponent(ticket, now);
+                    if (opponent != null) {
+                        pool.remove(ticket);
+                        pool.remove(opponent);
+                        matched.add(ticket);
+                        matched.add(opponent);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < matched.size(); i += 2) {
+            Ticket<P> first = matched.get(i);
+            Ticket<P> second = matched.get(i + 1);
+            tickets.remove(first.player, first);
+            tickets.remove(second.player, second);
+            listener.onMatch(first.player, second.player, first.pool.gameType);
+        }
+    }
+
+    /**
+     * Number of waiting players per game type.
+     */
+    public Map<String, Integer> queuedByGameType() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Pool<P>> entry : pools.entrySet()) {
+            synchronized (entry.getValue()) {
+                counts.put(entry.getKey(), entry.getValue().size);
+            }
+        }
+        return counts;
+    }
+
+    private static int bucketOf(int rating) {
+        return Math.floorDiv(rating, BUCKET_WIDTH);
+    }
+}
@@ -0,0 +1,163 @@
+package com.chess.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms for the server.
+ *
+ * Registering takes a lookup and is meant to happen once, up front; the hot
+ * path then holds on to the returned {@link Counter} or
+ * {@link LatencyHistogram}, so recording never touches the registry and never
+ * locks. Gauges are read only when the metrics are, so they cost nothing in
+ * between. Each metric may carry one label, e.g. type="MOVE"; metrics are kept
+ * sorted by name so a family's labelled series come out together.
+ */
+public class MetricsRegistry {
+    public enum Kind {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    /**
+     * Monotonic counter; increments are striped so contended threads don't
+     * fight over one cache line.
+     */
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * One registered series: a name, an optional label and what it reads from.
+     */
+    public static final class Metric {
+        private final String name;
+        private final String help;
+        private final String labelName;
+        private final String labelValue;
+        private final Kind kind;
+        private final Object source;
+
+        private Metric(String name, String help, String labelName, String labelValue, Kind kind, Object source) {
+            this.name = name;
+            this.help = help;
+            this.labelName = labelName;
+            this.labelValue = labelValue;
+            this.kind = kind;
+            this.source = source;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        /**
+         * Label name, or null for an unlabelled series.
+         */
+        public String getLabelName() {
+            return labelName;
+        }
+
+        public String getLabelValue() {
+            return labelValue;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Current value of a counter or gauge.
+         */
+        public long getValue() {
+            switch (kind) {
+                case COUNTER:
+                    return ((Counter) source).get();
+                case GAUGE:
+                    return ((LongSupplier) source).getAsLong();
+                default:
+                    return ((LatencyHistogram) source).getCount();
+            }
+        }
+
+        /**
+         * The histogram of a HISTOGRAM metric, or null.
+         */
+        public LatencyHistogram getHistogram() {
+            return kind == Kind.HISTOGRAM ? (LatencyHistogram) source : null;
+        }
+    }
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    public Counter counter(String name, String help, String labelName, String labelValue) {
+        return register(name, help, labelName, labelValue, Kind.COUNTER, new Counter());
+    }
+
+    /**
+     * Registers a gauge read from the supplier whenever metrics are collected.
+     * The supplier must be thread-safe and cheap.
+     */
+    public void gauge(String name, String help, LongSupplier supplier) {
+        register(name, help, null, null, Kind.GAUGE, supplier);
+    }
+
+    public LatencyHistogram histogram(String name, String help) {
+        return histogram(name, help, null, null);
+    }
+
+    public LatencyHistogram histogram(String name, String help, String labelName, String labelValue) {
+        return register(name, help, labelName, labelValue, Kind.HISTOGRAM, new LatencyHistogram());
+    }
+
+    /**
+     * Exposes a histogram that is already being recorded elsewhere.
+     */
+    public LatencyHistogram histogram(String name, String help, LatencyHistogram histogram) {
+        return register(name, help, null, null, Kind.HISTOGRAM, histogram);
+    }
+
+    /**
+     * Every registered series, sorted by name and then label value.
+     */
+    public List<Metric> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * Registers a series, or returns the existing one under the same name and
+     * label so registration is idempotent.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T register(String name, String help, String labelName, String labelValue, Kind kind, T source) {
+        String key = labelName == null ? name : name + '{' + labelName + '=' + labelValue + '}';
+        Metric metric = metrics.computeIfAbsent(key, k -> new Metric(name, help, labelName, labelValue, kind, source));
+        if (metric.kind != kind) {
+            throw new IllegalArgumentException(key + " is already registered as a " + metric.kind);
+        }
+        return (T) metric.source;
+    }
+}
@@ -0,0 +1,425 @@
+package com.chess.server;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chess.engine.Move;
+import com.chess.engine.Position;
+
+/**
+ * Move statistics for every position reached in the opening of archived
+ * games, keyed by the engine's Zobrist hash.
+ *
+ * The bulk lives in a memory-mapped table of fixed 24-byte entries sorted by
+ * (key, move): 8-byte key, 2-byte archive move, 2 spare bytes, then white
+ * wins, draws and black wins as ints. A 16-byte header records how many
+ * archived games the table covers. New games go into an in-memory delta; once
+ * the delta is big enough it is frozen and merged with the table into a new
+ * file in one sequential pass, which then replaces the old one. A query is a
+ * binary search over the mapping plus hash lookups in the delta (and the
+ * frozen delta while a merge runs).
+ *
+ * Games must be added in archive order so the covered count stays exact;
+ * {@link #catchUp(GameArchive)} adds whatever the table is missing.
+ */
+public class OpeningExplorer {
+    public static final int DEFAULT_MAX_PLY = 40;
+    private static final int ENTRY_SIZE = 24;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAGIC = 0x43455831; // "CEX1"
+    private static final int MERGE_THRESHOLD = 200_000;
+
+    private final Path file;
+    private final int maxPly;
+    private final Object mergeLock = new Object();
+    // Table plus the delta being merged into it, swapped as one
+    private volatile Snapshot snapshot;
+    // Guarded by this
+    private Map<Long, Map<Short, int[]>> delta = new HashMap<>();
+    private int deltaEntries;
+    private long gamesAdded;
+
+    /**
+     * Aggregated results of one move from a position.
+     */
+    public static final class MoveStats {
+        private final int move;
+        private final int whiteWins;
+        private final int draws;
+        private final int blackWins;
+
+        private MoveStats(int move, int whiteWins, int draws, int blackWins) {
+            this.move = move;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+
+        /**
+         * Engine move without flags; see {@link ArchivedGame#getMove(int)}.
+         */
+        public int getMove() {
+            return move;
+        }
+
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getBlackWins() {
+            return blackWins;
+        }
+
+        public int getTotal() {
+            return whiteWins + draws + blackWins;
+        }
+    }
+
+    private static final class Snapshot {
+        private final Table table;
+        private final Map<Long, Map<Short, int[]>> frozen;
+
+        private Snapshot(Table table, Map<Long, Map<Short, int[]>> frozen) {
+            this.table = table;
+            this.frozen = frozen;
+        }
+    }
+
+    private static final class Table {
+        private final ByteBuffer entries;
+        private final int entryCount;
+        private final long gamesCovered;
+
+        private Table(ByteBuffer entries, long gamesCovered) {
+            this.entries = entries;
+            this.entryCount = entries.capacity() / ENTRY_SIZE;
+            this.gamesCovered = gamesCovered;
+        }
+
+        private long keyAt(int index) {
+            return entries.getLong(index * ENTRY_SIZE);
+        }
+
+        private short moveAt(int index) {
+            return entries.getShort(index * ENTRY_SIZE + 8);
+        }
+
+        private int countAt(int index, int result) {
+            return entries.getInt(index * ENTRY_SIZE + 12 + result * 4);
+        }
+
+        private int lowerBound(long key) {
+            int low = 0;
+            int high = entryCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    public OpeningExplorer(Path file) throws IOException {
+        this(file, DEFAULT_MAX_PLY);
+    }
+
+    public OpeningExplorer(Path file, int maxPly) throws IOException {
+        this.file = file;
+        this.maxPly = maxPly;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Table table = Files.exists(file) ? map(file) : new Table(ByteBuffer.allocate(0), 0);
+        this.snapshot = new Snapshot(table, null);
+        this.gamesAdded = table.gamesCovered;
+    }
+
+    /**
+     * Adds the games the table doesn't cover yet, in archive order.
+     */
+    public void catchUp(GameArchive archive) throws IOException {
+        long[] index = {0};
+        long covered;
+        synchronized (this) {
+            covered = gamesAdded;
+        }
+        try {
+            archive.forEach(game -> {
+                if (index[0]++ >= covered) {
+                    try {
+                        addGame(game);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts the opening of a finished game. Games with no result are still
+     * counted as covered but add no statistics.
+     */
+    public void addGame(ArchivedGame game) throws IOException {
+        long[] keys = new long[Math.min(maxPly, game.getMoveCount())];
+        short[] moves = new short[keys.length];
+        int plies = 0;
+        int result = resultIndex(game.getResult());
+        if (result >= 0) {
+            Position position = new Position();
+            for (; plies < keys.length; plies++) {
+                int move = Move.fromUci(Move.toUci(game.getMove(plies)), position);
+                if (move == Move.NONE) {
+                    break;
+                }
+                keys[plies] = position.key();
+                moves[plies] = ArchivedGame.pack(move);
+                position.makeMove(move);
+            }
+        }
+
+        boolean merge;
+        synchronized (this) {
+            for (int i = 0; i < plies; i++) {
+                Map<Short, int[]> positionMoves = delta.computeIfAbsent(keys[i], k -> new HashMap<>(4));
+                int[] counts = positionMoves.get(moves[i]);
+                if (counts == null) {
+                    counts = new int[3];
+                    positionMoves.put(moves[i], counts);
+                    deltaEntries++;
+                }
+                counts[result]++;
+            }
+            gamesAdded++;
+            merge = deltaEntries >= MERGE_THRESHOLD;
+        }
+        if (merge) {
+            merge();
+        }
+    }
+
+    /**
+     * Statistics for every move played from the position, most played first.
+     */
+    public List<MoveStats> query(Position position) {
+        long key = position.key();
+        Map<Short, int[]> totals = new HashMap<>();
+
+        // Read together with the delta so a freeze in between can't hide counts
+        Snapshot current;
+        synchronized (this) {
+            current = snapshot;
+            addCounts(totals, delta.get(key));
+        }
+        Table table = current.table;
+        for (int i = table.lowerBound(key); i < table.entryCount && table.keyAt(i) == key; i++) {
+            int[] counts = totals.computeIfAbsent(table.moveAt(i), m -> new int[3]);
+            for (int r = 0; r < 3; r++) {
+                counts[r] += table.countAt(i, r);
+            }
+        }
+        if (current.frozen != null) {
+            addCounts(totals, current.frozen.get(key));
+        }
+
+        List<MoveStats> stats = new ArrayList<>(totals.size());
+        for (Map.Entry<Short, int[]> entry : totals.entrySet()) {
+            int[] counts = entry.getValue();
+            stats.add(new MoveStats(entry.getKey() & 0x7FFF, counts[0], counts[1], counts[2]));
+        }
+        stats.sort((a, b) -> a.getTotal() != b.getTotal()
+                ? Integer.compare(b.getTotal(), a.getTotal()) : Integer.compare(a.getMove(), b.getMove()));
+        return stats;
+    }
+
+    /**
+     * Number of archived games the explorer has seen.
+     */
+    public synchronized long getGameCount() {
+        return gamesAdded;
+    }
+
+    /**
+     * Writes the delta into the table file. Called automatically once the
+     * delta is large; call it on shutdown so the next start has less to catch
+     * up on.
+     */
+    public void merge() throws IOException {
+        synchronized (mergeLock) {
+            Map<Long, Map<Short, int[]>> frozen;
+            long covered;
+            Table base;
+            synchronized (this) {
+                if (deltaEntries == 0) {
+                    return;
+                }
+                frozen = delta;
+                covered = gamesAdded;
+                base = snapshot.table;
+                snapshot = new Snapshot(base, frozen);
+                delta = new HashMap<>();
+                deltaEntries = 0;
+            }
+            Table merged;
+            try {
+                merged = mergeInto(base, frozen, covered);
+            } catch (IOException e) {
+                // Put the counts back so they are merged next time
+                synchronized (this) {
+                    for (Map.Entry<Long, Map<Short, int[]>> position : frozen.entrySet()) {
+                        Map<Short, int[]> moves = delta.computeIfAbsent(position.getKey(), k -> new HashMap<>(4));
+                        int before = moves.size();
+                        addCounts(moves, position.getValue());
+                        deltaEntries += moves.size() - before;
+                    }
+                    snapshot = new Snapshot(base, null);
+                }
+                throw e;
+            }
+            snapshot = new Snapshot(merged, null);
+        }
+    }
+
+    private Table mergeInto(Table base, Map<Long, Map<Short, int[]>> frozen, long covered) throws IOException {
+        // Flatten the delta, sorted like the table
+        int count = 0;
+        for (Map<Short, int[]> moves : frozen.values()) {
+            count += moves.size();
+        }
+        long[] keys = new long[count];
+        short[] moves = new short[count];
+        int[][] counts = new int[count][];
+        Integer[] order = new Integer[count];
+        int n = 0;
+        for (Map.Entry<Long, Map<Short, int[]>> position : frozen.entrySet()) {
+            for (Map.Entry<Short, int[]> move : position.getValue().entrySet()) {
+                keys[n] = position.getKey();
+                moves[n] = move.getKey();
+                counts[n] = move.getValue();
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byKey = Long.compareUnsigned(keys[a], keys[b]);
+            return byKey != 0 ? byKey : Short.compare(moves[a], moves[b]);
+        });
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(ENTRY_SIZE);
+            out.writeLong(covered);
+            int i = 0;
+            int j = 0;
+            while (i < base.entryCount || j < count) {
+                int compare;
+                if (i == base.entryCount) {
+                    compare = 1;
+                } else if (j == count) {
+                    compare = -1;
+                } else {
+                    int d = order[j];
+                    compare = Long.compareUnsigned(base.keyAt(i), keys[d]);
+                    if (compare == 0) {
+                        compare = Short.compare(base.moveAt(i), moves[d]);
+                    }
+                }
+                if (compare < 0) {
+                    writeEntry(out, base.keyAt(i), base.moveAt(i), base.countAt(i, 0), base.countAt(i, 1), base.countAt(i, 2));
+                    i++;
+                } else if (compare > 0) {
+                    int d = order[j];
+                    writeEntry(out, keys[d], moves[d], counts[d][0], counts[d][1], counts[d][2]);
+                    j++;
+                } else {
+                    int d = order[j];
+                    writeEntry(out, keys[d], moves[d], base.countAt(i, 0) + counts[d][0],
+                            base.countAt(i, 1) + counts[d][1], base.countAt(i, 2) + counts[d][2]);
+                    i++;
+                    j++;
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return map(file);
+    }
+
+    private static void writeEntry(DataOutputStream out, long key, short move, int whiteWins, int draws,
+                                   int blackWins) throws IOException {
+        out.writeLong(key);
+        out.writeShort(move);
+        out.writeShort(0);
+        out.writeInt(whiteWins);
+        out.writeInt(draws);
+        out.writeInt(blackWins);
+    }
+
+    private static Table map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || (size - HEADER_BYTES) % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an explorer table: " + file);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != ENTRY_SIZE) {
+                throw new IOException("Not an explorer table: " + file);
+            }
+            long covered = mapped.getLong(8);
+            // The mapping stays valid after the channel is closed
+            return new Table(mapped.position(HEADER_BYTES).slice(), covered);
+        }
+    }
+
+    private static void addCounts(Map<Short, int[]> totals, Map<Short, int[]> moves) {
+        if (moves == null) {
+            return;
+        }
+        for (Map.Entry<Short, int[]> entry : moves.entrySet()) {
+            int[] counts = totals.computeIfAbsent(entry.getKey(), m -> new int[3]);
+            for (int r = 0; r < 3; r++) {
+                counts[r] += entry.getValue()[r];
+            }
+        }
+    }
+
+    private static int resultIndex(ArchivedGame.Result result) {
+        switch (result) {
+            case WHITE_WINS:
+                return 0;
+            case DRAW:
+                return 1;
+            case BLACK_WINS:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.chess.server;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk import of PGN files into a {@link GameArchive}.
+ *
+ * One thread splits the input into games and hands their text to parser
+ * threads through a bounded queue, so memory stays constant however large the
+ * file is. Parsed games are appended in batches, each made durable with a
+ * single force. Games end up in the archive in roughly, not exactly, file order.
+ *
+ * Usage: java -cp chess.jar com.chess.server.PgnImporter archive-dir games.pgn [threads]
+ */
+public class PgnImporter {
+    private static final int BATCH_SIZE = 512;
+    private static final String END_OF_INPUT = new String("end of input");
+
+    private final GameArchive archive;
+    private final int threads;
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong read = new AtomicLong();
+
+    public PgnImporter(GameArchive archive, int threads) {
+        this.archive = archive;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Imports every game in the input and returns the number added. Games that
+     * can't be parsed are counted in {@link #getSkipped()}; games already in
+     * the archive are left out silently.
+     */
+    public long importFrom(Reader input) throws IOException, InterruptedException {
+        BlockingQueue<String> texts = new ArrayBlockingQueue<>(threads * 256);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long before = imported.get();
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> parseLoop(texts, failure), "pgn-import-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        try (PgnReader reader = new PgnReader(input)) {
+            String text;
+            while ((text = reader.nextGame()) != null && failure.get() == null) {
+                texts.put(text);
+                read.incrementAndGet();
+            }
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                texts.put(END_OF_INPUT);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        Exception error = failure.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error != null) {
+            throw new IOException("Import failed", error);
+        }
+        return imported.get() - before;
+    }
+
+    private void parseLoop(BlockingQueue<String> texts, AtomicReference<Exception> failure) {
+        List<ArchivedGame> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            String text;
+            try {
+                text = texts.take();
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+                return;
+            }
+            if (text == END_OF_INPUT) {
+                break;
+            }
+            // After a failure keep taking games so the reader never blocks on a full queue
+            if (failure.get() != null) {
+                continue;
+            }
+            ArchivedGame game;
+            try {
+                game = PgnReader.parse(text);
+            } catch (RuntimeException e) {
+                game = null;
+            }
+            if (game == null) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            batch.add(game);
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch, failure);
+            }
+        }
+        if (failure.get() == null) {
+            flush(batch, failure);
+        }
+    }
+
+    private void flush(List<ArchivedGame> batch, AtomicReference<Exception> failure) {
+        try {
+            imported.addAndGet(archive.appendAll(batch));
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+        batch.clear();
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getRead() {
+        return read.get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: PgnImporter archive-dir games.pgn [threads]");
+            System.exit(1);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]));
+             Reader input = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            PgnImporter importer = new PgnImporter(archive, threads);
+            long added = importer.importFrom(input);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Read %d games, imported %d, skipped %d in %.1f s (%.0f games/min, %d threads)%n",
+                    importer.getRead(), added, importer.getSkipped(), seconds,
+                    importer.getRead() / seconds * 60, threads);
+        }
+    }
+}
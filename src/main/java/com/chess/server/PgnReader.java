@@ -0,0 +1,199 @@
+package com.chess.server;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.chess.common.TimeControl;
+import com.chess.engine.Move;
+import com.chess.engine.Position;
+import com.chess.engine.San;
+
+/**
+ * Reads PGN one game at a time.
+ *
+ * {@link #nextGame()} only splits the input into the text of each game, which
+ * is cheap enough for one thread to keep several parsers busy;
+ * {@link #parse(String)} turns that text into an {@link ArchivedGame} and is
+ * safe to call from any thread. Comments, variations and NAGs are skipped.
+ */
+public class PgnReader implements Closeable {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private final BufferedReader reader;
+    private String pendingLine;
+
+    public PgnReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+    }
+
+    /**
+     * Text of the next game, tags and movetext, or null at the end of the input.
+     */
+    public String nextGame() throws IOException {
+        StringBuilder game = new StringBuilder(1024);
+        boolean inMoves = false;
+        String line;
+        while ((line = pendingLine != null ? pendingLine : reader.readLine()) != null) {
+            pendingLine = null;
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[")) {
+                if (inMoves) {
+                    // A tag after movetext starts the next game
+                    pendingLine = line;
+                    break;
+                }
+            } else if (!trimmed.isEmpty() && !trimmed.startsWith("%")) {
+                inMoves = true;
+            }
+            game.append(line).append('\n');
+        }
+        return inMoves || game.length() > 0 ? game.toString() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Parses the text of one game. Without a GameId tag the id is derived from
+     * the text, so importing the same file twice adds nothing. Returns null if
+     * a move can't be read or isn't legal.
+     */
+    public static ArchivedGame parse(String text) {
+        Map<String, String> tags = new HashMap<>();
+        int i = 0;
+        int length = text.length();
+        Position position = new Position();
+        List<Integer> moves = new ArrayList<>();
+        String resultToken = null;
+
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '[') {
+                int end = text.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                parseTag(text.substring(i, end), tags);
+                i = end;
+            } else if (c == '{') {
+                int end = text.indexOf('}', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == ';' || (c == '%' && (i == 0 || text.charAt(i - 1) == '\n'))) {
+                int end = text.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '(') {
+                i = skipVariation(text, i);
+            } else {
+                int start = i;
+                while (i < length && !Character.isWhitespace(text.charAt(i))
+                        && "{}();[".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                String token = text.substring(start, i);
+                if (token.startsWith("$")) {
+                    continue;
+                }
+                if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+                    resultToken = token;
+                    continue;
+                }
+                // Move numbers may be glued to the move: "12.Nf3", "12...Nf6"
+                int dots = token.lastIndexOf('.');
+                if (dots >= 0) {
+                    token = token.substring(dots + 1);
+                }
+                if (token.isEmpty() || (Character.isDigit(token.charAt(0)) && !token.startsWith("0-0"))) {
+                    continue;
+                }
+                int move = San.fromSan(token, position);
+                if (move == Move.NONE) {
+                    return null;
+                }
+                moves.add(move);
+                position.makeMove(move);
+            }
+        }
+
+        short[] packed = new short[moves.size()];
+        for (int m = 0; m < packed.length; m++) {
+            packed[m] = ArchivedGame.pack(moves.get(m));
+        }
+        String result = tags.getOrDefault("Result", resultToken != null ? resultToken : "*");
+        String gameId = tags.get("GameId");
+        if (gameId == null) {
+            gameId = UUID.nameUUIDFromBytes(text.getBytes(StandardCharsets.UTF_8)).toString();
+        }
+        return new ArchivedGame(gameId, tags.get("White"), tags.get("Black"), gameType(tags.get("TimeControl")),
+                ArchivedGame.Result.fromNotation(result), tags.get("Termination"), date(tags.get("Date")), packed);
+    }
+
+    private static void parseTag(String line, Map<String, String> tags) {
+        int space = line.indexOf(' ');
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        if (space < 0 || open < 0 || close <= open) {
+            return;
+        }
+        String value = line.substring(open + 1, close).replace("\\\"", "\"").replace("\\\\", "\\");
+        tags.put(line.substring(1, space), value);
+    }
+
+    private static int skipVariation(String text, int i) {
+        int depth = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                int end = text.indexOf('}', i);
+                i = end < 0 ? text.length() : end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Our own game type for a TimeControl tag such as "180+2", or the tag as is.
+     */
+    private static String gameType(String timeControl) {
+        if (timeControl == null || timeControl.equals("-") || timeControl.equals("?")) {
+            return TimeControl.STANDARD;
+        }
+        for (TimeControl candidate : TimeControl.values()) {
+            String tag = candidate.getInitialMillis() / 1000 + "+" + candidate.getIncrementMillis() / 1000;
+            if (tag.equals(timeControl) || (candidate.getIncrementMillis() == 0
+                    && timeControl.equals(String.valueOf(candidate.getInitialMillis() / 1000)))) {
+                return candidate.getName();
+            }
+        }
+        return timeControl;
+    }
+
+    private static long date(String date) {
+        if (date == null || date.contains("?")) {
+            return 0;
+        }
+        try {
+            return LocalDate.parse(date, DATE).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
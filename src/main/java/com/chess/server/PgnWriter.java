@@ -0,0 +1,128 @@
+package com.chess.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import com.chess.common.TimeControl;
+import com.chess.engine.Move;
+import com.chess.engine.Position;
+import com.chess.engine.San;
+
+/**
+ * Writes games as PGN, one game at a time, so exporting the whole archive
+ * needs no more memory than the largest game.
+ *
+ * Usage: java -cp chess.jar com.chess.server.PgnWriter archive-dir games.pgn
+ */
+public class PgnWriter {
+    private static final int LINE_WIDTH = 79;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+
+    private PgnWriter() {
+    }
+
+    /**
+     * Writes one game: the seven tag roster plus GameId, TimeControl and
+     * Termination, then the moves in SAN. Writing stops at a move that is not
+     * legal in the replayed position.
+     */
+    public static void write(ArchivedGame game, Appendable out) throws IOException {
+        tag(out, "Event", TimeControl.describe(game.getGameType()) + " game");
+        tag(out, "Site", "?");
+        tag(out, "Date", game.getEndedAt() > 0 ? DATE.format(Instant.ofEpochMilli(game.getEndedAt())) : "????.??.??");
+        tag(out, "Round", "-");
+        tag(out, "White", game.getWhitePlayer() != null ? game.getWhitePlayer() : "?");
+        tag(out, "Black", game.getBlackPlayer() != null ? game.getBlackPlayer() : "?");
+        tag(out, "Result", game.getResult().getNotation());
+        if (game.getGameId() != null) {
+            tag(out, "GameId", game.getGameId());
+        }
+        TimeControl timeControl = TimeControl.fromGameType(game.getGameType());
+        if (timeControl != null) {
+            tag(out, "TimeControl", timeControl.getInitialMillis() / 1000 + "+" + timeControl.getIncrementMillis() / 1000);
+        } else if (game.getGameType() != null && game.getGameType().matches("\\d+(\\+\\d+)?")) {
+            tag(out, "TimeControl", game.getGameType());
+        } else {
+            tag(out, "TimeControl", "-");
+        }
+        if (game.getTermination() != null) {
+            tag(out, "Termination", game.getTermination());
+        }
+        out.append('\n');
+
+        Position position = new Position();
+        StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            int move = Move.fromUci(Move.toUci(game.getMove(i)), position);
+            if (move == Move.NONE) {
+                break;
+            }
+            if (i % 2 == 0) {
+                token(out, line, (i / 2 + 1) + ".");
+            }
+            token(out, line, San.toSan(move, position));
+            position.makeMove(move);
+        }
+        token(out, line, game.getResult().getNotation());
+        out.append(line).append("\n\n");
+    }
+
+    /**
+     * Streams every archived game to the writer in archive order.
+     */
+    public static long exportArchive(GameArchive archive, Writer writer) throws IOException {
+        long[] count = new long[1];
+        try {
+            archive.forEach(game -> {
+                try {
+                    write(game, writer);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    private static void tag(Appendable out, String name, String value) throws IOException {
+        out.append('[').append(name).append(" \"")
+           .append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+    }
+
+    private static void token(Appendable out, StringBuilder line, String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+            out.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PgnWriter archive-dir games.pgn");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]));
+             BufferedWriter writer = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            long count = exportArchive(archive, writer);
+            System.out.printf("Exported %d games in %.1f s%n", count, (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.chess.server;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+/**
+ * Glicko-2 ratings for every player who has finished a game.
+ *
+ * Players are mapped to a dense index and their rating, rating deviation and
+ * volatility live in parallel double arrays, so a lookup is a hash probe and
+ * three array reads under an optimistic {@link StampedLock} stamp; readers such
+ * as matchmaking never block unless a write is in progress.
+ *
+ * Every result is applied immediately as a one-game rating period so players
+ * see their new rating right after the game. The results are also kept, and
+ * {@link #closeRatingPeriod()} recomputes everyone from the ratings at the
+ * start of the period using all of their games together, as the Glicko-2
+ * system intends, in parallel across players. Players who did not play have
+ * their deviation grown by their volatility.
+ */
+public class RatingService {
+    public static final double DEFAULT_RATING = 1500;
+    public static final double DEFAULT_DEVIATION = 350;
+    public static final double DEFAULT_VOLATILITY = 0.06;
+    private static final double MIN_DEVIATION = 30;
+    // Constrains volatility changes over time; 0.3 to 1.2 are reasonable
+    private static final double TAU = 0.5;
+    private static final double SCALE = 173.7178;
+    private static final double CONVERGENCE = 0.000001;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<String, Integer> indexByName = new ConcurrentHashMap<>();
+
+    // Current values, updated after every game
+    private double[] rating = new double[64];
+    private double[] deviation = new double[64];
+    private double[] volatility = new double[64];
+    // Values at the start of the current rating period
+    private double[] periodRating = new double[64];
+    private double[] periodDeviation = new double[64];
+    private double[] periodVolatility = new double[64];
+    private int playerCount;
+
+    // Games played in the current rating period
+    private int[] resultWhite = new int[256];
+    private int[] resultBlack = new int[256];
+    private double[] resultScore = new double[256];
+    private int resultCount;
+
+    /**
+     * Current rating of a player, or the default for unknown players.
+     */
+    public double getRating(String name) {
+        Integer index = name != null ? indexByName.get(name) : null;
+        if (index == null) {
+            return DEFAULT_RATING;
+        }
+        long stamp = lock.tryOptimisticRead();
+        double[] ratings = rating;
+        double value = index < ratings.length ? ratings[index] : DEFAULT_RATING;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = rating[index];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    public double getDeviation(String name) {
+        Integer index = name != null ? indexByName.get(name) : null;
+        if (index == null) {
+            return DEFAULT_DEVIATION;
+        }
+        long stamp = lock.readLock();
+        try {
+            return deviation[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getPlayerCount() {
+        long stamp = lock.readLock();
+        try {
+            return playerCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Records a finished game and updates both players straight away.
+     *
+     * @param whiteScore 1 for a White win, 0.5 for a draw, 0 for a Black win
+     */
+    public void recordResult(String white, String black, double whiteScore) {
+        if (white == null || black == null || white.equals(black)) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int w = indexOf(white);
+            int b = indexOf(black);
+            appendResult(w, b, whiteScore);
+            applyGame(w, b, whiteScore);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Ends the current rating period: every player is recomputed from the
+     * period's starting ratings and all the games they played in it, and a
+     * new period starts. Games recorded while the recomputation runs are
+     * carried into the new period and re-applied on top of its results.
+     */
+    public void closeRatingPeriod() {
+        int players;
+        int games;
+        int[] white;
+        int[] black;
+        double[] score;
+        double[] startRating;
+        double[] startDeviation;
+        double[] startVolatility;
+        long stamp = lock.readLock();
+        try {
+            players = playerCount;
+            games = resultCount;
+            white = Arrays.copyOf(resultWhite, games);
+            black = Arrays.copyOf(resultBlack, games);
+            score = Arrays.copyOf(resultScore, games);
+            startRating = Arrays.copyOf(periodRating, players);
+            startDeviation = Arrays.copyOf(periodDeviation, players);
+            startVolatility = Arrays.copyOf(periodVolatility, players);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        // Group the games by player (compressed adjacency lists)
+        int[] offsets = new int[players + 1];
+        for (int i = 0; i < games; i++) {
+            offsets[white[i] + 1]++;
+            offsets[black[i] + 1]++;
+        }
+        for (int p = 0; p < players; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+        int[] opponents = new int[games * 2];
+        double[] scores = new double[games * 2];
+        int[] fill = Arrays.copyOf(offsets, players);
+        for (int i = 0; i < games; i++) {
+            opponents[fill[white[i]]] = black[i];
+            scores[fill[white[i]]++] = score[i];
+            opponents[fill[black[i]]] = white[i];
+            scores[fill[black[i]]++] = 1 - score[i];
+        }
+
+        double[] newRating = new double[players];
+        double[] newDeviation = new double[players];
+        double[] newVolatility = new double[players];
+        IntStream.range(0, players).parallel().forEach(p -> {
+            double[] updated = new double[3];
+            update(startRating[p], startDeviation[p], startVolatility[p],
+                   opponents, scores, offsets[p], offsets[p + 1],
+                   startRating, startDeviation, updated);
+            newRating[p] = updated[0];
+            newDeviation[p] = updated[1];
+            newVolatility[p] = updated[2];
+        });
+
+        stamp = lock.writeLock();
+        try {
+            System.arraycopy(newRating, 0, rating, 0, players);
+            System.arraycopy(newDeviation, 0, deviation, 0, players);
+            System.arraycopy(newVolatility, 0, volatility, 0, players);
+            System.arraycopy(newRating, 0, periodRating, 0, players);
+            System.arraycopy(newDeviation, 0, periodDeviation, 0, players);
+            System.arraycopy(newVolatility, 0, periodVolatility, 0, players);
+            // Players who joined after the snapshot are still at their start values
+            for (int p = players; p < playerCount; p++) {
+                periodRating[p] = DEFAULT_RATING;
+                periodDeviation[p] = DEFAULT_DEVIATION;
+                periodVolatility[p] = DEFAULT_VOLATILITY;
+                rating[p] = DEFAULT_RATING;
+                deviation[p] = DEFAULT_DEVIATION;
+                volatility[p] = DEFAULT_VOLATILITY;
+            }
+
+            // Carry late games into the new period
+            int late = resultCount - games;
+            System.arraycopy(resultWhite, games, resultWhite, 0, late);
+            System.arraycopy(resultBlack, games, resultBlack, 0, late);
+            System.arraycopy(resultScore, games, resultScore, 0, late);
+            resultCount = late;
+            for (int i = 0; i < late; i++) {
+                applyGame(resultWhite[i], resultBlack[i], resultScore[i]);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets a player's values as of the start of the current period, e.g. to
+     * seed known ratings in tests.
+     */
+    void setPlayer(String name, double playerRating, double playerDeviation, double playerVolatility) {
+        long stamp = lock.writeLock();
+        try {
+            int index = indexOf(name);
+            rating[index] = periodRating[index] = playerRating;
+            deviation[index] = periodDeviation[index] = playerDeviation;
+            volatility[index] = periodVolatility[index] = playerVolatility;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Must hold the write lock
+    private int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        if (index != null) {
+            return index;
+        }
+        if (playerCount == rating.length) {
+            int capacity = rating.length * 2;
+            rating = Arrays.copyOf(rating, capacity);
+            deviation = Arrays.copyOf(deviation, capacity);
+            volatility = Arrays.copyOf(volatility, capacity);
+            periodRating = Arrays.copyOf(periodRating, capacity);
+            periodDeviation = Arrays.copyOf(periodDeviation, capacity);
+            periodVolatility = Arrays.copyOf(periodVolatility, capacity);
+        }
+        int created = playerCount;
+        rating[created] = DEFAULT_RATING;
+        deviation[created] = DEFAULT_DEVIATION;
+        volatility[created] = DEFAULT_VOLATILITY;
+        periodRating[created] = DEFAULT_RATING;
+        periodDeviation[created] = DEFAULT_DEVIATION;
+        periodVolatility[created] = DEFAULT_VOLATILITY;
+        playerCount++;
+        // Published last, once the arrays hold the player
+        indexByName.put(name, created);
+        return created;
+    }
+
+    // Must hold the write lock
+    private void appendResult(int white, int black, double whiteScore) {
+        if (resultCount == resultWhite.length) {
+            int capacity = resultWhite.length * 2;
+            resultWhite = Arrays.copyOf(resultWhite, capacity);
+            resultBlack = Arrays.copyOf(resultBlack, capacity);
+            resultScore = Arrays.copyOf(resultScore, capacity);
+        }
+        resultWhite[resultCount] = white;
+        resultBlack[resultCount] = black;
+        resultScore[resultCount] = whiteScore;
+        resultCount++;
+    }
+
+    // Must hold the write lock
+    private void applyGame(int white, int black, double whiteScore) {
+        int[] opponent = new int[1];
+        double[] score = new double[1];
+        double[] whiteUpdated = new double[3];
+        double[] blackUpdated = new double[3];
+
+        opponent[0] = black;
+        score[0] = whiteScore;
+        update(rating[white], deviation[white], volatility[white], opponent, score, 0, 1,
+               rating, deviation, whiteUpdated);
+        opponent[0] = white;
+        score[0] = 1 - whiteScore;
+        update(rating[black], deviation[black], volatility[black], opponent, score, 0, 1,
+               rating, deviation, blackUpdated);
+
+        rating[white] = whiteUpdated[0];
+        deviation[white] = whiteUpdated[1];
+        volatility[white] = whiteUpdated[2];
+        rating[black] = blackUpdated[0];
+        deviation[black] = blackUpdated[1];
+        volatility[black] = blackUpdated[2];
+    }
+
+    /**
+     * One Glicko-2 rating period for a single player (steps 2 to 8 of
+     * Glickman's description). Games are opponents[from..to) with the player's
+     * scores; the result is written to out as {rating, deviation, volatility}.
+     */
+    private static void update(double r, double rd, double sigma,
+                               int[] opponents, double[] scores, int from, int to,
+                               double[] ratings, double[] deviations, double[] out) {
+        double mu = (r - DEFAULT_RATING) / SCALE;
+        double phi = rd / SCALE;
+
+        if (from == to) {
+            // No games: only the deviation grows
+            double grown = Math.sqrt(phi * phi + sigma * sigma) * SCALE;
+            out[0] = r;
+            out[1] = Math.min(DEFAULT_DEVIATION, grown);
+            out[2] = sigma;
+            return;
+        }
+
+        double inverseVariance = 0;
+        double improvement = 0;
+        for (int i = from; i < to; i++) {
+            int opponent = opponents[i];
+            double opponentMu = (ratings[opponent] - DEFAULT_RATING) / SCALE;
+            double g = g(deviations[opponent] / SCALE);
+            double expected = 1 / (1 + Math.exp(-g * (mu - opponentMu)));
+            inverseVariance += g * g * expected * (1 - expected);
+            improvement += g * (scores[i] - expected);
+        }
+        double v = 1 / inverseVariance;
+        double delta = v * improvement;
+
+        double newSigma = newVolatility(phi, sigma, v, delta);
+        double phiStar = Math.sqrt(phi * phi + newSigma * newSigma);
+        double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+        double newMu = mu + newPhi * newPhi * improvement;
+
+        out[0] = newMu * SCALE + DEFAULT_RATING;
+        out[1] = Math.max(MIN_DEVIATION, Math.min(DEFAULT_DEVIATION, newPhi * SCALE));
+        out[2] = newSigma;
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    /**
+     * Step 5: solve for the new volatility with the Illinois variant of
+     * regula falsi.
+     */
+    private static double newVolatility(double phi, double sigma, double v, double delta) {
+        double a = Math.log(sigma * sigma);
+        double phi2 = phi * phi;
+        double delta2 = delta * delta;
+
+        double lower = a;
+        double upper;
+        if (delta2 > phi2 + v) {
+            upper = Math.log(delta2 - phi2 - v);
+        } else {
+            int k = 1;
+            while (f(a - k * TAU, a, phi2, v, delta2) < 0) {
+                k++;
+            }
+            upper = a - k * TAU;
+        }
+
+        double fLower = f(lower, a, phi2, v, delta2);
+        double fUpper = f(upper, a, phi2, v, delta2);
+        for (int i = 0; i < 100 && Math.abs(upper - lower) > CONVERGENCE; i++) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = f(c, a, phi2, v, delta2);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private static double f(double x, double a, double phi2, double v, double delta2) {
+        double ex = Math.exp(x);
+        double denominator = phi2 + v + ex;
+        return ex * (delta2 - phi2 - v - ex) / (2 * denominator * denominator) - (x - a) / (TAU * TAU);
+    }
+}
@@ -0,0 +1,65 @@
+package com.chess.server;
+
+/**
+ * Round-trip time estimator for one connection, fed by timestamped PING/PONG
+ * frames.
+ *
+ * Uses the TCP retransmission-timer filter (RFC 6298): a smoothed RTT with
+ * gain 1/8 and a mean deviation (jitter) with gain 1/4. Every raw sample also
+ * goes into a histogram so tail latency can be inspected per connection.
+ */
+public class RttEstimator {
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    // Upper bound on the time credited back to a player for one move
+    public static final long MAX_LAG_CREDIT_MILLIS = 500;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private double smoothedRtt;
+    private double rttVariation;
+    private long samples;
+
+    public synchronized void addSample(long rttMillis) {
+        if (rttMillis < 0) {
+            return;
+        }
+        if (samples == 0) {
+            smoothedRtt = rttMillis;
+            rttVariation = rttMillis / 2.0;
+        } else {
+            rttVariation = (1 - BETA) * rttVariation + BETA * Math.abs(smoothedRtt - rttMillis);
+            smoothedRtt = (1 - ALPHA) * smoothedRtt + ALPHA * rttMillis;
+        }
+        samples++;
+        histogram.record(rttMillis);
+    }
+
+    public synchronized long getSmoothedRtt() {
+        return Math.round(smoothedRtt);
+    }
+
+    public synchronized long getJitter() {
+        return Math.round(rttVariation);
+    }
+
+    public synchronized long getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * Time to give back to this player per move. A move reaches the server a
+     * full round trip after the opponent's move left it (the board update out,
+     * the reply back), so the smoothed RTT is credited, capped so a slow or
+     * lying client can't buy itself extra thinking time.
+     */
+    public synchronized long getLagCreditMillis() {
+        if (samples == 0) {
+            return 0;
+        }
+        return Math.min(MAX_LAG_CREDIT_MILLIS, Math.round(smoothedRtt));
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
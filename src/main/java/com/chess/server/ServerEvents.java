@@ -0,0 +1,132 @@
+package com.chess.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the server, recorded with e.g.
+ *
+ *   jcmd &lt;pid&gt; JFR.start name=chess settings=profile duration=60s filename=chess.jfr
+ *
+ * and shown under "Chess" in JDK Mission Control. While no recording is
+ * running, begin() and commit() are no-ops the JIT removes, so callers only
+ * fill in string fields after {@code shouldCommit()}. Stack traces are off;
+ * the event names and fields already say where they come from.
+ */
+public final class ServerEvents {
+    private ServerEvents() {
+    }
+
+    @Name("com.chess.MessageHandled")
+    @Label("Message Handled")
+    @Description("One client message, from dispatch to return of its handler")
+    @Category({"Chess", "Protocol"})
+    @StackTrace(false)
+    public static class MessageHandled extends Event {
+        @Label("Type")
+        public String type;
+
+        @Label("User")
+        public String user;
+    }
+
+    @Name("com.chess.MoveValidated")
+    @Label("Move Validated")
+    @Category({"Chess", "Moves"})
+    @StackTrace(false)
+    public static class MoveValidated extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("User")
+        public String user;
+
+        @Label("Valid")
+        public boolean valid;
+    }
+
+    @Name("com.chess.MoveApplied")
+    @Label("Move Applied")
+    @Description("Clock, board update, journal enqueue and delivery of an accepted move")
+    @Category({"Chess", "Moves"})
+    @StackTrace(false)
+    public static class MoveApplied extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("User")
+        public String user;
+
+        @Label("Ply")
+        public int ply;
+
+        @Label("Move")
+        public String move;
+    }
+
+    @Name("com.chess.GameStarted")
+    @Label("Game Started")
+    @Category({"Chess", "Games"})
+    @StackTrace(false)
+    public static class GameStarted extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("White")
+        public String white;
+
+        @Label("Black")
+        public String black;
+
+        @Label("Game Type")
+        public String gameType;
+    }
+
+    @Name("com.chess.GameEnded")
+    @Label("Game Ended")
+    @Category({"Chess", "Games"})
+    @StackTrace(false)
+    public static class GameEnded extends Event {
+        @Label("Session")
+        public String session;
+
+        @Label("Result")
+        public String result;
+
+        @Label("Plies")
+        public int plies;
+    }
+
+    @Name("com.chess.Broadcast")
+    @Label("Broadcast")
+    @Description("Queueing one message to many clients: lobby broadcasts and spectator fan-out")
+    @Category({"Chess", "Protocol"})
+    @StackTrace(false)
+    public static class Broadcast extends Event {
+        @Label("Kind")
+        public String kind;
+
+        @Label("Recipients")
+        public int recipients;
+    }
+
+    @Name("com.chess.Connection")
+    @Label("Connection")
+    @Description("A client connection; the duration is how long it stayed open")
+    @Category({"Chess", "Connections"})
+    @StackTrace(false)
+    public static class Connection extends Event {
+        @Label("Address")
+        public String address;
+
+        @Label("User")
+        public String user;
+
+        @Label("Messages")
+        public long messages;
+    }
+}
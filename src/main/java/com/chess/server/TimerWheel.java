@@ -0,0 +1,136 @@
+package com.chess.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel shared by all game clocks.
+ *
+ * One thread advances a ring of buckets every tick and fires the timeouts in
+ * the current bucket; timeouts further away than one rotation wait a number
+ * of rounds. Scheduling and cancelling are O(1) and lock-free for callers, and
+ * the per-tick cost only depends on the timeouts in one bucket, so thousands
+ * of running clocks cost next to nothing. Expired tasks are handed to an
+ * executor so a slow task can't stall the wheel.
+ */
+public class TimerWheel {
+    private static final AsyncLogger log = AsyncLogger.get();
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] buckets;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Executor taskExecutor;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * A scheduled task. Cancelling only marks it; the wheel drops it the next
+     * time its bucket comes round.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * @param tickMillis   wheel resolution
+     * @param wheelSize    number of buckets, rounded up to a power of two
+     * @param taskExecutor runs expired tasks
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, int wheelSize, Executor taskExecutor) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.taskExecutor = taskExecutor;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, "timer-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = startTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = Math.max(tick, (timeout.deadline - startTime + tickNanos - 1) / tickNanos);
+            timeout.remainingRounds = (ticks - tick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        long now = System.nanoTime();
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext();) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                it.remove();
+                try {
+                    taskExecutor.execute(timeout.task);
+                } catch (Exception e) {
+                    log.error("Error running timer task", e);
+                }
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.chess.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.chess.engine.Move;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Position;
+
+/**
+ * Differential fuzz test of {@link ChessBoard} move validation, which the
+ * client highlights from and the server checks MOVE messages with, against
+ * the engine's {@link MoveGenerator} as the oracle.
+ *
+ * Plays seeded random games and, in every position, offers the board the
+ * oracle's legal moves plus a few random moves of the side to move's pieces,
+ * the way the server handles a MOVE: the legal move lookup, then
+ * {@link ChessBoard#makeMove(ChessMove)}, which refuses a move by leaving the
+ * turn unchanged. After each played move the board must match the oracle
+ * position, and the checkmate and stalemate verdicts must agree. The oracle
+ * itself is checked against reference perft counts.
+ *
+ * Games run in parallel across the cores. Game i is seeded with seed + i, so
+ * a run finds the same disagreements whatever the thread count. The default
+ * run is sized for the normal build; use -Dfuzz.games=N and -Dfuzz.seed=S for
+ * longer runs.
+ */
+public class MoveValidationFuzzTest {
+    private static final int GAMES = Integer.getInteger("fuzz.games", 100);
+    private static final long SEED = Long.getLong("fuzz.seed", 1L);
+    private static final int MAX_PLIES = 200;
+    private static final int FUZZ_MOVES = 4;
+    private static final int EXAMPLES_PER_KIND = 5;
+
+    enum Kind {
+        REJECTS_LEGAL("legal move the board rejects"),
+        ACCEPTS_ILLEGAL("illegal move the board accepts"),
+        THROWS("move on which the board throws"),
+        STATE_MISMATCH("board differs from the oracle after a legal move"),
+        GAME_END_MISMATCH("checkmate or stalemate verdict differs from the oracle"),
+        GAME_ABORTED("game cut short by an exception outside the move check");
+
+        final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+    }
+
+    private final Map<Kind, Integer> counts = new EnumMap<>(Kind.class);
+    private final Map<Kind, List<String>> examples = new EnumMap<>(Kind.class);
+
+    @Test
+    public void oracleMatchesReferencePerft() {
+        assertEquals(197281, MoveGenerator.perft(Position.fromFen(Position.START_FEN), 4));
+        assertEquals(97862, MoveGenerator.perft(Position.fromFen(
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3));
+        assertEquals(43238, MoveGenerator.perft(Position.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 4));
+    }
+
+    @Test
+    public void boardAgreesWithTheOracle() {
+        IntStream.range(0, GAMES).parallel().forEach(i -> {
+            try {
+                playGame(new Random(SEED + i));
+            } catch (RuntimeException e) {
+                report(Kind.GAME_ABORTED, "-", null, String.valueOf(e));
+            }
+        });
+        assertTrue(report(), counts.isEmpty());
+    }
+
+    private void playGame(Random random) {
+        Position oracle = Position.fromFen(Position.START_FEN);
+        ChessBoard board = new ChessBoard();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            String fen = oracle.toFen();
+            ChessPiece.PieceColor side = board.getCurrentTurn();
+            int count = MoveGenerator.generateLegal(oracle, moves, 0);
+
+            // Legal moves by from/to; promotions collapse to one entry since
+            // the board doesn't choose the piece
+            Map<Integer, Integer> legal = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                int key = Move.from(moves[i]) * 64 + Move.to(moves[i]);
+                Integer existing = legal.get(key);
+                if (existing == null || Move.promotion(moves[i]) == Position.QUEEN) {
+                    legal.put(key, moves[i]);
+                }
+            }
+
+            boolean boardMate = board.isCheckmate(side);
+            boolean boardStalemate = board.isStalemate(side);
+            boolean oracleMate = count == 0 && oracle.inCheck();
+            boolean oracleStalemate = count == 0 && !oracle.inCheck();
+            if (boardMate != oracleMate || boardStalemate != oracleStalemate) {
+                report(Kind.GAME_END_MISMATCH, fen, null, "board mate=" + boardMate + " stalemate=" + boardStalemate
+                        + ", oracle mate=" + oracleMate + " stalemate=" + oracleStalemate);
+            }
+            if (count == 0) {
+                return;
+            }
+
+            // The legal moves and a few random ones
+            Set<Integer> tried = new HashSet<>(legal.keySet());
+            for (int i = 0; i < FUZZ_MOVES; i++) {
+                int from = randomPieceSquare(board, side, random);
+                if (from >= 0) {
+                    tried.add(from * 64 + random.nextInt(64));
+                }
+            }
+            for (int key : tried) {
+                Integer move = legal.get(key);
+                ChessMove chessMove = move != null ? Move.toChessMove(move, oracle)
+                        : new ChessMove(key / 64 / 8, key / 64 % 8, key % 64 / 8, key % 64 % 8);
+                boolean accepted;
+                try {
+                    accepted = accepts(board, chessMove);
+                } catch (RuntimeException e) {
+                    report(Kind.THROWS, fen, key, String.valueOf(e));
+                    continue;
+                }
+                if (move != null && !accepted) {
+                    report(Kind.REJECTS_LEGAL, fen, key, null);
+                } else if (move == null && accepted) {
+                    report(Kind.ACCEPTS_ILLEGAL, fen, key, null);
+                }
+            }
+
+            // Play a random legal move on both and compare the results
+            int move = moves[random.nextInt(count)];
+            ChessMove chessMove = Move.toChessMove(move, oracle);
+            oracle.makeMove(move);
+            board.makeMove(chessMove);
+            String expected = placement(oracle);
+            String actual = placement(Position.fromBoard(board));
+            if (!expected.equals(actual)) {
+                report(Kind.STATE_MISMATCH, fen, Move.from(move) * 64 + Move.to(move),
+                        "after " + Move.toUci(move) + " oracle " + expected + ", board " + actual);
+                // The two no longer describe the same game
+                return;
+            }
+        }
+    }
+
+    /**
+     * The server's check: the legal move lookup, then makeMove on a copy,
+     * which refuses a move by leaving the turn unchanged.
+     */
+    private static boolean accepts(ChessBoard board, ChessMove move) {
+        if (!board.getLegalMoves(move.getStartRow(), move.getStartCol())
+                .contains(new Point(move.getEndRow(), move.getEndCol()))) {
+            return false;
+        }
+        ChessBoard copy = new ChessBoard(board);
+        copy.makeMove(move);
+        return copy.getCurrentTurn() != board.getCurrentTurn();
+    }
+
+    private static int randomPieceSquare(ChessBoard board, ChessPiece.PieceColor side, Random random) {
+        int start = random.nextInt(64);
+        for (int i = 0; i < 64; i++) {
+            int square = (start + i) & 63;
+            ChessPiece piece = board.getPiece(square / 8, square % 8);
+            if (piece != null && piece.getColor() == side) {
+                return square;
+            }
+        }
+        return -1;
+    }
+
+    // Placement, side to move, castling rights and en passant square, without the clocks
+    private static String placement(Position position) {
+        String fen = position.toFen();
+        int end = fen.length();
+        for (int spaces = 0, i = 0; i < fen.length(); i++) {
+            if (fen.charAt(i) == ' ' && ++spaces == 4) {
+                end = i;
+                break;
+            }
+        }
+        return fen.substring(0, end);
+    }
+
+    private synchronized void report(Kind kind, String fen, Integer key, String detail) {
+        counts.merge(kind, 1, Integer::sum);
+        List<String> list = examples.computeIfAbsent(kind, k -> new ArrayList<>());
+        if (list.size() < EXAMPLES_PER_KIND) {
+            String move = key != null ? Position.squareName(key / 64) + Position.squareName(key % 64) : "-";
+            list.add(String.format("%-6s %s%s", move, fen, detail != null ? "  (" + detail + ")" : ""));
+        }
+    }
+
+    private synchronized String report() {
+        StringBuilder out = new StringBuilder("Disagreements with seed " + SEED + ":\n");
+        for (Map.Entry<Kind, Integer> count : counts.entrySet()) {
+            out.append(String.format("%s: %d %s%n", count.getKey(), count.getValue(), count.getKey().description));
+            for (String example : examples.get(count.getKey())) {
+                out.append("  ").append(example).append('\n');
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.chess.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BitbaseTest {
+
+    private static int probe(String fen) {
+        return Bitbase.probe(Position.fromFen(fen));
+    }
+
+    @Test
+    public void threeManEndings() {
+        assertEquals(Bitbase.WIN, probe("4k3/8/8/8/8/8/8/3QK3 w - - 0 1"));
+        assertEquals(Bitbase.LOSS, probe("4k3/8/8/8/8/8/8/3QK3 b - - 0 1"));
+        // The defending king takes the unprotected rook
+        assertEquals(Bitbase.DRAW, probe("8/8/8/8/8/8/4r3/3K3k w - - 0 1"));
+        assertEquals(Bitbase.DRAW, probe("8/8/8/8/8/8/3kR3/7K b - - 0 1"));
+        // Rook's pawn with the defending king in front of it
+        assertEquals(Bitbase.DRAW, probe("k7/8/8/8/8/P7/8/K7 w - - 0 1"));
+        // King on the sixth in front of its pawn wins whoever moves
+        assertEquals(Bitbase.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        assertEquals(Bitbase.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        assertEquals(Bitbase.WIN, probe("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"));
+    }
+
+    @Test
+    public void fourManEndingsAreNotCovered() {
+        assertEquals(Bitbase.UNKNOWN, probe("4k3/8/8/8/8/8/r7/3QK3 w - - 0 1"));
+        assertEquals(Bitbase.UNKNOWN, probe("4k3/4p3/8/8/8/8/4P3/4K3 w - - 0 1"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.chess.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OpeningBookTest {
+
+    private static OpeningBook writeBook(String... games) throws IOException {
+        OpeningBookWriter writer = new OpeningBookWriter(8);
+        for (String game : games) {
+            writer.addGame(Arrays.asList(game.split(" ")));
+        }
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        writer.write(file);
+        return OpeningBook.open(file, new Random(1));
+    }
+
+    private static String[] uci(int[] moves) {
+        String[] names = new String[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            names[i] = Move.toUci(moves[i]);
+        }
+        return names;
+    }
+
+    @Test
+    public void movesAreHeaviestFirst() throws IOException {
+        OpeningBook book = writeBook("e2e4 e7e5", "d2d4 d7d5", "e2e4 c7c5", "e2e4 e7e5 e1e2");
+        Position start = new Position();
+        assertArrayEquals(new String[] {"e2e4", "d2d4"}, uci(book.moves(start)));
+        assertEquals(2, book.countMoves(start));
+
+        start.makeMove(Move.fromUci("e2e4", start));
+        assertArrayEquals(new String[] {"e7e5", "c7c5"}, uci(book.moves(start)));
+        assertEquals(0, book.moves(Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).length);
+    }
+
+    @Test
+    public void castlingRoundTripsThroughTheKingTakesRookEncoding() throws IOException {
+        OpeningBook book = writeBook("e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 e1g1");
+        Position position = new Position();
+        for (String uci : "e2e4 e7e5 g1f3 b8c6 f1c4 f8c5".split(" ")) {
+            position.makeMove(Move.fromUci(uci, position));
+        }
+        assertEquals("e1g1", Move.toUci(book.probe(position)));
+    }
+
+    @Test
+    public void analysisLinesFollowTheBook() throws IOException {
+        Search search = new Search();
+        search.setOpeningBook(writeBook("e2e4", "e2e4", "d2d4"));
+        List<Search.Result> lines = search.searchMultiPv(new Position(), 3, 3, 0);
+        assertEquals(2, lines.size());
+        assertEquals("e2e4", Move.toUci(lines.get(0).getBestMove()));
+        assertEquals("d2d4", Move.toUci(lines.get(1).getBestMove()));
+        assertTrue(lines.get(0).getPv().length > 1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.chess.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PolyglotKeyTest {
+
+    // Test positions and keys from the Polyglot book format description
+    private static void assertKey(long expected, String... uciMoves) {
+        Position position = new Position();
+        for (String uci : uciMoves) {
+            position.makeMove(Move.fromUci(uci, position));
+        }
+        assertEquals(Long.toHexString(expected), Long.toHexString(PolyglotKey.of(position)));
+    }
+
+    @Test
+    public void startPosition() {
+        assertKey(0x463b96181691fc9cL);
+    }
+
+    @Test
+    public void enPassantFileOnlyCountsWhenCapturable() {
+        assertKey(0x823c9b50fd114196L, "e2e4");
+        assertKey(0x0756b94461c50fb0L, "e2e4", "d7d5");
+        assertKey(0x662fafb965db29d4L, "e2e4", "d7d5", "e4e5");
+        assertKey(0x22a48b5a8e47ff78L, "e2e4", "d7d5", "e4e5", "f7f5");
+        assertKey(0x3c8123ea7b067637L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4");
+    }
+
+    @Test
+    public void castlingRights() {
+        assertKey(0x652a607ca3f242c1L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2");
+        assertKey(0x00fdd303c946bdd9L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7");
+        assertKey(0x5c3f9b829b279560L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3");
+    }
+}
@@ -0,0 +1,42 @@
+package com.chess.engine;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PositionTest {
+
+    @Test
+    public void startPositionIsValid() {
+        assertTrue(Position.fromFen(Position.START_FEN).isValid());
+    }
+
+    @Test
+    public void rejectsPawnsOnTheBackRanks() {
+        assertFalse(Position.fromFen("P3k3/8/8/8/8/8/8/4K3 w - - 0 1").isValid());
+        assertFalse(Position.fromFen("4k3/8/8/8/8/8/8/p3K3 b - - 0 1").isValid());
+    }
+
+    @Test
+    public void rejectsCastlingRightsWithoutKingAndRook() {
+        assertTrue(Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").isValid());
+        assertFalse(Position.fromFen("r3k2r/8/8/8/8/8/8/R3K3 w K - 0 1").isValid());
+        assertFalse(Position.fromFen("r3k2r/8/8/8/8/8/8/R2K3R w Q - 0 1").isValid());
+        assertFalse(Position.fromFen("1r2k2r/8/8/8/8/8/8/R3K2R w q - 0 1").isValid());
+    }
+
+    @Test
+    public void checksTheEnPassantSquareAgainstTheBoard() {
+        assertTrue(Position.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1").isValid());
+        // No pawn crossed d6: the black pawn sits on d6 itself
+        assertFalse(Position.fromFen("4k3/8/3p4/4P3/8/8/8/4K3 w - d6 0 1").isValid());
+        // Wrong rank for white to move
+        assertFalse(Position.fromFen("4k3/8/8/8/3p4/8/4P3/4K3 w - d3 0 1").isValid());
+    }
+
+    @Test
+    public void rejectsTheSideThatJustMovedLeftInCheck() {
+        assertFalse(Position.fromFen("4k3/8/8/8/8/8/8/4R1K1 w - - 0 1").isValid());
+    }
+}
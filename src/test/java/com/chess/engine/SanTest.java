@@ -0,0 +1,57 @@
+package com.chess.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SanTest {
+
+    private static String san(String fen, String uci) {
+        Position position = Position.fromFen(fen);
+        return San.toSan(Move.fromUci(uci, position), position);
+    }
+
+    /**
+     * Every legal move in the position prints to SAN and parses back to itself.
+     */
+    private static void assertRoundTrips(String fen) {
+        Position position = Position.fromFen(fen);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        for (int i = 0; i < count; i++) {
+            String san = San.toSan(moves[i], position);
+            assertEquals(san, Move.toUci(moves[i]), Move.toUci(San.fromSan(san, position)));
+        }
+        assertEquals(fen, position.toFen());
+    }
+
+    @Test
+    public void writesSan() {
+        assertEquals("Nf3", san(Position.START_FEN, "g1f3"));
+        assertEquals("O-O", san("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1"));
+        assertEquals("O-O-O", san("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", "e8c8"));
+        assertEquals("exd6", san("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+        assertEquals("e8=Q+", san("3k4/4P3/8/8/8/8/8/4K3 w - - 0 1", "e7e8q"));
+        assertEquals("Rac1", san("4k3/8/8/8/8/8/8/R2R2K1 w - - 0 1", "a1c1"));
+        assertEquals("R1a3", san("4k3/8/8/R7/8/8/8/R5K1 w - - 0 1", "a1a3"));
+        assertEquals("Qh4#", san("rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq - 0 2", "d8h4"));
+    }
+
+    @Test
+    public void roundTripsEveryLegalMove() {
+        assertRoundTrips(Position.START_FEN);
+        // Castling both ways, promotions with and without capture, en passant
+        assertRoundTrips("r3k2r/1P6/8/3pP3/8/8/6p1/R3K2R w KQkq d6 0 1");
+        // Knights and rooks that need file, rank or full-square disambiguation
+        assertRoundTrips("4k3/8/1N3N2/8/1N3N2/8/R6R/4K2R w - - 0 1");
+        assertRoundTrips("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4");
+    }
+
+    @Test
+    public void acceptsCommonVariants() {
+        Position position = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("e1g1", Move.toUci(San.fromSan("0-0", position)));
+        assertEquals("e1c1", Move.toUci(San.fromSan("O-O-O!?", position)));
+        assertEquals(Move.NONE, San.fromSan("Nf3", position));
+    }
+}
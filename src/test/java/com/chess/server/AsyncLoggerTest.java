@@ -0,0 +1,96 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class AsyncLoggerTest {
+    private final StringWriter out = new StringWriter();
+    private final StringWriter err = new StringWriter();
+
+    private AsyncLogger logger(AsyncLogger.Level level, boolean json) {
+        return new AsyncLogger(level, json, out, err);
+    }
+
+    @Test
+    public void writesKeyValueText() {
+        AsyncLogger log = logger(AsyncLogger.Level.INFO, false);
+        log.info("Game started", "session", "abc", "note", "two words", "quote", "say \"hi\"", "empty", "");
+        log.close();
+
+        String line = out.toString();
+        assertTrue(line, line.endsWith(" INFO [" + Thread.currentThread().getName()
+                + "] Game started session=abc note=\"two words\" quote=\"say \\\"hi\\\"\" empty=\"\"\n"));
+        assertEquals("", err.toString());
+    }
+
+    @Test
+    public void writesOneJsonObjectPerLine() {
+        AsyncLogger log = logger(AsyncLogger.Level.INFO, true);
+        log.info("Move", "ply", 12, "legal", true, "user", "a\"b\nc", "missing", null);
+        log.close();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(1, lines.length);
+        JsonObject object = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals("INFO", object.get("level").getAsString());
+        assertEquals("Move", object.get("msg").getAsString());
+        assertEquals(12, object.get("ply").getAsInt());
+        assertTrue(object.get("legal").getAsBoolean());
+        assertEquals("a\"b\nc", object.get("user").getAsString());
+        assertTrue(object.get("missing").isJsonNull());
+    }
+
+    @Test
+    public void sendsWarningsAndErrorsToErr() {
+        AsyncLogger log = logger(AsyncLogger.Level.DEBUG, false);
+        log.debug("debug line");
+        log.info("info line");
+        log.warn("warn line");
+        log.error("error line", new IllegalStateException("boom"), "session", "abc");
+        log.close();
+
+        assertTrue(out.toString().contains("DEBUG"));
+        assertTrue(out.toString().contains("info line"));
+        assertFalse(out.toString().contains("warn line"));
+        String errors = err.toString();
+        assertTrue(errors.contains("WARN"));
+        assertTrue(errors, errors.contains("error line session=abc error=\"java.lang.IllegalStateException: boom\""));
+        assertTrue(errors.contains("at com.chess.server.AsyncLoggerTest"));
+    }
+
+    @Test
+    public void dropsLinesBelowTheLevel() {
+        AsyncLogger log = logger(AsyncLogger.Level.WARN, false);
+        log.debug("debug line");
+        log.info("info line");
+        log.warn("warn line");
+        log.close();
+
+        assertFalse(log.isDebugEnabled());
+        assertEquals("", out.toString());
+        assertTrue(err.toString().contains("warn line"));
+    }
+
+    @Test
+    public void closeWritesEverythingQueuedAndDropsLaterCalls() {
+        AsyncLogger log = logger(AsyncLogger.Level.INFO, false);
+        for (int i = 0; i < 5000; i++) {
+            log.info("line", "n", i);
+        }
+        log.close();
+        log.info("after close");
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(5000 - log.getDropped(), lines.length);
+        assertTrue(lines[lines.length - 1].endsWith("line n=4999"));
+        assertFalse(out.toString().contains("after close"));
+    }
+}
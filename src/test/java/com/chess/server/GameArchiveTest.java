@@ -0,0 +1,88 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GameArchiveTest {
+    // Small enough that a few dozen games spread over several segments
+    private static final int SEGMENT_BYTES = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ArchivedGame game(int n) {
+        return ArchivedGame.fromUci("game-" + n, "white" + n, "black" + n, "blitz",
+                n % 2 == 0 ? ArchivedGame.Result.WHITE_WINS : ArchivedGame.Result.DRAW,
+                n % 3 == 0 ? "time forfeit" : null, 1_700_000_000_000L + n,
+                Arrays.asList("e2e4", "e7e5", "g1f3", "b8c6", "f1b5"));
+    }
+
+    private static void assertSameGame(ArchivedGame expected, ArchivedGame actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getWhitePlayer(), actual.getWhitePlayer());
+        assertEquals(expected.getBlackPlayer(), actual.getBlackPlayer());
+        assertEquals(expected.getGameType(), actual.getGameType());
+        assertEquals(expected.getResult(), actual.getResult());
+        assertEquals(expected.getTermination(), actual.getTermination());
+        assertEquals(expected.getEndedAt(), actual.getEndedAt());
+        assertEquals(expected.getUciMoves(), actual.getUciMoves());
+    }
+
+    @Test
+    public void looksUpGamesAfterReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (GameArchive archive = new GameArchive(directory, SEGMENT_BYTES)) {
+            for (int n = 0; n < 40; n++) {
+                assertTrue(archive.append(game(n)));
+            }
+            assertFalse(archive.append(game(7)));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+
+        try (GameArchive archive = new GameArchive(directory, SEGMENT_BYTES)) {
+            assertEquals(40, archive.size());
+            for (int n = 0; n < 40; n++) {
+                assertSameGame(game(n), archive.get("game-" + n));
+            }
+            assertNull(archive.get("game-40"));
+            assertFalse(archive.contains("game-40"));
+
+            List<String> order = new ArrayList<>();
+            archive.forEach(game -> order.add(game.getGameId()));
+            assertEquals("game-0", order.get(0));
+            assertEquals("game-39", order.get(39));
+
+            // Appends after reopening land in the same index
+            assertTrue(archive.append(game(40)));
+            assertSameGame(game(40), archive.get("game-40"));
+        }
+        try (GameArchive archive = new GameArchive(directory, SEGMENT_BYTES)) {
+            assertEquals(41, archive.size());
+        }
+    }
+
+    @Test
+    public void appendAllSkipsKnownIds() throws IOException {
+        try (GameArchive archive = new GameArchive(folder.getRoot().toPath(), SEGMENT_BYTES)) {
+            archive.append(game(1));
+            assertEquals(2, archive.appendAll(Arrays.asList(game(1), game(2), game(3))));
+            assertEquals(3, archive.size());
+        }
+    }
+}
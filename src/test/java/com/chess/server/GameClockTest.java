@@ -0,0 +1,134 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.chess.common.ChessPiece;
+import com.chess.common.TimeControl;
+
+public class GameClockTest {
+    private final TimerWheel wheel = new TimerWheel(5, 64, Runnable::run);
+    private final AtomicReference<ChessPiece.PieceColor> flagged = new AtomicReference<>();
+    private final AtomicInteger flags = new AtomicInteger();
+
+    private void flag(ChessPiece.PieceColor color) {
+        flagged.set(color);
+        flags.incrementAndGet();
+    }
+
+    @After
+    public void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    public void moveAddsTheIncrementAndSwitchesSides() {
+        GameClock clock = new GameClock(new TimeControl("test", 10_000, 1_000), wheel, this::flag);
+        clock.start();
+        assertTrue(clock.recordMove(ChessPiece.PieceColor.WHITE));
+
+        long white = clock.snapshot()[0];
+        assertTrue("white has " + white, white > 10_500 && white <= 11_000);
+        assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+        assertTrue(clock.recordMove(ChessPiece.PieceColor.BLACK));
+    }
+
+    @Test
+    public void flagFallsOnceForTheSideToMove() throws InterruptedException {
+        GameClock clock = new GameClock(new TimeControl("test", 50, 0), wheel, this::flag);
+        clock.start();
+        Thread.sleep(300);
+
+        assertEquals(ChessPiece.PieceColor.WHITE, flagged.get());
+        assertEquals(1, flags.get());
+        assertEquals(0, clock.snapshot()[0]);
+        assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+        assertEquals(1, flags.get());
+    }
+
+    @Test
+    public void moveAfterTheTimeRanOutIsRefusedAndFlags() throws InterruptedException {
+        // A wheel too coarse to have fired yet, so the move itself finds the flag down
+        TimerWheel slowWheel = new TimerWheel(5_000, 8, Runnable::run);
+        try {
+            GameClock clock = new GameClock(new TimeControl("test", 50, 0), slowWheel, this::flag);
+            clock.start();
+            Thread.sleep(100);
+
+            assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+            assertEquals(ChessPiece.PieceColor.WHITE, flagged.get());
+            assertEquals(1, flags.get());
+        } finally {
+            slowWheel.stop();
+        }
+    }
+
+    @Test
+    public void lagCreditHoldsOffTheFlag() throws InterruptedException {
+        GameClock clock = new GameClock(new TimeControl("test", 50, 0), wheel, this::flag,
+                color -> color == ChessPiece.PieceColor.WHITE ? 400 : 0);
+        clock.start();
+        Thread.sleep(200);
+        assertNull(flagged.get());
+
+        Thread.sleep(500);
+        assertEquals(ChessPiece.PieceColor.WHITE, flagged.get());
+    }
+
+    @Test
+    public void pausedClockDoesNotRunOrFlag() throws InterruptedException {
+        GameClock clock = new GameClock(new TimeControl("test", 100, 0), wheel, flagged::set);
+        clock.start();
+        clock.pause();
+        long[] held = clock.snapshot();
+        Thread.sleep(200);
+
+        assertNull(flagged.get());
+        assertEquals(held[0], clock.snapshot()[0]);
+        assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+    }
+
+    @Test
+    public void unpauseRestartsTheSideToMove() {
+        GameClock clock = new GameClock(new TimeControl("test", 10_000, 0), wheel, flagged::set);
+        clock.start();
+        assertTrue(clock.recordMove(ChessPiece.PieceColor.WHITE));
+        clock.pause();
+        clock.unpause();
+
+        assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+        assertTrue(clock.recordMove(ChessPiece.PieceColor.BLACK));
+    }
+
+    @Test
+    public void restoredClockWaitsForUnpause() throws InterruptedException {
+        GameClock clock = new GameClock(new TimeControl("test", 60_000, 0), wheel, flagged::set);
+        clock.restore(40, 30_000, ChessPiece.PieceColor.WHITE);
+        Thread.sleep(150);
+
+        assertNull(flagged.get());
+        assertFalse(clock.recordMove(ChessPiece.PieceColor.WHITE));
+        clock.unpause();
+        Thread.sleep(250);
+        assertEquals(ChessPiece.PieceColor.WHITE, flagged.get());
+    }
+
+    @Test
+    public void unpausedClockStillFlags() throws InterruptedException {
+        GameClock clock = new GameClock(new TimeControl("test", 50, 0), wheel, flagged::set);
+        clock.start();
+        clock.pause();
+        clock.unpause();
+        Thread.sleep(300);
+
+        assertEquals(ChessPiece.PieceColor.WHITE, flagged.get());
+    }
+}
@@ -0,0 +1,115 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GameJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory() {
+        return folder.getRoot().toPath();
+    }
+
+    private Path shardFile() {
+        return directory().resolve("journal-0.log");
+    }
+
+    private List<GameJournal.RecoveredGame> reopen() throws IOException {
+        GameJournal journal = new GameJournal(directory(), 1);
+        try {
+            return journal.getRecoveredGames();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private void writeGames() throws IOException {
+        GameJournal journal = new GameJournal(directory(), 1);
+        journal.gameStarted("live", "blitz", "alice", "bob", "t1", "t2");
+        journal.moveMade("live", 1, "e2e4", new long[] {179_000, 180_000});
+        journal.moveMade("live", 2, "e7e5", new long[] {179_000, 178_500});
+        journal.gameStarted("done", "rapid", "carol", "dave", null, null);
+        journal.moveMade("done", 1, "d2d4", null);
+        journal.gameEnded("done", "1-0");
+        journal.close();
+    }
+
+    private void appendRaw(byte[] bytes) throws IOException {
+        Files.write(shardFile(), bytes, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void recoversOnlyUnfinishedGames() throws IOException {
+        writeGames();
+        List<GameJournal.RecoveredGame> games = reopen();
+
+        assertEquals(1, games.size());
+        GameJournal.RecoveredGame game = games.get(0);
+        assertEquals("live", game.getGameId());
+        assertEquals("blitz", game.getGameType());
+        assertEquals("alice", game.getWhitePlayer());
+        assertEquals("t2", game.getBlackToken());
+        assertEquals(Arrays.asList("e2e4", "e7e5"), game.getMoves());
+        assertArrayEquals(new long[] {179_000, 178_500}, game.getClock());
+    }
+
+    @Test
+    public void dropsATornRecordAtTheEnd() throws IOException {
+        writeGames();
+        // A header promising more bytes than the file holds
+        appendRaw(ByteBuffer.allocate(11).putInt(100).putInt(0).put(new byte[3]).array());
+
+        List<GameJournal.RecoveredGame> games = reopen();
+        assertEquals(1, games.size());
+        assertEquals(Arrays.asList("e2e4", "e7e5"), games.get(0).getMoves());
+    }
+
+    @Test
+    public void stopsAtARecordWithABadChecksum() throws IOException {
+        writeGames();
+        GameJournal journal = new GameJournal(directory(), 1);
+        journal.moveMade("live", 3, "g1f3", null);
+        journal.close();
+        byte[] data = Files.readAllBytes(shardFile());
+        // Corrupt the payload of the last record, the third move
+        data[data.length - 2] ^= 0x55;
+        Files.write(shardFile(), data);
+
+        List<GameJournal.RecoveredGame> games = reopen();
+        assertEquals(1, games.size());
+        assertEquals(Arrays.asList("e2e4", "e7e5"), games.get(0).getMoves());
+    }
+
+    @Test
+    public void compactionKeepsOnlyUnfinishedGames() throws IOException {
+        writeGames();
+        long before = Files.size(shardFile());
+        reopen();
+        long compacted = Files.size(shardFile());
+        assertTrue(compacted < before);
+
+        // Compacting again changes nothing, and new records still append after it
+        List<GameJournal.RecoveredGame> games = reopen();
+        assertEquals(compacted, Files.size(shardFile()));
+        assertEquals(1, games.size());
+
+        GameJournal journal = new GameJournal(directory(), 1);
+        journal.moveMade("live", 3, "g1f3", new long[] {177_000, 178_500});
+        journal.close();
+        assertEquals(Arrays.asList("e2e4", "e7e5", "g1f3"), reopen().get(0).getMoves());
+    }
+}
@@ -0,0 +1,85 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int value = 0; value < 16; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(16, histogram.getCount());
+        assertEquals(120, histogram.getSum());
+        assertEquals(15, histogram.getMax());
+        assertEquals(7, histogram.getPercentile(50));
+        assertEquals(15, histogram.getPercentile(100));
+        assertEquals(8, histogram.countAtOrBelow(7));
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketResolution() {
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long reported = histogram.getPercentile(percentile);
+            // Reported as the bucket's upper bound: never below, at most 1/16 above
+            assertTrue(percentile + ": " + reported + " vs " + exact,
+                    reported >= exact && reported <= exact + exact / 16 + 1);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[values.length - 1], histogram.getPercentile(100));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(1, histogram.countAtOrBelow(0));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() {
+        IntStream.range(0, 100_000).parallel().forEach(i -> histogram.record(i % 1000));
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100L * (999 * 1000 / 2), histogram.getSum());
+        assertEquals(999, histogram.getMax());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        histogram.record(123);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.countAtOrBelow(Long.MAX_VALUE));
+    }
+}
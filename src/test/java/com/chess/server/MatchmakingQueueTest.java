@@ -0,0 +1,87 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MatchmakingQueueTest {
+    private final List<String> matches = new ArrayList<>();
+    private final MatchmakingQueue<String> queue = new MatchmakingQueue<>(
+            (first, second, gameType) -> matches.add(first + "-" + second + "@" + gameType));
+
+    @Test
+    public void pairsCloseRatingsStraightAway() {
+        queue.enqueue("alice", 1500, "blitz");
+        queue.enqueue("bob", 1540, "blitz");
+
+        // Whoever waited longer comes first
+        assertEquals(Arrays.asList("alice-bob@blitz"), matches);
+        assertEquals(0, queue.size());
+        assertFalse(queue.isQueued("alice"));
+    }
+
+    @Test
+    public void keepsRatingsOutsideTheWindowWaiting() {
+        queue.enqueue("alice", 1500, "blitz");
+        queue.enqueue("bob", 1700, "blitz");
+
+        assertTrue(matches.isEmpty());
+        assertEquals(2, queue.size());
+        assertTrue(queue.isQueued("bob"));
+    }
+
+    @Test
+    public void onlyPairsWithinAGameType() {
+        queue.enqueue("alice", 1500, "blitz");
+        queue.enqueue("bob", 1500, "rapid");
+        queue.enqueue("carol", 1500, "rapid");
+
+        assertEquals(Arrays.asList("bob-carol@rapid"), matches);
+        assertEquals(1, (int) queue.queuedByGameType().get("blitz"));
+        assertEquals(0, (int) queue.queuedByGameType().get("rapid"));
+    }
+
+    @Test
+    public void cancelledPlayerIsNotMatched() {
+        queue.enqueue("alice", 1500, "blitz");
+        assertTrue(queue.cancel("alice"));
+        assertFalse(queue.cancel("alice"));
+        queue.enqueue("bob", 1500, "blitz");
+
+        assertTrue(matches.isEmpty());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void queueingAgainReplacesTheTicket() {
+        queue.enqueue("alice", 1500, "blitz");
+        queue.enqueue("alice", 2000, "blitz");
+        assertEquals(1, queue.size());
+
+        // Only the new rating counts
+        queue.enqueue("bob", 1500, "blitz");
+        assertTrue(matches.isEmpty());
+        queue.enqueue("carol", 2010, "blitz");
+        assertEquals(Arrays.asList("alice-carol@blitz"), matches);
+    }
+
+    @Test
+    public void sweepPairsOnceTheWindowsHaveWidened() throws InterruptedException {
+        queue.enqueue("alice", 1500, "blitz");
+        queue.enqueue("bob", 1600, "blitz");
+        queue.sweep();
+        assertTrue(matches.isEmpty());
+
+        // Both windows grow from 50 to 100 points in two seconds
+        Thread.sleep(2100);
+        queue.sweep();
+        assertEquals(Arrays.asList("alice-bob@blitz"), matches);
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chess.engine.Move;
+import com.chess.engine.Position;
+
+public class OpeningExplorerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static int gameCount;
+
+    private static ArchivedGame game(ArchivedGame.Result result, String... moves) {
+        gameCount++;
+        return ArchivedGame.fromUci("game-" + gameCount, "white", "black", "blitz", result, null,
+                1_700_000_000_000L + gameCount, Arrays.asList(moves));
+    }
+
+    private static Position after(String... moves) {
+        Position position = new Position();
+        for (String uci : moves) {
+            position.makeMove(Move.fromUci(uci, position));
+        }
+        return position;
+    }
+
+    // Each move as "uci white/draws/black", most played first
+    private static String describe(List<OpeningExplorer.MoveStats> stats) {
+        StringBuilder out = new StringBuilder();
+        for (OpeningExplorer.MoveStats move : stats) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(Move.toUci(move.getMove())).append(' ').append(move.getWhiteWins()).append('/')
+               .append(move.getDraws()).append('/').append(move.getBlackWins());
+        }
+        return out.toString();
+    }
+
+    private static void addSampleGames(OpeningExplorer explorer) throws IOException {
+        explorer.addGame(game(ArchivedGame.Result.WHITE_WINS, "e2e4", "e7e5", "g1f3"));
+        explorer.addGame(game(ArchivedGame.Result.DRAW, "e2e4", "c7c5"));
+        explorer.addGame(game(ArchivedGame.Result.BLACK_WINS, "d2d4", "d7d5"));
+        explorer.addGame(game(ArchivedGame.Result.WHITE_WINS, "e2e4", "e7e5", "f1c4"));
+    }
+
+    @Test
+    public void countsResultsPerMove() throws IOException {
+        OpeningExplorer explorer = new OpeningExplorer(folder.getRoot().toPath().resolve("explorer.bin"));
+        addSampleGames(explorer);
+
+        assertEquals("e2e4 2/1/0, d2d4 0/0/1", describe(explorer.query(new Position())));
+        assertEquals("e7e5 2/0/0, c7c5 0/1/0", describe(explorer.query(after("e2e4"))));
+        assertEquals("f1c4 1/0/0, g1f3 1/0/0", describe(explorer.query(after("e2e4", "e7e5"))));
+        assertTrue(explorer.query(after("a2a3")).isEmpty());
+        assertEquals(4, explorer.getGameCount());
+    }
+
+    @Test
+    public void unfinishedGamesAreCoveredButNotCounted() throws IOException {
+        OpeningExplorer explorer = new OpeningExplorer(folder.getRoot().toPath().resolve("explorer.bin"));
+        explorer.addGame(game(ArchivedGame.Result.UNKNOWN, "e2e4"));
+
+        assertTrue(explorer.query(new Position()).isEmpty());
+        assertEquals(1, explorer.getGameCount());
+    }
+
+    @Test
+    public void stopsAtTheMaximumPly() throws IOException {
+        OpeningExplorer explorer = new OpeningExplorer(folder.getRoot().toPath().resolve("explorer.bin"), 2);
+        explorer.addGame(game(ArchivedGame.Result.WHITE_WINS, "e2e4", "e7e5", "g1f3"));
+
+        assertEquals("e7e5 1/0/0", describe(explorer.query(after("e2e4"))));
+        assertTrue(explorer.query(after("e2e4", "e7e5")).isEmpty());
+    }
+
+    @Test
+    public void mergedTableAndDeltaAddUp() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("explorer.bin");
+        OpeningExplorer explorer = new OpeningExplorer(file);
+        addSampleGames(explorer);
+        explorer.merge();
+        explorer.addGame(game(ArchivedGame.Result.BLACK_WINS, "e2e4", "e7e5"));
+
+        assertEquals("e2e4 2/1/1, d2d4 0/0/1", describe(explorer.query(new Position())));
+
+        // Only the merged games survive a restart; the last one is left for catchUp
+        OpeningExplorer reopened = new OpeningExplorer(file);
+        assertEquals(4, reopened.getGameCount());
+        assertEquals("e2e4 2/1/0, d2d4 0/0/1", describe(reopened.query(new Position())));
+        assertEquals("e7e5 2/0/0, c7c5 0/1/0", describe(reopened.query(after("e2e4"))));
+    }
+
+    @Test
+    public void catchUpAddsOnlyTheGamesNotCoveredYet() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (GameArchive archive = new GameArchive(directory.resolve("archive"))) {
+            archive.append(game(ArchivedGame.Result.WHITE_WINS, "e2e4", "e7e5"));
+            archive.append(game(ArchivedGame.Result.DRAW, "d2d4", "d7d5"));
+
+            OpeningExplorer explorer = new OpeningExplorer(directory.resolve("explorer.bin"));
+            explorer.catchUp(archive);
+            explorer.catchUp(archive);
+            assertEquals(2, explorer.getGameCount());
+            explorer.merge();
+
+            archive.append(game(ArchivedGame.Result.BLACK_WINS, "e2e4", "c7c5"));
+            OpeningExplorer reopened = new OpeningExplorer(directory.resolve("explorer.bin"));
+            reopened.catchUp(archive);
+            assertEquals(3, reopened.getGameCount());
+            assertEquals("e2e4 1/0/1, d2d4 0/1/0", describe(reopened.query(new Position())));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PgnTest {
+
+    private static String write(ArchivedGame game) throws IOException {
+        StringBuilder out = new StringBuilder();
+        PgnWriter.write(game, out);
+        return out.toString();
+    }
+
+    @Test
+    public void writtenGamesReadBackUnchanged() throws IOException {
+        // En passant, a capture that needs the piece letter, and castling on both sides
+        ArchivedGame game = ArchivedGame.fromUci("id-1", "alice", "bob", "blitz",
+                ArchivedGame.Result.WHITE_WINS, "resignation", 1_700_000_000_000L,
+                Arrays.asList("e2e4", "d7d5", "e4e5", "f7f5", "e5f6", "g8f6", "g1f3", "e7e6",
+                        "f1e2", "f8e7", "e1g1", "e8g8", "d2d4", "c7c5"));
+        String pgn = write(game);
+        assertTrue(pgn, pgn.contains("3. exf6 Nxf6") && pgn.contains("6. O-O O-O"));
+
+        ArchivedGame parsed = PgnReader.parse(pgn);
+        assertNotNull(parsed);
+        assertEquals(game.getGameId(), parsed.getGameId());
+        assertEquals(game.getWhitePlayer(), parsed.getWhitePlayer());
+        assertEquals(game.getBlackPlayer(), parsed.getBlackPlayer());
+        assertEquals(game.getGameType(), parsed.getGameType());
+        assertEquals(game.getResult(), parsed.getResult());
+        assertEquals(game.getTermination(), parsed.getTermination());
+        assertEquals(game.getUciMoves(), parsed.getUciMoves());
+        assertEquals(pgn, write(parsed));
+    }
+
+    @Test
+    public void readsCommentsVariationsAndGluedMoveNumbers() throws IOException {
+        String text = "[Event \"Casual\"]\n[White \"x\"]\n[Black \"y\"]\n[Result \"0-1\"]\n[TimeControl \"60+0\"]\n\n"
+                + "1.f3 {a poor start} e5 2.g4?? (2. e4 Nc6) 2...Qh4# $4 0-1\n";
+        ArchivedGame game = PgnReader.parse(text);
+        assertNotNull(game);
+        assertEquals(Arrays.asList("f2f3", "e7e5", "g2g4", "d8h4"), game.getUciMoves());
+        assertEquals(ArchivedGame.Result.BLACK_WINS, game.getResult());
+        assertEquals("bullet", game.getGameType());
+        assertNull(PgnReader.parse("1. e4 e5 2. Ke3 *"));
+    }
+
+    @Test
+    public void splitsAStreamIntoGames() throws IOException {
+        ArchivedGame first = ArchivedGame.fromUci("a", "p", "q", "rapid", ArchivedGame.Result.DRAW, null, 0,
+                Arrays.asList("d2d4", "d7d5"));
+        ArchivedGame second = ArchivedGame.fromUci("b", "q", "p", "rapid", ArchivedGame.Result.UNKNOWN, null, 0,
+                Arrays.asList("c2c4"));
+        try (PgnReader reader = new PgnReader(new StringReader(write(first) + write(second)))) {
+            assertEquals("a", PgnReader.parse(reader.nextGame()).getGameId());
+            assertEquals("b", PgnReader.parse(reader.nextGame()).getGameId());
+            assertNull(reader.nextGame());
+        }
+    }
+}
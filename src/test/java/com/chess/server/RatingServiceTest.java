@@ -0,0 +1,87 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RatingServiceTest {
+    private final RatingService ratings = new RatingService();
+
+    /**
+     * The worked example from Glickman's "Example of the Glicko-2 system": a
+     * 1500/200 player beats a 1400/30 player and loses to 1550/100 and
+     * 1700/300 in one rating period, with tau 0.5.
+     */
+    @Test
+    public void ratingPeriodMatchesGlickmansExample() {
+        ratings.setPlayer("player", 1500, 200, 0.06);
+        ratings.setPlayer("a", 1400, 30, 0.06);
+        ratings.setPlayer("b", 1550, 100, 0.06);
+        ratings.setPlayer("c", 1700, 300, 0.06);
+        ratings.recordResult("player", "a", 1);
+        ratings.recordResult("b", "player", 1);
+        ratings.recordResult("player", "c", 0);
+
+        ratings.closeRatingPeriod();
+
+        assertEquals(1464.06, ratings.getRating("player"), 0.01);
+        assertEquals(151.52, ratings.getDeviation("player"), 0.01);
+    }
+
+    @Test
+    public void resultIsAppliedStraightAway() {
+        ratings.recordResult("alice", "bob", 1);
+
+        double alice = ratings.getRating("alice");
+        double bob = ratings.getRating("bob");
+        assertTrue(alice > RatingService.DEFAULT_RATING);
+        assertEquals(RatingService.DEFAULT_RATING - bob, alice - RatingService.DEFAULT_RATING, 1e-6);
+        assertTrue(ratings.getDeviation("alice") < RatingService.DEFAULT_DEVIATION);
+        assertEquals(2, ratings.getPlayerCount());
+    }
+
+    @Test
+    public void drawBetweenEqualsKeepsTheRating() {
+        ratings.recordResult("alice", "bob", 0.5);
+
+        assertEquals(RatingService.DEFAULT_RATING, ratings.getRating("alice"), 1e-6);
+        assertEquals(RatingService.DEFAULT_RATING, ratings.getRating("bob"), 1e-6);
+    }
+
+    @Test
+    public void unknownAndSelfPlayAreIgnored() {
+        ratings.recordResult("alice", "alice", 1);
+        ratings.recordResult(null, "bob", 1);
+
+        assertEquals(0, ratings.getPlayerCount());
+        assertEquals(RatingService.DEFAULT_RATING, ratings.getRating("alice"), 0);
+        assertEquals(RatingService.DEFAULT_DEVIATION, ratings.getDeviation("nobody"), 0);
+    }
+
+    @Test
+    public void idlePlayerOnlyGainsDeviation() {
+        ratings.setPlayer("idle", 1800, 200, 0.06);
+        ratings.recordResult("alice", "bob", 1);
+
+        ratings.closeRatingPeriod();
+
+        assertEquals(1800, ratings.getRating("idle"), 0);
+        // sqrt(phi^2 + sigma^2) on the Glicko-2 scale
+        assertEquals(Math.sqrt(200 * 200 + Math.pow(0.06 * 173.7178, 2)), ratings.getDeviation("idle"), 1e-6);
+    }
+
+    @Test
+    public void closingThePeriodUsesItsStartingRatings() {
+        // Applied one game at a time, the second game sees alice's raised
+        // rating; the period recomputes both games from the start values
+        ratings.recordResult("alice", "bob", 1);
+        ratings.recordResult("alice", "carol", 1);
+        double immediate = ratings.getRating("alice");
+
+        ratings.closeRatingPeriod();
+
+        assertTrue(ratings.getRating("alice") > RatingService.DEFAULT_RATING);
+        assertTrue(Math.abs(ratings.getRating("alice") - immediate) > 0.01);
+    }
+}
@@ -0,0 +1,84 @@
+package com.chess.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TimerWheelTest {
+    // 8 buckets of 5 ms: one rotation is 40 ms, so most delays below take several rounds
+    private final TimerWheel wheel = new TimerWheel(5, 8, Runnable::run);
+
+    @After
+    public void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    public void firesNoEarlierThanTheDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsed = new long[1];
+        wheel.schedule(100, () -> {
+            elapsed[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            fired.countDown();
+        });
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue("fired after " + elapsed[0] + " ms", elapsed[0] >= 100);
+    }
+
+    @Test
+    public void firesInDeadlineOrder() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch fired = new CountDownLatch(3);
+        for (int delay : new int[] {130, 10, 70}) {
+            wheel.schedule(delay, () -> {
+                order.add(delay);
+                fired.countDown();
+            });
+        }
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(10, 70, 130), order);
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        AtomicBoolean fired = new AtomicBoolean();
+        TimerWheel.Timeout timeout = wheel.schedule(50, () -> fired.set(true));
+        timeout.cancel();
+        Thread.sleep(200);
+
+        assertTrue(timeout.isCancelled());
+        assertFalse(fired.get());
+    }
+
+    @Test
+    public void negativeDelayFiresOnTheNextTick() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(-1000, fired::countDown);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stoppedWheelFiresNothing() throws InterruptedException {
+        AtomicBoolean fired = new AtomicBoolean();
+        wheel.schedule(20, () -> fired.set(true));
+        wheel.stop();
+        Thread.sleep(100);
+
+        assertFalse(fired.get());
+    }
+}